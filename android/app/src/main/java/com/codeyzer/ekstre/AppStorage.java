@@ -0,0 +1,90 @@
+package com.codeyzer.ekstre;
+
+import android.content.Context;
+import android.net.Uri;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Resolves file paths coming from JS and keeps native file access inside the app's own
+ * storage directories (the ones Capacitor's Filesystem plugin writes to). The plugins' own stores
+ * under those directories are off limits, so a JS path can neither read nor overwrite them.
+ */
+public final class AppStorage {
+
+    // getFilesDir() altındaki eklenti depoları
+    static final String SECURE_KV_DIR = "secure-kv";
+    static final String CALENDAR_QUEUE_DIR = "calendar_queue";
+    static final String GOOGLE_ACCOUNTS_DIR = "google_accounts";
+    private static final String[] PRIVATE_FILES_DIRS = {SECURE_KV_DIR, CALENDAR_QUEUE_DIR, GOOGLE_ACCOUNTS_DIR};
+    // getCacheDir() altındaki eklenti dizinleri
+    static final String PDF_SCRATCH_DIR = "pdf-scratch";
+    static final String PDF_TEXT_CACHE_DIR = "pdf-text-cache";
+    private static final String[] PRIVATE_CACHE_DIRS = {PDF_SCRATCH_DIR, PDF_TEXT_CACHE_DIR};
+
+    private AppStorage() {
+    }
+
+    public static File resolve(Context context, String path) throws IOException {
+        if (path == null || path.isEmpty()) {
+            throw new IOException("Missing file path");
+        }
+        String filePath = path.startsWith("file://") ? Uri.parse(path).getPath() : path;
+        if (filePath == null) {
+            throw new IOException("Invalid file path: " + path);
+        }
+        File file = new File(filePath).getCanonicalFile();
+        if (isPrivate(file, context.getFilesDir(), PRIVATE_FILES_DIRS)
+                || isPrivate(file, context.getCacheDir(), PRIVATE_CACHE_DIRS)) {
+            throw new IOException("Path is inside a plugin's private store: " + path);
+        }
+        File[] roots = {
+                context.getFilesDir(),
+                context.getCacheDir(),
+                context.getExternalFilesDir(null),
+                context.getExternalCacheDir()
+        };
+        for (File root : roots) {
+            if (root != null && isInside(file, root.getCanonicalFile())) {
+                return file;
+            }
+        }
+        throw new IOException("Path is outside app storage: " + path);
+    }
+
+    /** A plugin store under the files dir (one of the {@code *_DIR} names above); not created here. */
+    static File privateDir(Context context, String name) {
+        return new File(context.getFilesDir(), name);
+    }
+
+    /** Returns (and creates if needed) a named scratch directory under the cache dir. */
+    public static File scratchDir(Context context, String name) throws IOException {
+        File dir = new File(context.getCacheDir(), name);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create scratch directory: " + dir);
+        }
+        return dir;
+    }
+
+    private static boolean isPrivate(File file, File root, String[] names) throws IOException {
+        if (root == null) {
+            return false;
+        }
+        for (String name : names) {
+            if (isInside(file, new File(root, name).getCanonicalFile())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isInside(File file, File root) {
+        for (File current = file; current != null; current = current.getParentFile()) {
+            if (current.equals(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
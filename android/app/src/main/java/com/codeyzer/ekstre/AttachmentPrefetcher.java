@@ -0,0 +1,444 @@
+package com.codeyzer.ekstre;
+
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.google.api.services.gmail.Gmail;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+
+/**
+ * Gmail attachment prefetching: when a fetched message's part tree holds a PDF attachment from a
+ * configured sender, its download starts on a background executor before the JS side has parsed
+ * the message and called getGmailAttachment. The following {@link #take} is served from memory, or
+ * joins the download that is still running.
+ *
+ * Attachments are kept in memory only, in an LRU bounded by a total of {@code maxBytes}; statement
+ * PDFs are never written to disk in plain text. Attachments dropped without ever being used count
+ * as wasted bytes. The cache is registered with {@link MemoryBudget} at the lowest priority: it is
+ * the first one emptied under memory pressure, and it starts no new prefetches while pressure lasts.
+ * Downloads go through the Gmail {@link CircuitBreaker}: nothing is prefetched unless the circuit is
+ * closed, and every download's outcome is recorded like any other Gmail call.
+ */
+final class AttachmentPrefetcher implements MemoryBudget.Cache {
+
+    private static final String TAG = "AttachmentPrefetcher";
+    static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    static final long DEFAULT_TTL_MILLIS = 10 * 60_000L;
+
+    private final Executor executor;
+    private final CircuitBreaker breaker;
+    private final LongSupplier clock;
+    private final long ttlMillis;
+
+    private volatile boolean enabled;
+    private volatile Set<String> senders = Collections.emptySet();
+    private volatile long maxBytes = DEFAULT_MAX_BYTES;
+
+    // Erişim sıralı: en eski kullanılan önce düşer
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    private long prefetched;
+    private long prefetchedBytes;
+    private long failures;
+    private long circuitSkipped;
+    private long hits;
+    private long joined;
+    private long misses;
+    private long usefulBytes;
+    private long wasted;
+    private long wastedBytes;
+    private long evicted;
+    private long evictedBytes;
+    private long pressureEvicted;
+    private long pressureEvictedBytes;
+
+    AttachmentPrefetcher(Executor executor, CircuitBreaker breaker) {
+        this(executor, breaker, System::currentTimeMillis, DEFAULT_TTL_MILLIS);
+    }
+
+    AttachmentPrefetcher(Executor executor, CircuitBreaker breaker, LongSupplier clock, long ttlMillis) {
+        this.executor = executor;
+        this.breaker = breaker;
+        this.clock = clock;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /** {@code senders}: addresses in the From header (case-insensitive); nothing is prefetched when empty. */
+    void configure(boolean enabled, Collection<String> senders, long maxBytes) {
+        Set<String> normalized = new HashSet<>();
+        for (String sender : senders) {
+            if (sender != null && !sender.trim().isEmpty()) {
+                normalized.add(sender.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.senders = Collections.unmodifiableSet(normalized);
+        this.maxBytes = maxBytes > 0 ? maxBytes : DEFAULT_MAX_BYTES;
+        this.enabled = enabled;
+        synchronized (this) {
+            if (!enabled) {
+                evictAll(null);
+            } else {
+                trim();
+            }
+        }
+    }
+
+    /** Starts downloading the matching PDF attachments of a fetched message; the message is not modified. */
+    void offer(String account, Gmail gmail, JSONObject message) {
+        if (!enabled || senders.isEmpty() || message == null || MemoryBudget.underPressure()) {
+            return;
+        }
+        JSONObject payload = message.optJSONObject("payload");
+        String messageId = message.optString("id", null);
+        if (payload == null || messageId == null || !senders.contains(senderAddress(payload))) {
+            return;
+        }
+        // Açık ya da deneme bekleyen devrede spekülatif istek yapılmaz; half-open denemesi kullanıcının isteğine kalır
+        if (breaker.state() != CircuitBreaker.State.CLOSED) {
+            synchronized (this) {
+                circuitSkipped++;
+            }
+            return;
+        }
+        addPdfParts(account, gmail, messageId, payload);
+    }
+
+    private void addPdfParts(String account, Gmail gmail, String messageId, JSONObject part) {
+        JSONObject body = part.optJSONObject("body");
+        String attachmentId = body != null ? body.optString("attachmentId", null) : null;
+        if (attachmentId != null && isPdf(part) && body.optLong("size") <= maxBytes) {
+            schedule(key(account, messageId, attachmentId), gmail, messageId, attachmentId);
+        }
+        JSONArray parts = part.optJSONArray("parts");
+        if (parts != null) {
+            for (int i = 0; i < parts.length(); i++) {
+                JSONObject child = parts.optJSONObject(i);
+                if (child != null) {
+                    addPdfParts(account, gmail, messageId, child);
+                }
+            }
+        }
+    }
+
+    private void schedule(String key, Gmail gmail, String messageId, String attachmentId) {
+        Entry entry;
+        synchronized (this) {
+            expire();
+            if (entries.containsKey(key)) {
+                return;
+            }
+            entry = new Entry(key, gmail, messageId, attachmentId, clock.getAsLong());
+            entries.put(key, entry);
+        }
+        try {
+            executor.execute(entry);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * The prefetched attachment, or null when there was no prefetch or it failed. A download still
+     * waiting in the queue runs right away on the caller's thread, and one in progress is waited for;
+     * both take less time than a new request.
+     */
+    JSObject take(String account, String messageId, String attachmentId) {
+        String key = key(account, messageId, attachmentId);
+        Entry entry;
+        synchronized (this) {
+            expire();
+            entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+        }
+        boolean wasDone = entry.isDone();
+        entry.run();
+        String json;
+        try {
+            json = entry.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            // Başarısız ya da bu arada düşürülmüş: normal istek yapılır
+            synchronized (this) {
+                misses++;
+            }
+            return null;
+        }
+        synchronized (this) {
+            hits++;
+            if (!wasDone) {
+                joined++;
+            }
+            if (!entry.used) {
+                entry.used = true;
+                usefulBytes += entry.bytes;
+            }
+        }
+        try {
+            return new JSObject(json);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    /** When an account is removed: that account's attachments. */
+    synchronized void forgetAccount(String account) {
+        evictAll(normalize(account) + "/");
+    }
+
+    /** On sign-out: every attachment. */
+    synchronized void clear() {
+        evictAll(null);
+    }
+
+    synchronized JSObject stats() {
+        JSObject stats = new JSObject();
+        stats.put("enabled", enabled);
+        stats.put("senders", senders.size());
+        stats.put("entries", entries.size());
+        stats.put("bytes", cachedBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("prefetched", prefetched);
+        stats.put("prefetchedBytes", prefetchedBytes);
+        stats.put("failures", failures);
+        stats.put("circuitSkipped", circuitSkipped);
+        stats.put("hits", hits);
+        // İndirme bitmeden gelen istekler: bekleme yine de yeni bir istekten kısa
+        stats.put("joinedInFlight", joined);
+        stats.put("misses", misses);
+        stats.put("usefulBytes", usefulBytes);
+        stats.put("wasted", wasted);
+        stats.put("wastedBytes", wastedBytes);
+        // Kendi sınırları (maxBytes, TTL) ile bellek baskısı ayrı sayılır
+        stats.put("evicted", evicted);
+        stats.put("evictedBytes", evictedBytes);
+        stats.put("pressureEvicted", pressureEvicted);
+        stats.put("pressureEvictedBytes", pressureEvictedBytes);
+        long requests = hits + misses;
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hits / requests);
+        return stats;
+    }
+
+    private synchronized void completed(Entry entry, long bytes, Exception error) {
+        if (entries.get(entry.key) != entry) {
+            return; // Bu arada düşürüldü
+        }
+        if (error != null) {
+            failures++;
+            entries.remove(entry.key);
+            Log.d(TAG, "Prefetch of attachment " + entry.attachmentId + " failed: " + error.getMessage());
+            return;
+        }
+        entry.bytes = bytes;
+        cachedBytes += entry.bytes;
+        prefetched++;
+        prefetchedBytes += entry.bytes;
+        trim();
+    }
+
+    @Override
+    public synchronized long sizeBytes() {
+        return cachedBytes;
+    }
+
+    /** Memory pressure: drops least recently used entries first; with 0, downloads in progress are cancelled too. */
+    @Override
+    public synchronized long trimTo(long targetBytes) {
+        long before = cachedBytes;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext() && (cachedBytes > targetBytes || targetBytes == 0)) {
+            Entry entry = it.next();
+            if (entry.isDone() || targetBytes == 0) {
+                it.remove();
+                entry.cancel(false);
+                if (entry.bytes > 0) {
+                    pressureEvicted++;
+                    pressureEvictedBytes += entry.bytes;
+                }
+                dropped(entry);
+            }
+        }
+        return before - cachedBytes;
+    }
+
+    @Override
+    public synchronized long lruEvictedBytes() {
+        return evictedBytes;
+    }
+
+    // En eski kullanılan tamamlanmış girdilerden başlayarak bütçeye iner
+    private void trim() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (cachedBytes > maxBytes && it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.isDone()) {
+                it.remove();
+                evicted(entry);
+            }
+        }
+    }
+
+    private void expire() {
+        long now = clock.getAsLong();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.isDone() && now - entry.createdAt > ttlMillis) {
+                it.remove();
+                evicted(entry);
+            }
+        }
+    }
+
+    private void evictAll(String prefix) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (prefix == null || entry.key.startsWith(prefix)) {
+                it.remove();
+                entry.cancel(false);
+                dropped(entry);
+            }
+        }
+    }
+
+    private void evicted(Entry entry) {
+        if (entry.bytes > 0) {
+            evicted++;
+            evictedBytes += entry.bytes;
+        }
+        dropped(entry);
+    }
+
+    private void dropped(Entry entry) {
+        cachedBytes -= entry.bytes;
+        if (!entry.used && entry.bytes > 0) {
+            wasted++;
+            wastedBytes += entry.bytes;
+        }
+    }
+
+    // "Banka Adı <ekstre@banka.com.tr>" → ekstre@banka.com.tr
+    static String senderAddress(JSONObject payload) {
+        JSONArray headers = payload.optJSONArray("headers");
+        if (headers == null) {
+            return "";
+        }
+        for (int i = 0; i < headers.length(); i++) {
+            JSONObject header = headers.optJSONObject(i);
+            if (header != null && "From".equalsIgnoreCase(header.optString("name"))) {
+                String value = header.optString("value", "");
+                int open = value.lastIndexOf('<');
+                int close = value.lastIndexOf('>');
+                if (open >= 0 && close > open) {
+                    value = value.substring(open + 1, close);
+                }
+                return value.trim().toLowerCase(Locale.ROOT);
+            }
+        }
+        return "";
+    }
+
+    // İş Bankası PDF'i application/octet-stream olarak gönderiyor; dosya adına da bakılır
+    private static boolean isPdf(JSONObject part) {
+        return "application/pdf".equalsIgnoreCase(part.optString("mimeType"))
+                || part.optString("filename").toLowerCase(Locale.ROOT).endsWith(".pdf");
+    }
+
+    private static String key(String account, String messageId, String attachmentId) {
+        return normalize(account) + "/" + messageId + "/" + attachmentId;
+    }
+
+    /** UTF-8 size of {@code text} without encoding a copy of it. */
+    static long utf8Length(String text) {
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static String normalize(String account) {
+        return account == null ? "" : GoogleAccountRegistry.normalize(account);
+    }
+
+    private String download(Gmail gmail, String messageId, String attachmentId) throws Exception {
+        if (!breaker.tryAcquire()) {
+            throw new IOException("Gmail circuit is open; prefetch skipped");
+        }
+        try {
+            String json = GoogleGmailHandler.attachment(gmail, messageId, attachmentId).toString();
+            breaker.record(null);
+            return json;
+        } catch (Exception e) {
+            breaker.record(e);
+            throw e;
+        }
+    }
+
+    /** Download of a single attachment; being a FutureTask, {@link #take} can run it early while it is still queued. */
+    private final class Entry extends FutureTask<String> {
+        final String key;
+        final String attachmentId;
+        final long createdAt;
+        long bytes;
+        boolean used;
+
+        Entry(String key, Gmail gmail, String messageId, String attachmentId, long createdAt) {
+            super(() -> download(gmail, messageId, attachmentId));
+            this.key = key;
+            this.attachmentId = attachmentId;
+            this.createdAt = createdAt;
+        }
+
+        @Override
+        protected void set(String json) {
+            super.set(json);
+            // Boyut kilit dışında hesaplanır; ek gövdesi megabaytlarca olabilir
+            completed(this, utf8Length(json), null);
+            // Kilit dışında: bütçe diğer önbellekleri de küçültebilir
+            MemoryBudget.enforce();
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            super.setException(t);
+            completed(this, 0, t instanceof Exception ? (Exception) t : new Exception(t));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.codeyzer.ekstre;
+
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent queue for Calendar writes (event inserts and patches) made while offline.
+ *
+ * Each entry is a separate key in an {@link EncryptedKvStore}, so statement summaries are encrypted
+ * on disk and adding or removing an entry is a single atomic record. Every entry belongs to the
+ * Google account that made the write and is only ever sent with that account's credentials.
+ * Inserted events carry a fixed id derived from their content: if the same event is queued twice,
+ * or a flush is interrupted and repeated, Google answers 409 and the entry counts as done. The
+ * store is opened on first use; calls must come from a single executor, and {@code compactor}
+ * should be that executor so compaction runs after the current call instead of inside it.
+ */
+final class CalendarWriteQueue implements Closeable {
+
+    static final String INSERT = "insert";
+    static final String PATCH = "patch";
+    static final int MAX_ENTRIES = 500;
+    private static final String TAG = "CalendarWriteQueue";
+    private static final String KEY_PREFIX = "calendar/";
+
+    private final File dir;
+    private final EncryptedKvStore.CryptoSource cryptoSource;
+    private final Executor compactor;
+    private final AtomicLong sequence = new AtomicLong();
+    private EncryptedKvStore store;
+
+    CalendarWriteQueue(File dir, EncryptedKvStore.CryptoSource cryptoSource, Executor compactor) {
+        this.dir = dir;
+        this.cryptoSource = cryptoSource;
+        this.compactor = compactor;
+    }
+
+    synchronized JSObject enqueueInsert(String account, String summary, String description, String startTimeIso,
+                                        String endTimeIso, String timeZone)
+            throws IOException, GeneralSecurityException, JSONException {
+        JSONObject entry = newEntry(account, INSERT);
+        entry.put("eventId", eventIdFor(summary, description, startTimeIso, endTimeIso));
+        entry.put("summary", summary);
+        entry.put("description", description);
+        entry.put("startTimeIso", startTimeIso);
+        entry.put("endTimeIso", endTimeIso);
+        entry.put("timeZone", timeZone);
+        return put(entry);
+    }
+
+    synchronized JSObject enqueuePatch(String account, String eventId, String summary, String description)
+            throws IOException, GeneralSecurityException, JSONException {
+        JSONObject entry = newEntry(account, PATCH);
+        entry.put("eventId", eventId);
+        if (summary != null) {
+            entry.put("summary", summary);
+        }
+        if (description != null) {
+            entry.put("description", description);
+        }
+        JSObject result = put(entry);
+        // Güncelleme henüz uygulanmadı; flush sonrası 'calendarQueueFlushed' ile bildirilir
+        result.put("updated", false);
+        return result;
+    }
+
+    /** The account's entries in the order they were queued. */
+    synchronized List<JSONObject> pending(String account) throws IOException, GeneralSecurityException, JSONException {
+        String owner = GoogleAccountRegistry.normalize(account);
+        EncryptedKvStore kv = store();
+        List<JSONObject> entries = new ArrayList<>();
+        for (String key : kv.keys()) {
+            if (key.startsWith(KEY_PREFIX)) {
+                JSONObject entry = new JSONObject(kv.get(key));
+                if (owner.equals(entry.optString("account"))) {
+                    entries.add(entry);
+                }
+            }
+        }
+        entries.sort((a, b) -> {
+            int byTime = Long.compare(a.optLong("queuedAt"), b.optLong("queuedAt"));
+            return byTime != 0 ? byTime : Long.compare(a.optLong("seq"), b.optLong("seq"));
+        });
+        return entries;
+    }
+
+    synchronized void remove(Collection<String> queueIds) throws IOException, GeneralSecurityException {
+        if (queueIds.isEmpty()) {
+            return;
+        }
+        List<EncryptedKvStore.Op> ops = new ArrayList<>(queueIds.size());
+        for (String queueId : queueIds) {
+            ops.add(EncryptedKvStore.Op.delete(KEY_PREFIX + queueId));
+        }
+        EncryptedKvStore kv = store();
+        kv.apply(ops);
+        if (kv.needsCompaction()) {
+            compactor.execute(() -> compact(false));
+        }
+    }
+
+    synchronized int size(String account) throws IOException, GeneralSecurityException, JSONException {
+        return pending(account).size();
+    }
+
+    /** On sign-out: every account's entries, so nothing is replayed after a different user signs in. */
+    synchronized void clear() throws IOException, GeneralSecurityException {
+        EncryptedKvStore kv = store();
+        List<EncryptedKvStore.Op> ops = new ArrayList<>();
+        for (String key : kv.keys()) {
+            if (key.startsWith(KEY_PREFIX)) {
+                ops.add(EncryptedKvStore.Op.delete(key));
+            }
+        }
+        if (ops.isEmpty()) {
+            return;
+        }
+        kv.apply(ops);
+        // Silinen özetler şifreli de olsa logda kalmasın; boyut eşiği beklenmez
+        compactor.execute(() -> compact(true));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (store != null) {
+            store.close();
+            store = null;
+        }
+    }
+
+    private synchronized void compact(boolean always) {
+        try {
+            if (store != null && (always || store.needsCompaction())) {
+                store.compact();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Calendar queue compaction failed", e);
+        }
+    }
+
+    private JSONObject newEntry(String account, String op) throws JSONException {
+        if (account == null || account.trim().isEmpty()) {
+            throw new IllegalArgumentException("Account email is required to queue a calendar write");
+        }
+        long now = System.currentTimeMillis();
+        long seq = sequence.incrementAndGet();
+        JSONObject entry = new JSONObject();
+        entry.put("queueId", Long.toString(now, 36) + "-" + seq);
+        entry.put("account", GoogleAccountRegistry.normalize(account));
+        entry.put("op", op);
+        entry.put("queuedAt", now);
+        entry.put("seq", seq);
+        return entry;
+    }
+
+    private JSObject put(JSONObject entry) throws IOException, GeneralSecurityException, JSONException {
+        EncryptedKvStore kv = store();
+        if (kv.size() >= MAX_ENTRIES) {
+            throw new IOException("Calendar write queue is full (" + MAX_ENTRIES + " entries)");
+        }
+        String queueId = entry.getString("queueId");
+        kv.apply(Collections.singletonList(EncryptedKvStore.Op.put(KEY_PREFIX + queueId, entry.toString())));
+
+        JSObject result = new JSObject();
+        result.put("id", entry.getString("eventId"));
+        result.put("summary", entry.optString("summary", null));
+        result.put("queued", true);
+        result.put("queueId", queueId);
+        result.put("pending", size(entry.getString("account")));
+        return result;
+    }
+
+    private EncryptedKvStore store() throws IOException, GeneralSecurityException {
+        if (store == null) {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Could not create queue directory: " + dir);
+            }
+            store = EncryptedKvStore.open(dir, cryptoSource.get());
+        }
+        return store;
+    }
+
+    /**
+     * Event id derived from the content, in the alphabet Calendar accepts (base32hex: 0-9, a-v);
+     * hex is a subset of it.
+     */
+    static String eventIdFor(String summary, String description, String startTimeIso, String endTimeIso) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{summary, description, startTimeIso, endTimeIso}) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            byte[] hash = digest.digest();
+            StringBuilder id = new StringBuilder("ekq");
+            for (int i = 0; i < 16; i++) {
+                id.append(Character.forDigit((hash[i] >> 4) & 0xf, 16)).append(Character.forDigit(hash[i] & 0xf, 16));
+            }
+            return id.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
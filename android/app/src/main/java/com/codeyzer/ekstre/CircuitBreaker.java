@@ -0,0 +1,204 @@
+package com.codeyzer.ekstre;
+
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.google.api.client.googleapis.extensions.android.gms.auth.GoogleAuthIOException;
+import com.google.api.client.http.HttpResponseException;
+
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for one Google API (Gmail, Calendar).
+ *
+ * After {@code failureThreshold} consecutive network failures (connect errors, timeouts, 5xx, 429)
+ * the circuit opens and calls are rejected without touching the network. When the open window has
+ * passed a single probe call is let through (half-open); if it succeeds the circuit closes, if it
+ * fails the circuit reopens with the window doubled. 4xx responses and authorization errors show
+ * that the server was reached and count as successes.
+ *
+ * Connectivity is only a hint: {@code networkAvailable} never rejects a call by itself. While it
+ * reports no network a single failure opens the circuit, and rejections are reported as
+ * {@value #OFFLINE_CODE}.
+ */
+final class CircuitBreaker {
+
+    private static final String TAG = "CircuitBreaker";
+    static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    static final long DEFAULT_OPEN_MILLIS = 15_000;
+    static final long MAX_OPEN_MILLIS = 5 * 60_000;
+    static final String OFFLINE_CODE = "OFFLINE";
+    static final String OPEN_CODE = "CIRCUIT_OPEN";
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Told when the circuit opens or closes, on the thread that reported the outcome. */
+    interface Listener {
+        void onStateChanged(State state, long retryAfterMillis);
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long baseOpenMillis;
+    private final BooleanSupplier networkAvailable;
+    private final LongSupplier clock;
+    private volatile Listener listener;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private long openMillis;
+    private boolean probeInFlight;
+    private long trips;
+    private long rejected;
+    private long offlineRejected;
+
+    CircuitBreaker(String name, BooleanSupplier networkAvailable) {
+        this(name, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS, networkAvailable, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(String name, int failureThreshold, long openMillis, BooleanSupplier networkAvailable, LongSupplier clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.baseOpenMillis = openMillis;
+        this.openMillis = openMillis;
+        this.networkAvailable = networkAvailable;
+        this.clock = clock;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Whether a call may go to the network. When this returns true the outcome must be reported
+     * with {@link #record}; while half-open only a single probe call is let through.
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAt < openMillis) {
+                    reject();
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                Log.d(TAG, name + ": half-open, probing");
+                return true;
+            default:
+                if (probeInFlight) {
+                    reject();
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    private void reject() {
+        rejected++;
+        if (!networkAvailable.getAsBoolean()) {
+            offlineRejected++;
+        }
+    }
+
+    /** A null {@code error} is a success; only network failures count towards opening the circuit. */
+    void record(Throwable error) {
+        State changed = error != null && isNetworkFailure(error) ? onFailure() : onSuccess();
+        // Dinleyici kilit dışında çağrılır; devreye geri dönebilir
+        Listener current = listener;
+        if (changed != null && current != null) {
+            current.onStateChanged(changed, retryAfterMillis());
+        }
+    }
+
+    /** {@link State#CLOSED} if the circuit just closed, otherwise null. */
+    private synchronized State onSuccess() {
+        State previous = state;
+        if (previous != State.CLOSED) {
+            Log.d(TAG, name + ": closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        openMillis = baseOpenMillis;
+        return previous != State.CLOSED ? State.CLOSED : null;
+    }
+
+    /** {@link State#OPEN} if the circuit just opened, otherwise null. */
+    private synchronized State onFailure() {
+        probeInFlight = false;
+        if (state == State.HALF_OPEN) {
+            openMillis = Math.min(openMillis * 2, MAX_OPEN_MILLIS);
+            open();
+            return State.OPEN;
+        } else if (state == State.CLOSED
+                // Ağ yok görünüyorsa ilk hata yeterli; görünmüyorsa eşik kadar hata beklenir
+                && (++consecutiveFailures >= failureThreshold || !networkAvailable.getAsBoolean())) {
+            open();
+            return State.OPEN;
+        }
+        return null;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        trips++;
+        Log.w(TAG, name + ": open for " + openMillis + " ms after " + consecutiveFailures + " consecutive network failures");
+    }
+
+    /** Connectivity is back: ends the open window so the next call becomes the probe. */
+    synchronized void probeNow() {
+        if (state == State.OPEN) {
+            openedAt = clock.getAsLong() - openMillis;
+        }
+    }
+
+    /** Why calls are being rejected: {@value #OFFLINE_CODE} or {@value #OPEN_CODE}. */
+    synchronized String rejectionCode() {
+        return networkAvailable.getAsBoolean() ? OPEN_CODE : OFFLINE_CODE;
+    }
+
+    synchronized long retryAfterMillis() {
+        return state == State.OPEN ? Math.max(0, openedAt + openMillis - clock.getAsLong()) : 0;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    String name() {
+        return name;
+    }
+
+    synchronized JSObject stats() {
+        JSObject stats = new JSObject();
+        stats.put("state", state.name());
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("trips", trips);
+        stats.put("rejected", rejected);
+        stats.put("offlineRejected", offlineRejected);
+        stats.put("retryAfterMs", state == State.OPEN ? Math.max(0, openedAt + openMillis - clock.getAsLong()) : 0);
+        return stats;
+    }
+
+    /**
+     * Connect failures, timeouts, 5xx and 429. Failing to get a token (GoogleAuthIOException) and
+     * other HTTP responses are not network failures.
+     */
+    static boolean isNetworkFailure(Throwable error) {
+        if (error instanceof HttpResponseException) {
+            int status = ((HttpResponseException) error).getStatusCode();
+            return status >= 500 || status == 429;
+        }
+        if (error instanceof GoogleAuthIOException) {
+            return false;
+        }
+        return error instanceof IOException;
+    }
+}
@@ -0,0 +1,92 @@
+package com.codeyzer.ekstre;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.util.Log;
+
+/**
+ * Tracks whether the default network has validated internet access using ConnectivityManager
+ * callbacks. The current state is read as soon as the monitor starts, and
+ * {@link Listener#onOnline()} is called when the network becomes validated. Before it starts the
+ * device is assumed to be online.
+ *
+ * The result is a hint, not a gate: networks that never validate (some VPNs, captive portals that
+ * have been signed in to, restricted corporate Wi-Fi) can still reach Google, so callers must not
+ * reject requests based on {@link #isOnline()} alone.
+ */
+final class ConnectivityMonitor {
+
+    private static final String TAG = "ConnectivityMonitor";
+
+    interface Listener {
+        /** Called on the ConnectivityManager thread when going from offline to online. */
+        void onOnline();
+    }
+
+    private final ConnectivityManager connectivityManager;
+    private final Listener listener;
+    private volatile boolean online = true;
+    private ConnectivityManager.NetworkCallback callback;
+
+    ConnectivityMonitor(Context context, Listener listener) {
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.listener = listener;
+    }
+
+    synchronized void start() {
+        if (callback != null || connectivityManager == null) {
+            return;
+        }
+        callback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+                update(hasValidatedInternet(capabilities));
+            }
+
+            @Override
+            public void onLost(Network network) {
+                update(false);
+            }
+        };
+        try {
+            // Callback'ler asenkron gelir; ilk çağrılar beklemesin diye mevcut durum hemen okunur
+            online = hasValidatedInternet(connectivityManager.getNetworkCapabilities(connectivityManager.getActiveNetwork()));
+            connectivityManager.registerDefaultNetworkCallback(callback);
+        } catch (RuntimeException e) {
+            // ACCESS_NETWORK_STATE yoksa ya da callback limiti aşıldıysa izlemeden devam et
+            Log.w(TAG, "Could not register network callback; assuming online", e);
+            callback = null;
+            online = true;
+        }
+    }
+
+    synchronized void stop() {
+        if (callback != null) {
+            connectivityManager.unregisterNetworkCallback(callback);
+            callback = null;
+        }
+    }
+
+    boolean isOnline() {
+        return online;
+    }
+
+    private static boolean hasValidatedInternet(NetworkCapabilities capabilities) {
+        return capabilities != null
+                && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+    }
+
+    private void update(boolean nowOnline) {
+        boolean wasOnline = online;
+        online = nowOnline;
+        if (nowOnline && !wasOnline) {
+            Log.d(TAG, "Network available");
+            listener.onOnline();
+        } else if (!nowOnline && wasOnline) {
+            Log.d(TAG, "Network lost");
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package com.codeyzer.ekstre;
+
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Encrypted key-value store on an append-only log with an in-memory index (offset and length of
+ * each key's latest value).
+ *
+ * Every {@link #apply} call appends one record ({@code length | crc32 | ops}) and fsyncs once, so
+ * a batch is all-or-nothing after a crash: at open, a torn or corrupt tail record is cut off.
+ * Values are encrypted one by one with {@link EnvelopeCrypto}, bound to their key, so compaction
+ * copies them without decrypting. Not thread-safe beyond its own synchronization; the plugin
+ * drives it from a single executor.
+ */
+public final class EncryptedKvStore implements Closeable {
+
+    static final String LOG_FILE = "kv.log";
+    private static final String COMPACT_FILE = "kv.log.compact";
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+    // Sıkıştırma ancak dosya bu boyutu geçtiyse ve yarısından fazlası ölü veriyse yapılır
+    private static final long MIN_COMPACT_BYTES = 256 * 1024;
+    private static final int OPS_PER_COMPACTED_RECORD = 256;
+
+    private final File dir;
+    private final EnvelopeCrypto crypto;
+    private final Map<String, ValueRef> index = new HashMap<>();
+    private FileChannel channel;
+    private long fileBytes;
+    private long deadBytes;
+    private final Metrics metrics = new Metrics();
+
+    private EncryptedKvStore(File dir, EnvelopeCrypto crypto) {
+        this.dir = dir;
+        this.crypto = crypto;
+    }
+
+    /** Opens (or creates) the store in {@code dir}, replaying the log into the index. */
+    public static EncryptedKvStore open(File dir, EnvelopeCrypto crypto) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create store directory: " + dir);
+        }
+        EncryptedKvStore store = new EncryptedKvStore(dir, crypto);
+        long startTime = System.nanoTime();
+        // Sıkıştırma yarıda kaldıysa eski log geçerlidir
+        new File(dir, COMPACT_FILE).delete();
+        store.replay();
+        store.metrics.openNanos = System.nanoTime() - startTime;
+        return store;
+    }
+
+    /** Supplies the store's crypto when it is first opened (keystore access can be slow). */
+    interface CryptoSource {
+        EnvelopeCrypto get() throws GeneralSecurityException, IOException;
+    }
+
+    public static final class Op {
+        final String key;
+        final String value;
+
+        private Op(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public static Op put(String key, String value) {
+            return new Op(key, value);
+        }
+
+        public static Op delete(String key) {
+            return new Op(key, null);
+        }
+    }
+
+    public static final class Metrics {
+        long openNanos;
+        long recordsReplayed;
+        long truncatedBytes;
+        long logicalBytesWritten;
+        long physicalBytesWritten;
+        long fsyncs;
+        long compactions;
+        long compactionNanos;
+        long gets;
+        long getNanos;
+
+        public long openMicros() {
+            return openNanos / 1000;
+        }
+
+        public long recordsReplayed() {
+            return recordsReplayed;
+        }
+
+        public long truncatedBytes() {
+            return truncatedBytes;
+        }
+
+        /** Plaintext key and value bytes callers asked to write. */
+        public long logicalBytesWritten() {
+            return logicalBytesWritten;
+        }
+
+        /** Bytes appended to the log plus bytes rewritten by compaction. */
+        public long physicalBytesWritten() {
+            return physicalBytesWritten;
+        }
+
+        public double writeAmplification() {
+            return logicalBytesWritten == 0 ? 0 : (double) physicalBytesWritten / logicalBytesWritten;
+        }
+
+        public long fsyncs() {
+            return fsyncs;
+        }
+
+        public long compactions() {
+            return compactions;
+        }
+
+        public long compactionMicros() {
+            return compactionNanos / 1000;
+        }
+
+        public long gets() {
+            return gets;
+        }
+
+        public long getMicros() {
+            return getNanos / 1000;
+        }
+    }
+
+    public synchronized String get(String key) throws IOException, GeneralSecurityException {
+        long startTime = System.nanoTime();
+        try {
+            ValueRef ref = index.get(key);
+            if (ref == null) {
+                return null;
+            }
+            ByteBuffer sealed = ByteBuffer.allocate(ref.length);
+            while (sealed.hasRemaining()) {
+                if (channel.read(sealed, ref.offset + sealed.position()) < 0) {
+                    throw new EOFException("Value of " + key + " is past the end of the log");
+                }
+            }
+            return new String(crypto.decrypt(sealed.array(), keyBytes(key)), StandardCharsets.UTF_8);
+        } finally {
+            metrics.gets++;
+            metrics.getNanos += System.nanoTime() - startTime;
+        }
+    }
+
+    public synchronized List<String> keys() {
+        List<String> keys = new ArrayList<>(index.keySet());
+        Collections.sort(keys);
+        return keys;
+    }
+
+    /** Appends {@code ops} as one record and fsyncs it; the ops become visible only after that. */
+    public synchronized void apply(List<Op> ops) throws IOException, GeneralSecurityException {
+        if (ops.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeInt(ops.size());
+        long[] valueOffsets = new long[ops.size()];
+        int[] valueLengths = new int[ops.size()];
+        for (int i = 0; i < ops.size(); i++) {
+            Op op = ops.get(i);
+            byte[] key = keyBytes(op.key);
+            out.writeByte(op.value != null ? OP_PUT : OP_DELETE);
+            out.writeShort(key.length);
+            out.write(key);
+            metrics.logicalBytesWritten += key.length;
+            if (op.value != null) {
+                byte[] value = op.value.getBytes(StandardCharsets.UTF_8);
+                byte[] sealed = crypto.encrypt(value, key);
+                out.writeInt(sealed.length);
+                valueOffsets[i] = fileBytes + RECORD_HEADER_LENGTH + out.size();
+                valueLengths[i] = sealed.length;
+                out.write(sealed);
+                metrics.logicalBytesWritten += value.length;
+            }
+        }
+        out.flush();
+        long recordStart = fileBytes;
+        long recordBytes;
+        try {
+            recordBytes = appendRecord(payload.toByteArray());
+            channel.force(false);
+        } catch (IOException e) {
+            // Diske indiği bilinmeyen kayıt geri alınır; yoksa sonraki kayıt onun arkasına eklenir
+            fileBytes = recordStart;
+            try {
+                channel.truncate(recordStart);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        }
+        metrics.fsyncs++;
+
+        // İndeks yalnızca kayıt diske indikten sonra güncellenir
+        for (int i = 0; i < ops.size(); i++) {
+            Op op = ops.get(i);
+            ValueRef previous = op.value != null
+                    ? index.put(op.key, new ValueRef(valueOffsets[i], valueLengths[i]))
+                    : index.remove(op.key);
+            if (previous != null) {
+                deadBytes += previous.length + keyBytes(op.key).length + 7;
+            }
+            if (op.value == null) {
+                deadBytes += keyBytes(op.key).length + 3;
+            }
+        }
+        deadBytes += RECORD_HEADER_LENGTH + 4;
+        metrics.physicalBytesWritten += recordBytes;
+    }
+
+    public synchronized boolean needsCompaction() {
+        return fileBytes >= MIN_COMPACT_BYTES && deadBytes * 2 > fileBytes;
+    }
+
+    /**
+     * Rewrites the live values into a fresh log and swaps it in atomically. The directory is fsynced
+     * after the rename so the swap itself survives a crash.
+     */
+    public synchronized void compact() throws IOException {
+        long startTime = System.nanoTime();
+        File compactFile = new File(dir, COMPACT_FILE);
+        Map<String, ValueRef> newIndex = new HashMap<>();
+        long written = 0;
+        compactFile.delete();
+        try (RandomAccessFile compactLog = new RandomAccessFile(compactFile, "rw")) {
+            FileChannel target = compactLog.getChannel();
+            List<String> keys = keys();
+            for (int start = 0; start < keys.size(); start += OPS_PER_COMPACTED_RECORD) {
+                List<String> chunk = keys.subList(start, Math.min(keys.size(), start + OPS_PER_COMPACTED_RECORD));
+                ByteArrayOutputStream payload = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(payload);
+                out.writeInt(chunk.size());
+                for (String key : chunk) {
+                    ValueRef ref = index.get(key);
+                    ByteBuffer sealed = ByteBuffer.allocate(ref.length);
+                    while (sealed.hasRemaining()) {
+                        if (channel.read(sealed, ref.offset + sealed.position()) < 0) {
+                            throw new EOFException("Value of " + key + " is past the end of the log");
+                        }
+                    }
+                    byte[] keyBytes = keyBytes(key);
+                    out.writeByte(OP_PUT);
+                    out.writeShort(keyBytes.length);
+                    out.write(keyBytes);
+                    out.writeInt(ref.length);
+                    newIndex.put(key, new ValueRef(written + RECORD_HEADER_LENGTH + out.size(), ref.length));
+                    out.write(sealed.array());
+                }
+                out.flush();
+                written += writeRecord(target, payload.toByteArray(), written);
+            }
+            target.force(true);
+        }
+        channel.close();
+        if (!compactFile.renameTo(new File(dir, LOG_FILE))) {
+            channel = openLog();
+            throw new IOException("Could not replace log with compacted file");
+        }
+        channel = openLog();
+        syncDirectory(dir);
+        index.clear();
+        index.putAll(newIndex);
+        fileBytes = written;
+        deadBytes = 0;
+        metrics.physicalBytesWritten += written;
+        metrics.compactions++;
+        metrics.compactionNanos += System.nanoTime() - startTime;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long fileBytes() {
+        return fileBytes;
+    }
+
+    public synchronized Metrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void replay() throws IOException {
+        File log = new File(dir, LOG_FILE);
+        long validBytes = 0;
+        if (log.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(log)))) {
+                while (true) {
+                    long recordStart = validBytes;
+                    byte[] payload = readRecord(in);
+                    if (payload == null) {
+                        break;
+                    }
+                    replayRecord(payload, recordStart);
+                    validBytes += RECORD_HEADER_LENGTH + payload.length;
+                    metrics.recordsReplayed++;
+                }
+            }
+        }
+        channel = openLog();
+        if (channel.size() > validBytes) {
+            // Yarım yazılmış son kayıt: at ve bir sonraki kayıt temiz sınırdan başlasın
+            metrics.truncatedBytes = channel.size() - validBytes;
+            channel.truncate(validBytes);
+            channel.force(false);
+        }
+        fileBytes = validBytes;
+    }
+
+    /** Next record's payload, or null at the end of the log or at a torn/corrupt record. */
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        int length;
+        int crc;
+        try {
+            length = in.readInt();
+            crc = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 4 || length > MAX_RECORD_LENGTH) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        if (readFully(in, payload) != length) {
+            return null;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(payload, 0, payload.length);
+        return (int) checksum.getValue() == crc ? payload : null;
+    }
+
+    private void replayRecord(byte[] payload, long recordStart) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int count = in.readInt();
+        int position = 4;
+        for (int i = 0; i < count; i++) {
+            byte type = in.readByte();
+            byte[] key = new byte[in.readUnsignedShort()];
+            in.readFully(key);
+            position += 3 + key.length;
+            String keyString = new String(key, StandardCharsets.UTF_8);
+            ValueRef previous;
+            if (type == OP_PUT) {
+                int length = in.readInt();
+                position += 4;
+                previous = index.put(keyString, new ValueRef(recordStart + RECORD_HEADER_LENGTH + position, length));
+                if (in.skipBytes(length) != length) {
+                    throw new IOException("Malformed record at " + recordStart);
+                }
+                position += length;
+            } else {
+                previous = index.remove(keyString);
+                deadBytes += key.length + 3;
+            }
+            if (previous != null) {
+                deadBytes += previous.length + key.length + 7;
+            }
+        }
+        deadBytes += RECORD_HEADER_LENGTH + 4;
+    }
+
+    private long appendRecord(byte[] payload) throws IOException {
+        long written = writeRecord(channel, payload, fileBytes);
+        fileBytes += written;
+        return written;
+    }
+
+    private static long writeRecord(FileChannel target, byte[] payload, long position) throws IOException {
+        CRC32 checksum = new CRC32();
+        checksum.update(payload, 0, payload.length);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + payload.length);
+        record.putInt(payload.length).putInt((int) checksum.getValue()).put(payload).flip();
+        while (record.hasRemaining()) {
+            target.write(record, position + record.position());
+        }
+        return RECORD_HEADER_LENGTH + payload.length;
+    }
+
+    // java.nio.file minSdk 24'te yok; kanal RandomAccessFile üzerinden açılır
+    private FileChannel openLog() throws IOException {
+        return new RandomAccessFile(new File(dir, LOG_FILE), "rw").getChannel();
+    }
+
+    // Dizin FileChannel ile açılamaz (minSdk 24); fsync doğrudan dosya tanımlayıcısı üzerinden yapılır
+    private static void syncDirectory(File dir) throws IOException {
+        try {
+            FileDescriptor fd = Os.open(dir.getPath(), OsConstants.O_RDONLY, 0);
+            try {
+                Os.fsync(fd);
+            } finally {
+                Os.close(fd);
+            }
+        } catch (ErrnoException e) {
+            throw new IOException("Could not sync store directory: " + dir, e);
+        }
+    }
+
+    private static byte[] keyBytes(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 || bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Key must be 1-65535 bytes");
+        }
+        return bytes;
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static final class ValueRef {
+        final long offset;
+        final int length;
+
+        ValueRef(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
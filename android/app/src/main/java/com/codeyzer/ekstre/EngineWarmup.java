@@ -0,0 +1,233 @@
+package com.codeyzer.ekstre;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.TextRecognition;
+import com.google.mlkit.vision.text.TextRecognizer;
+import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.pdmodel.PDPageContentStream;
+import com.tom_roush.pdfbox.pdmodel.font.PDType1Font;
+import com.tom_roush.pdfbox.text.PDFTextStripper;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Warms up the heavy native engines (PDFBox, the ML Kit text recognizer and the Android Keystore
+ * key) once per process on a low-priority background thread, started from {@link MainActivity}.
+ *
+ * Plugins call the {@code await*} methods on their own executors before using an engine: they
+ * return at once when the engine is warm and wait for an in-flight warm-up instead of repeating it.
+ * A failed warm-up is not mistaken for a finished one: {@link #awaitPdfBox} retries it and throws
+ * if that fails too, the other methods report it in their return value.
+ */
+public final class EngineWarmup {
+
+    private static final String TAG = "EngineWarmup";
+    private static final int PRIME_IMAGE_SIZE = 64;
+
+    private static final Stage PDFBOX = new Stage("PDFBox");
+    private static final Stage TEXT_RECOGNIZER = new Stage("TextRecognizer");
+    private static final Stage KEYSTORE = new Stage("Keystore");
+
+    private static final AtomicBoolean started = new AtomicBoolean();
+    private static volatile TextRecognizer textRecognizer;
+
+    private EngineWarmup() {
+    }
+
+    public static void start(Context context) {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        final Context appContext = context.getApplicationContext();
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            long startTime = SystemClock.elapsedRealtime();
+            warm(PDFBOX, () -> initPdfBox(appContext));
+            warm(TEXT_RECOGNIZER, EngineWarmup::primeTextRecognizer);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                warm(KEYSTORE, () -> loadKeystoreKey(appContext));
+            }
+            Log.d(TAG, "Warm-up finished in " + (SystemClock.elapsedRealtime() - startTime) + " ms");
+        }, "engine-warmup");
+        thread.start();
+    }
+
+    // Bir motorun hatası diğerlerinin ısıtılmasını durdurmasın; hata Stage'de loglandı
+    private static void warm(Stage stage, Runnable work) {
+        try {
+            stage.run(work, true);
+        } catch (RuntimeException ignored) {
+            // ilk gerçek çağrı yeniden dener
+        }
+    }
+
+    /**
+     * Makes sure PDFBox resources are initialized before a parse, retrying a failed warm-up on the
+     * calling thread. Throws {@link IllegalStateException} when initialization fails.
+     */
+    public static void awaitPdfBox(Context context) {
+        final Context appContext = context.getApplicationContext();
+        PDFBOX.run(() -> initPdfBox(appContext), false);
+    }
+
+    /**
+     * Waits for an in-flight model warm-up. Returns false when the warm-up failed; the caller's own
+     * recognition then loads the model and reports any error itself. When nobody warmed it up yet,
+     * returns true at once for the same reason.
+     */
+    public static boolean awaitTextRecognizer() {
+        return TEXT_RECOGNIZER.awaitInFlight();
+    }
+
+    /**
+     * Waits for an in-flight Keystore key warm-up. Returns false when it failed; the caller resolves
+     * the key itself afterwards either way, so the real error reaches JS with its own code.
+     */
+    public static boolean awaitKeystore() {
+        return KEYSTORE.awaitInFlight();
+    }
+
+    public static TextRecognizer getTextRecognizer() {
+        TextRecognizer recognizer = textRecognizer;
+        if (recognizer == null) {
+            synchronized (EngineWarmup.class) {
+                recognizer = textRecognizer;
+                if (recognizer == null) {
+                    recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
+                    textRecognizer = recognizer;
+                }
+            }
+        }
+        return recognizer;
+    }
+
+    private static void initPdfBox(Context context) {
+        PDFBoxResourceLoader.init(context);
+        // Standart font, glyph list ve text stripper sınıflarını önceden yükle
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                contents.beginText();
+                contents.setFont(PDType1Font.HELVETICA, 12);
+                contents.newLineAtOffset(20, 700);
+                contents.showText("Hesap Ozeti 1.234,56 TL");
+                contents.endText();
+            }
+            new PDFTextStripper().getText(document);
+        } catch (Exception e) {
+            throw new IllegalStateException("PDFBox priming failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static void primeTextRecognizer() {
+        Bitmap bitmap = Bitmap.createBitmap(PRIME_IMAGE_SIZE, PRIME_IMAGE_SIZE, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.WHITE);
+        try {
+            Tasks.await(getTextRecognizer().process(InputImage.fromBitmap(bitmap, 0)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Text recognizer priming failed: " + e.getMessage(), e);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    private static void loadKeystoreKey(Context context) {
+        try {
+            // Veri anahtarını da aç; ilk encrypt/decrypt çağrısı Keystore'u beklemesin
+            SecureStoragePlugin.getEnvelope(context);
+        } catch (Exception e) {
+            throw new IllegalStateException("Keystore key warm-up failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * One engine's warm-up. Each attempt has its own future: a failed attempt is replaced by the next
+     * caller's attempt, so nobody mistakes a failed or still-retrying warm-up for a finished one.
+     */
+    private static final class Stage {
+        private final String name;
+        private final AtomicReference<CompletableFuture<Void>> attempt = new AtomicReference<>();
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Runs {@code work} unless an attempt already succeeded, waiting for an attempt in flight and
+         * retrying when that one fails. Throws the failure of this thread's own attempt.
+         */
+        void run(Runnable work, boolean background) {
+            while (true) {
+                CompletableFuture<Void> current = attempt.get();
+                if (current == null || current.isCompletedExceptionally()) {
+                    CompletableFuture<Void> mine = new CompletableFuture<>();
+                    if (attempt.compareAndSet(current, mine)) {
+                        perform(work, background, mine);
+                        return;
+                    }
+                    continue;
+                }
+                if (await(current)) {
+                    return;
+                }
+                // Beklenen deneme başarısız oldu; bu thread yeniden dener
+            }
+        }
+
+        /**
+         * Waits for an attempt in flight without starting one. Returns false when the latest attempt
+         * failed, true when it succeeded or none has started.
+         */
+        boolean awaitInFlight() {
+            CompletableFuture<Void> current = attempt.get();
+            return current == null || await(current);
+        }
+
+        private void perform(Runnable work, boolean background, CompletableFuture<Void> mine) {
+            long startTime = SystemClock.elapsedRealtime();
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                Log.w(TAG, name + " warm-up failed: " + e.getMessage(), e);
+                mine.completeExceptionally(e);
+                throw e;
+            }
+            mine.complete(null);
+            Log.d(TAG, name + (background ? " warmed up in background in " : " initialized cold on demand in ")
+                    + (SystemClock.elapsedRealtime() - startTime) + " ms");
+        }
+
+        private boolean await(CompletableFuture<Void> current) {
+            if (current.isDone()) {
+                return !current.isCompletedExceptionally();
+            }
+            long waitStart = SystemClock.elapsedRealtime();
+            try {
+                current.get();
+                Log.d(TAG, "Waited " + (SystemClock.elapsedRealtime() - waitStart) + " ms for " + name + " warm-up");
+                return true;
+            } catch (ExecutionException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + name + " warm-up", e);
+            }
+        }
+    }
+}
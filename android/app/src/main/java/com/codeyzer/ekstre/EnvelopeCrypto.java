@@ -0,0 +1,100 @@
+package com.codeyzer.ekstre;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Software AES-GCM with an in-memory data key. The data key itself is stored wrapped by the
+ * Keystore key (see {@link SecureStoragePlugin}), so the Keystore is used once per process instead
+ * of once per payload.
+ *
+ * Envelope layout: {@code version | iv (12) | ciphertext + tag}, with the version byte (and the
+ * caller's associated data, if any) as associated data.
+ */
+public final class EnvelopeCrypto {
+
+    public static final int VERSION = 2;
+    public static final int KEY_LENGTH_BYTES = 32;
+    static final int IV_LENGTH = 12;
+    static final int GCM_TAG_LENGTH = 128;
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final byte[] AAD = {VERSION};
+    private static final byte[] NO_ASSOCIATED_DATA = new byte[0];
+
+    private final SecretKey dataKey;
+    private final SecureRandom random = new SecureRandom();
+    // Cipher thread-safe değil; her thread kendi örneğini yeniden init eder
+    private final ThreadLocal<Cipher> ciphers = new ThreadLocal<>();
+
+    public EnvelopeCrypto(SecretKey dataKey) {
+        this.dataKey = dataKey;
+    }
+
+    public static SecretKey newDataKey() throws GeneralSecurityException {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(KEY_LENGTH_BYTES * 8);
+        return generator.generateKey();
+    }
+
+    public static SecretKey dataKeyFromBytes(byte[] keyBytes) throws GeneralSecurityException {
+        if (keyBytes.length != KEY_LENGTH_BYTES) {
+            throw new GeneralSecurityException("Invalid data key length: " + keyBytes.length);
+        }
+        return new SecretKeySpec(keyBytes, "AES");
+    }
+
+    SecretKey dataKey() {
+        return dataKey;
+    }
+
+    public byte[] encrypt(byte[] plaintext) throws GeneralSecurityException {
+        return encrypt(plaintext, NO_ASSOCIATED_DATA);
+    }
+
+    /** Binds the envelope to {@code associatedData}, e.g. the key it is stored under. */
+    public byte[] encrypt(byte[] plaintext, byte[] associatedData) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        Cipher cipher = cipher();
+        cipher.init(Cipher.ENCRYPT_MODE, dataKey, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+        cipher.updateAAD(AAD);
+        cipher.updateAAD(associatedData);
+        byte[] envelope = new byte[1 + IV_LENGTH + cipher.getOutputSize(plaintext.length)];
+        envelope[0] = VERSION;
+        System.arraycopy(iv, 0, envelope, 1, IV_LENGTH);
+        int written = cipher.doFinal(plaintext, 0, plaintext.length, envelope, 1 + IV_LENGTH);
+        return written == envelope.length - 1 - IV_LENGTH ? envelope : Arrays.copyOf(envelope, 1 + IV_LENGTH + written);
+    }
+
+    /** @throws GeneralSecurityException when the envelope is malformed, tampered or from another key */
+    public byte[] decrypt(byte[] envelope) throws GeneralSecurityException {
+        return decrypt(envelope, NO_ASSOCIATED_DATA);
+    }
+
+    public byte[] decrypt(byte[] envelope, byte[] associatedData) throws GeneralSecurityException {
+        if (envelope.length < 1 + IV_LENGTH + GCM_TAG_LENGTH / 8 || envelope[0] != VERSION) {
+            throw new GeneralSecurityException("Not an envelope of version " + VERSION);
+        }
+        Cipher cipher = cipher();
+        cipher.init(Cipher.DECRYPT_MODE, dataKey, new GCMParameterSpec(GCM_TAG_LENGTH, envelope, 1, IV_LENGTH));
+        cipher.updateAAD(AAD);
+        cipher.updateAAD(associatedData);
+        return cipher.doFinal(envelope, 1 + IV_LENGTH, envelope.length - 1 - IV_LENGTH);
+    }
+
+    private Cipher cipher() throws GeneralSecurityException {
+        Cipher cipher = ciphers.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(TRANSFORMATION);
+            ciphers.set(cipher);
+        }
+        return cipher;
+    }
+}
@@ -8,34 +8,63 @@ public class ErrorUtils {
 
     public static void handleIOException(PluginCall call, IOException e, String logPrefix, String tag) {
         Log.e(tag, logPrefix + ": " + e.getMessage(), e);
-        String errorCode = "IO_ERROR";
+        String errorCode = ioErrorCode(e);
         String errorMessage = logPrefix + ": " + e.getMessage();
 
         if (e instanceof com.google.api.client.http.HttpResponseException) {
             com.google.api.client.http.HttpResponseException httpError = (com.google.api.client.http.HttpResponseException) e;
             int statusCode = httpError.getStatusCode();
 
-            if (statusCode == 401 || statusCode == 403) {
-                 if (e.getMessage() != null && e.getMessage().toLowerCase().contains("invalid_grant")) {
-                    errorCode = "INVALID_GRANT";
-                    errorMessage = "Access token is invalid or expired. Please sign in again.";
-                 } else {
-                     errorCode = "AUTH_ERROR";
-                     errorMessage = "Authentication error accessing API (Code: " + statusCode + ")";
-                 }
+            if ("INVALID_GRANT".equals(errorCode)) {
+                errorMessage = "Access token is invalid or expired. Please sign in again.";
+            } else if ("AUTH_ERROR".equals(errorCode)) {
+                errorMessage = "Authentication error accessing API (Code: " + statusCode + ")";
             } else {
-                 errorCode = "NETWORK_ERROR";
-                 errorMessage = "API request failed (Code: " + statusCode + "): " + httpError.getStatusMessage();
+                errorMessage = "API request failed (Code: " + statusCode + "): " + httpError.getStatusMessage();
             }
-        } else if (e.getMessage() != null && e.getMessage().toLowerCase().contains("sign_in_required")) {
-            // Bu durum, GoogleAccountCredential'ın token alamadığı bazı durumlar için özel olabilir.
-            errorCode = "SIGN_IN_REQUIRED";
+        } else if ("SIGN_IN_REQUIRED".equals(errorCode)) {
             errorMessage = logPrefix + ": Sign in is required. " + e.getMessage();
         }
 
 
         if (call != null) {
-            call.reject(errorMessage, errorCode, e);
+            NativeMetrics.reject(call, errorMessage, errorCode, e);
+        } else {
+            Log.e(tag, logPrefix + ": PluginCall is null, cannot reject. Error: " + errorMessage);
+        }
+    }
+
+    /** The error code handleIOException returns to JS, for callers that need it without rejecting a call. */
+    static String ioErrorCode(IOException e) {
+        if (e instanceof com.google.api.client.http.HttpResponseException) {
+            int statusCode = ((com.google.api.client.http.HttpResponseException) e).getStatusCode();
+            if (statusCode == 401 || statusCode == 403) {
+                return e.getMessage() != null && e.getMessage().toLowerCase().contains("invalid_grant")
+                        ? "INVALID_GRANT" : "AUTH_ERROR";
+            }
+            return "NETWORK_ERROR";
+        }
+        if (e.getMessage() != null && e.getMessage().toLowerCase().contains("sign_in_required")) {
+            // Bu durum, GoogleAccountCredential'ın token alamadığı bazı durumlar için özel olabilir.
+            return "SIGN_IN_REQUIRED";
+        }
+        return "IO_ERROR";
+    }
+
+    /**
+     * The circuit is open: the call is rejected without going to the network, with OFFLINE when the
+     * device reports no network and CIRCUIT_OPEN otherwise.
+     */
+    static void handleServiceUnavailable(PluginCall call, CircuitBreaker breaker, String logPrefix, String tag) {
+        String errorCode = breaker.rejectionCode();
+        long retryAfterSeconds = (breaker.retryAfterMillis() + 999) / 1000;
+        String errorMessage = logPrefix + (CircuitBreaker.OFFLINE_CODE.equals(errorCode)
+                ? ": No network connection."
+                : ": Google " + breaker.name() + " API is unavailable after repeated network failures.")
+                + (retryAfterSeconds > 0 ? " Retry in " + retryAfterSeconds + " s." : "");
+        Log.w(tag, errorMessage);
+        if (call != null) {
+            NativeMetrics.reject(call, errorMessage, errorCode);
         } else {
             Log.e(tag, logPrefix + ": PluginCall is null, cannot reject. Error: " + errorMessage);
         }
@@ -44,7 +73,7 @@ public class ErrorUtils {
     public static void handleGenericException(PluginCall call, Exception e, String logPrefix, String tag) {
          Log.e(tag, logPrefix + ": " + e.getMessage(), e);
          if (call != null) {
-            call.reject(logPrefix + ": " + e.getMessage(), e);
+            NativeMetrics.reject(call, logPrefix + ": " + e.getMessage(), e);
          } else {
             Log.e(tag, logPrefix + ": PluginCall is null, cannot reject. Error: " + e.getMessage());
          }
@@ -74,7 +103,7 @@ public class ErrorUtils {
                 break;
         }
         if (call != null) {
-            call.reject(errorMessage, errorCode, e);
+            NativeMetrics.reject(call, errorMessage, errorCode, e);
         } else {
             Log.e(tag, logPrefix + ": PluginCall is null. Cannot reject. Error: " + errorMessage);
         }
@@ -87,7 +116,7 @@ public class ErrorUtils {
         String errorCode = "FIREBASE_AUTH_ERROR";
 
         if (call != null) {
-            call.reject(errorMessage, errorCode, e);
+            NativeMetrics.reject(call, errorMessage, errorCode, e);
         } else {
             Log.e(tag, logPrefix + ": PluginCall is null. Cannot reject. Error: " + errorMessage);
         }
@@ -0,0 +1,209 @@
+package com.codeyzer.ekstre;
+
+import android.accounts.Account;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * The Google accounts added to the app, and each account's Gmail sync checkpoints.
+ *
+ * The primary account is the one the Firebase session belongs to; the others are added for Gmail
+ * searches only. Account profiles and checkpoints live in an {@link EncryptedKvStore}, so email
+ * addresses are never written to disk in plain text. The store is opened on first use; calls must
+ * come from a single executor, and {@code compactor} should be that executor.
+ */
+final class GoogleAccountRegistry implements Closeable {
+
+    static final String ACCOUNT_TYPE = "com.google";
+    static final int MAX_ACCOUNTS = 5;
+    private static final String TAG = "GoogleAccountRegistry";
+    private static final String ACCOUNT_PREFIX = "account/";
+    private static final String CHECKPOINT_PREFIX = "checkpoint/";
+
+    private final File dir;
+    private final EncryptedKvStore.CryptoSource cryptoSource;
+    private final Executor compactor;
+    private EncryptedKvStore store;
+
+    GoogleAccountRegistry(File dir, EncryptedKvStore.CryptoSource cryptoSource, Executor compactor) {
+        this.dir = dir;
+        this.cryptoSource = cryptoSource;
+        this.compactor = compactor;
+    }
+
+    /**
+     * Adds the account or updates its profile. With {@code primary} the previous primary account
+     * becomes a secondary one. {@code profile}: id, name, email, imageUrl (the ID token is not stored).
+     */
+    synchronized JSONObject put(JSONObject profile, boolean primary) throws IOException, GeneralSecurityException, JSONException {
+        // Anahtar küçük harfle; Account adı cihazdaki yazımıyla kalır
+        String email = profile.getString("email").trim();
+        String key = normalize(email);
+        EncryptedKvStore kv = store();
+        String existing = kv.get(ACCOUNT_PREFIX + key);
+        if (existing == null && accounts().size() >= MAX_ACCOUNTS) {
+            throw new IOException("At most " + MAX_ACCOUNTS + " Google accounts can be added");
+        }
+        JSONObject account = new JSONObject();
+        account.put("email", email);
+        account.put("id", profile.optString("id", null));
+        account.put("name", profile.optString("name", null));
+        account.put("imageUrl", profile.optString("imageUrl", null));
+        account.put("primary", primary);
+        account.put("addedAt", existing != null ? new JSONObject(existing).optLong("addedAt") : System.currentTimeMillis());
+
+        List<EncryptedKvStore.Op> ops = new ArrayList<>();
+        if (primary) {
+            for (JSONObject other : accounts()) {
+                String otherKey = normalize(other.getString("email"));
+                if (other.optBoolean("primary") && !key.equals(otherKey)) {
+                    other.put("primary", false);
+                    ops.add(EncryptedKvStore.Op.put(ACCOUNT_PREFIX + otherKey, other.toString()));
+                }
+            }
+        }
+        ops.add(EncryptedKvStore.Op.put(ACCOUNT_PREFIX + key, account.toString()));
+        kv.apply(ops);
+        return account;
+    }
+
+    /** The primary account first, then the others in the order they were added. */
+    synchronized List<JSONObject> accounts() throws IOException, GeneralSecurityException, JSONException {
+        EncryptedKvStore kv = store();
+        List<JSONObject> accounts = new ArrayList<>();
+        for (String key : kv.keys()) {
+            if (key.startsWith(ACCOUNT_PREFIX)) {
+                accounts.add(new JSONObject(kv.get(key)));
+            }
+        }
+        accounts.sort((a, b) -> {
+            if (a.optBoolean("primary") != b.optBoolean("primary")) {
+                return a.optBoolean("primary") ? -1 : 1;
+            }
+            return Long.compare(a.optLong("addedAt"), b.optLong("addedAt"));
+        });
+        return accounts;
+    }
+
+    synchronized boolean contains(String email) throws IOException, GeneralSecurityException {
+        return store().get(ACCOUNT_PREFIX + normalize(email)) != null;
+    }
+
+    /** Deletes the account and its checkpoints; false if there is no such account. */
+    synchronized boolean remove(String email) throws IOException, GeneralSecurityException {
+        String normalized = normalize(email);
+        EncryptedKvStore kv = store();
+        if (kv.get(ACCOUNT_PREFIX + normalized) == null) {
+            return false;
+        }
+        List<EncryptedKvStore.Op> ops = new ArrayList<>();
+        ops.add(EncryptedKvStore.Op.delete(ACCOUNT_PREFIX + normalized));
+        String checkpoints = CHECKPOINT_PREFIX + normalized + "/";
+        for (String key : kv.keys()) {
+            if (key.startsWith(checkpoints)) {
+                ops.add(EncryptedKvStore.Op.delete(key));
+            }
+        }
+        apply(kv, ops);
+        return true;
+    }
+
+    /** On sign-out: every account and checkpoint. */
+    synchronized void clear() throws IOException, GeneralSecurityException {
+        EncryptedKvStore kv = store();
+        List<EncryptedKvStore.Op> ops = new ArrayList<>();
+        for (String key : kv.keys()) {
+            ops.add(EncryptedKvStore.Op.delete(key));
+        }
+        apply(kv, ops);
+    }
+
+    /** Query key → newest message id seen by the last sync. */
+    synchronized Map<String, String> checkpoints(String email) throws IOException, GeneralSecurityException {
+        String prefix = CHECKPOINT_PREFIX + normalize(email) + "/";
+        EncryptedKvStore kv = store();
+        Map<String, String> checkpoints = new HashMap<>();
+        for (String key : kv.keys()) {
+            if (key.startsWith(prefix)) {
+                checkpoints.put(key.substring(prefix.length()), kv.get(key));
+            }
+        }
+        return checkpoints;
+    }
+
+    /** Writes the checkpoints of accounts that are still registered in a single record, so an account removed during a sync does not come back. */
+    synchronized void saveCheckpoints(Map<String, Map<String, String>> byAccount) throws IOException, GeneralSecurityException {
+        EncryptedKvStore kv = store();
+        List<EncryptedKvStore.Op> ops = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> account : byAccount.entrySet()) {
+            String email = normalize(account.getKey());
+            if (kv.get(ACCOUNT_PREFIX + email) == null) {
+                continue;
+            }
+            for (Map.Entry<String, String> checkpoint : account.getValue().entrySet()) {
+                String key = CHECKPOINT_PREFIX + email + "/" + checkpoint.getKey();
+                if (!checkpoint.getValue().equals(kv.get(key))) {
+                    ops.add(EncryptedKvStore.Op.put(key, checkpoint.getValue()));
+                }
+            }
+        }
+        apply(kv, ops);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (store != null) {
+            store.close();
+            store = null;
+        }
+    }
+
+    static Account androidAccount(String email) {
+        return new Account(email, ACCOUNT_TYPE);
+    }
+
+    // Google e-posta adreslerinde büyük/küçük harf fark etmez
+    static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void apply(EncryptedKvStore kv, List<EncryptedKvStore.Op> ops) throws IOException, GeneralSecurityException {
+        if (ops.isEmpty()) {
+            return;
+        }
+        kv.apply(ops);
+        if (kv.needsCompaction()) {
+            compactor.execute(this::compact);
+        }
+    }
+
+    private synchronized void compact() {
+        try {
+            if (store != null && store.needsCompaction()) {
+                store.compact();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Account store compaction failed", e);
+        }
+    }
+
+    private EncryptedKvStore store() throws IOException, GeneralSecurityException {
+        if (store == null) {
+            store = EncryptedKvStore.open(dir, cryptoSource.get());
+        }
+        return store;
+    }
+}
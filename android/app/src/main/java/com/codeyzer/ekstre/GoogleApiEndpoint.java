@@ -0,0 +1,87 @@
+package com.codeyzer.ekstre;
+
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+
+import java.io.IOException;
+
+/**
+ * HTTP transport and root URL the Gmail and Calendar clients talk to.
+ *
+ * The app uses {@link #defaults()}, i.e. the library's Google URLs. Tests point the handlers at a
+ * local HTTP server with {@link #at(HttpTransport, String)}, so request and response mapping stays
+ * the production code. {@link #okHttp(int, long)} is the alternative transport with HTTP/2 and a
+ * connection pool; GoogleAuthPlugin can switch between the two at runtime.
+ */
+public final class GoogleApiEndpoint {
+
+    private static final String TAG = "GoogleApiEndpoint";
+    static final String NET_HTTP = "netHttp";
+    static final String OK_HTTP = "okHttp";
+
+    private static final GoogleApiEndpoint DEFAULTS = new GoogleApiEndpoint(new NetHttpTransport(), null);
+
+    final HttpTransport transport;
+    /** Root URL ending in '/'; null means the library default. */
+    final String rootUrl;
+
+    private GoogleApiEndpoint(HttpTransport transport, String rootUrl) {
+        this.transport = transport;
+        this.rootUrl = rootUrl;
+    }
+
+    /** One shared NetHttpTransport, so connections can be reused across requests. */
+    public static GoogleApiEndpoint defaults() {
+        return DEFAULTS;
+    }
+
+    public static GoogleApiEndpoint okHttp(int maxIdleConnections, long keepAliveSeconds) {
+        return new GoogleApiEndpoint(OkHttpTransport.create(maxIdleConnections, keepAliveSeconds), null);
+    }
+
+    public static GoogleApiEndpoint at(HttpTransport transport, String rootUrl) {
+        if (transport == null) {
+            throw new IllegalArgumentException("transport is required");
+        }
+        if (rootUrl != null && !rootUrl.endsWith("/")) {
+            rootUrl = rootUrl + "/";
+        }
+        return new GoogleApiEndpoint(transport, rootUrl);
+    }
+
+    String transportName() {
+        return transport instanceof OkHttpTransport ? OK_HTTP : NET_HTTP;
+    }
+
+    /** Shuts the transport down unless it is the shared default; requests in flight complete. */
+    void shutdown() {
+        if (this == DEFAULTS) {
+            return;
+        }
+        try {
+            transport.shutdown();
+        } catch (IOException e) {
+            Log.w(TAG, "Transport shutdown failed", e);
+        }
+    }
+
+    int idleConnections() {
+        return transport instanceof OkHttpTransport ? ((OkHttpTransport) transport).connectionPool().idleConnectionCount() : 0;
+    }
+
+    /** Closes idle pooled connections; with NetHttpTransport the JDK manages connections. */
+    void evictIdleConnections() {
+        if (transport instanceof OkHttpTransport) {
+            ((OkHttpTransport) transport).connectionPool().evictAll();
+        }
+    }
+
+    JSObject stats() {
+        JSObject stats = transport instanceof OkHttpTransport ? ((OkHttpTransport) transport).stats() : new JSObject();
+        stats.put("transport", transportName());
+        return stats;
+    }
+}
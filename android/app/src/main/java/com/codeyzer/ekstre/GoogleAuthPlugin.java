@@ -1,6 +1,9 @@
 // GoogleAuthPlugin.java
 package com.codeyzer.ekstre;
 
+import android.accounts.Account;
+import android.accounts.AccountManager;
+import android.app.Activity;
 import android.content.Intent;
 import android.util.Log;
 
@@ -16,16 +19,23 @@ import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
 import com.google.android.gms.auth.api.signin.GoogleSignInClient;
 import com.google.android.gms.auth.api.signin.GoogleSignInOptions;
+import com.google.android.gms.common.AccountPicker;
 import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.auth.api.signin.GoogleSignInStatusCodes;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.android.gms.common.api.Scope;
 
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 
+import com.google.firebase.FirebaseNetworkException;
 import com.google.firebase.auth.AuthCredential;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.auth.GetTokenResult;
 import com.google.firebase.auth.GoogleAuthProvider;
+import com.google.firebase.auth.UserInfo;
 
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.gson.GsonFactory;
@@ -40,19 +50,38 @@ import com.google.api.services.gmail.model.ListMessagesResponse;
 import com.google.api.services.gmail.model.Message;
 import com.google.api.services.gmail.model.MessagePartBody;
 
+import com.getcapacitor.JSArray;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
 import com.google.api.client.googleapis.extensions.android.gms.auth.GoogleAccountCredential;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
-@CapacitorPlugin(name = "GoogleAuth")
+@CapacitorPlugin(name = GoogleAuthPlugin.NAME)
 public class GoogleAuthPlugin extends Plugin {
 
+    static final String NAME = "GoogleAuth";
     private static final String TAG = "GoogleAuthPlugin";
+    private GoogleSignInOptions signInOptions;
     private GoogleSignInClient googleSignInClient;
     private FirebaseAuth firebaseAuth;
     private GoogleSignInAccount currentGoogleAccount; // Stored Google account
@@ -61,25 +90,274 @@ public class GoogleAuthPlugin extends Plugin {
 
     private static final String GMAIL_READONLY_SCOPE = "https://www.googleapis.com/auth/gmail.readonly";
     private static final String CALENDAR_EVENTS_SCOPE = "https://www.googleapis.com/auth/calendar.events";
+    static final String SESSION_REFRESHED_EVENT = "sessionRefreshed";
+    static final String SESSION_EXPIRED_EVENT = "sessionExpired";
+    static final String CALENDAR_QUEUE_FLUSHED_EVENT = "calendarQueueFlushed";
+    // Çoklu hesap aramasının global paralellik bütçesi: bütün hesapların Gmail istekleri bu havuzu paylaşır
+    static final int SYNC_WORKERS = 6;
     private static final String WEB_CLIENT_ID = "1008857567754-2s7hevrbudal3m8qju85g31souc8v4g5.apps.googleusercontent.com";
 
     private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final ExecutorService syncExecutor = Executors.newFixedThreadPool(SYNC_WORKERS, runnable -> {
+        Thread thread = new Thread(runnable, "gmail-sync");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    // Çoklu hesap aramalarını yürütür ve işler bitene kadar bekler; işlerin kendisi syncExecutor'da çalışır
+    private final ExecutorService syncCoordinator = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "gmail-sync-coordinator"));
+    // Ek ön yüklemesinin arka plan şeridi: kullanıcının beklediği isteklerle yarışmaması için tek ve düşük öncelikli
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gmail-prefetch");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private AttachmentPrefetcher attachmentPrefetcher;
+    // Takvim kuyruğunun ertelenmiş boşaltmaları: devre penceresi bitince ya da tekrar denenecek yazmalar kaldıysa
+    private final ScheduledExecutorService calendarRetryScheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "calendar-retry"));
+    private ScheduledFuture<?> scheduledCalendarFlush;
+    private long calendarRetryMillis = CircuitBreaker.DEFAULT_OPEN_MILLIS;
+    // MemoryBudget için yaklaşık boyutlar: istemci başına credential + JSON/HTTP nesneleri, bağlantı başına TLS tamponları
+    private static final long GMAIL_CLIENT_BYTES = 64L * 1024;
+    private static final long IDLE_CONNECTION_BYTES = 48L * 1024;
+    // Gmail/Calendar istemcilerinin HTTP katmanı; configureHttpTransport ile değiştirilebilir
+    private volatile GoogleApiEndpoint apiEndpoint = GoogleApiEndpoint.defaults();
+
+    // Arka plan oturum yenilemesi; signIn/signOut nesli artırır, eski yenilemenin sonucu yok sayılır
+    private final AtomicInteger sessionGeneration = new AtomicInteger();
+    private final AtomicBoolean sessionRefreshRunning = new AtomicBoolean();
+    private final AtomicLong instantSignIns = new AtomicLong();
+    private final AtomicLong sessionsRefreshed = new AtomicLong();
+    private final AtomicLong sessionsStale = new AtomicLong();
+    private final AtomicLong sessionsExpired = new AtomicLong();
+    private volatile long lastRefreshMillis = -1;
+
+    // API başına devre kesici ve çevrimdışı Takvim yazma kuyruğu; handler'lar yeniden kurulsa da korunur
+    private ConnectivityMonitor connectivityMonitor;
+    private CircuitBreaker gmailBreaker;
+    private CircuitBreaker calendarBreaker;
+    private CalendarWriteQueue calendarQueue;
+
+    // Eklenmiş Google hesapları (birincil + yalnızca Gmail için eklenenler) ve son çoklu hesap araması
+    private GoogleAccountRegistry accountRegistry;
+    private final AtomicLong accountSyncs = new AtomicLong();
+    private volatile JSObject lastAccountSync;
 
     @Override
     public void load() {
-        GoogleSignInOptions gso = new GoogleSignInOptions.Builder(GoogleSignInOptions.DEFAULT_SIGN_IN)
+        signInOptions = new GoogleSignInOptions.Builder(GoogleSignInOptions.DEFAULT_SIGN_IN)
                 .requestIdToken(WEB_CLIENT_ID)
                 .requestEmail()
                 .requestScopes(new Scope(GMAIL_READONLY_SCOPE), new Scope(CALENDAR_EVENTS_SCOPE))
                 .build();
-        googleSignInClient = GoogleSignIn.getClient(getContext(), gso);
+        googleSignInClient = GoogleSignIn.getClient(getContext(), signInOptions);
         firebaseAuth = FirebaseAuth.getInstance();
-        this.googleCalendarHandler = new GoogleCalendarHandler(getContext(), this.executorService);
-        this.googleGmailHandler = new GoogleGmailHandler(getContext(), this.executorService); // Initialize GmailHandler
+        connectivityMonitor = new ConnectivityMonitor(getContext(), this::onNetworkAvailable);
+        gmailBreaker = new CircuitBreaker("gmail", connectivityMonitor::isOnline);
+        calendarBreaker = new CircuitBreaker("calendar", connectivityMonitor::isOnline);
+        calendarBreaker.setListener(this::onCalendarBreakerChanged);
+        attachmentPrefetcher = new AttachmentPrefetcher(prefetchExecutor, gmailBreaker);
+        calendarQueue = new CalendarWriteQueue(AppStorage.privateDir(getContext(), AppStorage.CALENDAR_QUEUE_DIR),
+                () -> SecureStoragePlugin.getEnvelope(getContext()), executorService);
+        accountRegistry = new GoogleAccountRegistry(AppStorage.privateDir(getContext(), AppStorage.GOOGLE_ACCOUNTS_DIR),
+                () -> SecureStoragePlugin.getEnvelope(getContext()), executorService);
+        createApiHandlers();
+        connectivityMonitor.start();
+        NativeMetrics.registerSection("googleHttp", () -> apiEndpoint.stats());
+        NativeMetrics.registerSection("googleSession", this::sessionStats);
+        NativeMetrics.registerSection("googleApiHealth", this::apiHealthStats);
+        NativeMetrics.registerSection("googleAccounts", this::accountSyncStats);
+        NativeMetrics.registerSection("gmailPrefetch", attachmentPrefetcher::stats);
+        MemoryBudget.register("gmailPrefetch", MemoryBudget.Priority.LOW, 4, attachmentPrefetcher);
+        MemoryBudget.register("googleApiClients", MemoryBudget.Priority.NORMAL, 1, new MemoryBudget.Cache() {
+            @Override
+            public long sizeBytes() {
+                return googleGmailHandler.clientCount() * GMAIL_CLIENT_BYTES
+                        + apiEndpoint.idleConnections() * IDLE_CONNECTION_BYTES;
+            }
+
+            // Yarıya indirme de tamamını bırakır: istemciler ve bağlantılar ucuz, ilk istekte yeniden kurulur
+            @Override
+            public long trimTo(long targetBytes) {
+                long before = sizeBytes();
+                if (before <= targetBytes) {
+                    return 0;
+                }
+                googleGmailHandler.dropClients();
+                apiEndpoint.evictIdleConnections();
+                return before - sizeBytes();
+            }
+        });
+    }
+
+    private void createApiHandlers() {
+        this.googleCalendarHandler = new GoogleCalendarHandler(getContext(), this.executorService, this.apiEndpoint,
+                this.calendarBreaker, this.calendarQueue);
+        this.googleGmailHandler = new GoogleGmailHandler(getContext(), this.executorService, this.apiEndpoint,
+                this::notifyListeners, this.gmailBreaker, this.attachmentPrefetcher); // Initialize GmailHandler
+    }
+
+    // ConnectivityManager thread'inde: açık devrelerin sıradaki çağrısı deneme isteği olur, kuyruk boşaltılır
+    private void onNetworkAvailable() {
+        gmailBreaker.probeNow();
+        calendarBreaker.probeNow();
+        flushCalendarQueueInBackground();
+    }
+
+    // Yazmayı yapan thread'de: devre açıldıysa pencere bitince, kapandıysa hemen kuyruk boşaltılır
+    private void onCalendarBreakerChanged(CircuitBreaker.State state, long retryAfterMillis) {
+        if (state == CircuitBreaker.State.OPEN) {
+            scheduleCalendarFlush(retryAfterMillis);
+        } else {
+            flushCalendarQueueInBackground();
+        }
+    }
+
+    /** Flushes the queue after {@code delayMillis}, unless an earlier flush is already scheduled. */
+    private synchronized void scheduleCalendarFlush(long delayMillis) {
+        if (scheduledCalendarFlush != null && !scheduledCalendarFlush.isDone()
+                && scheduledCalendarFlush.getDelay(TimeUnit.MILLISECONDS) <= delayMillis) {
+            return;
+        }
+        if (scheduledCalendarFlush != null) {
+            scheduledCalendarFlush.cancel(false);
+        }
+        try {
+            scheduledCalendarFlush = calendarRetryScheduler.schedule(this::flushCalendarQueueInBackground,
+                    delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Eklenti kapatılıyor
+        }
+    }
+
+    // 5xx/429 yanıtıyla kuyrukta kalan yazmalar için; devre kapalı kaldığından dinleyici tetiklenmez
+    private synchronized void scheduleCalendarRetry() {
+        scheduleCalendarFlush(calendarRetryMillis);
+        calendarRetryMillis = Math.min(calendarRetryMillis * 2, CircuitBreaker.MAX_OPEN_MILLIS);
+    }
+
+    private synchronized void resetCalendarRetry() {
+        calendarRetryMillis = CircuitBreaker.DEFAULT_OPEN_MILLIS;
+    }
+
+    private void flushCalendarQueueInBackground() {
+        GoogleSignInAccount account = this.currentGoogleAccount;
+        if (account == null) {
+            return;
+        }
+        GoogleCalendarHandler handler = this.googleCalendarHandler;
+        executorService.execute(() -> {
+            try {
+                JSObject result = handler.flushWriteQueue(account);
+                if (result != null) {
+                    Log.d(TAG, "Calendar queue flushed: " + result.getInteger("sent") + " sent, "
+                            + result.getInteger("remaining") + " remaining");
+                    notifyListeners(CALENDAR_QUEUE_FLUSHED_EVENT, result, true);
+                    if (result.getInteger("remaining", 0) > 0) {
+                        scheduleCalendarRetry();
+                    } else {
+                        resetCalendarRetry();
+                    }
+                }
+            } catch (Exception e) {
+                // Devre açıldıysa dinleyici zaten zamanladı; açılmadıysa geri çekilerek tekrar denenir
+                Log.w(TAG, "Calendar queue flush failed; will retry", e);
+                scheduleCalendarRetry();
+            }
+        });
+    }
+
+    private JSObject apiHealthStats() {
+        JSObject stats = new JSObject();
+        stats.put("online", connectivityMonitor.isOnline());
+        stats.put("gmail", gmailBreaker.stats());
+        stats.put("calendar", calendarBreaker.stats());
+        return stats;
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        connectivityMonitor.stop();
+        calendarRetryScheduler.shutdownNow();
+        syncCoordinator.shutdownNow();
+        syncExecutor.shutdownNow();
+        prefetchExecutor.shutdownNow();
+        attachmentPrefetcher.clear();
+        MemoryBudget.unregister("gmailPrefetch");
+        MemoryBudget.unregister("googleApiClients");
+        super.handleOnDestroy();
+    }
+
+    /**
+     * Sends the signed-in account's queued Calendar writes now. Returns {@code {sent: 0, remaining}}
+     * when nothing is queued or the circuit is open.
+     */
+    @PluginMethod
+    public void flushCalendarQueue(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        GoogleSignInAccount account = this.currentGoogleAccount;
+        if (account == null) {
+            NativeMetrics.reject(call, "User not signed in or account not available for flushCalendarQueue.", "SIGN_IN_REQUIRED");
+            return;
+        }
+        GoogleCalendarHandler handler = this.googleCalendarHandler;
+        executorService.execute(() -> {
+            NativeMetrics.started(call);
+            try {
+                JSObject result = handler.flushWriteQueue(account);
+                if (result == null) {
+                    result = new JSObject();
+                    result.put("sent", 0);
+                    result.put("duplicates", 0);
+                    result.put("failed", 0);
+                    result.put("remaining", account.getEmail() == null ? 0 : calendarQueue.size(account.getEmail()));
+                    result.put("results", new JSONArray());
+                }
+                NativeMetrics.resolve(call, result);
+            } catch (IOException e) {
+                ErrorUtils.handleIOException(call, e, "Error flushing calendar queue", TAG);
+            } catch (Exception e) {
+                ErrorUtils.handleGenericException(call, e, "Unexpected error flushing calendar queue", TAG);
+            }
+        });
+    }
+
+    /**
+     * Selects the transport for Gmail/Calendar requests: "netHttp" (HttpURLConnection, the default)
+     * or "okHttp" (HTTP/2 multiplexing, connection pool). Calls already queued finish on the old one.
+     */
+    @PluginMethod
+    public void configureHttpTransport(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        String transport = call.getString("transport", GoogleApiEndpoint.NET_HTTP);
+        GoogleApiEndpoint next;
+        try {
+            if (GoogleApiEndpoint.OK_HTTP.equals(transport)) {
+                next = GoogleApiEndpoint.okHttp(
+                        call.getInt("maxIdleConnections", OkHttpTransport.DEFAULT_MAX_IDLE_CONNECTIONS),
+                        call.getLong("keepAliveSeconds", OkHttpTransport.DEFAULT_KEEP_ALIVE_SECONDS));
+            } else if (GoogleApiEndpoint.NET_HTTP.equals(transport)) {
+                next = GoogleApiEndpoint.defaults();
+            } else {
+                throw new IllegalArgumentException("Unknown transport: " + transport);
+            }
+        } catch (IllegalArgumentException e) {
+            ErrorUtils.handleGenericException(call, e, "Invalid options for configureHttpTransport", TAG);
+            return;
+        }
+        GoogleApiEndpoint previous = this.apiEndpoint;
+        this.apiEndpoint = next;
+        createApiHandlers();
+        if (previous != next) {
+            previous.shutdown();
+        }
+        Log.d(TAG, "Google API transport: " + next.transportName());
+        NativeMetrics.resolve(call, next.stats());
     }
 
     @PluginMethod
     public void signIn(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
         Intent signInIntent = googleSignInClient.getSignInIntent();
         saveCall(call);
         startActivityForResult(call, signInIntent, "handleSignInResult");
@@ -96,6 +374,7 @@ public class GoogleAuthPlugin extends Plugin {
         try {
             GoogleSignInAccount account = task.getResult(ApiException.class);
             Log.d(TAG, "Google Sign In successful.");
+            sessionGeneration.incrementAndGet();
             this.currentGoogleAccount = account;
             signInToFirebaseAndResolve(call, account);
 
@@ -108,8 +387,26 @@ public class GoogleAuthPlugin extends Plugin {
         }
     }
 
+    /**
+     * instant (default true): when the last Google account or Firebase user is stored on the device,
+     * resolves with the cached profile without waiting for the network ({@code cached: true}). The
+     * Google and Firebase sessions are refreshed in parallel in the background and the outcome is
+     * reported with a sessionRefreshed/sessionExpired event. With instant false both network calls
+     * are awaited as before.
+     */
     @PluginMethod
     public void trySilentSignIn(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        if (call.getBoolean("instant", true)) {
+            JSObject cached = cachedSession();
+            if (cached != null) {
+                Log.d(TAG, "Instant sign in from cached session; refreshing in background.");
+                instantSignIns.incrementAndGet();
+                NativeMetrics.resolve(call, cached);
+                refreshSessionInBackground(cached);
+                return;
+            }
+        }
         Log.d(TAG, "Attempting silent sign in...");
 
         Task<GoogleSignInAccount> task = googleSignInClient.silentSignIn();
@@ -148,7 +445,7 @@ public class GoogleAuthPlugin extends Plugin {
 
     private void signInToFirebaseAndResolve(PluginCall call, GoogleSignInAccount googleAccount) {
         if (googleAccount.getIdToken() == null) {
-            call.reject("Google ID Token is null, cannot proceed with Firebase sign in.");
+            NativeMetrics.reject(call, "Google ID Token is null, cannot proceed with Firebase sign in.");
             return;
         }
         AuthCredential credential = GoogleAuthProvider.getCredential(googleAccount.getIdToken(), null);
@@ -157,13 +454,8 @@ public class GoogleAuthPlugin extends Plugin {
                 if (authTask.isSuccessful()) {
                     // FirebaseUser user = firebaseAuth.getCurrentUser(); // Can be used if needed
                     Log.d(TAG, "Firebase Sign In successful.");
-                    JSObject userResult = new JSObject();
-                    userResult.put("id", googleAccount.getId());
-                    userResult.put("name", googleAccount.getDisplayName());
-                    userResult.put("email", googleAccount.getEmail());
-                    userResult.put("imageUrl", googleAccount.getPhotoUrl() != null ? googleAccount.getPhotoUrl().toString() : null);
-                    userResult.put("idToken", googleAccount.getIdToken());
-                    call.resolve(userResult);
+                    registerPrimaryAccount(googleAccount);
+                    NativeMetrics.resolve(call, userResult(googleAccount));
                 } else {
                     // Use ErrorUtils for Firebase Auth exceptions
                     ErrorUtils.handleFirebaseAuthException(call, authTask.getException(), "Firebase Sign In failed", TAG);
@@ -171,12 +463,180 @@ public class GoogleAuthPlugin extends Plugin {
             });
     }
 
+    private static JSObject userResult(GoogleSignInAccount googleAccount) {
+        JSObject userResult = new JSObject();
+        userResult.put("id", googleAccount.getId());
+        userResult.put("name", googleAccount.getDisplayName());
+        userResult.put("email", googleAccount.getEmail());
+        userResult.put("imageUrl", googleAccount.getPhotoUrl() != null ? googleAccount.getPhotoUrl().toString() : null);
+        userResult.put("idToken", googleAccount.getIdToken());
+        return userResult;
+    }
+
+    /**
+     * The session known without going to the network: the last Google account with all scopes
+     * granted, otherwise the Firebase user's Google profile. An expired ID token is fine; API calls
+     * get their access token separately through GoogleAccountCredential, and a fresh ID token comes
+     * with the background refresh.
+     */
+    private JSObject cachedSession() {
+        GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(getContext());
+        if (account != null && GoogleSignIn.hasPermissions(account, new Scope(GMAIL_READONLY_SCOPE), new Scope(CALENDAR_EVENTS_SCOPE))) {
+            this.currentGoogleAccount = account;
+            JSObject cached = userResult(account);
+            cached.put("cached", true);
+            return cached;
+        }
+        FirebaseUser firebaseUser = firebaseAuth.getCurrentUser();
+        if (firebaseUser == null) {
+            return null;
+        }
+        for (UserInfo info : firebaseUser.getProviderData()) {
+            if (GoogleAuthProvider.PROVIDER_ID.equals(info.getProviderId())) {
+                // Google hesabı yok; API çağrıları yenileme bitene kadar SIGN_IN_REQUIRED döner
+                JSObject cached = new JSObject();
+                cached.put("id", info.getUid());
+                cached.put("name", info.getDisplayName());
+                cached.put("email", info.getEmail());
+                cached.put("imageUrl", info.getPhotoUrl() != null ? info.getPhotoUrl().toString() : null);
+                cached.put("cached", true);
+                return cached;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Starts Google silentSignIn and the Firebase ID token refresh at the same time. When there is no
+     * Firebase session, or its token cannot be refreshed, it signs in again with the fresh Google ID
+     * token. On a network error the cached session is kept ({@code stale: true}); when Google or
+     * Firebase rejects the session, sessionExpired is sent. Events are held until the JS listener
+     * has registered.
+     */
+    private void refreshSessionInBackground(JSObject cached) {
+        if (!sessionRefreshRunning.compareAndSet(false, true)) {
+            return;
+        }
+        int generation = sessionGeneration.get();
+        long startedAt = System.currentTimeMillis();
+        Task<GoogleSignInAccount> googleTask = googleSignInClient.silentSignIn();
+        FirebaseUser firebaseUser = firebaseAuth.getCurrentUser();
+        Task<GetTokenResult> firebaseTask = firebaseUser != null ? firebaseUser.getIdToken(true) : Tasks.forResult(null);
+        Tasks.whenAllComplete(googleTask, firebaseTask).addOnCompleteListener(all -> {
+            if (!googleTask.isSuccessful()) {
+                Exception e = googleTask.getException();
+                if (isTransientAuthFailure(e)) {
+                    finishSessionStale(generation, startedAt, cached, e);
+                } else {
+                    String code = e instanceof ApiException
+                            && ((ApiException) e).getStatusCode() == GoogleSignInStatusCodes.SIGN_IN_REQUIRED
+                            ? "SIGN_IN_REQUIRED" : "SIGN_IN_API_ERROR";
+                    finishSessionExpired(generation, startedAt, "google", code, e);
+                }
+                return;
+            }
+            GoogleSignInAccount account = googleTask.getResult();
+            if (generation == sessionGeneration.get()) {
+                this.currentGoogleAccount = account;
+            }
+            if (firebaseUser != null && firebaseTask.isSuccessful()) {
+                finishSessionRefreshed(generation, startedAt, account);
+                return;
+            }
+            if (account.getIdToken() == null) {
+                finishSessionExpired(generation, startedAt, "firebase", "FIREBASE_AUTH_ERROR",
+                        new IllegalStateException("Google ID Token is null, cannot refresh Firebase session."));
+                return;
+            }
+            AuthCredential credential = GoogleAuthProvider.getCredential(account.getIdToken(), null);
+            firebaseAuth.signInWithCredential(credential).addOnCompleteListener(authTask -> {
+                if (authTask.isSuccessful()) {
+                    finishSessionRefreshed(generation, startedAt, account);
+                } else if (isTransientAuthFailure(authTask.getException())) {
+                    finishSessionStale(generation, startedAt, userResult(account), authTask.getException());
+                } else {
+                    finishSessionExpired(generation, startedAt, "firebase", "FIREBASE_AUTH_ERROR", authTask.getException());
+                }
+            });
+        });
+    }
+
+    private static boolean isTransientAuthFailure(Exception e) {
+        if (e instanceof ApiException) {
+            int status = ((ApiException) e).getStatusCode();
+            return status == GoogleSignInStatusCodes.NETWORK_ERROR || status == GoogleSignInStatusCodes.TIMEOUT;
+        }
+        return e instanceof FirebaseNetworkException || e instanceof IOException;
+    }
+
+    // Yenileme sürerken signIn/signOut olduysa sonuç artık bu oturuma ait değildir
+    private boolean endSessionRefresh(int generation, long startedAt) {
+        sessionRefreshRunning.set(false);
+        lastRefreshMillis = System.currentTimeMillis() - startedAt;
+        return generation == sessionGeneration.get();
+    }
+
+    private void finishSessionRefreshed(int generation, long startedAt, GoogleSignInAccount account) {
+        if (!endSessionRefresh(generation, startedAt)) {
+            return;
+        }
+        sessionsRefreshed.incrementAndGet();
+        Log.d(TAG, "Background session refresh finished in " + lastRefreshMillis + " ms.");
+        registerPrimaryAccount(account);
+        flushCalendarQueueInBackground();
+        JSObject event = new JSObject();
+        event.put("user", userResult(account));
+        event.put("stale", false);
+        notifyListeners(SESSION_REFRESHED_EVENT, event, true);
+    }
+
+    private void finishSessionStale(int generation, long startedAt, JSObject user, Exception e) {
+        if (!endSessionRefresh(generation, startedAt)) {
+            return;
+        }
+        sessionsStale.incrementAndGet();
+        Log.w(TAG, "Background session refresh failed transiently; keeping cached session.", e);
+        JSObject event = new JSObject();
+        event.put("user", user);
+        event.put("stale", true);
+        event.put("code", "NETWORK_ERROR");
+        notifyListeners(SESSION_REFRESHED_EVENT, event, true);
+    }
+
+    private void finishSessionExpired(int generation, long startedAt, String provider, String code, Exception e) {
+        if (!endSessionRefresh(generation, startedAt)) {
+            return;
+        }
+        sessionsExpired.incrementAndGet();
+        Log.w(TAG, "Background session refresh: " + provider + " session expired (" + code + ").", e);
+        if ("google".equals(provider)) {
+            this.currentGoogleAccount = null;
+        }
+        JSObject event = new JSObject();
+        event.put("provider", provider);
+        event.put("code", code);
+        event.put("message", e != null && e.getMessage() != null ? e.getMessage() : "Session expired");
+        notifyListeners(SESSION_EXPIRED_EVENT, event, true);
+    }
+
+    private JSObject sessionStats() {
+        JSObject stats = new JSObject();
+        stats.put("instantSignIns", instantSignIns.get());
+        stats.put("refreshed", sessionsRefreshed.get());
+        stats.put("stale", sessionsStale.get());
+        stats.put("expired", sessionsExpired.get());
+        stats.put("refreshing", sessionRefreshRunning.get());
+        stats.put("lastRefreshMs", lastRefreshMillis);
+        return stats;
+    }
+
 
     @PluginMethod
     public void createCalendarEvent(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
         if (this.currentGoogleAccount == null) {
             // ErrorUtils.handleGenericException(call, new IllegalStateException("User not signed in or account not available."), "User not signed in for createCalendarEvent", TAG);
-            call.reject("User not signed in or account not available for createCalendarEvent.", "SIGN_IN_REQUIRED");
+            NativeMetrics.reject(call, "User not signed in or account not available for createCalendarEvent.", "SIGN_IN_REQUIRED");
             return;
         }
         // Delegate to GoogleCalendarHandler
@@ -185,9 +645,10 @@ public class GoogleAuthPlugin extends Plugin {
 
     @PluginMethod
     public void searchCalendarEvents(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
          if (this.currentGoogleAccount == null) {
             // ErrorUtils.handleGenericException(call, new IllegalStateException("User not signed in or account not available."), "User not signed in for searchCalendarEvents", TAG);
-            call.reject("User not signed in or account not available for searchCalendarEvents.", "SIGN_IN_REQUIRED");
+            NativeMetrics.reject(call, "User not signed in or account not available for searchCalendarEvents.", "SIGN_IN_REQUIRED");
             return;
         }
         // Delegate to GoogleCalendarHandler
@@ -196,8 +657,9 @@ public class GoogleAuthPlugin extends Plugin {
 
     @PluginMethod
     public void updateCalendarEvent(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
         if (this.currentGoogleAccount == null) {
-            call.reject("User not signed in or account not available for updateCalendarEvent.", "SIGN_IN_REQUIRED");
+            NativeMetrics.reject(call, "User not signed in or account not available for updateCalendarEvent.", "SIGN_IN_REQUIRED");
             return;
         }
         // Delegate to GoogleCalendarHandler
@@ -206,48 +668,393 @@ public class GoogleAuthPlugin extends Plugin {
 
     @PluginMethod
     public void signOut(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        sessionGeneration.incrementAndGet();
         firebaseAuth.signOut();
+        googleGmailHandler.forgetAccounts();
+        executorService.execute(() -> {
+            try {
+                accountRegistry.clear();
+            } catch (Exception e) {
+                Log.w(TAG, "Could not clear added Google accounts on sign out", e);
+            }
+            // Kuyruktaki yazmalar bu kullanıcıya ait; sonra giriş yapan başka bir hesapla gönderilmemeli
+            try {
+                calendarQueue.clear();
+            } catch (Exception e) {
+                Log.w(TAG, "Could not clear queued calendar writes on sign out", e);
+            }
+        });
         googleSignInClient.signOut().addOnCompleteListener(task -> {
             this.currentGoogleAccount = null;
             if (task.isSuccessful()) {
                 Log.d(TAG, "Google Sign Out successful");
-                call.resolve();
+                NativeMetrics.resolve(call);
             } else {
                 Log.w(TAG, "Google Sign Out failed but proceeding anyway.", task.getException());
-                call.resolve();
+                NativeMetrics.resolve(call);
             }
         });
     }
 
-    // --- GMAIL API METHODS ---
+    // --- ÇOKLU HESAP ---
 
+    // Birincil hesabı kayıt defterine yazar (profil değişmiş olabilir); önceki birincil hesap ikincil olur
+    private void registerPrimaryAccount(GoogleSignInAccount account) {
+        if (account.getEmail() == null) {
+            return;
+        }
+        JSObject profile = userResult(account);
+        executorService.execute(() -> {
+            try {
+                accountRegistry.put(profile, true);
+            } catch (Exception e) {
+                Log.w(TAG, "Could not register primary Google account", e);
+            }
+        });
+    }
+
+    /**
+     * Adds another Google account for Gmail searches without touching the primary session. The
+     * account is chosen with the system account picker, and consent is asked through a separate
+     * {@link GoogleSignInClient} bound to that account, so the primary client is never signed out.
+     * GSI still records the added account as the last signed-in one; afterwards the default is
+     * switched back to the primary account, so the instant session at startup (trySilentSignIn)
+     * returns the primary account.
+     */
     @PluginMethod
-    public void searchGmailMessages(PluginCall call) {
+    public void addGoogleAccount(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
         if (this.currentGoogleAccount == null) {
-            // ErrorUtils.handleGenericException(call, new IllegalStateException("User not signed in or account not available."), "User not signed in for searchGmailMessages", TAG);
-            call.reject("User not signed in or account not available for searchGmailMessages.", "SIGN_IN_REQUIRED");
+            NativeMetrics.reject(call, "Sign in with the primary account before adding another account.", "SIGN_IN_REQUIRED");
+            return;
+        }
+        saveCall(call);
+        Intent picker = AccountPicker.newChooseAccountIntent(new AccountPicker.AccountChooserOptions.Builder()
+                .setAllowableAccountsTypes(Collections.singletonList(GoogleAccountRegistry.ACCOUNT_TYPE))
+                .setAlwaysShowAccountPicker(true)
+                .build());
+        startActivityForResult(call, picker, "handleAccountPicked");
+    }
+
+    @ActivityCallback
+    private void handleAccountPicked(PluginCall call, ActivityResult result) {
+        if (call == null) {
+            Log.e(TAG, "PluginCall missing in handleAccountPicked");
+            return;
+        }
+        Intent data = result.getData();
+        String email = data != null ? data.getStringExtra(AccountManager.KEY_ACCOUNT_NAME) : null;
+        if (result.getResultCode() != Activity.RESULT_OK || email == null) {
+            NativeMetrics.reject(call, "Adding Google account failed: Sign-in cancelled by user.", "SIGN_IN_CANCELLED");
+            return;
+        }
+        // Yalnızca bu akış için istemci: ID token istenmez, izin ekranı seçilen hesap için açılır
+        GoogleSignInOptions options = new GoogleSignInOptions.Builder(GoogleSignInOptions.DEFAULT_SIGN_IN)
+                .requestEmail()
+                .requestScopes(new Scope(GMAIL_READONLY_SCOPE))
+                .setAccountName(email)
+                .build();
+        startActivityForResult(call, GoogleSignIn.getClient(getContext(), options).getSignInIntent(), "handleAddAccountResult");
+    }
+
+    @ActivityCallback
+    private void handleAddAccountResult(PluginCall call, ActivityResult result) {
+        if (call == null) {
+            Log.e(TAG, "PluginCall missing in handleAddAccountResult");
+            return;
+        }
+        GoogleSignInAccount primary = this.currentGoogleAccount;
+        restoreDefaultAccount(primary);
+        Task<GoogleSignInAccount> task = GoogleSignIn.getSignedInAccountFromIntent(result.getData());
+        try {
+            GoogleSignInAccount added = task.getResult(ApiException.class);
+            if (added.getEmail() == null) {
+                throw new IllegalStateException("Google account has no e-mail address.");
+            }
+            boolean isPrimary = primary != null && added.getEmail().equalsIgnoreCase(primary.getEmail());
+            JSObject profile = userResult(added);
+            executorService.execute(() -> {
+                try {
+                    JSONObject account = accountRegistry.put(profile, isPrimary);
+                    Log.d(TAG, "Google account added (" + accountRegistry.accounts().size() + " accounts).");
+                    JSObject response = new JSObject();
+                    response.put("account", account);
+                    response.put("accounts", new JSONArray(accountRegistry.accounts()));
+                    NativeMetrics.resolve(call, response);
+                } catch (Exception e) {
+                    ErrorUtils.handleGenericException(call, e, "Could not add Google account", TAG);
+                }
+            });
+        } catch (ApiException e) {
+            ErrorUtils.handleGoogleSignInApiException(call, e, "Adding Google account failed", TAG);
+        } catch (Exception e) {
+            ErrorUtils.handleGenericException(call, e, "Unexpected error while adding Google account", TAG);
+        }
+    }
+
+    private void restoreDefaultAccount(GoogleSignInAccount primary) {
+        if (primary == null || primary.getEmail() == null) {
             return;
         }
-        this.googleGmailHandler.searchGmailMessages(call, this.currentGoogleAccount);
+        GoogleSignInOptions options = new GoogleSignInOptions.Builder(signInOptions)
+                .setAccountName(primary.getEmail())
+                .build();
+        GoogleSignIn.getClient(getContext(), options).silentSignIn().addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.w(TAG, "Could not restore the primary account as the default Google account.", task.getException());
+            }
+        });
     }
 
+    /** The added accounts, the primary one included: {@code {accounts: [{email, id, name, imageUrl, primary}]}}. */
     @PluginMethod
-    public void getGmailMessageDetails(PluginCall call) {
-        if (this.currentGoogleAccount == null) {
-            // ErrorUtils.handleGenericException(call, new IllegalStateException("User not signed in or account not available."), "User not signed in for getGmailMessageDetails", TAG);
-            call.reject("User not signed in or account not available for getGmailMessageDetails.", "SIGN_IN_REQUIRED");
+    public void listGoogleAccounts(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        GoogleSignInAccount primary = this.currentGoogleAccount;
+        executorService.execute(() -> {
+            NativeMetrics.started(call);
+            try {
+                ensurePrimaryRegistered(primary);
+                JSObject response = new JSObject();
+                response.put("accounts", new JSONArray(accountRegistry.accounts()));
+                NativeMetrics.resolve(call, response);
+            } catch (Exception e) {
+                ErrorUtils.handleGenericException(call, e, "Could not list Google accounts", TAG);
+            }
+        });
+    }
+
+    /** Removes an account added with addGoogleAccount and its checkpoints; the primary account leaves through signOut. */
+    @PluginMethod
+    public void removeGoogleAccount(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        String email = call.getString("account");
+        if (email == null || email.isEmpty()) {
+            ErrorUtils.handleGenericException(call, new IllegalArgumentException("account is required."), "account missing for removeGoogleAccount", TAG);
+            return;
+        }
+        GoogleSignInAccount primary = this.currentGoogleAccount;
+        if (primary != null && email.equalsIgnoreCase(primary.getEmail())) {
+            NativeMetrics.reject(call, "The primary account can only be removed by signing out.", "PRIMARY_ACCOUNT");
             return;
         }
-        this.googleGmailHandler.getGmailMessageDetails(call, this.currentGoogleAccount);
+        executorService.execute(() -> {
+            NativeMetrics.started(call);
+            try {
+                boolean removed = accountRegistry.remove(email);
+                googleGmailHandler.forgetAccount(email);
+                JSObject response = new JSObject();
+                response.put("removed", removed);
+                response.put("accounts", new JSONArray(accountRegistry.accounts()));
+                NativeMetrics.resolve(call, response);
+            } catch (Exception e) {
+                ErrorUtils.handleGenericException(call, e, "Could not remove Google account", TAG);
+            }
+        });
+    }
+
+    // Bu sürümden önce giriş yapılmış oturumlarda birincil hesap kayıt defterinde yoktur
+    private void ensurePrimaryRegistered(GoogleSignInAccount primary) throws IOException, GeneralSecurityException, JSONException {
+        if (primary != null && primary.getEmail() != null && !accountRegistry.contains(primary.getEmail())) {
+            accountRegistry.put(userResult(primary), true);
+        }
+    }
+
+    /**
+     * The account for a Gmail call: the primary account when {@code account} is missing or is the
+     * primary one, otherwise an account added with addGoogleAccount (the registry is read on the executor).
+     */
+    private void withGmailAccount(PluginCall call, String method, Consumer<Account> action) {
+        GoogleSignInAccount primary = this.currentGoogleAccount;
+        if (primary == null) {
+            NativeMetrics.reject(call, "User not signed in or account not available for " + method + ".", "SIGN_IN_REQUIRED");
+            return;
+        }
+        String email = call.getString("account");
+        if (email == null || email.isEmpty() || email.equalsIgnoreCase(primary.getEmail())) {
+            action.accept(primary.getAccount());
+            return;
+        }
+        executorService.execute(() -> {
+            try {
+                if (accountRegistry.contains(email)) {
+                    action.accept(GoogleAccountRegistry.androidAccount(email));
+                } else {
+                    NativeMetrics.reject(call, "Google account has not been added: " + email, "ACCOUNT_NOT_FOUND");
+                }
+            } catch (Exception e) {
+                ErrorUtils.handleGenericException(call, e, "Could not resolve Google account for " + method, TAG);
+            }
+        });
+    }
+
+    // --- GMAIL API METHODS ---
+
+    @PluginMethod
+    public void searchGmailMessages(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        withGmailAccount(call, "searchGmailMessages", account -> this.googleGmailHandler.searchGmailMessages(call, account));
+    }
+
+    @PluginMethod
+    public void getGmailMessageDetails(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        withGmailAccount(call, "getGmailMessageDetails", account -> this.googleGmailHandler.getGmailMessageDetails(call, account));
     }
 
     @PluginMethod
     public void getGmailAttachment(PluginCall call) {
-        if (this.currentGoogleAccount == null) {
-            // ErrorUtils.handleGenericException(call, new IllegalStateException("User not signed in or account not available."), "User not signed in for getGmailAttachment", TAG);
-            call.reject("User not signed in or account not available for getGmailAttachment.", "SIGN_IN_REQUIRED");
+        NativeMetrics.begin(NAME, call);
+        withGmailAccount(call, "getGmailAttachment", account -> this.googleGmailHandler.getGmailAttachment(call, account));
+    }
+
+    /**
+     * Sets which senders' PDF attachments are downloaded in the background as soon as their message
+     * is fetched (see {@link AttachmentPrefetcher}). {@code {enabled = true, senders: string[], maxBytes?}};
+     * returns the current prefetch stats.
+     */
+    @PluginMethod
+    public void configureAttachmentPrefetch(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        boolean enabled = call.getBoolean("enabled", true);
+        List<String> senders = new ArrayList<>();
+        try {
+            JSArray array = call.getArray("senders", new JSArray());
+            for (int i = 0; i < array.length(); i++) {
+                senders.add(array.getString(i));
+            }
+        } catch (JSONException e) {
+            ErrorUtils.handleGenericException(call, e, "Invalid senders for configureAttachmentPrefetch", TAG);
             return;
         }
-        this.googleGmailHandler.getGmailAttachment(call, this.currentGoogleAccount);
+        attachmentPrefetcher.configure(enabled, senders, call.getLong("maxBytes", AttachmentPrefetcher.DEFAULT_MAX_BYTES));
+        NativeMetrics.resolve(call, attachmentPrefetcher.stats());
+    }
+
+    /**
+     * Runs the queries in every added account at once (see {@link MultiAccountSync}) and groups the
+     * results by account. With includeDetails the message details are fetched within the same budget.
+     * One account's failure does not stop the others; it is returned as {@code error/code} in that
+     * account's result.
+     */
+    @PluginMethod
+    public void searchGmailMessagesAllAccounts(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        GoogleSignInAccount primary = this.currentGoogleAccount;
+        if (primary == null) {
+            NativeMetrics.reject(call, "User not signed in or account not available for searchGmailMessagesAllAccounts.", "SIGN_IN_REQUIRED");
+            return;
+        }
+        List<MultiAccountSync.Query> queries;
+        try {
+            queries = parseQueries(call.getArray("queries"));
+        } catch (JSONException | IllegalArgumentException e) {
+            ErrorUtils.handleGenericException(call, e, "Invalid queries for searchGmailMessagesAllAccounts", TAG);
+            return;
+        }
+        int maxResults = call.getInt("maxResults", MultiAccountSync.DEFAULT_MAX_RESULTS);
+        boolean includeDetails = call.getBoolean("includeDetails", false);
+        int maxParallel = Math.max(1, Math.min(SYNC_WORKERS, call.getInt("maxParallel", SYNC_WORKERS)));
+        GoogleGmailHandler handler = this.googleGmailHandler;
+
+        executorService.execute(() -> {
+            NativeMetrics.started(call);
+            if (!gmailBreaker.tryAcquire()) {
+                ErrorUtils.handleServiceUnavailable(call, gmailBreaker, "Cannot search Gmail accounts", TAG);
+                return;
+            }
+            List<MultiAccountSync.Target> targets = new ArrayList<>();
+            try {
+                ensurePrimaryRegistered(primary);
+                for (JSONObject account : accountRegistry.accounts()) {
+                    String email = account.getString("email");
+                    Account androidAccount = email.equalsIgnoreCase(primary.getEmail()) && primary.getAccount() != null
+                            ? primary.getAccount() : GoogleAccountRegistry.androidAccount(email);
+                    targets.add(new MultiAccountSync.Target(email, handler.gmailFor(androidAccount),
+                            accountRegistry.checkpoints(email)));
+                }
+            } catch (Exception e) {
+                gmailBreaker.record(e);
+                ErrorUtils.handleGenericException(call, e, "Unexpected error searching Gmail accounts", TAG);
+                return;
+            }
+            // Senkronizasyon bütün hesaplar bitene kadar sürer; tek thread'li executorService diğer çağrılara açık kalsın
+            syncCoordinator.execute(() -> {
+                MultiAccountSync.Report report;
+                try {
+                    report = MultiAccountSync.run(targets, queries, maxResults, includeDetails,
+                            maxParallel, syncExecutor, attachmentPrefetcher);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    gmailBreaker.record(null);
+                    ErrorUtils.handleGenericException(call, e, "Interrupted while searching Gmail accounts", TAG);
+                    return;
+                } catch (Exception e) {
+                    gmailBreaker.record(e);
+                    ErrorUtils.handleGenericException(call, e, "Unexpected error searching Gmail accounts", TAG);
+                    return;
+                }
+                gmailBreaker.record(report.networkFailure);
+                // Kayıt defterine erişim yalnızca executorService'ten
+                executorService.execute(() -> {
+                    try {
+                        accountRegistry.saveCheckpoints(report.checkpoints);
+                        recordAccountSync(report, targets.size());
+                        ResultStreams.resolve(call, report.result, this::notifyListeners);
+                    } catch (Exception e) {
+                        ErrorUtils.handleGenericException(call, e, "Could not save Gmail sync checkpoints", TAG);
+                    }
+                });
+            });
+        });
+    }
+
+    private static List<MultiAccountSync.Query> parseQueries(JSArray array) throws JSONException {
+        if (array == null || array.length() == 0) {
+            throw new IllegalArgumentException("queries is required.");
+        }
+        List<MultiAccountSync.Query> queries = new ArrayList<>(array.length());
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject item = array.getJSONObject(i);
+            String key = item.optString("key", "");
+            String query = item.optString("query", "");
+            if (key.isEmpty() || query.isEmpty()) {
+                throw new IllegalArgumentException("Every query needs a key and a query string.");
+            }
+            if (!keys.add(key)) {
+                throw new IllegalArgumentException("Duplicate query key: " + key);
+            }
+            queries.add(new MultiAccountSync.Query(key, query));
+        }
+        return queries;
+    }
+
+    private void recordAccountSync(MultiAccountSync.Report report, int accounts) {
+        accountSyncs.incrementAndGet();
+        JSObject last = new JSObject();
+        last.put("accounts", accounts);
+        last.put("elapsedMs", report.elapsedMillis);
+        last.put("slowestAccountMs", report.slowestAccountMillis);
+        // Hesaplar sırayla aransaydı yaklaşık toplam süre
+        last.put("accountMsSum", report.accountMillisSum);
+        lastAccountSync = last;
+        Log.d(TAG, "Searched " + accounts + " Gmail accounts in " + report.elapsedMillis + " ms (slowest account "
+                + report.slowestAccountMillis + " ms, sum " + report.accountMillisSum + " ms).");
+    }
+
+    private JSObject accountSyncStats() {
+        JSObject stats = new JSObject();
+        stats.put("workers", SYNC_WORKERS);
+        stats.put("syncs", accountSyncs.get());
+        stats.put("last", lastAccountSync);
+        return stats;
+    }
+
+    /** Acknowledges streamed result chunks of getGmailMessageDetails/getGmailAttachment (ResultStreams). */
+    @PluginMethod
+    public void ackResultChunk(PluginCall call) {
+        ResultStreams.ack(call);
     }
-} 
\ No newline at end of file
+}
@@ -10,8 +10,12 @@ import com.getcapacitor.PluginCall;
 import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
 
 // Google API Client Library Imports (Core, HTTP, JSON, Auth)
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
 import com.google.api.client.googleapis.extensions.android.gms.auth.GoogleAccountCredential;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpRequestInitializer;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.client.util.DateTime;
 
@@ -22,10 +26,22 @@ import com.google.api.services.calendar.model.EventDateTime;
 import com.google.api.services.calendar.model.EventReminder;
 import com.google.api.services.calendar.model.Events;
 
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
 // Java Util Imports
 import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -36,13 +52,28 @@ public class GoogleCalendarHandler {
     private static final String TAG = "GoogleCalendarHandler";
     private final Context context;
     private final ExecutorService executorService;
+    private final GoogleApiEndpoint endpoint;
+    private final CircuitBreaker breaker;
+    // null ise çevrimdışı yazmalar kuyruğa alınmaz, hata döner
+    private final CalendarWriteQueue writeQueue;
+
+    // Google batch isteği başına en fazla çağrı (Calendar için önerilen üst sınır)
+    static final int MAX_BATCH = 50;
 
     // Scope Calendar işlemleri için gerekli
     private static final String CALENDAR_EVENTS_SCOPE = "https://www.googleapis.com/auth/calendar.events";
 
     public GoogleCalendarHandler(Context context, ExecutorService executorService) {
+        this(context, executorService, GoogleApiEndpoint.defaults(), new CircuitBreaker("calendar", () -> true), null);
+    }
+
+    GoogleCalendarHandler(Context context, ExecutorService executorService, GoogleApiEndpoint endpoint,
+                          CircuitBreaker breaker, CalendarWriteQueue writeQueue) {
         this.context = context;
         this.executorService = executorService;
+        this.endpoint = endpoint;
+        this.breaker = breaker;
+        this.writeQueue = writeQueue;
     }
 
     public void createCalendarEvent(PluginCall call, GoogleSignInAccount account) {
@@ -63,45 +94,30 @@ public class GoogleCalendarHandler {
         }
 
         executorService.execute(() -> {
+            NativeMetrics.started(call);
+            if (!breaker.tryAcquire()) {
+                if (writeQueue != null) {
+                    queueWrite(call, () -> writeQueue.enqueueInsert(account.getEmail(), summary, description, startTimeIso, endTimeIso, timeZone));
+                } else {
+                    ErrorUtils.handleServiceUnavailable(call, breaker, "Cannot create calendar event", TAG);
+                }
+                return;
+            }
             try {
                 Calendar service = buildCalendarServiceWithAccount(account);
-
-                Event event = new Event()
-                        .setSummary(summary)
-                        .setDescription(description);
-
-                DateTime startDateTime = new DateTime(startTimeIso);
-                EventDateTime start = new EventDateTime()
-                        .setDateTime(startDateTime)
-                        .setTimeZone(timeZone);
-                event.setStart(start);
-
-                DateTime endDateTime = new DateTime(endTimeIso);
-                EventDateTime end = new EventDateTime()
-                        .setDateTime(endDateTime)
-                        .setTimeZone(timeZone);
-                event.setEnd(end);
-
-                EventReminder[] reminderOverrides = new EventReminder[]{
-                        new EventReminder().setMethod("popup").setMinutes(0)
-                };
-                Event.Reminders reminders = new Event.Reminders()
-                        .setUseDefault(false)
-                        .setOverrides(Arrays.asList(reminderOverrides));
-                event.setReminders(reminders);
-
-                String calendarId = "primary";
-                Event createdEvent = service.events().insert(calendarId, event).execute();
-
-                JSObject result = new JSObject();
-                result.put("id", createdEvent.getId());
-                result.put("htmlLink", createdEvent.getHtmlLink());
-                result.put("summary", createdEvent.getSummary());
-                call.resolve(result);
+                JSObject created = insertEvent(service, summary, description, startTimeIso, endTimeIso, timeZone);
+                breaker.record(null);
+                NativeMetrics.resolve(call, created);
 
             } catch (IOException e) {
+                breaker.record(e);
+                if (writeQueue != null && neverSent(e)) {
+                    queueWrite(call, () -> writeQueue.enqueueInsert(account.getEmail(), summary, description, startTimeIso, endTimeIso, timeZone));
+                    return;
+                }
                 ErrorUtils.handleIOException(call, e, "Error creating calendar event", TAG);
             } catch (Exception e) {
+                breaker.record(e);
                 ErrorUtils.handleGenericException(call, e, "Unexpected error creating calendar event", TAG);
             }
         });
@@ -121,60 +137,28 @@ public class GoogleCalendarHandler {
         }
 
         executorService.execute(() -> {
+            NativeMetrics.started(call);
+            String targetDate = extractDate(appId);
+            if (targetDate == null) {
+                Log.w(TAG, "Could not extract date from AppID for calendar search: " + appId);
+                ErrorUtils.handleGenericException(call, new IllegalArgumentException("Could not extract date from AppID: " + appId), "Date extraction failed", TAG);
+                return;
+            }
+            if (!breaker.tryAcquire()) {
+                ErrorUtils.handleServiceUnavailable(call, breaker, "Cannot search calendar events", TAG);
+                return;
+            }
             try {
                 Calendar service = buildCalendarServiceWithAccount(account);
-
-                String targetDate = null;
-                java.util.regex.Matcher matcher = java.util.regex.Pattern.compile("(\\d{4}-\\d{2}-\\d{2})").matcher(appId);
-                if (matcher.find()) {
-                    targetDate = matcher.group(1);
-                }
-
-                if (targetDate == null) {
-                    Log.w(TAG, "Could not extract date from AppID for calendar search: " + appId);
-                    ErrorUtils.handleGenericException(call, new IllegalArgumentException("Could not extract date from AppID: " + appId), "Date extraction failed", TAG);
-                    return;
-                }
-
-                String startOfDayUtc = targetDate + "T00:00:00Z";
-                java.util.Calendar calendar = java.util.Calendar.getInstance(java.util.TimeZone.getTimeZone("UTC"));
-                java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd");
-                sdf.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-                java.util.Date dateObj = sdf.parse(targetDate);
-                calendar.setTime(dateObj);
-                calendar.add(java.util.Calendar.DATE, 1);
-                String endOfDayUtc = new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'").format(calendar.getTime());
-
-
-                Events events = service.events().list("primary")
-                        .setQ(appId)
-                        .setTimeMin(new DateTime(startOfDayUtc))
-                        .setTimeMax(new DateTime(endOfDayUtc))
-                        .setSingleEvents(true)
-                        .setMaxResults(5)
-                        .execute();
-
-                boolean eventFound = false;
-                String foundEventId = null;
-                if (events.getItems() != null) {
-                    for (Event event : events.getItems()) {
-                        if (event.getDescription() != null && event.getDescription().contains(appId)) {
-                            eventFound = true;
-                            foundEventId = event.getId();
-                            break;
-                        }
-                    }
-                }
-                JSObject result = new JSObject();
-                result.put("eventFound", eventFound);
-                if (foundEventId != null) {
-                    result.put("eventId", foundEventId);
-                }
-                call.resolve(result);
+                JSObject found = findEventByAppId(service, appId, targetDate);
+                breaker.record(null);
+                NativeMetrics.resolve(call, found);
 
             } catch (IOException e) {
+                breaker.record(e);
                 ErrorUtils.handleIOException(call, e, "Error searching calendar events", TAG);
             } catch (Exception e) {
+                breaker.record(e);
                 ErrorUtils.handleGenericException(call, e, "Unexpected error searching calendar events", TAG);
             }
         });
@@ -196,34 +180,296 @@ public class GoogleCalendarHandler {
         }
 
         executorService.execute(() -> {
+            NativeMetrics.started(call);
+            if (!breaker.tryAcquire()) {
+                if (writeQueue != null) {
+                    queueWrite(call, () -> writeQueue.enqueuePatch(account.getEmail(), eventId, summary, description));
+                } else {
+                    ErrorUtils.handleServiceUnavailable(call, breaker, "Cannot update calendar event", TAG);
+                }
+                return;
+            }
             try {
                 Calendar service = buildCalendarServiceWithAccount(account);
+                JSObject updated = updateEvent(service, eventId, summary, description);
+                breaker.record(null);
+                NativeMetrics.resolve(call, updated);
 
-                // Mevcut etkinliği getir
-                Event event = service.events().get("primary", eventId).execute();
+            } catch (IOException e) {
+                breaker.record(e);
+                if (writeQueue != null && neverSent(e)) {
+                    queueWrite(call, () -> writeQueue.enqueuePatch(account.getEmail(), eventId, summary, description));
+                    return;
+                }
+                ErrorUtils.handleIOException(call, e, "Error updating calendar event", TAG);
+            } catch (Exception e) {
+                breaker.record(e);
+                ErrorUtils.handleGenericException(call, e, "Unexpected error updating calendar event", TAG);
+            }
+        });
+    }
 
-                // Sadece verilen alanları güncelle
-                if (summary != null) {
-                    event.setSummary(summary);
+    /**
+     * Sends the account's queued writes (see {@link #flushQueue}). Returns null without doing
+     * anything when nothing is queued or the circuit is open. Must be called on the executor.
+     */
+    JSObject flushWriteQueue(GoogleSignInAccount account) throws IOException, GeneralSecurityException, JSONException {
+        String email = account.getEmail();
+        if (writeQueue == null || email == null || writeQueue.size(email) == 0 || !breaker.tryAcquire()) {
+            return null;
+        }
+        try {
+            JSObject result = flushQueue(buildCalendarServiceWithAccount(account), writeQueue, email);
+            breaker.record(null);
+            return result;
+        } catch (Exception e) {
+            // Her hata bildirilmeli; yoksa half-open denemesi askıda kalır ve devre hiç kapanmaz
+            breaker.record(e);
+            throw e;
+        }
+    }
+
+    private interface QueuedWrite {
+        JSObject enqueue() throws IOException, GeneralSecurityException, JSONException;
+    }
+
+    private void queueWrite(PluginCall call, QueuedWrite write) {
+        try {
+            JSObject queued = write.enqueue();
+            Log.d(TAG, "Calendar write queued while offline: " + queued.getString("queueId"));
+            NativeMetrics.resolve(call, queued);
+        } catch (Exception e) {
+            ErrorUtils.handleGenericException(call, e, "Could not queue calendar write", TAG);
+        }
+    }
+
+    /** The connection was never made; the request did not reach the server, so queueing and resending it is safe. */
+    static boolean neverSent(IOException e) {
+        return e instanceof UnknownHostException || e instanceof ConnectException || e instanceof NoRouteToHostException;
+    }
+
+    /**
+     * Sends the account's queue in the order it was queued, in Google batch requests of up to
+     * {@link #MAX_BATCH} calls. Successful writes, inserts answered with 409 (the event already
+     * exists) and permanent 4xx failures leave the queue; 5xx, 429 and 401 answers stay for the next
+     * flush. Google applies the calls of a batch in no particular order, so a batch carries at most
+     * one write per event: a later write to the same event (a patch of a queued insert, a second
+     * patch) goes in a following batch, and is held for the next flush if the earlier write is kept
+     * for retry. If a batch request fails with a network error, the entries completed so far are
+     * removed and the error is thrown.
+     *
+     * @return {@code {sent, duplicates, failed, remaining, results: [{queueId, op, id, status, error?}]}}
+     */
+    static JSObject flushQueue(Calendar service, CalendarWriteQueue queue, String account)
+            throws IOException, GeneralSecurityException, JSONException {
+        List<JSONObject> entries = queue.pending(account);
+        JSONArray results = new JSONArray();
+        int[] counts = new int[3]; // sent, duplicates, failed
+        // Önceki yazması tekrar denenmek üzere kuyrukta kalan etkinlikler; sonraki yazmaları da bekler
+        Set<String> held = new HashSet<>();
+        while (!entries.isEmpty()) {
+            List<JSONObject> later = new ArrayList<>();
+            Set<String> inBatch = new HashSet<>();
+            List<String> done = new ArrayList<>();
+            BatchRequest batch = service.batch();
+            for (JSONObject entry : entries) {
+                String eventId = entry.getString("eventId");
+                if (held.contains(eventId)) {
+                    continue;
                 }
-                if (description != null) {
-                    event.setDescription(description);
+                if (inBatch.size() >= MAX_BATCH || !inBatch.add(eventId)) {
+                    later.add(entry);
+                    continue;
                 }
+                queueRequest(service, batch, entry, done, held, results, counts);
+            }
+            if (batch.size() == 0) {
+                break;
+            }
+            try {
+                batch.execute();
+            } finally {
+                queue.remove(done);
+            }
+            entries = later;
+        }
+        JSObject result = new JSObject();
+        result.put("sent", counts[0]);
+        result.put("duplicates", counts[1]);
+        result.put("failed", counts[2]);
+        result.put("remaining", queue.size(account));
+        result.put("results", results);
+        return result;
+    }
 
-                Event updatedEvent = service.events().update("primary", eventId, event).execute();
+    private static void queueRequest(Calendar service, BatchRequest batch, JSONObject entry, List<String> done,
+                                     Set<String> held, JSONArray results, int[] counts) throws IOException, JSONException {
+        String queueId = entry.getString("queueId");
+        String op = entry.getString("op");
+        String eventId = entry.getString("eventId");
+        JsonBatchCallback<Event> callback = new JsonBatchCallback<Event>() {
+            @Override
+            public void onSuccess(Event event, HttpHeaders responseHeaders) throws IOException {
+                done.add(queueId);
+                counts[0]++;
+                addResult(event.getId(), "sent", null);
+            }
 
-                JSObject result = new JSObject();
-                result.put("id", updatedEvent.getId());
-                result.put("summary", updatedEvent.getSummary());
-                result.put("updated", true);
-                call.resolve(result);
+            @Override
+            public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) throws IOException {
+                int code = error.getCode();
+                if (CalendarWriteQueue.INSERT.equals(op) && code == 409) {
+                    done.add(queueId);
+                    counts[1]++;
+                    addResult(eventId, "duplicate", null);
+                } else if (code >= 500 || code == 429 || code == 401) {
+                    held.add(eventId);
+                    addResult(eventId, "retry", error.getMessage());
+                } else {
+                    Log.w(TAG, "Dropping queued calendar " + op + " " + queueId + ": " + code + " " + error.getMessage());
+                    done.add(queueId);
+                    counts[2]++;
+                    addResult(eventId, "failed", error.getMessage());
+                }
+            }
 
-            } catch (IOException e) {
-                ErrorUtils.handleIOException(call, e, "Error updating calendar event", TAG);
-            } catch (Exception e) {
-                ErrorUtils.handleGenericException(call, e, "Unexpected error updating calendar event", TAG);
+            private void addResult(String id, String status, String message) throws IOException {
+                try {
+                    JSONObject result = new JSONObject();
+                    result.put("queueId", queueId);
+                    result.put("op", op);
+                    result.put("id", id);
+                    result.put("status", status);
+                    if (message != null) {
+                        result.put("error", message);
+                    }
+                    results.put(result);
+                } catch (JSONException e) {
+                    throw new IOException(e);
+                }
             }
-        });
+        };
+        if (CalendarWriteQueue.INSERT.equals(op)) {
+            Event event = newEvent(entry.getString("summary"), entry.optString("description", null),
+                    entry.getString("startTimeIso"), entry.getString("endTimeIso"), entry.getString("timeZone"));
+            event.setId(eventId);
+            service.events().insert("primary", event).queue(batch, callback);
+        } else {
+            Event patch = new Event();
+            if (entry.has("summary")) {
+                patch.setSummary(entry.getString("summary"));
+            }
+            if (entry.has("description")) {
+                patch.setDescription(entry.getString("description"));
+            }
+            service.events().patch("primary", eventId, patch).queue(batch, callback);
+        }
+    }
+
+    static JSObject insertEvent(Calendar service, String summary, String description,
+                                String startTimeIso, String endTimeIso, String timeZone) throws IOException {
+        Event event = newEvent(summary, description, startTimeIso, endTimeIso, timeZone);
+
+        String calendarId = "primary";
+        Event createdEvent = service.events().insert(calendarId, event).execute();
+
+        JSObject result = new JSObject();
+        result.put("id", createdEvent.getId());
+        result.put("htmlLink", createdEvent.getHtmlLink());
+        result.put("summary", createdEvent.getSummary());
+        return result;
+    }
+
+    private static Event newEvent(String summary, String description, String startTimeIso, String endTimeIso, String timeZone) {
+        Event event = new Event()
+                .setSummary(summary)
+                .setDescription(description);
+
+        DateTime startDateTime = new DateTime(startTimeIso);
+        EventDateTime start = new EventDateTime()
+                .setDateTime(startDateTime)
+                .setTimeZone(timeZone);
+        event.setStart(start);
+
+        DateTime endDateTime = new DateTime(endTimeIso);
+        EventDateTime end = new EventDateTime()
+                .setDateTime(endDateTime)
+                .setTimeZone(timeZone);
+        event.setEnd(end);
+
+        EventReminder[] reminderOverrides = new EventReminder[]{
+                new EventReminder().setMethod("popup").setMinutes(0)
+        };
+        Event.Reminders reminders = new Event.Reminders()
+                .setUseDefault(false)
+                .setOverrides(Arrays.asList(reminderOverrides));
+        event.setReminders(reminders);
+        return event;
+    }
+
+    /** The yyyy-MM-dd date inside an AppID, or null when there is none. */
+    static String extractDate(String appId) {
+        java.util.regex.Matcher matcher = java.util.regex.Pattern.compile("(\\d{4}-\\d{2}-\\d{2})").matcher(appId);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    static JSObject findEventByAppId(Calendar service, String appId, String targetDate) throws IOException, java.text.ParseException {
+        String startOfDayUtc = targetDate + "T00:00:00Z";
+        java.util.Calendar calendar = java.util.Calendar.getInstance(java.util.TimeZone.getTimeZone("UTC"));
+        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd");
+        sdf.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
+        java.util.Date dateObj = sdf.parse(targetDate);
+        calendar.setTime(dateObj);
+        calendar.add(java.util.Calendar.DATE, 1);
+        String endOfDayUtc = new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'").format(calendar.getTime());
+
+
+        Events events = service.events().list("primary")
+                .setQ(appId)
+                .setTimeMin(new DateTime(startOfDayUtc))
+                .setTimeMax(new DateTime(endOfDayUtc))
+                .setSingleEvents(true)
+                .setMaxResults(5)
+                .execute();
+
+        boolean eventFound = false;
+        String foundEventId = null;
+        if (events.getItems() != null) {
+            for (Event event : events.getItems()) {
+                if (event.getDescription() != null && event.getDescription().contains(appId)) {
+                    eventFound = true;
+                    foundEventId = event.getId();
+                    break;
+                }
+            }
+        }
+        JSObject result = new JSObject();
+        result.put("eventFound", eventFound);
+        if (foundEventId != null) {
+            result.put("eventId", foundEventId);
+        }
+        return result;
+    }
+
+    static JSObject updateEvent(Calendar service, String eventId, String summary, String description) throws IOException {
+        // Mevcut etkinliği getir
+        Event event = service.events().get("primary", eventId).execute();
+
+        // Sadece verilen alanları güncelle
+        if (summary != null) {
+            event.setSummary(summary);
+        }
+        if (description != null) {
+            event.setDescription(description);
+        }
+
+        Event updatedEvent = service.events().update("primary", eventId, event).execute();
+
+        JSObject result = new JSObject();
+        result.put("id", updatedEvent.getId());
+        result.put("summary", updatedEvent.getSummary());
+        result.put("updated", true);
+        return result;
     }
 
     private Calendar buildCalendarServiceWithAccount(GoogleSignInAccount account) throws IOException {
@@ -234,11 +480,18 @@ public class GoogleCalendarHandler {
                 context, Collections.singletonList(CALENDAR_EVENTS_SCOPE));
         credential.setSelectedAccount(account.getAccount());
 
-        return new Calendar.Builder(
-                new NetHttpTransport(),
+        return buildCalendarService(endpoint, credential, context.getPackageName());
+    }
+
+    static Calendar buildCalendarService(GoogleApiEndpoint endpoint, HttpRequestInitializer credential, String applicationName) {
+        Calendar.Builder builder = new Calendar.Builder(
+                endpoint.transport,
                 GsonFactory.getDefaultInstance(),
                 credential)
-                .setApplicationName(context.getPackageName())
-                .build();
+                .setApplicationName(applicationName);
+        if (endpoint.rootUrl != null) {
+            builder.setRootUrl(endpoint.rootUrl);
+        }
+        return builder.build();
     }
 } 
\ No newline at end of file
@@ -1,20 +1,24 @@
 package com.codeyzer.ekstre;
 
+import android.accounts.Account;
 import android.content.Context;
 import android.util.Log;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.PluginCall;
-import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
 import com.google.api.client.googleapis.extensions.android.gms.auth.GoogleAccountCredential;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.HttpRequestInitializer;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.gmail.Gmail;
 import com.google.api.services.gmail.model.ListMessagesResponse;
 import com.google.api.services.gmail.model.Message;
 import com.google.api.services.gmail.model.MessagePartBody;
 
+import org.json.JSONException;
+
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 
 public class GoogleGmailHandler {
@@ -22,17 +26,39 @@ public class GoogleGmailHandler {
     private static final String TAG = "GoogleGmailHandler";
     private final Context context;
     private final ExecutorService executorService;
+    private final GoogleApiEndpoint endpoint;
+    private final ResultStreams.Emitter streamEmitter;
+    private final CircuitBreaker breaker;
+    private final AttachmentPrefetcher prefetcher;
+    // Hesap başına Gmail istemcisi, kendi GoogleAccountCredential'ıyla; transport değişince handler yeniden kurulur
+    private final Map<String, Gmail> clients = new ConcurrentHashMap<>();
     private static final String GMAIL_READONLY_SCOPE = "https://www.googleapis.com/auth/gmail.readonly";
 
     public GoogleGmailHandler(Context context, ExecutorService executorService) {
+        this(context, executorService, GoogleApiEndpoint.defaults(), null, new CircuitBreaker("gmail", () -> true), null);
+    }
+
+    /**
+     * {@code streamEmitter}: plugin listener that optionally sends message and attachment results in chunks.
+     * {@code prefetcher}: when not null, PDF attachments of fetched messages are downloaded ahead and
+     * attachment requests are served from it first.
+     */
+    GoogleGmailHandler(Context context, ExecutorService executorService, GoogleApiEndpoint endpoint,
+                       ResultStreams.Emitter streamEmitter, CircuitBreaker breaker, AttachmentPrefetcher prefetcher) {
         this.context = context;
         this.executorService = executorService;
+        this.endpoint = endpoint;
+        this.streamEmitter = streamEmitter;
+        this.breaker = breaker;
+        this.prefetcher = prefetcher;
     }
 
-    public void searchGmailMessages(PluginCall call, GoogleSignInAccount account) {
+    public void searchGmailMessages(PluginCall call, Account account) {
         String query = call.getString("query");
+        Integer maxResults = call.getInt("maxResults");
+        String pageToken = call.getString("pageToken");
 
-        if (account == null || account.getAccount() == null) {
+        if (account == null) {
             ErrorUtils.handleGenericException(call, new IllegalStateException("User not signed in or account not available."), "User not signed in for searchGmailMessages", TAG);
             return;
         }
@@ -42,29 +68,31 @@ public class GoogleGmailHandler {
         }
 
         executorService.execute(() -> {
+            NativeMetrics.started(call);
+            if (!breaker.tryAcquire()) {
+                ErrorUtils.handleServiceUnavailable(call, breaker, "Cannot search Gmail messages", TAG);
+                return;
+            }
             try {
-                Gmail service = buildGmailServiceWithAccount(account);
-                ListMessagesResponse response = service.users().messages().list("me")
-                        .setQ(query)
-                        .execute();
-                // TODO: Consider limiting the number of results or handling pagination if necessary.
-
-                String jsonResponse = GsonFactory.getDefaultInstance().toString(response);
-                JSObject result = new JSObject(jsonResponse);
-                call.resolve(result);
+                Gmail service = gmailFor(account);
+                JSObject messages = listMessages(service, query, maxResults, pageToken);
+                breaker.record(null);
+                NativeMetrics.resolve(call, messages);
 
             } catch (IOException e) {
+                breaker.record(e);
                 ErrorUtils.handleIOException(call, e, "Error searching Gmail messages", TAG);
             } catch (Exception e) {
+                breaker.record(e);
                 ErrorUtils.handleGenericException(call, e, "Unexpected error searching Gmail messages", TAG);
             }
         });
     }
 
-    public void getGmailMessageDetails(PluginCall call, GoogleSignInAccount account) {
+    public void getGmailMessageDetails(PluginCall call, Account account) {
         String messageId = call.getString("messageId");
 
-        if (account == null || account.getAccount() == null) {
+        if (account == null) {
             ErrorUtils.handleGenericException(call, new IllegalStateException("User not signed in or account not available."), "User not signed in for getGmailMessageDetails", TAG);
             return;
         }
@@ -74,27 +102,35 @@ public class GoogleGmailHandler {
         }
 
         executorService.execute(() -> {
+            NativeMetrics.started(call);
+            if (!breaker.tryAcquire()) {
+                ErrorUtils.handleServiceUnavailable(call, breaker, "Cannot get Gmail message details", TAG);
+                return;
+            }
             try {
-                Gmail service = buildGmailServiceWithAccount(account);
-                Message message = service.users().messages().get("me", messageId).setFormat("FULL").execute();
-
-                String jsonResponse = GsonFactory.getDefaultInstance().toString(message);
-                JSObject result = new JSObject(jsonResponse);
-                call.resolve(result);
+                Gmail service = gmailFor(account);
+                JSObject message = messageDetails(service, messageId);
+                breaker.record(null);
+                if (prefetcher != null) {
+                    prefetcher.offer(account.name, service, message);
+                }
+                ResultStreams.resolve(call, message, streamEmitter);
 
             } catch (IOException e) {
+                breaker.record(e);
                 ErrorUtils.handleIOException(call, e, "Error getting Gmail message details", TAG);
             } catch (Exception e) {
+                breaker.record(e);
                 ErrorUtils.handleGenericException(call, e, "Unexpected error getting Gmail message details", TAG);
             }
         });
     }
 
-    public void getGmailAttachment(PluginCall call, GoogleSignInAccount account) {
+    public void getGmailAttachment(PluginCall call, Account account) {
         String messageId = call.getString("messageId");
         String attachmentId = call.getString("attachmentId");
 
-        if (account == null || account.getAccount() == null) {
+        if (account == null) {
             ErrorUtils.handleGenericException(call, new IllegalStateException("User not signed in or account not available."), "User not signed in for getGmailAttachment", TAG);
             return;
         }
@@ -108,36 +144,102 @@ public class GoogleGmailHandler {
         }
 
         executorService.execute(() -> {
+            NativeMetrics.started(call);
+            // Ön yüklenmiş ek devre açıkken de yerelden verilir
+            JSObject prefetched = prefetcher != null ? prefetcher.take(account.name, messageId, attachmentId) : null;
+            if (prefetched != null) {
+                ResultStreams.resolve(call, prefetched, streamEmitter);
+                return;
+            }
+            if (!breaker.tryAcquire()) {
+                ErrorUtils.handleServiceUnavailable(call, breaker, "Cannot get Gmail attachment", TAG);
+                return;
+            }
             try {
-                Gmail service = buildGmailServiceWithAccount(account);
-                MessagePartBody attachmentBody = service.users().messages().attachments()
-                        .get("me", messageId, attachmentId).execute();
-
-                String jsonResponse = GsonFactory.getDefaultInstance().toString(attachmentBody);
-                JSObject result = new JSObject(jsonResponse);
-                call.resolve(result);
+                Gmail service = gmailFor(account);
+                JSObject body = attachment(service, messageId, attachmentId);
+                breaker.record(null);
+                ResultStreams.resolve(call, body, streamEmitter);
 
             } catch (IOException e) {
+                breaker.record(e);
                 ErrorUtils.handleIOException(call, e, "Error getting Gmail attachment", TAG);
             } catch (Exception e) {
+                breaker.record(e);
                 ErrorUtils.handleGenericException(call, e, "Unexpected error getting Gmail attachment", TAG);
             }
         });
     }
 
-    private Gmail buildGmailServiceWithAccount(GoogleSignInAccount account) throws IOException {
-        if (account == null || account.getAccount() == null) {
-            throw new IOException("GoogleSignInAccount is null or account details missing, cannot build Gmail service.");
+    /**
+     * A single page of the message list. Without maxResults/pageToken Gmail's default page size is
+     * used; send the response's nextPageToken back for the next page.
+     */
+    static JSObject listMessages(Gmail service, String query, Integer maxResults, String pageToken) throws IOException, JSONException {
+        Gmail.Users.Messages.List request = service.users().messages().list("me").setQ(query);
+        if (maxResults != null && maxResults > 0) {
+            request.setMaxResults(maxResults.longValue());
+        }
+        if (pageToken != null && !pageToken.isEmpty()) {
+            request.setPageToken(pageToken);
+        }
+        ListMessagesResponse response = request.execute();
+        return new JSObject(GsonFactory.getDefaultInstance().toString(response));
+    }
+
+    static JSObject messageDetails(Gmail service, String messageId) throws IOException, JSONException {
+        Message message = service.users().messages().get("me", messageId).setFormat("FULL").execute();
+        return new JSObject(GsonFactory.getDefaultInstance().toString(message));
+    }
+
+    static JSObject attachment(Gmail service, String messageId, String attachmentId) throws IOException, JSONException {
+        MessagePartBody attachmentBody = service.users().messages().attachments()
+                .get("me", messageId, attachmentId).execute();
+        return new JSObject(GsonFactory.getDefaultInstance().toString(attachmentBody));
+    }
+
+    /** The account's cached client; GoogleAccountCredential keeps the access token per account. */
+    Gmail gmailFor(Account account) {
+        return clients.computeIfAbsent(account.name, name -> {
+            GoogleAccountCredential credential = GoogleAccountCredential.usingOAuth2(
+                    context, Collections.singletonList(GMAIL_READONLY_SCOPE));
+            credential.setSelectedAccount(account);
+            return buildGmailService(endpoint, credential, context.getPackageName()); // Consider using a more specific app name if available
+        });
+    }
+
+    void forgetAccount(String accountName) {
+        clients.remove(accountName);
+        if (prefetcher != null) {
+            prefetcher.forgetAccount(accountName);
         }
-        GoogleAccountCredential credential = GoogleAccountCredential.usingOAuth2(
-                context, Collections.singletonList(GMAIL_READONLY_SCOPE));
-        credential.setSelectedAccount(account.getAccount());
+    }
 
-        return new Gmail.Builder(
-                new NetHttpTransport(),
+    int clientCount() {
+        return clients.size();
+    }
+
+    /** Memory pressure: clients are rebuilt on first use; prefetched attachments stay. */
+    void dropClients() {
+        clients.clear();
+    }
+
+    void forgetAccounts() {
+        clients.clear();
+        if (prefetcher != null) {
+            prefetcher.clear();
+        }
+    }
+
+    static Gmail buildGmailService(GoogleApiEndpoint endpoint, HttpRequestInitializer credential, String applicationName) {
+        Gmail.Builder builder = new Gmail.Builder(
+                endpoint.transport,
                 GsonFactory.getDefaultInstance(),
                 credential)
-                .setApplicationName(context.getPackageName()) // Consider using a more specific app name if available
-                .build();
+                .setApplicationName(applicationName);
+        if (endpoint.rootUrl != null) {
+            builder.setRootUrl(endpoint.rootUrl);
+        }
+        return builder.build();
     }
-} 
\ No newline at end of file
+}
@@ -6,11 +6,18 @@ import com.getcapacitor.BridgeActivity;
 public class MainActivity extends BridgeActivity {
     @Override
     public void onCreate(Bundle savedInstanceState) {
+        // Plugin önbellekleri load() sırasında bütçeye kaydolur
+        MemoryBudget.install(this);
         registerPlugin(GoogleAuthPlugin.class);
         registerPlugin(PdfParserPlugin.class);
         registerPlugin(SecureStoragePlugin.class);
         registerPlugin(OcrPlugin.class);
+        registerPlugin(StatementFieldsPlugin.class);
+        registerPlugin(NativeMetricsPlugin.class);
 
         super.onCreate(savedInstanceState);
+
+        // Bridge hazır; PDFBox, ML Kit ve Keystore'u arka planda ısıt
+        EngineWarmup.start(this);
     }
 }
@@ -0,0 +1,294 @@
+package com.codeyzer.ekstre;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide memory budget for the plugins' in-memory caches and pools.
+ *
+ * Each cache registers with a {@link Priority} and a weight. Its share of the global byte budget
+ * (a fraction of {@link ActivityManager#getMemoryClass()}) is proportional to the weight. Caches
+ * call {@link #enforce} after they grow. When the total is over budget, the caches furthest over
+ * their share are trimmed, lowest priority first. On {@code onTrimMemory} the caches are shrunk or
+ * cleared in priority order as the trim level rises. Bytes freed this way are counted separately
+ * from each cache's own LRU evictions. Plugins that hold large transient objects (PDFBox documents,
+ * OCR tile bitmaps) check {@link #underPressure} and use less memory for new work.
+ *
+ * Only heap caches that outlive a call register: the Gmail attachment prefetch cache and the Google
+ * API clients. The PDF text cache lives on disk, and the PDF and OCR plugins keep no documents,
+ * bitmaps or tiles between calls, so they only follow {@link #underPressure}.
+ */
+public final class MemoryBudget {
+
+    private static final String TAG = "MemoryBudget";
+    // Heap sınıfının bu kadarı önbelleklere; geri kalanı WebView, PDFBox ve bitmap'ler için
+    static final int BUDGET_DIVISOR = 8;
+    // RUNNING_LOW ve üstü bir uyarıdan sonra yeni işler bu süre boyunca küçük bellekle çalışır
+    static final long PRESSURE_WINDOW_MS = 60_000;
+
+    /** Eviction order: LOW caches go first, HIGH caches are only halved under critical pressure. */
+    public enum Priority {
+        /** Speculative data, e.g. prefetched attachments. */
+        LOW,
+        /** Cheap to rebuild: API clients, idle connections. */
+        NORMAL,
+        /** Expensive to rebuild. */
+        HIGH
+    }
+
+    public interface Cache {
+        /** Approximate bytes held right now. */
+        long sizeBytes();
+
+        /** Drops entries until at most {@code targetBytes} remain; returns the bytes freed. */
+        long trimTo(long targetBytes);
+
+        /** Bytes the cache dropped by its own limits (LRU, TTL); shown next to budget evictions. */
+        default long lruEvictedBytes() {
+            return 0;
+        }
+    }
+
+    private static final Map<String, Registration> caches = new ConcurrentHashMap<>();
+    private static volatile long budgetBytes = Long.MAX_VALUE;
+    private static volatile int memoryClassMb;
+    private static volatile boolean installed;
+    private static volatile long pressureUntil;
+    private static volatile int lastTrimLevel = -1;
+    private static long trimEvents;
+    private static long budgetEnforcements;
+
+    static {
+        NativeMetrics.registerSection("memoryBudget", MemoryBudget::stats);
+    }
+
+    private MemoryBudget() {
+    }
+
+    /** Derives the budget from the device's heap class and listens for trim callbacks; once per process. */
+    public static void install(Context context) {
+        if (installed) {
+            return;
+        }
+        installed = true;
+        Context appContext = context.getApplicationContext();
+        ActivityManager activityManager = (ActivityManager) appContext.getSystemService(Context.ACTIVITY_SERVICE);
+        memoryClassMb = activityManager.getMemoryClass();
+        setBudgetBytes(memoryClassMb * 1024L * 1024L / BUDGET_DIVISOR);
+        appContext.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                MemoryBudget.onTrimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                MemoryBudget.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+            }
+        });
+        Log.d(TAG, "Cache budget " + (budgetBytes / 1024) + " KiB of a " + memoryClassMb + " MiB heap class");
+    }
+
+    static void setBudgetBytes(long bytes) {
+        budgetBytes = bytes;
+        enforce();
+    }
+
+    public static void register(String name, Priority priority, int weight, Cache cache) {
+        caches.put(name, new Registration(name, priority, Math.max(1, weight), cache));
+    }
+
+    public static void unregister(String name) {
+        caches.remove(name);
+    }
+
+    /** True for a while after a RUNNING_LOW or worse trim; new work should use smaller buffers. */
+    public static boolean underPressure() {
+        return monotonicMillis() < pressureUntil;
+    }
+
+    /**
+     * Brings the registered caches back under the global budget. A cache above its weighted share is
+     * trimmed to that share, lowest priority first; called by caches after they grow.
+     */
+    public static void enforce() {
+        long budget = budgetBytes;
+        if (budget == Long.MAX_VALUE || caches.isEmpty()) {
+            return;
+        }
+        List<Registration> ordered = ordered();
+        long total = 0;
+        int weights = 0;
+        for (Registration registration : ordered) {
+            total += registration.cache.sizeBytes();
+            weights += registration.weight;
+        }
+        if (total <= budget) {
+            return;
+        }
+        synchronized (MemoryBudget.class) {
+            budgetEnforcements++;
+        }
+        for (Registration registration : ordered) {
+            if (total <= budget) {
+                break;
+            }
+            long share = budget * registration.weight / weights;
+            long size = registration.cache.sizeBytes();
+            if (size > share) {
+                long freed = registration.cache.trimTo(share);
+                registration.budgetEvicted(freed);
+                total -= freed;
+            }
+        }
+    }
+
+    /**
+     * Trim levels map to a severity: 1 halves LOW caches, 2 clears LOW and halves NORMAL, 3 clears
+     * LOW and NORMAL and halves HIGH, 4 (COMPLETE, onLowMemory) clears everything.
+     */
+    static void onTrimMemory(int level) {
+        int severity = severity(level);
+        if (severity >= 2) {
+            pressureUntil = monotonicMillis() + PRESSURE_WINDOW_MS;
+        }
+        lastTrimLevel = level;
+        synchronized (MemoryBudget.class) {
+            trimEvents++;
+        }
+        long freedTotal = 0;
+        for (Registration registration : ordered()) {
+            int priority = registration.priority.ordinal();
+            long target;
+            if (priority < severity - 1) {
+                target = 0;
+            } else if (priority == severity - 1) {
+                target = registration.cache.sizeBytes() / 2;
+            } else {
+                continue;
+            }
+            long freed = registration.cache.trimTo(target);
+            registration.pressureEvicted(freed);
+            freedTotal += freed;
+        }
+        Log.d(TAG, "onTrimMemory(" + level + "): freed " + (freedTotal / 1024) + " KiB");
+    }
+
+    static int severity(int level) {
+        switch (level) {
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE:
+            case ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN:
+                return 1;
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW:
+            case ComponentCallbacks2.TRIM_MEMORY_BACKGROUND:
+                return 2;
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL:
+            case ComponentCallbacks2.TRIM_MEMORY_MODERATE:
+                return 3;
+            default:
+                // COMPLETE ve ileride eklenebilecek ara seviyeler
+                return level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE ? 4 : level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE ? 3 : 1;
+        }
+    }
+
+    static JSObject stats() {
+        long budget = budgetBytes;
+        List<Registration> ordered = ordered();
+        int weights = 0;
+        for (Registration registration : ordered) {
+            weights += registration.weight;
+        }
+        JSObject stats = new JSObject();
+        stats.put("memoryClassMb", memoryClassMb);
+        stats.put("budgetBytes", budget == Long.MAX_VALUE ? -1 : budget);
+        stats.put("underPressure", underPressure());
+        stats.put("lastTrimLevel", lastTrimLevel);
+        long used = 0;
+        JSObject byCache = new JSObject();
+        for (Registration registration : ordered) {
+            long size = registration.cache.sizeBytes();
+            used += size;
+            JSObject cache = new JSObject();
+            cache.put("priority", registration.priority.name());
+            cache.put("weight", registration.weight);
+            cache.put("bytes", size);
+            cache.put("shareBytes", budget == Long.MAX_VALUE ? -1 : budget * registration.weight / weights);
+            synchronized (registration) {
+                cache.put("pressureTrims", registration.pressureTrims);
+                cache.put("pressureEvictedBytes", registration.pressureEvictedBytes);
+                cache.put("budgetEvictedBytes", registration.budgetEvictedBytes);
+            }
+            cache.put("lruEvictedBytes", registration.cache.lruEvictedBytes());
+            byCache.put(registration.name, cache);
+        }
+        stats.put("usedBytes", used);
+        stats.put("caches", byCache);
+        synchronized (MemoryBudget.class) {
+            stats.put("trimEvents", trimEvents);
+            stats.put("budgetEnforcements", budgetEnforcements);
+        }
+        return stats;
+    }
+
+    /** Registrations and counters; the installed callback and budget stay. */
+    public static void reset() {
+        caches.clear();
+        pressureUntil = 0;
+        lastTrimLevel = -1;
+        synchronized (MemoryBudget.class) {
+            trimEvents = 0;
+            budgetEnforcements = 0;
+        }
+    }
+
+    private static long monotonicMillis() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    private static List<Registration> ordered() {
+        List<Registration> ordered = new ArrayList<>(caches.values());
+        ordered.sort((a, b) -> a.priority != b.priority
+                ? a.priority.compareTo(b.priority) : a.name.compareTo(b.name));
+        return ordered;
+    }
+
+    private static final class Registration {
+        final String name;
+        final Priority priority;
+        final int weight;
+        final Cache cache;
+        long pressureTrims;
+        long pressureEvictedBytes;
+        long budgetEvictedBytes;
+
+        Registration(String name, Priority priority, int weight, Cache cache) {
+            this.name = name;
+            this.priority = priority;
+            this.weight = weight;
+            this.cache = cache;
+        }
+
+        synchronized void pressureEvicted(long bytes) {
+            pressureTrims++;
+            pressureEvictedBytes += bytes;
+        }
+
+        synchronized void budgetEvicted(long bytes) {
+            budgetEvictedBytes += bytes;
+        }
+    }
+}
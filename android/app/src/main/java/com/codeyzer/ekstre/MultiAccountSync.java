@@ -0,0 +1,373 @@
+package com.codeyzer.ekstre;
+
+import com.getcapacitor.JSObject;
+import com.google.api.client.googleapis.extensions.android.gms.auth.GoogleAuthIOException;
+import com.google.api.services.gmail.Gmail;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs statement searches across several Google accounts at once.
+ *
+ * Every (account, query) pair is a list job; with {@code includeDetails} a details job is queued for
+ * every listed message. Jobs are interleaved across accounts and together use at most
+ * {@code maxParallel} concurrent requests, so the total time approaches that of the slowest account
+ * rather than the sum of all accounts. When an account hits an authorization error its remaining
+ * jobs are skipped; the other accounts are not affected.
+ */
+final class MultiAccountSync {
+
+    static final int DEFAULT_MAX_RESULTS = 10;
+
+    static final class Query {
+        final String key;
+        final String query;
+
+        Query(String key, String query) {
+            this.key = key;
+            this.query = query;
+        }
+    }
+
+    /** An account's Gmail client and, per query key, the newest message id seen by the last sync. */
+    static final class Target {
+        final String account;
+        final Gmail gmail;
+        final Map<String, String> checkpoints;
+
+        Target(String account, Gmail gmail, Map<String, String> checkpoints) {
+            this.account = account;
+            this.gmail = gmail;
+            this.checkpoints = checkpoints;
+        }
+    }
+
+    static final class Report {
+        final JSObject result;
+        /** Account → (query key → newest message id); successful lists only. */
+        final Map<String, Map<String, String>> checkpoints;
+        final boolean anySuccess;
+        /** The first network failure, to report to the circuit breaker when no request succeeded. */
+        final IOException networkFailure;
+        final long elapsedMillis;
+        final long slowestAccountMillis;
+        final long accountMillisSum;
+
+        private Report(JSObject result, Map<String, Map<String, String>> checkpoints, boolean anySuccess,
+                       IOException networkFailure, long elapsedMillis, long slowestAccountMillis, long accountMillisSum) {
+            this.result = result;
+            this.checkpoints = checkpoints;
+            this.anySuccess = anySuccess;
+            this.networkFailure = networkFailure;
+            this.elapsedMillis = elapsedMillis;
+            this.slowestAccountMillis = slowestAccountMillis;
+            this.accountMillisSum = accountMillisSum;
+        }
+    }
+
+    private MultiAccountSync() {
+    }
+
+    /**
+     * Runs the jobs on {@code executor} and returns when all of them are done. Concurrency is bounded
+     * both by this call's {@code maxParallel} and by the executor's own thread count. When
+     * {@code prefetcher} is not null, the PDF attachments of fetched details start downloading in
+     * the background.
+     */
+    static Report run(List<Target> targets, List<Query> queries, int maxResults, boolean includeDetails,
+                      int maxParallel, Executor executor, AttachmentPrefetcher prefetcher)
+            throws InterruptedException, JSONException {
+        long startNanos = System.nanoTime();
+        Scheduler scheduler = new Scheduler(executor, Math.max(1, maxParallel));
+        List<AccountRun> runs = new ArrayList<>(targets.size());
+        for (Target target : targets) {
+            runs.add(new AccountRun(target, queries.size()));
+        }
+        // Sorgu sırasıyla, her sorguda bütün hesaplar: hiçbir hesap diğerlerinin arkasında beklemez
+        for (int q = 0; q < queries.size(); q++) {
+            for (AccountRun run : runs) {
+                int index = q;
+                scheduler.add(() -> list(scheduler, run, queries.get(index), index, maxResults, includeDetails, prefetcher));
+            }
+        }
+        scheduler.drain();
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        JSONArray accounts = new JSONArray();
+        Map<String, Map<String, String>> checkpoints = new LinkedHashMap<>();
+        boolean anySuccess = false;
+        IOException networkFailure = null;
+        long slowest = 0;
+        long sum = 0;
+        for (AccountRun run : runs) {
+            synchronized (run) {
+                accounts.put(run.toJson());
+                checkpoints.put(run.target.account, run.newestIds);
+                anySuccess |= run.successes > 0;
+                if (networkFailure == null) {
+                    networkFailure = run.networkFailure;
+                }
+                long accountMillis = run.elapsedMillis();
+                slowest = Math.max(slowest, accountMillis);
+                sum += accountMillis;
+            }
+        }
+        JSObject result = new JSObject();
+        result.put("accounts", accounts);
+        result.put("elapsedMs", elapsedMillis);
+        result.put("maxParallel", scheduler.maxParallel);
+        return new Report(result, checkpoints, anySuccess, anySuccess ? null : networkFailure,
+                elapsedMillis, slowest, sum);
+    }
+
+    private static void list(Scheduler scheduler, AccountRun run, Query query, int index, int maxResults,
+                             boolean includeDetails, AttachmentPrefetcher prefetcher) {
+        if (run.skip()) {
+            return;
+        }
+        long taskStart = System.nanoTime();
+        try {
+            JSObject listed = GoogleGmailHandler.listMessages(run.target.gmail, query.query, maxResults, null);
+            JSONArray messages = listed.optJSONArray("messages");
+            if (messages == null) {
+                messages = new JSONArray();
+                listed.put("messages", messages);
+            }
+            String previous = run.target.checkpoints != null ? run.target.checkpoints.get(query.key) : null;
+            int newMessages = messages.length();
+            for (int i = 0; i < messages.length(); i++) {
+                if (messages.getJSONObject(i).optString("id").equals(previous)) {
+                    // Gmail en yeniden eskiye sıralar; checkpoint'ten öncekiler yeni
+                    newMessages = i;
+                    break;
+                }
+            }
+            String newest = messages.length() > 0 ? messages.getJSONObject(0).optString("id", null) : previous;
+            listed.put("key", query.key);
+            listed.put("newMessages", newMessages);
+            listed.put("newestMessageId", newest);
+            run.listed(index, query.key, listed, newest, taskStart);
+            if (includeDetails) {
+                for (int i = 0; i < messages.length(); i++) {
+                    int position = i;
+                    JSONArray target = messages;
+                    String messageId = messages.getJSONObject(i).optString("id");
+                    scheduler.add(() -> details(run, target, position, messageId, prefetcher));
+                }
+            }
+        } catch (IOException e) {
+            run.failed(index, query.key, e, taskStart);
+        } catch (JSONException | RuntimeException e) {
+            run.failed(index, query.key, new IOException(e), taskStart);
+        }
+    }
+
+    private static void details(AccountRun run, JSONArray messages, int position, String messageId,
+                                AttachmentPrefetcher prefetcher) {
+        if (run.skip()) {
+            return;
+        }
+        long taskStart = System.nanoTime();
+        try {
+            JSObject message = GoogleGmailHandler.messageDetails(run.target.gmail, messageId);
+            if (prefetcher != null) {
+                prefetcher.offer(run.target.account, run.target.gmail, message);
+            }
+            synchronized (messages) {
+                messages.put(position, message);
+            }
+            run.succeeded(taskStart);
+        } catch (IOException | JSONException | RuntimeException e) {
+            IOException error = e instanceof IOException ? (IOException) e : new IOException(e);
+            try {
+                JSONObject failed = new JSONObject();
+                failed.put("id", messageId);
+                failed.put("error", String.valueOf(error.getMessage()));
+                failed.put("code", ErrorUtils.ioErrorCode(error));
+                synchronized (messages) {
+                    messages.put(position, failed);
+                }
+            } catch (JSONException ignored) {
+                // Yalnızca sabit anahtarlar yazılıyor
+            }
+            run.detailFailed(error, taskStart);
+        }
+    }
+
+    /** The rest of the account's jobs would fail the same way: no token, access revoked or the account removed from the device. */
+    static boolean isAccountFailure(IOException e) {
+        if (e instanceof GoogleAuthIOException) {
+            return true;
+        }
+        String code = ErrorUtils.ioErrorCode(e);
+        return "AUTH_ERROR".equals(code) || "INVALID_GRANT".equals(code) || "SIGN_IN_REQUIRED".equals(code);
+    }
+
+    /** One account's results; updated from the worker threads. */
+    private static final class AccountRun {
+        final Target target;
+        final JSONObject[] results;
+        final Map<String, String> newestIds = new LinkedHashMap<>();
+        volatile IOException accountFailure;
+        IOException networkFailure;
+        int successes;
+        int detailFailures;
+        long firstStartNanos = Long.MAX_VALUE;
+        long lastEndNanos;
+
+        AccountRun(Target target, int queries) {
+            this.target = target;
+            this.results = new JSONObject[queries];
+        }
+
+        boolean skip() {
+            return accountFailure != null;
+        }
+
+        synchronized void listed(int index, String key, JSONObject listed, String newest, long taskStart) {
+            results[index] = listed;
+            if (newest != null) {
+                newestIds.put(key, newest);
+            }
+            succeeded(taskStart);
+        }
+
+        synchronized void succeeded(long taskStart) {
+            successes++;
+            finished(taskStart);
+        }
+
+        synchronized void failed(int index, String key, IOException e, long taskStart) {
+            JSONObject failed = new JSONObject();
+            try {
+                failed.put("key", key);
+                failed.put("messages", new JSONArray());
+                failed.put("error", String.valueOf(e.getMessage()));
+                failed.put("code", ErrorUtils.ioErrorCode(e));
+            } catch (JSONException ignored) {
+                // Yalnızca sabit anahtarlar yazılıyor
+            }
+            results[index] = failed;
+            recordFailure(e);
+            finished(taskStart);
+        }
+
+        synchronized void detailFailed(IOException e, long taskStart) {
+            detailFailures++;
+            recordFailure(e);
+            finished(taskStart);
+        }
+
+        private void recordFailure(IOException e) {
+            if (accountFailure == null && isAccountFailure(e)) {
+                accountFailure = e;
+            }
+            if (networkFailure == null && CircuitBreaker.isNetworkFailure(e)) {
+                networkFailure = e;
+            }
+        }
+
+        private void finished(long taskStart) {
+            firstStartNanos = Math.min(firstStartNanos, taskStart);
+            lastEndNanos = Math.max(lastEndNanos, System.nanoTime());
+        }
+
+        long elapsedMillis() {
+            return firstStartNanos == Long.MAX_VALUE ? 0 : (lastEndNanos - firstStartNanos) / 1_000_000;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject account = new JSONObject();
+            account.put("account", target.account);
+            JSONArray queryResults = new JSONArray();
+            for (JSONObject result : results) {
+                if (result != null) {
+                    queryResults.put(result);
+                }
+            }
+            account.put("results", queryResults);
+            account.put("elapsedMs", elapsedMillis());
+            if (detailFailures > 0) {
+                account.put("detailFailures", detailFailures);
+            }
+            if (accountFailure != null) {
+                account.put("error", String.valueOf(accountFailure.getMessage()));
+                account.put("code", accountFailure instanceof GoogleAuthIOException
+                        ? "SIGN_IN_REQUIRED" : ErrorUtils.ioErrorCode(accountFailure));
+            }
+            return account;
+        }
+    }
+
+    /**
+     * FIFO job queue that also accepts jobs added while it runs (details). At most
+     * {@code maxParallel} jobs are handed to the executor at a time. {@link #drain} returns once the
+     * queue is empty and no job is running.
+     */
+    private static final class Scheduler {
+        final Executor executor;
+        final int maxParallel;
+        private final Semaphore permits;
+        private final Deque<Runnable> queue = new ArrayDeque<>();
+        private int outstanding;
+
+        Scheduler(Executor executor, int maxParallel) {
+            this.executor = executor;
+            this.maxParallel = maxParallel;
+            this.permits = new Semaphore(maxParallel);
+        }
+
+        synchronized void add(Runnable task) {
+            queue.add(task);
+            outstanding++;
+            notifyAll();
+        }
+
+        private synchronized void done() {
+            outstanding--;
+            notifyAll();
+        }
+
+        void drain() throws InterruptedException {
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    while (queue.isEmpty() && outstanding > 0) {
+                        wait();
+                    }
+                    if (outstanding == 0) {
+                        return;
+                    }
+                    task = queue.poll();
+                }
+                permits.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            task.run();
+                        } finally {
+                            permits.release();
+                            done();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    permits.release();
+                    done();
+                    throw e;
+                }
+            }
+        }
+    }
+}
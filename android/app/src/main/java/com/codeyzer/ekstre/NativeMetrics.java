@@ -0,0 +1,423 @@
+package com.codeyzer.ekstre;
+
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide latency and payload metrics for plugin methods.
+ *
+ * A plugin method calls {@link #begin} on entry, {@link #started} when its work leaves the queue
+ * of a background executor, and resolves or rejects through {@link #resolve} / {@link #reject}
+ * instead of the call itself. Per method this records call and error counts, queue-wait and
+ * execution-time histograms and the approximate JSON size of arguments and results; errors are
+ * also counted by error code. Subsystems with their own counters (crypto timings, caches) add
+ * them as named sections to {@link #snapshot()}.
+ *
+ * When disabled, {@link #begin} returns after one volatile read and resolve/reject only forward
+ * to the call.
+ */
+public final class NativeMetrics {
+
+    private static final String TAG = "NativeMetrics";
+    // Hiç sonuçlanmayan çağrılar (ör. WebView kapanınca) haritayı büyütmesin
+    private static final int MAX_IN_FLIGHT = 256;
+    static final String RESOLVED_ERROR = "RESOLVED_ERROR";
+    static final String UNSPECIFIED_ERROR = "UNSPECIFIED";
+
+    /** A named group of counters kept elsewhere, e.g. a cache's hit rate. */
+    public interface Section {
+        /** Current values, or null to leave the section out (e.g. not initialized yet). */
+        JSObject snapshot() throws Exception;
+    }
+
+    private static volatile boolean enabled = true;
+    private static final Map<Object, InFlight> inFlight = new ConcurrentHashMap<>();
+    // MAX_IN_FLIGHT dolu olduğu için hiç ölçülmeyen çağrılar
+    private static final AtomicLong untracked = new AtomicLong();
+    private static final Map<String, MethodStats> methods = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> errorsByCode = new ConcurrentHashMap<>();
+    private static final Map<String, Section> sections = new ConcurrentHashMap<>();
+    private static volatile long sinceMillis = System.currentTimeMillis();
+
+    private static ScheduledExecutorService logScheduler;
+    private static ScheduledFuture<?> logTask;
+    private static long lastLoggedCalls = -1;
+
+    private NativeMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Disabling also drops calls that are still in flight; collected numbers are kept. */
+    public static void setEnabled(boolean value) {
+        enabled = value;
+        if (!value) {
+            inFlight.clear();
+        }
+    }
+
+    public static void begin(String plugin, PluginCall call) {
+        if (!enabled) {
+            return;
+        }
+        begin(call, plugin, call.getMethodName(), call.getData());
+    }
+
+    /** Ends the queue wait of a call handed to a background executor. */
+    public static void started(PluginCall call) {
+        if (!enabled) {
+            return;
+        }
+        InFlight state = inFlight.get(call);
+        if (state != null && state.startedNanos == 0) {
+            state.startedNanos = System.nanoTime();
+        }
+    }
+
+    public static void resolve(PluginCall call) {
+        finish(call, null, null);
+        call.resolve();
+    }
+
+    /** A result with an {@code error} field counts as an error, under its {@code errorCode} if any. */
+    public static void resolve(PluginCall call, JSObject result) {
+        finish(call, result, resolvedErrorCode(result));
+        call.resolve(result);
+    }
+
+    public static void reject(PluginCall call, String message) {
+        finish(call, null, UNSPECIFIED_ERROR);
+        call.reject(message);
+    }
+
+    public static void reject(PluginCall call, String message, String code) {
+        finish(call, null, code);
+        call.reject(message, code);
+    }
+
+    public static void reject(PluginCall call, String message, Exception e) {
+        finish(call, null, UNSPECIFIED_ERROR);
+        call.reject(message, e);
+    }
+
+    public static void reject(PluginCall call, String message, String code, Exception e) {
+        finish(call, null, code);
+        call.reject(message, code, e);
+    }
+
+    public static void reject(PluginCall call, String message, String code, Exception e, JSObject data) {
+        finish(call, null, code);
+        call.reject(message, code, e, data);
+    }
+
+    public static void registerSection(String name, Section section) {
+        sections.put(name, section);
+    }
+
+    public static void reset() {
+        inFlight.clear();
+        untracked.set(0);
+        methods.clear();
+        errorsByCode.clear();
+        sinceMillis = System.currentTimeMillis();
+    }
+
+    static void begin(Object key, String plugin, String method, JSONObject arguments) {
+        if (!enabled) {
+            return;
+        }
+        if (inFlight.size() >= MAX_IN_FLIGHT) {
+            long count = untracked.incrementAndGet();
+            // 1, 2, 4, 8... çağrıda bir: sonuçlanmayan çağrılar logu doldurmasın
+            if (Long.bitCount(count) == 1) {
+                Log.w(TAG, MAX_IN_FLIGHT + " calls still in flight; " + plugin + "." + method
+                        + " not measured (" + count + " untracked since reset)");
+            }
+            return;
+        }
+        InFlight state = new InFlight(plugin + "." + method, System.nanoTime());
+        state.bytesIn = arguments != null ? jsonSize(arguments) : 0;
+        inFlight.put(key, state);
+    }
+
+    /** @param errorCode null on success */
+    static void finish(Object key, JSONObject result, String errorCode) {
+        InFlight state = enabled ? inFlight.remove(key) : null;
+        if (state == null) {
+            // Metrikler kapalıyken başlamış ya da keepAlive ile ikinci kez sonuçlanan çağrı
+            return;
+        }
+        long now = System.nanoTime();
+        long started = state.startedNanos != 0 ? state.startedNanos : state.beginNanos;
+        MethodStats stats = methods.get(state.method);
+        if (stats == null) {
+            MethodStats created = new MethodStats();
+            stats = methods.putIfAbsent(state.method, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        stats.record(started - state.beginNanos, now - started, state.bytesIn, result != null ? jsonSize(result) : 0, errorCode != null);
+        if (errorCode != null) {
+            AtomicLong count = errorsByCode.get(errorCode);
+            if (count == null) {
+                AtomicLong created = new AtomicLong();
+                count = errorsByCode.putIfAbsent(errorCode, created);
+                if (count == null) {
+                    count = created;
+                }
+            }
+            count.incrementAndGet();
+        }
+    }
+
+    static String resolvedErrorCode(JSONObject result) {
+        if (result == null || result.isNull("error")) {
+            return null;
+        }
+        String code = result.optString("errorCode", null);
+        return code != null ? code : RESOLVED_ERROR;
+    }
+
+    /**
+     * Serialized JSON length of {@code value} in characters, without serializing it: a large base64
+     * string costs one {@code length()} call instead of a copy. Escapes are not counted.
+     */
+    static long jsonSize(Object value) {
+        if (value == null || value == JSONObject.NULL) {
+            return 4;
+        }
+        if (value instanceof String) {
+            return ((String) value).length() + 2;
+        }
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            // Süslü parantezler ve aradaki virgüller
+            long size = 2 + Math.max(0, object.length() - 1);
+            Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                size += key.length() + 3 + jsonSize(object.opt(key));
+            }
+            return size;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            long size = 2 + Math.max(0, array.length() - 1);
+            for (int i = 0; i < array.length(); i++) {
+                size += jsonSize(array.opt(i));
+            }
+            return size;
+        }
+        return String.valueOf(value).length();
+    }
+
+    public static JSObject snapshot() {
+        JSObject methodsObject = new JSObject();
+        for (Map.Entry<String, MethodStats> entry : new TreeMap<>(methods).entrySet()) {
+            methodsObject.put(entry.getKey(), entry.getValue().toJSObject());
+        }
+        JSObject errors = new JSObject();
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(errorsByCode).entrySet()) {
+            errors.put(entry.getKey(), entry.getValue().get());
+        }
+        JSObject sectionsObject = new JSObject();
+        for (Map.Entry<String, Section> entry : new TreeMap<>(sections).entrySet()) {
+            try {
+                JSObject section = entry.getValue().snapshot();
+                if (section != null) {
+                    sectionsObject.put(entry.getKey(), section);
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Metrics section " + entry.getKey() + " failed: " + e.getMessage());
+                sectionsObject.put(entry.getKey(), new JSObject().put("error", String.valueOf(e.getMessage())));
+            }
+        }
+        JSObject ret = new JSObject();
+        ret.put("enabled", enabled);
+        ret.put("sinceMillis", sinceMillis);
+        ret.put("inFlight", inFlight.size());
+        ret.put("untracked", untracked.get());
+        ret.put("methods", methodsObject);
+        ret.put("errorsByCode", errors);
+        ret.put("sections", sectionsObject);
+        return ret;
+    }
+
+    /** Logs one compact line per method every {@code intervalMs} while there are new calls; 0 stops it. */
+    public static synchronized void setLogInterval(long intervalMs) {
+        if (logTask != null) {
+            logTask.cancel(false);
+            logTask = null;
+        }
+        if (intervalMs <= 0) {
+            return;
+        }
+        if (logScheduler == null) {
+            logScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "native-metrics-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        logTask = logScheduler.scheduleWithFixedDelay(NativeMetrics::logSummary, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    static synchronized void logSummary() {
+        long totalCalls = 0;
+        for (MethodStats stats : methods.values()) {
+            totalCalls += stats.calls();
+        }
+        if (!enabled || totalCalls == lastLoggedCalls) {
+            return;
+        }
+        lastLoggedCalls = totalCalls;
+        for (Map.Entry<String, MethodStats> entry : new TreeMap<>(methods).entrySet()) {
+            Log.i(TAG, entry.getKey() + " " + entry.getValue().summary());
+        }
+        if (!errorsByCode.isEmpty()) {
+            Log.i(TAG, "errors " + new TreeMap<>(errorsByCode));
+        }
+    }
+
+    private static final class InFlight {
+        final String method;
+        final long beginNanos;
+        volatile long startedNanos;
+        long bytesIn;
+
+        InFlight(String method, long beginNanos) {
+            this.method = method;
+            this.beginNanos = beginNanos;
+        }
+    }
+
+    static final class MethodStats {
+        private final Histogram queueWait = new Histogram();
+        private final Histogram execution = new Histogram();
+        private long calls;
+        private long errors;
+        private long bytesIn;
+        private long bytesOut;
+
+        synchronized void record(long queueNanos, long executionNanos, long in, long out, boolean error) {
+            calls++;
+            if (error) {
+                errors++;
+            }
+            bytesIn += in;
+            bytesOut += out;
+            queueWait.record(queueNanos);
+            execution.record(executionNanos);
+        }
+
+        synchronized long calls() {
+            return calls;
+        }
+
+        synchronized JSObject toJSObject() {
+            JSObject ret = new JSObject();
+            ret.put("calls", calls);
+            ret.put("errors", errors);
+            ret.put("bytesIn", bytesIn);
+            ret.put("bytesOut", bytesOut);
+            ret.put("queueWait", queueWait.toJSObject());
+            ret.put("execution", execution.toJSObject());
+            return ret;
+        }
+
+        synchronized String summary() {
+            return "n=" + calls + " err=" + errors
+                    + " wait p50/p95=" + formatMs(queueWait.percentileMicros(0.5)) + "/" + formatMs(queueWait.percentileMicros(0.95))
+                    + " exec p50/p95/max=" + formatMs(execution.percentileMicros(0.5)) + "/" + formatMs(execution.percentileMicros(0.95))
+                    + "/" + formatMs(execution.maxMicros)
+                    + " in=" + bytesIn + " out=" + bytesOut;
+        }
+
+        private static String formatMs(long micros) {
+            return micros < 10_000 ? String.format(Locale.US, "%.1fms", micros / 1000.0) : (micros / 1000) + "ms";
+        }
+    }
+
+    /**
+     * Power-of-two buckets in microseconds, from 1 µs to about 67 s, plus an overflow bucket.
+     * Percentiles are the upper bound of the bucket they fall in, i.e. at most 2x off.
+     */
+    static final class Histogram {
+        static final int BUCKETS = 27;
+        private final long[] counts = new long[BUCKETS];
+        private long count;
+        private long totalMicros;
+        long maxMicros;
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            counts[bucket(micros)]++;
+            count++;
+            totalMicros += micros;
+            maxMicros = Math.max(maxMicros, micros);
+        }
+
+        static int bucket(long micros) {
+            int bucket = micros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1);
+            return Math.min(bucket, BUCKETS - 1);
+        }
+
+        static long upperBoundMicros(int bucket) {
+            return 1L << bucket;
+        }
+
+        long percentileMicros(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    // Son bucket sınırsız; gerçek üst sınır en büyük değer
+                    return i == BUCKETS - 1 ? maxMicros : Math.min(upperBoundMicros(i), maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+
+        JSObject toJSObject() {
+            JSObject ret = new JSObject();
+            ret.put("count", count);
+            ret.put("avgMicros", count == 0 ? 0 : totalMicros / count);
+            ret.put("p50Micros", percentileMicros(0.5));
+            ret.put("p95Micros", percentileMicros(0.95));
+            ret.put("p99Micros", percentileMicros(0.99));
+            ret.put("maxMicros", maxMicros);
+            // Yalnızca dolu bucket'lar: üst sınır (µs) -> adet
+            JSObject buckets = new JSObject();
+            for (int i = 0; i < BUCKETS; i++) {
+                if (counts[i] > 0) {
+                    buckets.put(i == BUCKETS - 1 ? "inf" : String.valueOf(upperBoundMicros(i)), counts[i]);
+                }
+            }
+            ret.put("buckets", buckets);
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.codeyzer.ekstre;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Exposes {@link NativeMetrics} to JS. Its own methods are not measured, so reading the metrics
+ * does not change them.
+ */
+@CapacitorPlugin(name = "NativeMetrics")
+public class NativeMetricsPlugin extends Plugin {
+
+    // Yeni çağrı yoksa log yazılmaz
+    private static final long DEFAULT_LOG_INTERVAL_MS = 60_000;
+
+    @Override
+    public void load() {
+        super.load();
+        NativeMetrics.setLogInterval(DEFAULT_LOG_INTERVAL_MS);
+    }
+
+    @PluginMethod
+    public void getNativeMetrics(PluginCall call) {
+        call.resolve(NativeMetrics.snapshot());
+    }
+
+    @PluginMethod
+    public void resetNativeMetrics(PluginCall call) {
+        NativeMetrics.reset();
+        call.resolve();
+    }
+
+    /** {@code enabled} turns recording on or off; {@code logIntervalMs} 0 stops the logcat summary. */
+    @PluginMethod
+    public void configureNativeMetrics(PluginCall call) {
+        Boolean enabled = call.getBoolean("enabled", null);
+        if (enabled != null) {
+            NativeMetrics.setEnabled(enabled);
+        }
+        Long logIntervalMs = call.getLong("logIntervalMs", null);
+        if (logIntervalMs != null) {
+            NativeMetrics.setLogInterval(logIntervalMs);
+        }
+        JSObject ret = new JSObject();
+        ret.put("enabled", NativeMetrics.isEnabled());
+        call.resolve(ret);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        super.handleOnDestroy();
+        NativeMetrics.setLogInterval(0);
+    }
+}
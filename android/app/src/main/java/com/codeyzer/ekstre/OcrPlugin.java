@@ -2,7 +2,10 @@ package com.codeyzer.ekstre;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
 import android.net.Uri;
+import android.os.Build;
 import android.util.Base64;
 import android.util.Log;
 
@@ -17,49 +20,97 @@ import com.getcapacitor.annotation.CapacitorPlugin;
 
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
 import com.google.mlkit.vision.common.InputImage;
 import com.google.mlkit.vision.text.Text;
-import com.google.mlkit.vision.text.TextRecognition;
 import com.google.mlkit.vision.text.TextRecognizer;
-import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
-
-@CapacitorPlugin(name = "Ocr")
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+@CapacitorPlugin(name = OcrPlugin.NAME)
 public class OcrPlugin extends Plugin {
 
+    static final String NAME = "Ocr";
     private static final String TAG = "OcrPlugin";
     private TextRecognizer recognizer;
+    // Ön işleme ve tile tile tanıma bridge thread'ini bloklamasın diye ayrı thread
+    private final ExecutorService ocrExecutor = Executors.newSingleThreadExecutor();
+
+    private static final int ANALYSIS_ROW_STEP = 4;
+    private static final int PREPROCESS_STRIP_ROWS = 64;
 
     @Override
     public void load() {
         super.load();
-        // ML Kit Text Recognizer'ı başlat
-        recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
+        // ML Kit Text Recognizer process genelinde tek; model EngineWarmup tarafından ısıtılıyor
+        recognizer = EngineWarmup.getTextRecognizer();
         Log.d(TAG, "OCR Plugin loaded with ML Kit Text Recognition");
     }
 
     @PluginMethod
     public void recognizeText(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
         String imageSource = call.getString("imageSource");
         String sourceType = call.getString("sourceType", "path"); // default: path
+        boolean tiling = call.getBoolean("tiling", true);
+        boolean preprocess = call.getBoolean("preprocess", false);
 
         if (imageSource == null || imageSource.isEmpty()) {
             JSObject ret = new JSObject();
             ret.put("success", false);
             ret.put("error", "Missing imageSource parameter");
             ret.put("text", "");
-            call.resolve(ret);
+            NativeMetrics.resolve(call, ret);
             return;
         }
 
+        // Model warm-up'ı beklemek ve görüntüyü çözmek bridge thread'ini bloklamasın
+        ocrExecutor.execute(() -> recognizeOnExecutor(call, imageSource, sourceType, tiling, preprocess));
+    }
+
+    private void recognizeOnExecutor(PluginCall call, String imageSource, String sourceType, boolean tiling, boolean preprocess) {
+        NativeMetrics.started(call);
         try {
+            long waitStart = System.currentTimeMillis();
+            if (EngineWarmup.awaitTextRecognizer()) {
+                Log.d(TAG, "Recognizer ready after " + (System.currentTimeMillis() - waitStart) + " ms");
+            } else {
+                Log.w(TAG, "Recognizer warm-up failed; the model loads with this recognition");
+            }
+
             InputImage image;
+            byte[] imageBytes = "base64".equals(sourceType) ? Base64.decode(imageSource, Base64.DEFAULT) : null;
+
+            if (tiling) {
+                BitmapFactory.Options bounds = readImageBounds(imageSource, imageBytes);
+                if (bounds != null && OcrTiling.isTallImage(bounds.outWidth, bounds.outHeight)) {
+                    Log.d(TAG, "Tall image detected (" + bounds.outWidth + "x" + bounds.outHeight + "), using tiled recognition");
+                    final int width = bounds.outWidth;
+                    final int height = bounds.outHeight;
+                    recognizeTiled(call, imageSource, imageBytes, width, height, preprocess);
+                    return;
+                }
+            }
+
+            if (preprocess) {
+                recognizePreprocessed(call, imageSource, imageBytes);
+                return;
+            }
 
-            if ("base64".equals(sourceType)) {
+            if (imageBytes != null) {
                 // Base64 string'den görüntü oluştur
-                image = createImageFromBase64(imageSource);
+                image = createImageFromBytes(imageBytes);
             } else {
                 // Dosya yolundan görüntü oluştur
                 image = createImageFromPath(imageSource);
@@ -70,7 +121,7 @@ public class OcrPlugin extends Plugin {
                 ret.put("success", false);
                 ret.put("error", "Failed to create image from source");
                 ret.put("text", "");
-                call.resolve(ret);
+                NativeMetrics.resolve(call, ret);
                 return;
             }
 
@@ -83,13 +134,12 @@ public class OcrPlugin extends Plugin {
             ret.put("success", false);
             ret.put("error", "OCR failed: " + e.getMessage());
             ret.put("text", "");
-            call.resolve(ret);
+            NativeMetrics.resolve(call, ret);
         }
     }
 
-    private InputImage createImageFromBase64(String base64String) {
+    private InputImage createImageFromBytes(byte[] imageBytes) {
         try {
-            byte[] imageBytes = Base64.decode(base64String, Base64.DEFAULT);
             Bitmap bitmap = BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
             if (bitmap == null) {
                 Log.e(TAG, "Failed to decode bitmap from base64");
@@ -136,8 +186,301 @@ public class OcrPlugin extends Plugin {
         }
     }
 
+    private InputStream openImageStream(String path, byte[] imageBytes) throws FileNotFoundException {
+        if (imageBytes != null) {
+            return new ByteArrayInputStream(imageBytes);
+        }
+        Uri uri = Uri.parse(path);
+        if (!"content".equals(uri.getScheme()) && !path.contains("://")) {
+            uri = Uri.parse("file://" + path);
+        }
+        return getContext().getContentResolver().openInputStream(uri);
+    }
+
+    private BitmapFactory.Options readImageBounds(String path, byte[] imageBytes) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream inputStream = openImageStream(path, imageBytes)) {
+            if (inputStream == null) {
+                return null;
+            }
+            BitmapFactory.decodeStream(inputStream, null, options);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not read image bounds: " + e.getMessage());
+            return null;
+        }
+        return (options.outWidth > 0 && options.outHeight > 0) ? options : null;
+    }
+
+    /**
+     * Decodes the image band by band with {@link BitmapRegionDecoder} so that at most
+     * {@link OcrTiling#MAX_PARALLEL_TILES} tile bitmaps are alive at once, whatever the image height
+     * (one under memory pressure).
+     */
+    private void recognizeTiled(PluginCall call, String path, byte[] imageBytes, int width, int height, boolean preprocess) {
+        NativeMetrics.started(call);
+        BitmapRegionDecoder decoder = null;
+        try {
+            try (InputStream inputStream = openImageStream(path, imageBytes)) {
+                decoder = newRegionDecoder(inputStream);
+            }
+            if (decoder == null) {
+                throw new IOException("BitmapRegionDecoder could not be created");
+            }
+
+            List<OcrTiling.Tile> tiles = OcrTiling.planTiles(height, OcrTiling.DEFAULT_TILE_HEIGHT, OcrTiling.DEFAULT_OVERLAP);
+            List<List<OcrTiling.Block>> tileBlocks = new ArrayList<>(Collections.nCopies(tiles.size(), (List<OcrTiling.Block>) null));
+            Semaphore permits = new Semaphore(MemoryBudget.underPressure() ? 1 : OcrTiling.MAX_PARALLEL_TILES);
+            CountDownLatch done = new CountDownLatch(tiles.size());
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            OcrPreprocessor.Stats preprocessStats = preprocess ? new OcrPreprocessor.Stats() : null;
+            long startNanos = System.nanoTime();
+
+            BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+            decodeOptions.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            decodeOptions.inMutable = preprocess;
+
+            for (OcrTiling.Tile tile : tiles) {
+                if (failure.get() != null) {
+                    done.countDown();
+                    continue;
+                }
+                permits.acquire();
+                Bitmap decoded = decoder.decodeRegion(new Rect(0, tile.top, width, tile.bottom), decodeOptions);
+                if (decoded == null) {
+                    failure.compareAndSet(null, new IOException("Failed to decode tile " + tile.index));
+                    permits.release();
+                    done.countDown();
+                    continue;
+                }
+                float tileScale = 1f;
+                if (preprocessStats != null) {
+                    OcrPreprocessor.Stats tileStats = new OcrPreprocessor.Stats();
+                    decoded = preprocessBitmap(decoded, tileStats);
+                    tileScale = tileStats.scale;
+                    preprocessStats.add(tileStats);
+                }
+                final Bitmap bitmap = decoded;
+                final float scale = tileScale;
+                recognizer.process(InputImage.fromBitmap(bitmap, 0))
+                    .addOnCompleteListener(task -> {
+                        try {
+                            if (task.isSuccessful()) {
+                                tileBlocks.set(tile.index, toTileBlocks(task.getResult(), scale));
+                            } else {
+                                failure.compareAndSet(null, task.getException());
+                            }
+                        } finally {
+                            bitmap.recycle();
+                            permits.release();
+                            done.countDown();
+                        }
+                    });
+            }
+            done.await();
+
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+
+            List<OcrTiling.Block> merged = OcrTiling.mergeTileBlocks(tiles, tileBlocks);
+            String extractedText = OcrTiling.joinText(merged);
+            Log.d(TAG, "Tiled OCR Success. Tiles: " + tiles.size() + ", blocks: " + merged.size() + ", text length: " + extractedText.length());
+
+            JSObject ret = new JSObject();
+            ret.put("success", true);
+            ret.put("text", extractedText);
+            ret.put("error", null);
+
+            JSArray blocks = new JSArray();
+            for (OcrTiling.Block block : merged) {
+                blocks.put(toBlockObject(block.text, block.left, block.top, block.width(), block.height()));
+            }
+
+            JSObject metadata = new JSObject();
+            metadata.put("blocks", blocks);
+            metadata.put("blockCount", merged.size());
+            metadata.put("tiled", true);
+            metadata.put("tileCount", tiles.size());
+            if (preprocessStats != null) {
+                metadata.put("preprocessing", toPreprocessingMetadata(preprocessStats, System.nanoTime() - startNanos));
+            }
+            ret.put("metadata", metadata);
+
+            ResultStreams.resolve(call, ret, this::notifyListeners);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resolveFailure(call, "Tiled OCR interrupted");
+        } catch (Exception e) {
+            Log.e(TAG, "Tiled OCR Failed: " + e.getMessage(), e);
+            resolveFailure(call, "Text recognition failed: " + e.getMessage());
+        } finally {
+            if (decoder != null) {
+                decoder.recycle();
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static BitmapRegionDecoder newRegionDecoder(InputStream inputStream) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            return BitmapRegionDecoder.newInstance(inputStream);
+        }
+        // API 31 öncesinde tek yol bu; isShareable parametresi zaten yok sayılıyor
+        return BitmapRegionDecoder.newInstance(inputStream, false);
+    }
+
+    private List<OcrTiling.Block> toTileBlocks(Text result, float scale) {
+        List<OcrTiling.Block> blocks = new ArrayList<>();
+        for (Text.TextBlock block : result.getTextBlocks()) {
+            Rect box = block.getBoundingBox();
+            if (box == null) {
+                continue;
+            }
+            blocks.add(new OcrTiling.Block(block.getText(),
+                    Math.round(box.left / scale), Math.round(box.top / scale),
+                    Math.round(box.right / scale), Math.round(box.bottom / scale)));
+        }
+        return blocks;
+    }
+
+    private void recognizePreprocessed(PluginCall call, String path, byte[] imageBytes) {
+        NativeMetrics.started(call);
+        Bitmap bitmap = null;
+        Bitmap prepared = null;
+        boolean handedOff = false;
+        try {
+            long startNanos = System.nanoTime();
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            options.inMutable = true;
+            try (InputStream inputStream = openImageStream(path, imageBytes)) {
+                bitmap = inputStream != null ? BitmapFactory.decodeStream(inputStream, null, options) : null;
+            }
+            if (bitmap == null) {
+                resolveFailure(call, "Failed to create image from source");
+                return;
+            }
+
+            OcrPreprocessor.Stats stats = new OcrPreprocessor.Stats();
+            prepared = preprocessBitmap(bitmap, stats);
+            JSObject preprocessing = toPreprocessingMetadata(stats, System.nanoTime() - startNanos);
+            Log.d(TAG, "Preprocessing done: " + preprocessing);
+            final Bitmap recognized = prepared;
+            processImage(InputImage.fromBitmap(recognized, 0), call, stats.scale, preprocessing)
+                .addOnCompleteListener(task -> recognized.recycle());
+            handedOff = true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error preprocessing image: " + e.getMessage(), e);
+            resolveFailure(call, "OCR failed: " + e.getMessage());
+        } finally {
+            // Tanımaya verilemediyse burada; verildiyse tanıma bitince bırakılır
+            if (!handedOff) {
+                if (prepared != null) {
+                    prepared.recycle();
+                }
+                if (bitmap != null) {
+                    bitmap.recycle();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the {@link OcrPreprocessor} stages over {@code source} in place, a strip of rows at a
+     * time, and scales the result only when the estimated text height is out of range.
+     */
+    private Bitmap preprocessBitmap(Bitmap source, OcrPreprocessor.Stats stats) {
+        Bitmap bitmap = source;
+        if (!bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+            // inMutable ile decode edilemediyse tek seferlik kopya
+            bitmap = source.copy(Bitmap.Config.ARGB_8888, true);
+            source.recycle();
+        }
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+
+        long start = System.nanoTime();
+        int[] histogram = new int[256];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y += ANALYSIS_ROW_STEP) {
+            bitmap.getPixels(row, 0, width, 0, y, width, 1);
+            OcrPreprocessor.sample(row, width, ANALYSIS_ROW_STEP, histogram);
+        }
+        int[] lut = OcrPreprocessor.buildLut(histogram, stats);
+        stats.analyzeNanos += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int[] rowInk = new int[height];
+        int stripRows = Math.min(PREPROCESS_STRIP_ROWS, height);
+        int[] strip = new int[width * stripRows];
+        for (int y = 0; y < height; y += stripRows) {
+            int rows = Math.min(stripRows, height - y);
+            bitmap.getPixels(strip, 0, width, 0, y, width, rows);
+            OcrPreprocessor.apply(strip, width, rows, lut, rowInk, y);
+            bitmap.setPixels(strip, 0, width, 0, y, width, rows);
+        }
+        stats.transformNanos += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        stats.textHeight = OcrPreprocessor.estimateTextHeight(rowInk, width);
+        stats.scale = OcrPreprocessor.scaleFor(stats.textHeight, width, height);
+        if (stats.scale != 1f) {
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+                    Math.max(1, Math.round(width * stats.scale)),
+                    Math.max(1, Math.round(height * stats.scale)), true);
+            if (scaled != bitmap) {
+                bitmap.recycle();
+            }
+            bitmap = scaled;
+        }
+        stats.scaleNanos += System.nanoTime() - start;
+        return bitmap;
+    }
+
+    private JSObject toPreprocessingMetadata(OcrPreprocessor.Stats stats, long totalNanos) {
+        JSObject timings = new JSObject();
+        timings.put("analyzeMs", stats.analyzeNanos / 1_000_000.0);
+        timings.put("transformMs", stats.transformNanos / 1_000_000.0);
+        timings.put("scaleMs", stats.scaleNanos / 1_000_000.0);
+        timings.put("totalMs", totalNanos / 1_000_000.0);
+
+        JSObject preprocessing = new JSObject();
+        preprocessing.put("darkMode", stats.darkMode);
+        preprocessing.put("contrastStretched", stats.contrastStretched);
+        preprocessing.put("textHeight", stats.textHeight);
+        preprocessing.put("scale", (double) stats.scale);
+        preprocessing.put("timings", timings);
+        return preprocessing;
+    }
+
+    private JSObject toBlockObject(String text, int left, int top, int width, int height) {
+        JSObject blockObj = new JSObject();
+        blockObj.put("text", text);
+
+        JSObject bbox = new JSObject();
+        bbox.put("left", left);
+        bbox.put("top", top);
+        bbox.put("width", width);
+        bbox.put("height", height);
+        blockObj.put("boundingBox", bbox);
+        return blockObj;
+    }
+
+    private void resolveFailure(PluginCall call, String error) {
+        JSObject ret = new JSObject();
+        ret.put("success", false);
+        ret.put("text", "");
+        ret.put("error", error);
+        NativeMetrics.resolve(call, ret);
+    }
+
     private void processImage(InputImage image, final PluginCall call) {
-        recognizer.process(image)
+        processImage(image, call, 1f, null);
+    }
+
+    private Task<Text> processImage(InputImage image, final PluginCall call, final float scale, final JSObject preprocessing) {
+        return recognizer.process(image)
             .addOnSuccessListener(new OnSuccessListener<Text>() {
                 @Override
                 public void onSuccess(Text result) {
@@ -158,13 +501,14 @@ public class OcrPlugin extends Plugin {
                         JSObject blockObj = new JSObject();
                         blockObj.put("text", block.getText());
 
-                        // Bounding box bilgisi
+                        // Bounding box bilgisi (ön işlemede ölçeklendiyse orijinal koordinatlara çevrilir)
                         if (block.getBoundingBox() != null) {
+                            Rect box = block.getBoundingBox();
                             JSObject bbox = new JSObject();
-                            bbox.put("left", block.getBoundingBox().left);
-                            bbox.put("top", block.getBoundingBox().top);
-                            bbox.put("width", block.getBoundingBox().width());
-                            bbox.put("height", block.getBoundingBox().height());
+                            bbox.put("left", Math.round(box.left / scale));
+                            bbox.put("top", Math.round(box.top / scale));
+                            bbox.put("width", Math.round(box.width() / scale));
+                            bbox.put("height", Math.round(box.height() / scale));
                             blockObj.put("boundingBox", bbox);
                         }
 
@@ -173,10 +517,13 @@ public class OcrPlugin extends Plugin {
 
                     metadata.put("blocks", blocks);
                     metadata.put("blockCount", result.getTextBlocks().size());
+                    if (preprocessing != null) {
+                        metadata.put("preprocessing", preprocessing);
+                    }
 
                     ret.put("metadata", metadata);
 
-                    call.resolve(ret);
+                    ResultStreams.resolve(call, ret, OcrPlugin.this::notifyListeners);
                 }
             })
             .addOnFailureListener(new OnFailureListener() {
@@ -189,17 +536,22 @@ public class OcrPlugin extends Plugin {
                     ret.put("text", "");
                     ret.put("error", "Text recognition failed: " + e.getMessage());
 
-                    call.resolve(ret);
+                    NativeMetrics.resolve(call, ret);
                 }
             });
     }
 
+    /** Acknowledges streamed result chunks of recognizeText (ResultStreams). */
+    @PluginMethod
+    public void ackResultChunk(PluginCall call) {
+        ResultStreams.ack(call);
+    }
+
     @Override
     protected void handleOnDestroy() {
         super.handleOnDestroy();
-        if (recognizer != null) {
-            recognizer.close();
-            Log.d(TAG, "OCR Plugin destroyed, recognizer closed");
-        }
+        ocrExecutor.shutdownNow();
+        // Recognizer process'e ait (EngineWarmup); activity yeniden oluşturulunca tekrar kullanılıyor
+        Log.d(TAG, "OCR Plugin destroyed");
     }
 }
@@ -0,0 +1,191 @@
+package com.codeyzer.ekstre;
+
+/**
+ * Pixel core of the OCR preprocessing stage. Works on ARGB {@code int[]} strips so the Android
+ * side can stream a bitmap through it a few rows at a time; has no Android dependencies.
+ *
+ * Grayscale, dark-mode inversion and contrast normalization are folded into one 256-entry
+ * lookup table, so every pixel is touched exactly once in {@link #apply}.
+ */
+public final class OcrPreprocessor {
+
+    // ML Kit küçük karakterlerde zorlanıyor; satır yüksekliğini bu değere yaklaştırıyoruz
+    public static final int TARGET_TEXT_HEIGHT = 32;
+    static final int MIN_TEXT_HEIGHT = 20;
+    static final int MAX_TEXT_HEIGHT = 96;
+    static final float MAX_UPSCALE = 2.0f;
+    static final long MAX_OUTPUT_PIXELS = 12_000_000L;
+
+    static final int DARK_MODE_MEAN_LUMINANCE = 110;
+    static final float CLIP_FRACTION = 0.01f;
+    static final int MIN_CONTRAST_RANGE = 192;
+    static final int INK_THRESHOLD = 128;
+
+    private static final int MIN_LINE_RUN = 4;
+    private static final int MAX_LINE_RUN = 200;
+    private static final int MIN_LINE_COUNT = 3;
+
+    private OcrPreprocessor() {
+    }
+
+    /** Decisions and timings of one preprocessing run, reported back to JS as metadata. */
+    public static final class Stats {
+        public boolean darkMode;
+        public boolean contrastStretched;
+        public int textHeight;
+        public float scale = 1f;
+        public long analyzeNanos;
+        public long transformNanos;
+        public long scaleNanos;
+
+        public void add(Stats other) {
+            darkMode |= other.darkMode;
+            contrastStretched |= other.contrastStretched;
+            textHeight = Math.max(textHeight, other.textHeight);
+            analyzeNanos += other.analyzeNanos;
+            transformNanos += other.transformNanos;
+            scaleNanos += other.scaleNanos;
+        }
+    }
+
+    public static int luminance(int argb) {
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        return (r * 77 + g * 150 + b * 29) >> 8;
+    }
+
+    /** Adds every {@code step}-th pixel of {@code pixels[0..length)} to the luminance histogram. */
+    public static void sample(int[] pixels, int length, int step, int[] histogram) {
+        for (int i = 0; i < length; i += step) {
+            histogram[luminance(pixels[i])]++;
+        }
+    }
+
+    /**
+     * Builds the combined grayscale/inversion/contrast lookup table from a sampled histogram and
+     * records the decisions in {@code stats}.
+     */
+    public static int[] buildLut(int[] histogram, Stats stats) {
+        long total = 0;
+        long weighted = 0;
+        for (int i = 0; i < 256; i++) {
+            total += histogram[i];
+            weighted += (long) histogram[i] * i;
+        }
+
+        int[] lut = new int[256];
+        if (total == 0) {
+            for (int i = 0; i < 256; i++) {
+                lut[i] = i;
+            }
+            return lut;
+        }
+
+        boolean darkMode = (weighted / total) < DARK_MODE_MEAN_LUMINANCE;
+        long clip = (long) (total * CLIP_FRACTION);
+        int low = percentileFromBottom(histogram, clip);
+        int high = percentileFromTop(histogram, clip);
+        boolean stretch = high - low < MIN_CONTRAST_RANGE && high > low;
+
+        for (int i = 0; i < 256; i++) {
+            int value = i;
+            if (stretch) {
+                value = (i - low) * 255 / (high - low);
+                value = Math.max(0, Math.min(255, value));
+            }
+            lut[i] = darkMode ? 255 - value : value;
+        }
+
+        stats.darkMode = darkMode;
+        stats.contrastStretched = stretch;
+        return lut;
+    }
+
+    /**
+     * Maps {@code rows} rows of {@code width} pixels in place to opaque gray through {@code lut},
+     * counting dark ("ink") pixels per row into {@code rowInk[firstRow..]}.
+     */
+    public static void apply(int[] pixels, int width, int rows, int[] lut, int[] rowInk, int firstRow) {
+        for (int row = 0; row < rows; row++) {
+            int offset = row * width;
+            int ink = 0;
+            for (int x = 0; x < width; x++) {
+                int gray = lut[luminance(pixels[offset + x])];
+                if (gray < INK_THRESHOLD) {
+                    ink++;
+                }
+                pixels[offset + x] = 0xFF000000 | (gray << 16) | (gray << 8) | gray;
+            }
+            if (rowInk != null) {
+                rowInk[firstRow + row] = ink;
+            }
+        }
+    }
+
+    /**
+     * Estimates the typical text line height from the per-row ink profile: runs of consecutive
+     * inked rows are treated as text lines and their median height is returned (0 if unknown).
+     */
+    public static int estimateTextHeight(int[] rowInk, int width) {
+        int minInk = Math.max(2, width / 200);
+        int[] runs = new int[rowInk.length / MIN_LINE_RUN + 1];
+        int runCount = 0;
+        int current = 0;
+        for (int y = 0; y <= rowInk.length; y++) {
+            boolean inked = y < rowInk.length && rowInk[y] >= minInk;
+            if (inked) {
+                current++;
+                continue;
+            }
+            if (current >= MIN_LINE_RUN && current <= MAX_LINE_RUN) {
+                runs[runCount++] = current;
+            }
+            current = 0;
+        }
+        if (runCount < MIN_LINE_COUNT) {
+            return 0;
+        }
+        java.util.Arrays.sort(runs, 0, runCount);
+        return runs[runCount / 2];
+    }
+
+    /** Scale factor that brings {@code textHeight} close to {@link #TARGET_TEXT_HEIGHT}. */
+    public static float scaleFor(int textHeight, int width, int height) {
+        if (textHeight <= 0 || (textHeight >= MIN_TEXT_HEIGHT && textHeight <= MAX_TEXT_HEIGHT)) {
+            return 1f;
+        }
+        float scale = (float) TARGET_TEXT_HEIGHT / textHeight;
+        if (scale > 1f) {
+            scale = Math.min(scale, MAX_UPSCALE);
+            double pixelLimit = Math.sqrt((double) MAX_OUTPUT_PIXELS / ((long) width * height));
+            scale = (float) Math.min(scale, pixelLimit);
+            if (scale <= 1f) {
+                return 1f;
+            }
+        }
+        return scale;
+    }
+
+    private static int percentileFromBottom(int[] histogram, long clip) {
+        long seen = 0;
+        for (int i = 0; i < 256; i++) {
+            seen += histogram[i];
+            if (seen > clip) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static int percentileFromTop(int[] histogram, long clip) {
+        long seen = 0;
+        for (int i = 255; i >= 0; i--) {
+            seen += histogram[i];
+            if (seen > clip) {
+                return i;
+            }
+        }
+        return 255;
+    }
+}
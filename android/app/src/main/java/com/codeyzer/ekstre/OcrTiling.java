@@ -0,0 +1,222 @@
+package com.codeyzer.ekstre;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tile planning and block merging for tall (scroll-capture) screenshots.
+ * Kept free of Android types so it can be exercised from plain JVM tests.
+ */
+public final class OcrTiling {
+
+    public static final int DEFAULT_TILE_HEIGHT = 2048;
+    public static final int DEFAULT_OVERLAP = 256;
+    // Aynı anda bellekte tutulacak en fazla tile bitmap sayısı
+    public static final int MAX_PARALLEL_TILES = 2;
+
+    static final int TALL_IMAGE_MIN_HEIGHT = 3072;
+    static final float TALL_IMAGE_MIN_ASPECT = 2.0f;
+
+    private static final int EDGE_TOLERANCE = 2;
+    private static final float DUPLICATE_OVERLAP_RATIO = 0.6f;
+    private static final float CLIPPED_COVERED_RATIO = 0.3f;
+
+    private OcrTiling() {
+    }
+
+    public static final class Tile {
+        public final int index;
+        public final int top;
+        public final int bottom;
+        public final boolean first;
+        public final boolean last;
+
+        Tile(int index, int top, int bottom, boolean first, boolean last) {
+            this.index = index;
+            this.top = top;
+            this.bottom = bottom;
+            this.first = first;
+            this.last = last;
+        }
+
+        public int height() {
+            return bottom - top;
+        }
+    }
+
+    public static final class Block {
+        public final String text;
+        public final int left;
+        public final int top;
+        public final int right;
+        public final int bottom;
+        int tileIndex = -1;
+        boolean clipped;
+
+        public Block(String text, int left, int top, int right, int bottom) {
+            this.text = text != null ? text : "";
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+
+        public int width() {
+            return right - left;
+        }
+
+        public int height() {
+            return bottom - top;
+        }
+
+        long area() {
+            return (long) Math.max(0, width()) * Math.max(0, height());
+        }
+
+        Block translated(int dy) {
+            return new Block(text, left, top + dy, right, bottom + dy);
+        }
+    }
+
+    public static boolean isTallImage(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        return height >= TALL_IMAGE_MIN_HEIGHT && ((float) height / width) >= TALL_IMAGE_MIN_ASPECT;
+    }
+
+    /**
+     * Splits the image height into overlapping horizontal bands. The last tile always ends at
+     * {@code height}; consecutive tiles share {@code overlap} pixels.
+     */
+    public static List<Tile> planTiles(int height, int tileHeight, int overlap) {
+        if (height <= 0) {
+            return Collections.emptyList();
+        }
+        if (tileHeight <= 0) {
+            throw new IllegalArgumentException("tileHeight must be positive");
+        }
+        if (overlap < 0 || overlap >= tileHeight) {
+            throw new IllegalArgumentException("overlap must be in [0, tileHeight)");
+        }
+
+        List<int[]> bands = new ArrayList<>();
+        int step = tileHeight - overlap;
+        int top = 0;
+        while (true) {
+            int bottom = Math.min(top + tileHeight, height);
+            bands.add(new int[]{top, bottom});
+            if (bottom >= height) {
+                break;
+            }
+            top += step;
+        }
+
+        List<Tile> tiles = new ArrayList<>(bands.size());
+        for (int i = 0; i < bands.size(); i++) {
+            tiles.add(new Tile(i, bands.get(i)[0], bands.get(i)[1], i == 0, i == bands.size() - 1));
+        }
+        return tiles;
+    }
+
+    /**
+     * Merges per-tile blocks (in tile-local coordinates) into a single list in full-image
+     * coordinates. Blocks cut by an inner tile edge are only kept when no neighbouring tile saw
+     * them whole, and blocks recognized twice inside an overlap band are collapsed into one.
+     */
+    public static List<Block> mergeTileBlocks(List<Tile> tiles, List<List<Block>> tileBlocks) {
+        List<Block> whole = new ArrayList<>();
+        List<Block> clipped = new ArrayList<>();
+
+        for (int i = 0; i < tiles.size() && i < tileBlocks.size(); i++) {
+            Tile tile = tiles.get(i);
+            List<Block> blocks = tileBlocks.get(i);
+            if (blocks == null) {
+                continue;
+            }
+            for (Block local : blocks) {
+                Block block = local.translated(tile.top);
+                block.tileIndex = tile.index;
+                boolean touchesTop = !tile.first && local.top <= EDGE_TOLERANCE;
+                boolean touchesBottom = !tile.last && local.bottom >= tile.height() - EDGE_TOLERANCE;
+                block.clipped = touchesTop || touchesBottom;
+                (block.clipped ? clipped : whole).add(block);
+            }
+        }
+
+        List<Block> merged = new ArrayList<>();
+        sortByPosition(whole);
+        for (Block candidate : whole) {
+            addOrReplaceDuplicate(merged, candidate);
+        }
+
+        // Kesilmiş bloklar sadece komşu tile'da tam hali yoksa eklenir (çok uzun paragraflar)
+        sortByPosition(clipped);
+        for (Block candidate : clipped) {
+            if (!isCovered(merged, candidate)) {
+                addOrReplaceDuplicate(merged, candidate);
+            }
+        }
+
+        sortByPosition(merged);
+        return merged;
+    }
+
+    public static String joinText(List<Block> blocks) {
+        StringBuilder sb = new StringBuilder();
+        for (Block block : blocks) {
+            if (block.text.isEmpty()) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(block.text);
+        }
+        return sb.toString();
+    }
+
+    private static void addOrReplaceDuplicate(List<Block> merged, Block candidate) {
+        for (int i = 0; i < merged.size(); i++) {
+            Block existing = merged.get(i);
+            if (existing.tileIndex == candidate.tileIndex) {
+                continue;
+            }
+            long smaller = Math.min(existing.area(), candidate.area());
+            if (smaller > 0 && intersectionArea(existing, candidate) >= DUPLICATE_OVERLAP_RATIO * smaller) {
+                if (candidate.text.length() > existing.text.length()) {
+                    merged.set(i, candidate);
+                }
+                return;
+            }
+        }
+        merged.add(candidate);
+    }
+
+    private static boolean isCovered(List<Block> merged, Block candidate) {
+        long area = candidate.area();
+        if (area == 0) {
+            return true;
+        }
+        for (Block existing : merged) {
+            if (intersectionArea(existing, candidate) >= CLIPPED_COVERED_RATIO * area) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long intersectionArea(Block a, Block b) {
+        int w = Math.min(a.right, b.right) - Math.max(a.left, b.left);
+        int h = Math.min(a.bottom, b.bottom) - Math.max(a.top, b.top);
+        if (w <= 0 || h <= 0) {
+            return 0;
+        }
+        return (long) w * h;
+    }
+
+    private static void sortByPosition(List<Block> blocks) {
+        Collections.sort(blocks, (a, b) -> a.top != b.top ? Integer.compare(a.top, b.top) : Integer.compare(a.left, b.left));
+    }
+}
@@ -0,0 +1,124 @@
+package com.codeyzer.ekstre;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.util.StreamingContent;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+
+/** A single request of {@link OkHttpTransport}; the body is streamed into OkHttp's sink. */
+final class OkHttpRequest extends LowLevelHttpRequest {
+
+    private final OkHttpTransport transport;
+    private final OkHttpClient client;
+    private final String method;
+    private final Request.Builder builder;
+    private int connectTimeout = OkHttpTransport.DEFAULT_TIMEOUT_MILLIS;
+    private int readTimeout = OkHttpTransport.DEFAULT_TIMEOUT_MILLIS;
+    // 0: HttpRequest'in varsayılanı, "ayarlanmadı"; istemcinin değeri kullanılır
+    private int writeTimeout;
+
+    OkHttpRequest(OkHttpTransport transport, OkHttpClient client, String method, String url) {
+        this.transport = transport;
+        this.client = client;
+        this.method = method;
+        this.builder = new Request.Builder().url(url);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        builder.addHeader(name, value);
+    }
+
+    @Override
+    public void setTimeout(int connectTimeout, int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public void setWriteTimeout(int writeTimeout) {
+        this.writeTimeout = writeTimeout;
+    }
+
+    // LowLevelHttpRequest gövdeyi yalnızca StreamingContent olarak verir; kütüphanenin kendi
+    // transport'ları da aynı erişimciyi kullanır, HttpContent'e ulaşmanın başka yolu yok
+    @SuppressWarnings("deprecation")
+    @Override
+    public LowLevelHttpResponse execute() throws IOException {
+        StreamingContent content = getStreamingContent();
+        RequestBody body = null;
+        if (content != null && !"GET".equals(method) && !"HEAD".equals(method)) {
+            if (getContentEncoding() != null) {
+                builder.header("Content-Encoding", getContentEncoding());
+            }
+            body = new StreamingRequestBody(content, getContentType(), getContentLength());
+        } else if ("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method)) {
+            body = RequestBody.create(new byte[0], null);
+        }
+        builder.method(method, body);
+
+        transport.requests.incrementAndGet();
+        Response response = clientForTimeouts().newCall(builder.build()).execute();
+        if (response.protocol() == Protocol.HTTP_2 || response.protocol() == Protocol.H2_PRIOR_KNOWLEDGE) {
+            transport.http2Responses.incrementAndGet();
+        }
+        if ("gzip".equalsIgnoreCase(response.header("Content-Encoding"))) {
+            transport.gzipResponses.incrementAndGet();
+        }
+        return new OkHttpResponse(response);
+    }
+
+    // Zaman aşımları istemciye ait; farklı bir değer istenirse aynı havuzu paylaşan türev kurulur.
+    private OkHttpClient clientForTimeouts() {
+        int write = writeTimeout == 0 ? client.writeTimeoutMillis() : writeTimeout;
+        if (client.connectTimeoutMillis() == connectTimeout
+                && client.readTimeoutMillis() == readTimeout
+                && client.writeTimeoutMillis() == write) {
+            return client;
+        }
+        transport.derivedClients.incrementAndGet();
+        return client.newBuilder()
+                .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                .writeTimeout(write, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @SuppressWarnings("deprecation") // StreamingContent: execute()'taki nota bakın
+    private static final class StreamingRequestBody extends RequestBody {
+        private final StreamingContent content;
+        private final MediaType contentType;
+        private final long contentLength;
+
+        StreamingRequestBody(StreamingContent content, String contentType, long contentLength) {
+            this.content = content;
+            this.contentType = contentType == null ? null : MediaType.parse(contentType);
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            content.writeTo(sink.outputStream());
+        }
+    }
+}
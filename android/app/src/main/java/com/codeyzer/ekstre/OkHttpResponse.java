@@ -0,0 +1,80 @@
+package com.codeyzer.ekstre;
+
+import com.google.api.client.http.LowLevelHttpResponse;
+
+import java.io.InputStream;
+
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/** Exposes an OkHttp response to google-http-client; the body is read as the raw, possibly gzipped, stream. */
+final class OkHttpResponse extends LowLevelHttpResponse {
+
+    private final Response response;
+
+    OkHttpResponse(Response response) {
+        this.response = response;
+    }
+
+    @Override
+    public InputStream getContent() {
+        ResponseBody body = response.body();
+        return body == null ? null : body.byteStream();
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return response.header("Content-Encoding");
+    }
+
+    @Override
+    public long getContentLength() {
+        ResponseBody body = response.body();
+        return body == null ? 0 : body.contentLength();
+    }
+
+    @Override
+    public String getContentType() {
+        return response.header("Content-Type");
+    }
+
+    @Override
+    public String getStatusLine() {
+        StringBuilder line = new StringBuilder(response.protocol().toString().toUpperCase())
+                .append(' ').append(response.code());
+        if (!response.message().isEmpty()) {
+            line.append(' ').append(response.message());
+        }
+        return line.toString();
+    }
+
+    @Override
+    public int getStatusCode() {
+        return response.code();
+    }
+
+    @Override
+    public String getReasonPhrase() {
+        return response.message().isEmpty() ? null : response.message();
+    }
+
+    @Override
+    public int getHeaderCount() {
+        return response.headers().size();
+    }
+
+    @Override
+    public String getHeaderName(int index) {
+        return response.headers().name(index);
+    }
+
+    @Override
+    public String getHeaderValue(int index) {
+        return response.headers().value(index);
+    }
+
+    @Override
+    public void disconnect() {
+        response.close();
+    }
+}
@@ -0,0 +1,94 @@
+package com.codeyzer.ekstre;
+
+import com.getcapacitor.JSObject;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * {@link HttpTransport} backed by OkHttp.
+ *
+ * TLS connections negotiate HTTP/2 via ALPN, so parallel Gmail requests are multiplexed over one
+ * connection. The number of idle pooled connections and their keep-alive are configurable.
+ * gzip: google-http-client adds Accept-Encoding itself and decodes the response itself, so
+ * OkHttp's transparent decompression stays off and the compressed body is passed through.
+ */
+public final class OkHttpTransport extends HttpTransport {
+
+    static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    static final long DEFAULT_KEEP_ALIVE_SECONDS = 300;
+    // google-http-client'ın HttpRequest bağlantı/okuma varsayılanlarıyla aynı; istekler paylaşılan istemciyi kullanır.
+    // Yazma zaman aşımının kütüphane varsayılanı 0 ("ayarlanmadı"); istek 0 verirse istemcinin değeri kalır.
+    static final int DEFAULT_TIMEOUT_MILLIS = 20_000;
+
+    private final OkHttpClient client;
+    private final int maxIdleConnections;
+    private final long keepAliveSeconds;
+
+    final AtomicLong requests = new AtomicLong();
+    final AtomicLong http2Responses = new AtomicLong();
+    final AtomicLong gzipResponses = new AtomicLong();
+    // Paylaşılan istemciden farklı zaman aşımı isteyen çağrılar için kurulan türev istemciler
+    final AtomicLong derivedClients = new AtomicLong();
+
+    OkHttpTransport(OkHttpClient client, int maxIdleConnections, long keepAliveSeconds) {
+        this.client = client;
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    public static OkHttpTransport create(int maxIdleConnections, long keepAliveSeconds) {
+        if (maxIdleConnections < 0 || keepAliveSeconds <= 0) {
+            throw new IllegalArgumentException("maxIdleConnections must be >= 0 and keepAliveSeconds > 0");
+        }
+        OkHttpClient client = new OkHttpClient.Builder()
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                .connectTimeout(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .readTimeout(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .writeTimeout(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .build();
+        return new OkHttpTransport(client, maxIdleConnections, keepAliveSeconds);
+    }
+
+    @Override
+    protected LowLevelHttpRequest buildRequest(String method, String url) {
+        return new OkHttpRequest(this, client, method, url);
+    }
+
+    @Override
+    public boolean supportsMethod(String method) {
+        return true;
+    }
+
+    /** Closes idle connections; requests in flight complete. */
+    @Override
+    public void shutdown() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    JSObject stats() {
+        JSObject stats = new JSObject();
+        stats.put("maxIdleConnections", maxIdleConnections);
+        stats.put("keepAliveSeconds", keepAliveSeconds);
+        stats.put("connections", client.connectionPool().connectionCount());
+        stats.put("idleConnections", client.connectionPool().idleConnectionCount());
+        stats.put("requests", requests.get());
+        stats.put("http2Responses", http2Responses.get());
+        stats.put("gzipResponses", gzipResponses.get());
+        stats.put("derivedClients", derivedClients.get());
+        return stats;
+    }
+
+    ConnectionPool connectionPool() {
+        return client.connectionPool();
+    }
+}
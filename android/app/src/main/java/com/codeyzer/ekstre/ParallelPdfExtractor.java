@@ -0,0 +1,185 @@
+package com.codeyzer.ekstre;
+
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Extracts a page range in chunks on a worker pool. PDDocument and PDFTextStripper are not
+ * thread-safe, so every chunk opens its own document handle and stripper; the page texts are
+ * written back in page order, which gives exactly the text one sequential stripper would write.
+ */
+public final class ParallelPdfExtractor {
+
+    // Her parça belgeyi yeniden açar; çok küçük parçalarda açılış maliyeti kazancı yer
+    static final int MIN_PAGES_PER_CHUNK = 2;
+
+    /** Opens a fresh handle on the same PDF; called once per chunk, on the worker thread. */
+    public interface DocumentSource {
+        PDDocument open() throws IOException;
+    }
+
+    /** Receives page texts in page order; returning false stops the extraction after that page. */
+    public interface PageSink {
+        boolean onPage(int pageNo, String pageText) throws IOException;
+    }
+
+    private ParallelPdfExtractor() {
+    }
+
+    /**
+     * Splits {@code startPage..endPage} (1-based, inclusive) into contiguous chunks. Twice as many
+     * chunks as workers keeps the pool busy when some pages are much heavier than others.
+     */
+    public static List<int[]> planChunks(int startPage, int endPage, int workers, int pagesPerChunk) {
+        if (endPage < startPage) {
+            return Collections.emptyList();
+        }
+        int pages = endPage - startPage + 1;
+        int chunkSize = pagesPerChunk > 0
+                ? pagesPerChunk
+                : Math.max(MIN_PAGES_PER_CHUNK, ceilDiv(pages, Math.max(1, workers) * 2));
+        List<int[]> chunks = new ArrayList<>();
+        for (int first = startPage; first <= endPage; first += chunkSize) {
+            chunks.add(new int[]{first, Math.min(endPage, first + chunkSize - 1)});
+        }
+        return chunks;
+    }
+
+    /**
+     * Extracts {@code chunks} on {@code executor} and writes the text to {@code output} in page
+     * order, calling {@code sink} after each page. Returns true when the sink stopped the
+     * extraction early. Workers also give up at the next page end once {@code cancelled} is set.
+     * Returns only after every started chunk has closed its document.
+     */
+    public static boolean extract(DocumentSource source, List<int[]> chunks, ExecutorService executor,
+                                  Writer output, PageSink sink, BooleanSupplier cancelled) throws IOException {
+        AtomicBoolean stopped = new AtomicBoolean();
+        BooleanSupplier shouldStop = () -> stopped.get() || (cancelled != null && cancelled.getAsBoolean());
+        List<Future<ChunkText>> futures = new ArrayList<>(chunks.size());
+        try {
+            for (int[] chunk : chunks) {
+                futures.add(executor.submit(() -> extractChunk(source, chunk[0], chunk[1], shouldStop)));
+            }
+            for (int i = 0; i < chunks.size(); i++) {
+                ChunkText chunk = await(futures.get(i));
+                for (int p = 0; p < chunk.pageNumbers.size(); p++) {
+                    String pageText = chunk.pageTexts.get(p);
+                    output.write(pageText);
+                    if (!sink.onPage(chunk.pageNumbers.get(p), pageText)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            stopped.set(true);
+            for (Future<ChunkText> future : futures) {
+                future.cancel(false);
+            }
+            // Sayfa sonunda duran parçaların belgelerini kapatmasını bekle
+            for (Future<ChunkText> future : futures) {
+                if (!future.isCancelled()) {
+                    try {
+                        future.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    } catch (ExecutionException | CancellationException ignored) {
+                        // Asıl hata (varsa) yukarıda zaten fırlatıldı
+                    }
+                }
+            }
+        }
+    }
+
+    private static ChunkText extractChunk(DocumentSource source, int firstPage, int lastPage,
+                                       BooleanSupplier shouldStop) throws IOException {
+        if (shouldStop.getAsBoolean()) {
+            throw new ChunkStoppedException();
+        }
+        try (PDDocument document = source.open()) {
+            ChunkText chunk = new ChunkText();
+            ChunkStripper stripper = new ChunkStripper(chunk, shouldStop);
+            stripper.setStartPage(firstPage);
+            stripper.setEndPage(lastPage);
+            stripper.writeText(document, stripper.buffer);
+            return chunk;
+        }
+    }
+
+    private static ChunkText await(Future<ChunkText> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for PDF pages", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+
+    /** Page texts of one chunk. Pages without a content stream are skipped, as in sequential mode. */
+    private static final class ChunkText {
+        final List<Integer> pageNumbers = new ArrayList<>();
+        final List<String> pageTexts = new ArrayList<>();
+    }
+
+    /** Cuts its output at page ends, so the chunk's text splits into exact per-page pieces. */
+    private static final class ChunkStripper extends PDFTextStripper {
+        private final ChunkText chunk;
+        private final BooleanSupplier shouldStop;
+        final StringWriter buffer = new StringWriter();
+        private int pageStartOffset;
+
+        ChunkStripper(ChunkText chunk, BooleanSupplier shouldStop) throws IOException {
+            super();
+            this.chunk = chunk;
+            this.shouldStop = shouldStop;
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            StringBuffer text = buffer.getBuffer();
+            chunk.pageNumbers.add(getCurrentPageNo());
+            chunk.pageTexts.add(text.substring(pageStartOffset));
+            pageStartOffset = text.length();
+            if (shouldStop.getAsBoolean()) {
+                throw new ChunkStoppedException();
+            }
+        }
+    }
+
+    private static final class ChunkStoppedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        ChunkStoppedException() {
+            super("PDF chunk stopped");
+        }
+    }
+}
@@ -1,78 +1,307 @@
 package com.codeyzer.ekstre;
 
 import android.util.Base64;
+import android.util.Base64InputStream;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
-import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
+import com.tom_roush.pdfbox.io.MemoryUsageSetting;
 import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
 import com.tom_roush.pdfbox.text.PDFTextStripper;
 
-import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.PatternSyntaxException;
 
-@CapacitorPlugin(name = "PdfParser")
+@CapacitorPlugin(name = PdfParserPlugin.NAME)
 public class PdfParserPlugin extends Plugin {
 
+    static final String NAME = "PdfParser";
     private static final String TAG = "PdfParserPlugin";
+    static final String PROGRESS_EVENT = "pdfParseProgress";
+    static final String MODE_TEXT = "text";
+    static final String MODE_ROWS = "rows";
+
+    // Aynı anda en fazla bu kadar PDF belleğe yüklenir, fazlası kuyrukta bekler
+    private static final int MAX_CONCURRENT_DOCUMENTS = 2;
+    private static final long DEFAULT_TIMEOUT_MS = 60_000;
+    // PDFBox bu kadar heap kullandıktan sonra cache dizinindeki scratch dosyasına taşar
+    private static final long DEFAULT_MAX_MAIN_MEMORY_BYTES = 8L * 1024 * 1024;
+    // Bellek baskısı altında (MemoryBudget.underPressure) yeni belgeler için üst sınır
+    private static final long PRESSURE_MAX_MAIN_MEMORY_BYTES = 2L * 1024 * 1024;
+    // Şifreli sonuç cache'inin diskte kaplayabileceği en fazla alan; aşılınca en eski girdiler silinir
+    private static final long CACHE_MAX_BYTES = 4L * 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 16 * 1024;
+    // Paralel modda sayfa parçalarını işleyen thread sayısı; iki belge işi de bu havuzu paylaşır
+    private static final int PAGE_WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private final ExecutorService pdfExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_DOCUMENTS, runnable -> {
+        Thread thread = new Thread(runnable, "pdf-parser");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    private final ExecutorService pageExecutor = Executors.newFixedThreadPool(PAGE_WORKERS, runnable -> {
+        Thread thread = new Thread(runnable, "pdf-page-worker");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    private final ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
+    // Cache istatistiği/temizliği disk okur; uzun süren ayrıştırma işlerinin arkasında beklemesin
+    private final ExecutorService cacheExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "pdf-cache"));
+    private final Map<String, PdfJob> activeJobs = new ConcurrentHashMap<>();
+    private PdfTextCache textCache;
 
     @Override
-    protected void handleOnStart() {
-        super.handleOnStart();
-        PDFBoxResourceLoader.init(getContext());
+    public void load() {
+        super.load();
+        NativeMetrics.registerSection("pdfCache", this::cacheStats);
     }
 
     @PluginMethod
     public void parsePdfText(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
         String base64Data = call.getString("base64Data");
+        String filePath = call.getString("filePath");
 
-        if (base64Data == null || base64Data.isEmpty()) {
-            call.resolve(getRet().put("error", "Missing or empty base64Data from JS"));
+        if ((base64Data == null || base64Data.isEmpty()) && (filePath == null || filePath.isEmpty())) {
+            NativeMetrics.resolve(call, getRet().put("error", "Missing or empty base64Data or filePath from JS"));
             return;
         }
 
+        String jobId = call.getString("jobId");
+        if (jobId == null || jobId.isEmpty()) {
+            jobId = UUID.randomUUID().toString();
+        }
+        long timeoutMs = call.getLong("timeoutMs", DEFAULT_TIMEOUT_MS);
+
+        ParseRequest request = new ParseRequest();
+        request.base64Data = base64Data;
+        request.filePath = filePath;
+        request.maxMainMemoryBytes = call.getLong("maxMainMemoryBytes", DEFAULT_MAX_MAIN_MEMORY_BYTES);
+        request.startPage = call.getInt("startPage", 1);
+        request.endPage = call.getInt("endPage", Integer.MAX_VALUE);
+        request.mode = call.getString("mode", MODE_TEXT);
+        if (!MODE_TEXT.equals(request.mode) && !MODE_ROWS.equals(request.mode)) {
+            NativeMetrics.resolve(call, getRet().put("error", "Unknown mode: " + request.mode));
+            return;
+        }
+        request.parallel = call.getBoolean("parallel", null);
+        request.pagesPerChunk = call.getInt("pagesPerChunk", 0);
+        request.useCache = call.getBoolean("cache", true);
+        if (request.startPage < 1 || request.endPage < request.startPage) {
+            NativeMetrics.resolve(call, getRet().put("error", "Invalid page range: " + request.startPage + "-" + request.endPage));
+            return;
+        }
+        try {
+            JSArray stopPatterns = call.getArray("stopPatterns");
+            request.stopPatterns = stopPatterns != null ? stopPatterns.<String>toList() : null;
+            // Geçersiz regex'i işi kuyruğa atmadan yakala
+            PdfStopMatcher.compile(request.stopPatterns);
+        } catch (PatternSyntaxException e) {
+            NativeMetrics.resolve(call, getRet().put("error", "Invalid stop pattern: " + e.getMessage()));
+            return;
+        } catch (Exception e) {
+            NativeMetrics.resolve(call, getRet().put("error", "stopPatterns must be an array of strings"));
+            return;
+        }
+
+        PdfJob job = new PdfJob(jobId, call, this::notifyListeners);
+        if (activeJobs.putIfAbsent(jobId, job) != null) {
+            NativeMetrics.resolve(call, getRet().put("error", "A PDF job with id " + jobId + " is already running"));
+            return;
+        }
+
+        job.future = pdfExecutor.submit(() -> runParseJob(job, request));
+        if (timeoutMs > 0) {
+            job.timeout = timeoutScheduler.schedule(() -> cancelJob(job, "TIMEOUT"), timeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PluginMethod
+    public void cancelPdfParse(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        String jobId = call.getString("jobId");
+        if (jobId == null || jobId.isEmpty()) {
+            NativeMetrics.reject(call, "Missing 'jobId' to cancel.");
+            return;
+        }
+        PdfJob job = activeJobs.get(jobId);
+        boolean cancelled = job != null && cancelJob(job, "CANCELLED");
+        NativeMetrics.resolve(call, getRet().put("cancelled", cancelled));
+    }
+
+    private void runParseJob(PdfJob job, ParseRequest request) {
         PDDocument document = null;
-        InputStream inputStream = null;
+        File scratchPdf = null;
+        HeapSampler heap = new HeapSampler();
+        NativeMetrics.started(job.call);
         try {
-            Log.d(TAG, "Decoding Base64 PDF data...");
-            byte[] pdfBytes = Base64.decode(base64Data, Base64.DEFAULT);
-            inputStream = new ByteArrayInputStream(pdfBytes);
+            if (job.isCancelled()) {
+                return;
+            }
+            long startTime = System.currentTimeMillis();
+            // Warm-up sürüyorsa bekle, hiç başlamadıysa PDFBox'ı burada başlat
+            EngineWarmup.awaitPdfBox(getContext());
+            long readyTime = System.currentTimeMillis();
+
+            File scratchDir = AppStorage.scratchDir(getContext(), AppStorage.PDF_SCRATCH_DIR);
+            File pdfFile;
+            String contentHash;
+            if (request.filePath != null && !request.filePath.isEmpty()) {
+                pdfFile = AppStorage.resolve(getContext(), request.filePath);
+                contentHash = PdfTextCache.contentHash(pdfFile);
+            } else {
+                Log.d(TAG, "[" + job.id + "] Streaming Base64 PDF data to scratch file...");
+                scratchPdf = File.createTempFile("pdf-", ".pdf", scratchDir);
+                contentHash = decodeBase64ToFile(request.base64Data, scratchPdf);
+                pdfFile = scratchPdf;
+            }
+            heap.sample();
+            job.throwIfCancelled();
+
+            // Gmail ek id'leri sabit değil; aynı PDF içeriği hangi mesajdan gelirse gelsin bir kez parse edilir
+            String cacheKey = request.useCache ? PdfTextCache.entryKey(contentHash, request.cacheVariant()) : null;
+            String cached = cacheKey != null ? getTextCache().get(cacheKey) : null;
+            if (cached != null) {
+                Log.d(TAG, "[" + job.id + "] PDF result served from cache (" + contentHash + ")");
+                JSObject ret = new JSObject(cached);
+                ret.put("jobId", job.id);
+                ret.put("contentHash", contentHash);
+                ret.put("cacheHit", true);
+                job.finish(ret);
+                return;
+            }
 
-            Log.d(TAG, "Loading PDF document with PDFBox...");
-            document = PDDocument.load(inputStream);
+            if (MemoryBudget.underPressure()) {
+                // PDFBox daha erken scratch dosyasına taşar; sayfalar tek handle ile okunur
+                request.maxMainMemoryBytes = Math.min(request.maxMainMemoryBytes, PRESSURE_MAX_MAIN_MEMORY_BYTES);
+                request.parallel = false;
+                Log.d(TAG, "[" + job.id + "] Memory pressure: main memory capped at " + request.maxMainMemoryBytes + " bytes, no parallel pages");
+            }
+            Log.d(TAG, "[" + job.id + "] Loading PDF document with PDFBox (" + pdfFile.length() + " bytes)...");
+            document = PDDocument.load(pdfFile, memoryUsage(request.maxMainMemoryBytes, scratchDir));
+            heap.sample();
+            job.throwIfCancelled();
 
             if (document.isEncrypted()) {
                 Log.w(TAG, "PDF document is encrypted.");
-                call.resolve(getRet().put("error", "PDF document is encrypted."));
+                job.finish(getRet().put("error", "PDF document is encrypted."));
                 return;
             }
 
-            Log.d(TAG, "Stripping text from PDF document (Page count: " + document.getNumberOfPages() + ")...");
-            PDFTextStripper pdfStripper = new PDFTextStripper();
-            String text = pdfStripper.getText(document);
-            Log.d(TAG, "Successfully extracted text. Length: " + (text != null ? text.length() : "null"));
+            int pageCount = document.getNumberOfPages();
+            int endPage = Math.min(request.endPage, pageCount);
+            Log.d(TAG, "[" + job.id + "] Stripping text from PDF document (Page count: " + pageCount
+                    + ", range: " + request.startPage + "-" + endPage + ")...");
+            PdfStopMatcher stopMatcher = PdfStopMatcher.compile(request.stopPatterns);
+            PageProgress progress = new PageProgress(job, pageCount, heap, stopMatcher);
 
-            JSObject ret = getRet();
-            ret.put("text", text);
-            call.resolve(ret);
+            // Sayfa sayfa yazılır; tüm stop pattern'ler eşleşince kalan sayfalar atlanır
+            StringWriter output = new StringWriter();
+            boolean stoppedEarly = false;
+            List<int[]> chunks = null;
+            List<PdfTableLayout.Row> rows = null;
+            if (MODE_ROWS.equals(request.mode)) {
+                ProgressTableStripper tableStripper = new ProgressTableStripper(progress);
+                tableStripper.setStartPage(request.startPage);
+                tableStripper.setEndPage(endPage);
+                try {
+                    tableStripper.writeText(document, output);
+                } catch (StopExtractionException e) {
+                    stoppedEarly = true;
+                }
+                rows = tableStripper.getRows();
+            } else if (useParallel(request, endPage, stopMatcher)) {
+                chunks = ParallelPdfExtractor.planChunks(request.startPage, endPage, PAGE_WORKERS, request.pagesPerChunk);
+                // Her parça kendi handle'ını açar; bellek sınırı aynı anda açık handle'lar arasında bölünür
+                long chunkMemoryBytes = request.maxMainMemoryBytes / Math.min(PAGE_WORKERS, chunks.size());
+                document.close();
+                document = null;
+                final File source = pdfFile;
+                stoppedEarly = ParallelPdfExtractor.extract(
+                        () -> PDDocument.load(source, memoryUsage(chunkMemoryBytes, scratchDir)),
+                        chunks, pageExecutor, output, progress, job::isCancelled);
+            } else {
+                ProgressTextStripper pdfStripper = new ProgressTextStripper(progress);
+                pdfStripper.setStartPage(request.startPage);
+                pdfStripper.setEndPage(endPage);
+                try {
+                    pdfStripper.writeText(document, output);
+                } catch (StopExtractionException e) {
+                    stoppedEarly = true;
+                }
+            }
+            String text = rows == null ? output.toString() : null;
+            heap.sample();
+            Log.d(TAG, "[" + job.id + "] Successfully extracted " + (rows != null ? rows.size() + " rows" : "text. Length: " + text.length())
+                    + ", engine wait: " + (readyTime - startTime) + " ms, parse: " + (System.currentTimeMillis() - readyTime) + " ms"
+                    + ", peak heap delta: " + (heap.peak - heap.baseline) + " bytes"
+                    + ", pages read: " + progress.pagesRead.size() + (stoppedEarly ? " (stopped early)" : "")
+                    + (chunks != null ? ", parallel chunks: " + chunks.size() : ""));
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing PDF: " + e.getClass().getSimpleName() + " - " + e.getMessage(), e);
-            call.resolve(getRet().put("error", "Native PDF parsing failed: " + e.getMessage()));
-        } finally {
-            if (inputStream != null) {
+            // Cache'e yalnızca belgeye bağlı alanlar yazılır; iş kimliği ve ölçümler her çağrıya özel
+            JSObject ret = getRet();
+            if (rows != null) {
+                ret.put("rows", toRowsArray(rows));
+            } else {
+                ret.put("text", text);
+            }
+            ret.put("pageCount", pageCount);
+            ret.put("pagesRead", new JSArray(progress.pagesRead));
+            ret.put("stoppedEarly", stoppedEarly);
+            if (!stopMatcher.isEmpty()) {
+                ret.put("matchedPatterns", new JSArray(stopMatcher.matchedPatterns()));
+            }
+            if (cacheKey != null && !job.isCancelled()) {
                 try {
-                    inputStream.close();
+                    getTextCache().put(cacheKey, ret.toString());
                 } catch (Exception e) {
-                    Log.e(TAG, "Error closing input stream", e);
+                    Log.w(TAG, "[" + job.id + "] Could not cache PDF result: " + e.getMessage());
                 }
             }
+            ret.put("jobId", job.id);
+            ret.put("contentHash", contentHash);
+            ret.put("cacheHit", false);
+            ret.put("parallelChunks", chunks != null ? chunks.size() : 0);
+            ret.put("memory", heap.toJSObject(request.maxMainMemoryBytes));
+            job.finish(ret);
+
+        } catch (PdfJobCancelledException e) {
+            Log.d(TAG, "[" + job.id + "] PDF job stopped: " + e.getMessage());
+        } catch (Exception e) {
+            if (job.isCancelled()) {
+                Log.d(TAG, "[" + job.id + "] PDF job failed after cancellation: " + e.getMessage());
+            } else {
+                Log.e(TAG, "Error parsing PDF: " + e.getClass().getSimpleName() + " - " + e.getMessage(), e);
+                job.finish(getRet().put("error", "Native PDF parsing failed: " + e.getMessage()));
+            }
+        } finally {
             if (document != null) {
                 try {
                     document.close();
@@ -80,11 +309,386 @@ public class PdfParserPlugin extends Plugin {
                     Log.e(TAG, "Error closing PDDocument", e);
                 }
             }
+            if (scratchPdf != null && !scratchPdf.delete()) {
+                Log.w(TAG, "Could not delete scratch PDF: " + scratchPdf);
+            }
+            activeJobs.remove(job.id, job);
+            if (job.timeout != null) {
+                job.timeout.cancel(false);
+            }
+        }
+    }
+
+    @PluginMethod
+    public void getPdfCacheStats(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        cacheExecutor.execute(() -> {
+            NativeMetrics.started(call);
+            try {
+                NativeMetrics.resolve(call, cacheStats());
+            } catch (IOException e) {
+                ErrorUtils.handleGenericException(call, e, "Could not read PDF cache", TAG);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void clearPdfCache(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        cacheExecutor.execute(() -> {
+            NativeMetrics.started(call);
+            try {
+                getTextCache().clear();
+                NativeMetrics.resolve(call);
+            } catch (IOException e) {
+                ErrorUtils.handleGenericException(call, e, "Could not clear PDF cache", TAG);
+            }
+        });
+    }
+
+    /** Acknowledges streamed result chunks of parsePdfText (ResultStreams). */
+    @PluginMethod
+    public void ackResultChunk(PluginCall call) {
+        ResultStreams.ack(call);
+    }
+
+    private JSObject cacheStats() throws IOException {
+        PdfTextCache.Stats stats = getTextCache().stats();
+        JSObject ret = getRet();
+        ret.put("hits", stats.hits);
+        ret.put("misses", stats.misses);
+        ret.put("hitRate", stats.hitRate());
+        ret.put("evictions", stats.evictions);
+        ret.put("entries", stats.entries);
+        ret.put("sizeBytes", stats.sizeBytes);
+        ret.put("maxBytes", stats.maxBytes);
+        return ret;
+    }
+
+    private synchronized PdfTextCache getTextCache() throws IOException {
+        if (textCache == null) {
+            textCache = new PdfTextCache(AppStorage.scratchDir(getContext(), AppStorage.PDF_TEXT_CACHE_DIR), CACHE_MAX_BYTES,
+                    SecureStoragePlugin::getOrCreateSecretKey);
+        }
+        return textCache;
+    }
+
+    /**
+     * Parallel extraction pays off only when there are enough pages for several chunks. Without an
+     * explicit choice it is skipped for stop-pattern jobs, which usually end after the first pages.
+     */
+    private static boolean useParallel(ParseRequest request, int endPage, PdfStopMatcher stopMatcher) {
+        int pages = endPage - request.startPage + 1;
+        if (PAGE_WORKERS < 2 || pages < 2 * ParallelPdfExtractor.MIN_PAGES_PER_CHUNK) {
+            return false;
+        }
+        return request.parallel != null ? request.parallel : stopMatcher.isEmpty();
+    }
+
+    /** Rows as compact JS objects; coordinates are PDF points rounded to 0.1. */
+    private static JSArray toRowsArray(List<PdfTableLayout.Row> rows) {
+        JSArray array = new JSArray();
+        for (PdfTableLayout.Row row : rows) {
+            JSArray cells = new JSArray();
+            for (PdfTableLayout.Cell cell : row.cells) {
+                JSObject cellObject = new JSObject();
+                cellObject.put("text", cell.text);
+                cellObject.put("column", cell.column);
+                cellObject.put("left", roundPoint(cell.left));
+                cellObject.put("top", roundPoint(cell.top));
+                cellObject.put("right", roundPoint(cell.right));
+                cellObject.put("bottom", roundPoint(cell.bottom));
+                cells.put(cellObject);
+            }
+            JSObject rowObject = new JSObject();
+            rowObject.put("page", row.page);
+            rowObject.put("top", roundPoint(row.top));
+            rowObject.put("bottom", roundPoint(row.bottom));
+            rowObject.put("cells", cells);
+            array.put(rowObject);
+        }
+        return array;
+    }
+
+    private static double roundPoint(float value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static MemoryUsageSetting memoryUsage(long maxMainMemoryBytes, File scratchDir) {
+        return MemoryUsageSetting.setupMixed(maxMainMemoryBytes).setTempDir(scratchDir);
+    }
+
+    /**
+     * Decodes the base64 payload straight into {@code target} through a small buffer, so the
+     * decoded PDF never sits on the heap next to the base64 string. Returns the SHA-256 of the
+     * decoded bytes, computed on the way.
+     */
+    private static String decodeBase64ToFile(String base64Data, File target) throws IOException {
+        MessageDigest digest = PdfTextCache.newContentDigest();
+        try (InputStream in = new Base64InputStream(new AsciiStringInputStream(base64Data), Base64.DEFAULT);
+             OutputStream out = new DigestOutputStream(new FileOutputStream(target), digest)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
         }
+        return PdfTextCache.toHex(digest.digest());
+    }
+
+    /**
+     * Resolves the job's call right away with a cancellation error and stops the worker: a queued
+     * job never starts, a running one stops at the next page boundary.
+     */
+    private boolean cancelJob(PdfJob job, String reason) {
+        if (!job.cancel(reason)) {
+            return false;
+        }
+        String message = "TIMEOUT".equals(reason) ? "PDF parsing timed out" : "PDF parsing cancelled";
+        Log.w(TAG, "[" + job.id + "] " + message);
+        job.finish(getRet().put("error", message).put("errorCode", reason).put("jobId", job.id));
+        Future<?> future = job.future;
+        if (future != null && future.cancel(false)) {
+            // Hiç başlamadı; worker'ın finally bloğu çalışmayacak
+            activeJobs.remove(job.id, job);
+        }
+        return true;
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        super.handleOnDestroy();
+        for (PdfJob job : activeJobs.values()) {
+            cancelJob(job, "CANCELLED");
+        }
+        pdfExecutor.shutdownNow();
+        pageExecutor.shutdownNow();
+        timeoutScheduler.shutdownNow();
+        cacheExecutor.shutdownNow();
     }
 
     @NonNull
     JSObject getRet() {
         return new JSObject();
     }
-} 
\ No newline at end of file
+
+    /**
+     * Handles every extracted page in page order: emits a progress event, stops once the job is
+     * cancelled and returns false when every stop pattern has matched.
+     */
+    private class PageProgress implements ParallelPdfExtractor.PageSink {
+        private final PdfJob job;
+        private final int pageCount;
+        private final HeapSampler heap;
+        private final PdfStopMatcher stopMatcher;
+        final List<Integer> pagesRead = new ArrayList<>();
+
+        PageProgress(PdfJob job, int pageCount, HeapSampler heap, PdfStopMatcher stopMatcher) {
+            this.job = job;
+            this.pageCount = pageCount;
+            this.heap = heap;
+            this.stopMatcher = stopMatcher;
+        }
+
+        @Override
+        public boolean onPage(int pageNo, String pageText) throws IOException {
+            pagesRead.add(pageNo);
+            heap.sample();
+            job.throwIfCancelled();
+            JSObject progress = new JSObject();
+            progress.put("jobId", job.id);
+            progress.put("page", pageNo);
+            progress.put("pageCount", pageCount);
+            notifyListeners(PROGRESS_EVENT, progress);
+
+            return stopMatcher.isEmpty() || !stopMatcher.feed(pageText);
+        }
+    }
+
+    /** Sequential mode: hands each page to {@link PageProgress}, ending early with {@link StopExtractionException}. */
+    private static class ProgressTextStripper extends PDFTextStripper {
+        private final PageProgress progress;
+        private int pageStartOffset;
+
+        ProgressTextStripper(PageProgress progress) throws IOException {
+            super();
+            this.progress = progress;
+        }
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            super.startPage(page);
+            pageStartOffset = ((StringWriter) getOutput()).getBuffer().length();
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            StringBuffer buffer = ((StringWriter) getOutput()).getBuffer();
+            if (!progress.onPage(getCurrentPageNo(), buffer.substring(pageStartOffset))) {
+                throw new StopExtractionException();
+            }
+        }
+    }
+
+    /** Rows mode: same per-page handling, with the page's rows as the text stop patterns see. */
+    private static class ProgressTableStripper extends PdfTableStripper {
+        private final PageProgress progress;
+
+        ProgressTableStripper(PageProgress progress) throws IOException {
+            super();
+            this.progress = progress;
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            if (!progress.onPage(getCurrentPageNo(), getLastPageText())) {
+                throw new StopExtractionException();
+            }
+        }
+    }
+
+    private static final class ParseRequest {
+        String base64Data;
+        String filePath;
+        long maxMainMemoryBytes;
+        int startPage;
+        int endPage;
+        List<String> stopPatterns;
+        String mode;
+        Boolean parallel;
+        int pagesPerChunk;
+        boolean useCache;
+
+        /** Options that change the output; parallel and memory settings do not. */
+        String cacheVariant() {
+            StringBuilder variant = new StringBuilder(mode).append('|').append(startPage).append('-').append(endPage);
+            if (stopPatterns != null) {
+                for (String pattern : stopPatterns) {
+                    variant.append('|').append(pattern);
+                }
+            }
+            return variant.toString();
+        }
+    }
+
+    private static final class StopExtractionException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        StopExtractionException() {
+            super("All stop patterns matched");
+        }
+    }
+
+    private static final class PdfJob {
+        final String id;
+        private final PluginCall call;
+        private final ResultStreams.Emitter emitter;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile String cancelReason;
+        volatile Future<?> future;
+        volatile ScheduledFuture<?> timeout;
+
+        PdfJob(String id, PluginCall call, ResultStreams.Emitter emitter) {
+            this.id = id;
+            this.call = call;
+            this.emitter = emitter;
+        }
+
+        boolean isCancelled() {
+            return cancelReason != null;
+        }
+
+        synchronized boolean cancel(String reason) {
+            if (cancelReason != null || finished.get()) {
+                return false;
+            }
+            cancelReason = reason;
+            return true;
+        }
+
+        void throwIfCancelled() throws PdfJobCancelledException {
+            if (cancelReason != null) {
+                throw new PdfJobCancelledException(cancelReason);
+            }
+        }
+
+        /**
+         * Resolves the call exactly once, whichever of worker, timeout or cancel gets there first;
+         * large results are streamed when the call asked for it.
+         */
+        void finish(JSObject result) {
+            if (finished.compareAndSet(false, true)) {
+                ResultStreams.resolve(call, result, emitter);
+            }
+        }
+    }
+
+    /** Tracks the highest used-heap value seen at the sample points of one parse. */
+    private static final class HeapSampler {
+        private final Runtime runtime = Runtime.getRuntime();
+        final long baseline;
+        long peak;
+
+        HeapSampler() {
+            baseline = usedHeap();
+            peak = baseline;
+        }
+
+        void sample() {
+            long used = usedHeap();
+            if (used > peak) {
+                peak = used;
+            }
+        }
+
+        private long usedHeap() {
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+
+        JSObject toJSObject(long maxMainMemoryBytes) {
+            JSObject memory = new JSObject();
+            memory.put("baselineHeapBytes", baseline);
+            memory.put("peakHeapBytes", peak);
+            memory.put("peakDeltaBytes", peak - baseline);
+            memory.put("maxMainMemoryBytes", maxMainMemoryBytes);
+            return memory;
+        }
+    }
+
+    /** Exposes a base64 string as ASCII bytes without copying it into a byte array. */
+    private static final class AsciiStringInputStream extends InputStream {
+        private final String source;
+        private int position;
+
+        AsciiStringInputStream(String source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() {
+            return position < source.length() ? (source.charAt(position++) & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= source.length()) {
+                return -1;
+            }
+            int count = Math.min(length, source.length() - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) source.charAt(position++);
+            }
+            return count;
+        }
+    }
+
+    private static final class PdfJobCancelledException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        PdfJobCancelledException(String reason) {
+            super(reason);
+        }
+    }
+}
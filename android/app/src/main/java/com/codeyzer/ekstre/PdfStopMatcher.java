@@ -0,0 +1,81 @@
+package com.codeyzer.ekstre;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks a set of regex "stop patterns" over page texts fed in page order. Once every pattern has
+ * matched somewhere, extraction can stop: the fields we need are already in the text.
+ */
+public final class PdfStopMatcher {
+
+    // Sayfa sonunda bölünen bir eşleşmeyi kaçırmamak için önceki sayfanın sonu da aranır
+    private static final int CARRY_OVER_CHARS = 256;
+
+    private final List<String> sources;
+    private final List<Pattern> patterns;
+    private final boolean[] matched;
+    private int remaining;
+    private String carryOver = "";
+
+    private PdfStopMatcher(List<String> sources, List<Pattern> patterns) {
+        this.sources = sources;
+        this.patterns = patterns;
+        this.matched = new boolean[patterns.size()];
+        this.remaining = patterns.size();
+    }
+
+    /** @throws java.util.regex.PatternSyntaxException if one of the patterns is invalid */
+    public static PdfStopMatcher compile(List<String> regexes) {
+        List<String> sources = new ArrayList<>();
+        List<Pattern> patterns = new ArrayList<>();
+        if (regexes != null) {
+            for (String regex : regexes) {
+                if (regex == null || regex.isEmpty()) {
+                    continue;
+                }
+                sources.add(regex);
+                patterns.add(Pattern.compile(regex, Pattern.MULTILINE));
+            }
+        }
+        return new PdfStopMatcher(sources, patterns);
+    }
+
+    public boolean isEmpty() {
+        return patterns.isEmpty();
+    }
+
+    public boolean isComplete() {
+        return !patterns.isEmpty() && remaining == 0;
+    }
+
+    /** Matches the outstanding patterns against one page; returns true once all have matched. */
+    public boolean feed(String pageText) {
+        if (patterns.isEmpty() || remaining == 0) {
+            return isComplete();
+        }
+        String text = carryOver + pageText;
+        for (int i = 0; i < patterns.size(); i++) {
+            if (!matched[i] && patterns.get(i).matcher(text).find()) {
+                matched[i] = true;
+                remaining--;
+            }
+        }
+        carryOver = pageText.length() > CARRY_OVER_CHARS
+                ? pageText.substring(pageText.length() - CARRY_OVER_CHARS)
+                : pageText;
+        return remaining == 0;
+    }
+
+    public List<String> matchedPatterns() {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i++) {
+            if (matched[i]) {
+                result.add(sources.get(i));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -0,0 +1,224 @@
+package com.codeyzer.ekstre;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Groups positioned glyphs of one PDF page into rows of cells and numbers the cells by column.
+ * Coordinates are PDF points with y growing downwards (PDFBox's "DirAdj" values).
+ * Kept free of PDFBox and Android types so it can be exercised from plain JVM tests.
+ */
+public final class PdfTableLayout {
+
+    // Katsayılar glyph yüksekliğiyle (≈ font boyu) çarpılır
+    static final float LINE_TOLERANCE = 0.5f;
+    static final float WORD_GAP = 0.15f;
+    static final float CELL_GAP = 1.0f;
+    // Sahte kalın yazı için aynı glyph'in üst üste basılmış kopyaları
+    private static final float DUPLICATE_TOLERANCE = 0.5f;
+    private static final float COLUMN_MERGE_TOLERANCE = 1.0f;
+
+    private PdfTableLayout() {
+    }
+
+    public static final class Glyph {
+        public final String text;
+        public final float left;
+        public final float baseline;
+        public final float width;
+        public final float height;
+
+        public Glyph(String text, float left, float baseline, float width, float height) {
+            this.text = text != null ? text : "";
+            this.left = left;
+            this.baseline = baseline;
+            this.width = width;
+            this.height = height;
+        }
+
+        float right() {
+            return left + width;
+        }
+
+        float top() {
+            return baseline - height;
+        }
+    }
+
+    public static final class Cell {
+        public final String text;
+        public final float left;
+        public final float top;
+        public final float right;
+        public final float bottom;
+        /** Index of the page's column band this cell falls into, or -1 when it fits none. */
+        public int column = -1;
+
+        Cell(String text, float left, float top, float right, float bottom) {
+            this.text = text;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+    }
+
+    public static final class Row {
+        public final int page;
+        public final List<Cell> cells;
+        public final float top;
+        public final float bottom;
+
+        Row(int page, List<Cell> cells) {
+            this.page = page;
+            this.cells = cells;
+            float rowTop = Float.MAX_VALUE;
+            float rowBottom = -Float.MAX_VALUE;
+            for (Cell cell : cells) {
+                rowTop = Math.min(rowTop, cell.top);
+                rowBottom = Math.max(rowBottom, cell.bottom);
+            }
+            this.top = rowTop;
+            this.bottom = rowBottom;
+        }
+
+        /** Cell texts joined with tabs, the shape stop patterns and logs see. */
+        public String joinedText() {
+            StringBuilder text = new StringBuilder();
+            for (Cell cell : cells) {
+                if (text.length() > 0) {
+                    text.append('\t');
+                }
+                text.append(cell.text);
+            }
+            return text.toString();
+        }
+    }
+
+    /** Lays out one page: lines top to bottom, cells left to right, then column numbering. */
+    public static List<Row> layout(int page, List<Glyph> glyphs) {
+        List<Glyph> visible = new ArrayList<>(glyphs.size());
+        for (Glyph glyph : glyphs) {
+            if (!glyph.text.trim().isEmpty()) {
+                visible.add(glyph);
+            }
+        }
+        if (visible.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Collections.sort(visible, Comparator.<Glyph>comparingDouble(g -> g.baseline).thenComparingDouble(g -> g.left));
+
+        List<Row> rows = new ArrayList<>();
+        List<Glyph> line = new ArrayList<>();
+        float lineBaseline = visible.get(0).baseline;
+        float lineHeight = visible.get(0).height;
+        for (Glyph glyph : visible) {
+            float tolerance = LINE_TOLERANCE * Math.max(glyph.height, lineHeight);
+            if (!line.isEmpty() && Math.abs(glyph.baseline - lineBaseline) > tolerance) {
+                rows.add(new Row(page, toCells(line)));
+                line.clear();
+            }
+            if (line.isEmpty()) {
+                lineBaseline = glyph.baseline;
+                lineHeight = glyph.height;
+            } else {
+                lineHeight = Math.max(lineHeight, glyph.height);
+            }
+            line.add(glyph);
+        }
+        rows.add(new Row(page, toCells(line)));
+
+        assignColumns(rows);
+        return rows;
+    }
+
+    private static List<Cell> toCells(List<Glyph> line) {
+        List<Glyph> sorted = new ArrayList<>(line);
+        Collections.sort(sorted, Comparator.comparingDouble(g -> g.left));
+
+        List<Cell> cells = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        Glyph first = null;
+        Glyph previous = null;
+        float top = 0;
+        float bottom = 0;
+        float right = 0;
+        for (Glyph glyph : sorted) {
+            if (previous != null) {
+                if (glyph.text.equals(previous.text)
+                        && Math.abs(glyph.left - previous.left) < DUPLICATE_TOLERANCE
+                        && Math.abs(glyph.baseline - previous.baseline) < DUPLICATE_TOLERANCE) {
+                    continue;
+                }
+                float gap = glyph.left - previous.right();
+                float height = Math.max(glyph.height, previous.height);
+                if (gap > CELL_GAP * height) {
+                    cells.add(new Cell(text.toString(), first.left, top, right, bottom));
+                    text.setLength(0);
+                    first = null;
+                } else if (gap > WORD_GAP * height) {
+                    text.append(' ');
+                }
+            }
+            if (first == null) {
+                first = glyph;
+                top = glyph.top();
+                bottom = glyph.baseline;
+                right = glyph.right();
+            }
+            text.append(glyph.text);
+            top = Math.min(top, glyph.top());
+            bottom = Math.max(bottom, glyph.baseline);
+            right = Math.max(right, glyph.right());
+            previous = glyph;
+        }
+        cells.add(new Cell(text.toString(), first.left, top, right, bottom));
+        return cells;
+    }
+
+    /**
+     * Column bands are the merged horizontal spans of cells in rows with more than one cell, so
+     * left-, right- and centre-aligned columns all form one band. Single-cell rows (titles,
+     * wrapped descriptions) don't shape the bands but are still numbered by them.
+     */
+    private static void assignColumns(List<Row> rows) {
+        List<float[]> spans = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.cells.size() > 1) {
+                for (Cell cell : row.cells) {
+                    spans.add(new float[]{cell.left, cell.right});
+                }
+            }
+        }
+        if (spans.isEmpty()) {
+            return;
+        }
+        Collections.sort(spans, Comparator.comparingDouble(span -> span[0]));
+        List<float[]> bands = new ArrayList<>();
+        float[] current = spans.get(0).clone();
+        for (float[] span : spans) {
+            if (span[0] <= current[1] + COLUMN_MERGE_TOLERANCE) {
+                current[1] = Math.max(current[1], span[1]);
+            } else {
+                bands.add(current);
+                current = span.clone();
+            }
+        }
+        bands.add(current);
+
+        for (Row row : rows) {
+            for (Cell cell : row.cells) {
+                float bestOverlap = 0;
+                for (int i = 0; i < bands.size(); i++) {
+                    float overlap = Math.min(cell.right, bands.get(i)[1]) - Math.max(cell.left, bands.get(i)[0]);
+                    if (overlap > bestOverlap) {
+                        bestOverlap = overlap;
+                        cell.column = i;
+                    }
+                }
+            }
+        }
+    }
+}
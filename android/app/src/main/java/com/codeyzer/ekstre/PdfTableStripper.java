@@ -0,0 +1,61 @@
+package com.codeyzer.ekstre;
+
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.text.PDFTextStripper;
+import com.tom_roush.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text stripper that keeps glyph positions instead of writing text: at every page end the page's
+ * glyphs are laid out into rows of cells by {@link PdfTableLayout}.
+ */
+public class PdfTableStripper extends PDFTextStripper {
+
+    private final List<PdfTableLayout.Glyph> pageGlyphs = new ArrayList<>();
+    private final List<PdfTableLayout.Row> rows = new ArrayList<>();
+    private String lastPageText = "";
+
+    public PdfTableStripper() throws IOException {
+        super();
+    }
+
+    public List<PdfTableLayout.Row> getRows() {
+        return rows;
+    }
+
+    /** Rows of the page that just ended, one line per row with tab separated cells. */
+    public String getLastPageText() {
+        return lastPageText;
+    }
+
+    @Override
+    protected void startPage(PDPage page) throws IOException {
+        super.startPage(page);
+        pageGlyphs.clear();
+    }
+
+    @Override
+    protected void writeString(String text, List<TextPosition> textPositions) {
+        for (TextPosition position : textPositions) {
+            float height = position.getHeightDir() > 0 ? position.getHeightDir() : position.getFontSizeInPt();
+            pageGlyphs.add(new PdfTableLayout.Glyph(position.getUnicode(), position.getXDirAdj(),
+                    position.getYDirAdj(), position.getWidthDirAdj(), height));
+        }
+    }
+
+    @Override
+    protected void endPage(PDPage page) throws IOException {
+        super.endPage(page);
+        List<PdfTableLayout.Row> pageRows = PdfTableLayout.layout(getCurrentPageNo(), pageGlyphs);
+        rows.addAll(pageRows);
+        StringBuilder text = new StringBuilder();
+        for (PdfTableLayout.Row row : pageRows) {
+            text.append(row.joinedText()).append('\n');
+        }
+        lastPageText = text.toString();
+        pageGlyphs.clear();
+    }
+}
@@ -0,0 +1,277 @@
+package com.codeyzer.ekstre;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Encrypted on-disk cache of parse results keyed by the SHA-256 of the PDF bytes, so the same
+ * statement is parsed once whichever message or attachment id it arrives under.
+ *
+ * Entries are AES-GCM encrypted ({@code version | iv length | iv | ciphertext}) with the entry key
+ * as associated data, and the least recently used ones are evicted once the total size exceeds
+ * {@code maxBytes}. An entry that no longer decrypts (e.g. the key was reset) counts as a miss and
+ * is removed.
+ */
+public final class PdfTextCache {
+
+    public interface KeySource {
+        SecretKey get() throws GeneralSecurityException, IOException;
+    }
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int FORMAT_VERSION = 1;
+    private static final int GCM_TAG_LENGTH = 128;
+    private static final String ENTRY_SUFFIX = ".bin";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final File dir;
+    private final long maxBytes;
+    private final KeySource keySource;
+    // Erişim sırasına göre; ilk eleman en eski
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private boolean indexed;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public PdfTextCache(File dir, long maxBytes, KeySource keySource) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.keySource = keySource;
+    }
+
+    /** Entry key for one document and one set of parse options that change the output. */
+    public static String entryKey(String contentHash, String variant) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(contentHash.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(variant.getBytes(StandardCharsets.UTF_8));
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String contentHash(File file) throws IOException {
+        MessageDigest digest = newContentDigest();
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    public static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /** Cached value for {@code key}, or null on a miss. */
+    public synchronized String get(String key) {
+        ensureIndexed();
+        // get() (containsKey değil) LRU sırasını günceller
+        if (entries.get(key) == null) {
+            misses++;
+            return null;
+        }
+        File file = entryFile(key);
+        try {
+            String value = decrypt(key, readFile(file));
+            // Dizin yeniden tarandığında LRU sırası korunsun
+            file.setLastModified(System.currentTimeMillis());
+            hits++;
+            return value;
+        } catch (IOException | GeneralSecurityException e) {
+            remove(key);
+            misses++;
+            return null;
+        }
+    }
+
+    public synchronized void put(String key, String value) throws IOException, GeneralSecurityException {
+        ensureIndexed();
+        byte[] encrypted = encrypt(key, value);
+        if (encrypted.length > maxBytes) {
+            return;
+        }
+        File target = entryFile(key);
+        File temp = new File(dir, key + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(encrypted);
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Could not write cache entry: " + target);
+        }
+        Long previous = entries.put(key, (long) encrypted.length);
+        totalBytes += encrypted.length - (previous != null ? previous : 0);
+        evictToSize();
+    }
+
+    public synchronized void clear() {
+        ensureIndexed();
+        for (String key : new ArrayList<>(entries.keySet())) {
+            remove(key);
+        }
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    public synchronized Stats stats() {
+        ensureIndexed();
+        return new Stats(hits, misses, evictions, entries.size(), totalBytes, maxBytes);
+    }
+
+    public static final class Stats {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final int entries;
+        public final long sizeBytes;
+        public final long maxBytes;
+
+        Stats(long hits, long misses, long evictions, int entries, long sizeBytes, long maxBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.entries = entries;
+            this.sizeBytes = sizeBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private byte[] encrypt(String key, String value) throws GeneralSecurityException, IOException {
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        // IV'yi Keystore üretir (randomized encryption)
+        cipher.init(Cipher.ENCRYPT_MODE, keySource.get());
+        cipher.updateAAD(key.getBytes(StandardCharsets.UTF_8));
+        byte[] ciphertext = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        byte[] iv = cipher.getIV();
+        byte[] entry = new byte[2 + iv.length + ciphertext.length];
+        entry[0] = FORMAT_VERSION;
+        entry[1] = (byte) iv.length;
+        System.arraycopy(iv, 0, entry, 2, iv.length);
+        System.arraycopy(ciphertext, 0, entry, 2 + iv.length, ciphertext.length);
+        return entry;
+    }
+
+    private String decrypt(String key, byte[] entry) throws GeneralSecurityException, IOException {
+        if (entry.length < 2 || entry[0] != FORMAT_VERSION || entry.length < 2 + entry[1]) {
+            throw new IOException("Unknown cache entry format");
+        }
+        int ivLength = entry[1];
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, keySource.get(),
+                new GCMParameterSpec(GCM_TAG_LENGTH, Arrays.copyOfRange(entry, 2, 2 + ivLength)));
+        cipher.updateAAD(key.getBytes(StandardCharsets.UTF_8));
+        byte[] plain = cipher.doFinal(entry, 2 + ivLength, entry.length - 2 - ivLength);
+        return new String(plain, StandardCharsets.UTF_8);
+    }
+
+    /** Rebuilds the in-memory index from disk once, oldest entry first. */
+    private void ensureIndexed() {
+        if (indexed) {
+            return;
+        }
+        indexed = true;
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(ENTRY_SUFFIX)) {
+                entries.put(name.substring(0, name.length() - ENTRY_SUFFIX.length()), file.length());
+                totalBytes += file.length();
+            } else {
+                // Yarım kalmış yazma
+                file.delete();
+            }
+        }
+        evictToSize();
+    }
+
+    private void evictToSize() {
+        Iterator<Map.Entry<String, Long>> oldest = entries.entrySet().iterator();
+        List<String> evicted = new ArrayList<>();
+        while (totalBytes > maxBytes && oldest.hasNext()) {
+            Map.Entry<String, Long> entry = oldest.next();
+            totalBytes -= entry.getValue();
+            evicted.add(entry.getKey());
+            oldest.remove();
+        }
+        for (String key : evicted) {
+            entryFile(key).delete();
+            evictions++;
+        }
+    }
+
+    private void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        entryFile(key).delete();
+    }
+
+    private File entryFile(String key) {
+        return new File(dir, key + ENTRY_SUFFIX);
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        try (InputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read < 0) {
+                    throw new IOException("Truncated cache entry: " + file);
+                }
+                offset += read;
+            }
+        }
+        return bytes;
+    }
+}
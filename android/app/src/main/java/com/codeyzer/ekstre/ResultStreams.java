@@ -0,0 +1,289 @@
+package com.codeyzer.ekstre;
+
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers large plugin results to JS as ordered chunks instead of one huge {@code resolve}.
+ *
+ * A call opts in with a {@code stream: {id, chunkSize?, window?}} option; the id is chosen by JS so
+ * its {@value #CHUNK_EVENT} listener can filter chunks before the call returns. The result's JSON
+ * is cut into {@code chunkSize}-character slices sent through the plugin's listeners; at most
+ * {@code window} chunks are unacknowledged at a time and the rest wait for the plugin's
+ * {@code ackResultChunk} call. Once the last chunk is acknowledged the call resolves with
+ * {@code {streamed: true, streamId, chunks, length}} and JS parses the joined text. Results that fit
+ * in one chunk, and calls without the option, resolve as before.
+ */
+public final class ResultStreams {
+
+    private static final String TAG = "ResultStreams";
+    public static final String CHUNK_EVENT = "resultChunk";
+    static final int DEFAULT_CHUNK_CHARS = 256 * 1024;
+    static final int MIN_CHUNK_CHARS = 4 * 1024;
+    static final int MAX_CHUNK_CHARS = 4 * 1024 * 1024;
+    static final int DEFAULT_WINDOW = 4;
+    static final int MAX_WINDOW = 64;
+    // Bu süre içinde hiç onay gelmezse (WebView kapandı, listener kaldırıldı) akış iptal edilir
+    static final long ACK_TIMEOUT_MS = 30_000;
+    static final String TIMEOUT_CODE = "STREAM_TIMEOUT";
+    static final String CANCELLED_CODE = "STREAM_CANCELLED";
+
+    /** The plugin's {@code notifyListeners}. */
+    public interface Emitter {
+        void emit(String eventName, JSObject data);
+    }
+
+    /** How a finished stream settles its call. */
+    interface Completion {
+        void complete(JSObject summary);
+
+        void fail(String message, String code);
+    }
+
+    private static final Map<String, Stream> streams = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "result-stream-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicLong started = new AtomicLong();
+    private static final AtomicLong chunksSent = new AtomicLong();
+    private static final AtomicLong charsSent = new AtomicLong();
+    private static final AtomicLong timedOut = new AtomicLong();
+    private static final AtomicLong cancelled = new AtomicLong();
+    static long ackTimeoutMillis = ACK_TIMEOUT_MS;
+
+    static {
+        NativeMetrics.registerSection("resultStreams", ResultStreams::stats);
+    }
+
+    private ResultStreams() {
+    }
+
+    /**
+     * Resolves {@code call} with {@code result}, streaming it when the call asked for it and the
+     * JSON is larger than one chunk. A null emitter always resolves directly.
+     */
+    public static void resolve(PluginCall call, JSObject result, Emitter emitter) {
+        JSObject options = call.getObject("stream");
+        String id = options == null ? null : options.getString("id");
+        if (emitter == null || id == null || id.isEmpty()) {
+            NativeMetrics.resolve(call, result);
+            return;
+        }
+        int chunkSize = clamp(options.getInteger("chunkSize", DEFAULT_CHUNK_CHARS), MIN_CHUNK_CHARS, MAX_CHUNK_CHARS);
+        int window = clamp(options.getInteger("window", DEFAULT_WINDOW), 1, MAX_WINDOW);
+        String json = result.toString();
+        if (json.length() <= chunkSize) {
+            NativeMetrics.resolve(call, result);
+            return;
+        }
+        boolean accepted = start(id, json, chunkSize, window, emitter, new Completion() {
+            @Override
+            public void complete(JSObject summary) {
+                NativeMetrics.resolve(call, summary);
+            }
+
+            @Override
+            public void fail(String message, String code) {
+                NativeMetrics.reject(call, message, code);
+            }
+        });
+        if (!accepted) {
+            NativeMetrics.reject(call, "A result stream with id " + id + " is already active", "INVALID_ARGUMENT");
+        }
+    }
+
+    /** Body of a plugin's {@code ackResultChunk} method: {@code {streamId, index, cancel?}}. Not measured. */
+    public static void ack(PluginCall call) {
+        String streamId = call.getString("streamId");
+        Integer index = call.getInt("index");
+        boolean known;
+        if (call.getBoolean("cancel", false)) {
+            known = cancel(streamId);
+        } else {
+            known = streamId != null && index != null && ack(streamId, index);
+        }
+        JSObject ret = new JSObject();
+        ret.put("active", known);
+        call.resolve(ret);
+    }
+
+    static boolean start(String id, String json, int chunkSize, int window, Emitter emitter, Completion completion) {
+        Stream stream = new Stream(id, json, chunkSize, window, emitter, completion);
+        if (streams.putIfAbsent(id, stream) != null) {
+            return false;
+        }
+        started.incrementAndGet();
+        stream.pump();
+        return true;
+    }
+
+    /** Cumulative: acknowledges every chunk up to and including {@code index}. */
+    static boolean ack(String streamId, int index) {
+        Stream stream = streams.get(streamId);
+        if (stream == null) {
+            return false;
+        }
+        stream.ack(index);
+        return true;
+    }
+
+    static boolean cancel(String streamId) {
+        Stream stream = streamId == null ? null : streams.get(streamId);
+        if (stream == null) {
+            return false;
+        }
+        cancelled.incrementAndGet();
+        stream.abort("Result stream cancelled by JS", CANCELLED_CODE);
+        return true;
+    }
+
+    static int activeCount() {
+        return streams.size();
+    }
+
+    static JSObject stats() {
+        JSObject stats = new JSObject();
+        stats.put("active", streams.size());
+        stats.put("started", started.get());
+        stats.put("chunks", chunksSent.get());
+        stats.put("chars", charsSent.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("cancelled", cancelled.get());
+        return stats;
+    }
+
+    private static int clamp(Integer value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static final class Stream {
+        private final String id;
+        private final String json;
+        private final int window;
+        private final Emitter emitter;
+        private final Completion completion;
+        private final int[] bounds;
+        private int nextToSend;
+        private int acked;
+        private boolean done;
+        private ScheduledFuture<?> timeout;
+
+        Stream(String id, String json, int chunkSize, int window, Emitter emitter, Completion completion) {
+            this.id = id;
+            this.json = json;
+            this.window = window;
+            this.emitter = emitter;
+            this.completion = completion;
+            this.bounds = chunkBounds(json, chunkSize);
+        }
+
+        int count() {
+            return bounds.length - 1;
+        }
+
+        synchronized void pump() {
+            while (!done && nextToSend < count() && nextToSend - acked < window) {
+                int index = nextToSend++;
+                String data = json.substring(bounds[index], bounds[index + 1]);
+                JSObject chunk = new JSObject();
+                chunk.put("streamId", id);
+                chunk.put("index", index);
+                chunk.put("count", count());
+                chunk.put("data", data);
+                emitter.emit(CHUNK_EVENT, chunk);
+                chunksSent.incrementAndGet();
+                charsSent.addAndGet(data.length());
+            }
+            armTimeout();
+        }
+
+        void ack(int index) {
+            JSObject summary = null;
+            synchronized (this) {
+                if (done || index < acked) {
+                    return;
+                }
+                acked = Math.min(index + 1, nextToSend);
+                if (acked == count()) {
+                    done = true;
+                    cancelTimeout();
+                    summary = new JSObject();
+                    summary.put("streamed", true);
+                    summary.put("streamId", id);
+                    summary.put("chunks", count());
+                    summary.put("length", json.length());
+                }
+            }
+            if (summary != null) {
+                streams.remove(id, this);
+                completion.complete(summary);
+            } else {
+                pump();
+            }
+        }
+
+        void abort(String message, String code) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                cancelTimeout();
+            }
+            streams.remove(id, this);
+            Log.w(TAG, "Stream " + id + " aborted after " + acked + "/" + count() + " chunks: " + message);
+            completion.fail(message, code);
+        }
+
+        private void armTimeout() {
+            cancelTimeout();
+            if (!done) {
+                timeout = timeouts.schedule(() -> {
+                    timedOut.incrementAndGet();
+                    abort("No acknowledgement for result stream within " + ackTimeoutMillis + " ms", TIMEOUT_CODE);
+                }, ackTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel(false);
+                timeout = null;
+            }
+        }
+    }
+
+    /** Chunk start offsets followed by the text length; never splits a surrogate pair. */
+    static int[] chunkBounds(String text, int chunkSize) {
+        List<Integer> offsets = new ArrayList<>(text.length() / chunkSize + 2);
+        int position = 0;
+        offsets.add(0);
+        while (position < text.length()) {
+            int end = Math.min(text.length(), position + chunkSize);
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+            offsets.add(end);
+            position = end;
+        }
+        int[] bounds = new int[offsets.size()];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = offsets.get(i);
+        }
+        return bounds;
+    }
+}
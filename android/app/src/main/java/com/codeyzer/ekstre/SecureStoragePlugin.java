@@ -1,8 +1,12 @@
 package com.codeyzer.ekstre; // Paket adınız farklıysa güncelleyin
 
 // Android SDK Imports
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.os.Build;
+import android.os.SystemClock;
 import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyPermanentlyInvalidatedException;
 import android.security.keystore.KeyProperties;
 import android.util.Base64;
 import android.util.Log; // Log sınıfı için import
@@ -10,15 +14,27 @@ import android.util.Log; // Log sınıfı için import
 import androidx.annotation.RequiresApi;
 
 // Capacitor Imports
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin; // Annotation için import
 
+import org.json.JSONException;
+import org.json.JSONObject;
+
 // Java Security Imports
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.KeyStore;
@@ -28,6 +44,14 @@ import java.security.NoSuchProviderException;
 import java.security.SecureRandom;
 import java.security.UnrecoverableEntryException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 // Java Crypto Imports
 import javax.crypto.BadPaddingException;
@@ -38,9 +62,10 @@ import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 
-@CapacitorPlugin(name = "SecureStorage")
+@CapacitorPlugin(name = SecureStoragePlugin.NAME)
 public class SecureStoragePlugin extends Plugin {
 
+    static final String NAME = "SecureStorage";
     private static final String TAG = "SecureStoragePlugin";
     private static final String ANDROID_KEYSTORE = "AndroidKeyStore";
     // redux-persist anahtarını şifrelemek/çözmek için kullanılacak Keystore anahtarının alias'ı
@@ -50,9 +75,202 @@ public class SecureStoragePlugin extends Plugin {
     private static final String PADDING = KeyProperties.ENCRYPTION_PADDING_NONE; // GCM padding gerektirmez
     private static final int GCM_TAG_LENGTH = 128; // bit cinsinden, 16 byte
     private static final int GCM_IV_LENGTH = 12; // byte cinsinden
+    private static final String TRANSFORMATION = AES_MODE + "/" + BLOCK_MODE + "/" + PADDING;
+
+    // Envelope modu: veri Keystore anahtarıyla sarılmış (wrapped) bir veri anahtarıyla yazılımda şifrelenir
+    static final String MODE_ENVELOPE = "envelope";
+    static final String MODE_KEYSTORE = "keystore";
+    // Eski format (IV + ciphertext) düz Base64'tür; ':' içermediği için önek iki formatı ayırır
+    static final String ENVELOPE_PREFIX = "v2:";
+    private static final String PREFS_NAME = "EkstreSecureStorage";
+    private static final String WRAPPED_DATA_KEY_PREF = "wrappedDataKey";
+    // Keystore anahtarı kalıcı olarak geçersizleşti: sarılmış anahtar bir daha açılamaz, yalnızca resetDataKey
+    private static final String DATA_KEY_LOST_PREF = "wrappedDataKeyLost";
+    static final String ERROR_DATA_KEY_UNAVAILABLE = "DATA_KEY_UNAVAILABLE";
+    static final String ERROR_DATA_KEY_LOST = "DATA_KEY_LOST";
+
+    // Keystore anahtarı bir kez çözülür; sonraki çağrılar keystore daemon'a Binder IPC yapmaz
+    private static volatile SecretKey cachedSecretKey;
+    // Cipher thread-safe değil; provider araması thread başına bir kez yapılır, her çağrıda yalnızca init edilir
+    private static final ThreadLocal<Cipher> CIPHERS = new ThreadLocal<>();
+    // Sarılmış veri anahtarı süreç başına bir kez açılır ve yalnızca bellekte tutulur
+    private static volatile EnvelopeCrypto envelope;
+    private static SharedPreferences envelopePrefs;
+
+    private static final OpTiming KEY_LOADS = new OpTiming();
+    private static final AtomicLong KEY_CACHE_HITS = new AtomicLong();
+    private static final OpTiming ENCRYPTS = new OpTiming();
+    private static final OpTiming DECRYPTS = new OpTiming();
+    private static final OpTiming DATA_KEY_LOADS = new OpTiming();
+    private static final OpTiming ENVELOPE_ENCRYPTS = new OpTiming();
+    private static final OpTiming ENVELOPE_DECRYPTS = new OpTiming();
+    private static final OpTiming FILE_ENCRYPTS = new OpTiming();
+    private static final OpTiming FILE_DECRYPTS = new OpTiming();
+
+    // Dosya şifreleme uzun sürebilir; plugin thread'ini bloklamasın
+    private final ExecutorService fileExecutor = Executors.newSingleThreadExecutor();
+    // String şifreleme kısa sürer ama ilk çağrı Keystore warm-up'ını bekleyebilir
+    private final ExecutorService stringExecutor = Executors.newSingleThreadExecutor();
+
+    // Store'a tüm erişim bu thread'den; sıkıştırma da aynı kuyrukta arka planda çalışır
+    private final ExecutorService kvExecutor = Executors.newSingleThreadExecutor();
+    private final ConcurrentLinkedQueue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private EncryptedKvStore kvStore;
+    private long kvWriteCalls;
+
+    /** Returns the cached key handle, loading (or generating) it from the Keystore on first use. */
+    @RequiresApi(api = Build.VERSION_CODES.M)
+    static SecretKey getOrCreateSecretKey() throws KeyStoreException, CertificateException, IOException, NoSuchAlgorithmException, UnrecoverableEntryException, InvalidAlgorithmParameterException, NoSuchProviderException {
+        SecretKey secretKey = cachedSecretKey;
+        if (secretKey != null) {
+            KEY_CACHE_HITS.incrementAndGet();
+            return secretKey;
+        }
+        synchronized (SecureStoragePlugin.class) {
+            if (cachedSecretKey == null) {
+                long startTime = SystemClock.elapsedRealtimeNanos();
+                cachedSecretKey = loadSecretKey();
+                long elapsed = SystemClock.elapsedRealtimeNanos() - startTime;
+                KEY_LOADS.record(elapsed);
+                Log.d(TAG, "Keystore key loaded in " + TimeUnit.NANOSECONDS.toMicros(elapsed) + " µs");
+            } else {
+                KEY_CACHE_HITS.incrementAndGet();
+            }
+            return cachedSecretKey;
+        }
+    }
+
+    /**
+     * Drops the cached handle and the Keystore entry after a {@link KeyPermanentlyInvalidatedException}
+     * (e.g. the lock screen was removed). Data encrypted with the old key can no longer be read;
+     * the next call generates a fresh key. A stored data key that is not already unwrapped in memory
+     * is marked lost, so later calls report {@value #ERROR_DATA_KEY_LOST} instead of a retryable error.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.M)
+    static synchronized void discardInvalidatedKey(Context context) {
+        cachedSecretKey = null;
+        try {
+            KeyStore keyStore = KeyStore.getInstance(ANDROID_KEYSTORE);
+            keyStore.load(null);
+            keyStore.deleteEntry(ENCRYPTOR_KEY_ALIAS);
+        } catch (KeyStoreException | CertificateException | IOException | NoSuchAlgorithmException e) {
+            Log.w(TAG, "Could not delete invalidated Keystore key", e);
+        }
+        // Veri anahtarı bellekteyse yeni Keystore anahtarıyla yeniden sar; envelope verisi kaybolmasın
+        if (envelope != null && envelopePrefs != null) {
+            try {
+                storeWrappedDataKey(envelopePrefs, envelope.dataKey());
+            } catch (GeneralSecurityException | IOException e) {
+                Log.w(TAG, "Could not re-wrap data key with the new Keystore key", e);
+            }
+        } else {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            if (prefs.contains(WRAPPED_DATA_KEY_PREF)) {
+                // Yeni Keystore anahtarıyla açma denemesi de başarısız olur; kaybı kalıcı olarak işaretle
+                prefs.edit().putBoolean(DATA_KEY_LOST_PREF, true).commit();
+            }
+        }
+    }
+
+    /**
+     * Returns the envelope cipher, unwrapping the stored data key with the Keystore key on first use
+     * (or generating and storing one when none exists yet).
+     *
+     * @throws DataKeyUnavailableException when a stored data key cannot be unwrapped. The stored key
+     *         is never replaced here; only {@link #resetDataKey} does that, since every v2 value
+     *         written with it would become unreadable.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.M)
+    static EnvelopeCrypto getEnvelope(Context context) throws GeneralSecurityException, IOException {
+        EnvelopeCrypto current = envelope;
+        if (current != null) {
+            return current;
+        }
+        synchronized (SecureStoragePlugin.class) {
+            if (envelope == null) {
+                long startTime = SystemClock.elapsedRealtimeNanos();
+                SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                String wrapped = prefs.getString(WRAPPED_DATA_KEY_PREF, null);
+                SecretKey dataKey;
+                if (wrapped != null) {
+                    dataKey = unwrapStoredDataKey(context, prefs, wrapped);
+                } else {
+                    dataKey = EnvelopeCrypto.newDataKey();
+                    storeWrappedDataKey(prefs, dataKey);
+                }
+                envelopePrefs = prefs;
+                envelope = new EnvelopeCrypto(dataKey);
+                long elapsed = SystemClock.elapsedRealtimeNanos() - startTime;
+                DATA_KEY_LOADS.record(elapsed);
+                Log.d(TAG, "Envelope data key ready in " + TimeUnit.NANOSECONDS.toMicros(elapsed) + " µs");
+            }
+            return envelope;
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.M)
+    private static SecretKey unwrapStoredDataKey(Context context, SharedPreferences prefs, String wrapped) throws GeneralSecurityException, IOException {
+        if (prefs.getBoolean(DATA_KEY_LOST_PREF, false)) {
+            throw new DataKeyUnavailableException("Envelope data key was lost when the Keystore key was invalidated", true, null);
+        }
+        try {
+            return EnvelopeCrypto.dataKeyFromBytes(unwrapDataKey(Base64.decode(wrapped, Base64.NO_WRAP)));
+        } catch (KeyPermanentlyInvalidatedException e) {
+            Log.e(TAG, "Keystore key permanently invalidated, envelope data is unrecoverable", e);
+            discardInvalidatedKey(context);
+            throw new DataKeyUnavailableException("Envelope data key was lost when the Keystore key was invalidated", true, e);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            // Geçici bir Keystore hatası da olabilir; anahtar değiştirilmez, sonraki çağrı yeniden dener
+            Log.e(TAG, "Could not unwrap the envelope data key", e);
+            throw new DataKeyUnavailableException("Could not unwrap the envelope data key: " + e.getMessage(), false, e);
+        }
+    }
+
+    /**
+     * Replaces the stored data key with a new one. Every value encrypted in envelope mode, the
+     * encrypted files and the secure store written with the old key become unreadable.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.M)
+    static synchronized void resetDataKey(Context context) throws GeneralSecurityException, IOException {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        SecretKey dataKey = EnvelopeCrypto.newDataKey();
+        storeWrappedDataKey(prefs, dataKey);
+        if (!prefs.edit().remove(DATA_KEY_LOST_PREF).commit()) {
+            throw new IOException("Could not clear the lost data key marker");
+        }
+        envelopePrefs = prefs;
+        envelope = new EnvelopeCrypto(dataKey);
+        Log.w(TAG, "Envelope data key replaced on request");
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.M)
+    private static void storeWrappedDataKey(SharedPreferences prefs, SecretKey dataKey) throws GeneralSecurityException, IOException {
+        Cipher cipher = cipher();
+        cipher.init(Cipher.ENCRYPT_MODE, getOrCreateSecretKey());
+        byte[] wrappedKey = cipher.doFinal(dataKey.getEncoded());
+        byte[] iv = cipher.getIV();
+        byte[] ivAndWrappedKey = new byte[iv.length + wrappedKey.length];
+        System.arraycopy(iv, 0, ivAndWrappedKey, 0, iv.length);
+        System.arraycopy(wrappedKey, 0, ivAndWrappedKey, iv.length, wrappedKey.length);
+        // commit: anahtar diske yazılmadan onunla veri şifrelenmesin
+        if (!prefs.edit().putString(WRAPPED_DATA_KEY_PREF, Base64.encodeToString(ivAndWrappedKey, Base64.NO_WRAP)).commit()) {
+            throw new IOException("Could not store wrapped data key");
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.M)
+    private static byte[] unwrapDataKey(byte[] ivAndWrappedKey) throws GeneralSecurityException, IOException {
+        if (ivAndWrappedKey.length <= GCM_IV_LENGTH) {
+            throw new GeneralSecurityException("Invalid wrapped data key");
+        }
+        Cipher cipher = cipher();
+        cipher.init(Cipher.DECRYPT_MODE, getOrCreateSecretKey(),
+                new GCMParameterSpec(GCM_TAG_LENGTH, ivAndWrappedKey, 0, GCM_IV_LENGTH));
+        return cipher.doFinal(ivAndWrappedKey, GCM_IV_LENGTH, ivAndWrappedKey.length - GCM_IV_LENGTH);
+    }
 
     @RequiresApi(api = Build.VERSION_CODES.M)
-    private SecretKey getOrCreateSecretKey() throws KeyStoreException, CertificateException, IOException, NoSuchAlgorithmException, UnrecoverableEntryException, InvalidAlgorithmParameterException, NoSuchProviderException {
+    private static SecretKey loadSecretKey() throws KeyStoreException, CertificateException, IOException, NoSuchAlgorithmException, UnrecoverableEntryException, InvalidAlgorithmParameterException, NoSuchProviderException {
         KeyStore keyStore = KeyStore.getInstance(ANDROID_KEYSTORE);
         keyStore.load(null);
 
@@ -75,7 +293,7 @@ public class SecureStoragePlugin extends Plugin {
     }
 
     @RequiresApi(api = Build.VERSION_CODES.M)
-    private void generateSecretKey(String alias) throws NoSuchProviderException, NoSuchAlgorithmException, InvalidAlgorithmParameterException {
+    private static void generateSecretKey(String alias) throws NoSuchProviderException, NoSuchAlgorithmException, InvalidAlgorithmParameterException {
         KeyGenerator keyGenerator = KeyGenerator.getInstance(AES_MODE, ANDROID_KEYSTORE);
         KeyGenParameterSpec spec = new KeyGenParameterSpec.Builder(
                 alias,
@@ -90,20 +308,453 @@ public class SecureStoragePlugin extends Plugin {
         Log.d(TAG, "AES-256 GCM key generated for internal encryption/decryption with alias: " + alias);
     }
 
+    private static Cipher cipher() throws NoSuchAlgorithmException, NoSuchPaddingException {
+        Cipher cipher = CIPHERS.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(TRANSFORMATION);
+            CIPHERS.set(cipher);
+        }
+        return cipher;
+    }
+
+    @Override
+    public void load() {
+        super.load();
+        NativeMetrics.registerSection("crypto", SecureStoragePlugin::cryptoMetrics);
+        NativeMetrics.registerSection("secureStore", this::openStoreMetrics);
+    }
+
+    /** Call counts and durations of key loads, encryptions and decryptions since process start. */
+    @PluginMethod
+    public void getCryptoMetrics(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        NativeMetrics.resolve(call, cryptoMetrics());
+    }
+
+    private static JSObject cryptoMetrics() {
+        JSObject ret = new JSObject();
+        ret.put("keyLoad", KEY_LOADS.toJSObject());
+        ret.put("keyCacheHits", KEY_CACHE_HITS.get());
+        ret.put("encrypt", ENCRYPTS.toJSObject());
+        ret.put("decrypt", DECRYPTS.toJSObject());
+        ret.put("dataKeyLoad", DATA_KEY_LOADS.toJSObject());
+        ret.put("envelopeEncrypt", ENVELOPE_ENCRYPTS.toJSObject());
+        ret.put("envelopeDecrypt", ENVELOPE_DECRYPTS.toJSObject());
+        ret.put("fileEncrypt", FILE_ENCRYPTS.toJSObject());
+        ret.put("fileDecrypt", FILE_DECRYPTS.toJSObject());
+        return ret;
+    }
+
+    /**
+     * Explicitly replaces an envelope data key that can no longer be unwrapped (error code
+     * {@value #ERROR_DATA_KEY_LOST}). Existing envelope data becomes permanently unreadable, so the
+     * caller must already have given it up.
+     */
+    @PluginMethod
+    public void resetDataKey(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            NativeMetrics.reject(call, "Encryption requires Android M (API 23) or higher.");
+            return;
+        }
+        // Store erişimiyle aynı kuyrukta: açık bir store eski anahtarla yazmaya devam etmesin
+        kvExecutor.execute(() -> {
+            NativeMetrics.started(call);
+            if (kvStore != null) {
+                NativeMetrics.reject(call, "Secure store is open with the current data key.");
+                return;
+            }
+            try {
+                resetDataKey(getContext());
+                NativeMetrics.resolve(call);
+            } catch (GeneralSecurityException | IOException e) {
+                ErrorUtils.handleGenericException(call, e, "Could not reset data key", TAG);
+            }
+        });
+    }
+
+    /**
+     * Encrypts a file in app storage chunk by chunk with the envelope data key; memory use does not
+     * depend on the file size. See {@link StreamingCrypto} for the format.
+     */
+    @PluginMethod
+    public void encryptFile(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        runFileCrypto(call, true);
+    }
+
+    /** Decrypts a file written by {@link #encryptFile}; rejects with CORRUPTED_CHUNK and the chunk index on tampering. */
+    @PluginMethod
+    public void decryptFile(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        runFileCrypto(call, false);
+    }
+
+    private void runFileCrypto(PluginCall call, boolean encrypt) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            NativeMetrics.reject(call, "File encryption requires Android M (API 23) or higher.");
+            return;
+        }
+        String inputPath = call.getString("inputPath");
+        String outputPath = call.getString("outputPath");
+        int chunkSize = call.getInt("chunkSize", StreamingCrypto.DEFAULT_CHUNK_SIZE);
+        if (inputPath == null || outputPath == null) {
+            NativeMetrics.reject(call, "Missing 'inputPath' or 'outputPath'.");
+            return;
+        }
+        if (chunkSize < StreamingCrypto.MIN_CHUNK_SIZE || chunkSize > StreamingCrypto.MAX_CHUNK_SIZE) {
+            NativeMetrics.reject(call, "chunkSize must be between " + StreamingCrypto.MIN_CHUNK_SIZE + " and " + StreamingCrypto.MAX_CHUNK_SIZE);
+            return;
+        }
+        fileExecutor.execute(() -> {
+            NativeMetrics.started(call);
+            EngineWarmup.awaitKeystore();
+            long startTime = SystemClock.elapsedRealtimeNanos();
+            File temp = null;
+            try {
+                File input = AppStorage.resolve(getContext(), inputPath);
+                File output = AppStorage.resolve(getContext(), outputPath);
+                if (input.equals(output)) {
+                    NativeMetrics.reject(call, "inputPath and outputPath must differ.");
+                    return;
+                }
+                StreamingCrypto crypto = new StreamingCrypto(getEnvelope(getContext()).dataKey());
+                // Yarım kalan çıktı hedef dosyanın yerine geçmesin
+                temp = new File(output.getParentFile(), output.getName() + ".tmp");
+                StreamingCrypto.Stats stats;
+                try (InputStream in = new BufferedInputStream(new FileInputStream(input), chunkSize);
+                     OutputStream out = new BufferedOutputStream(new FileOutputStream(temp), chunkSize)) {
+                    stats = encrypt ? crypto.encrypt(in, out, chunkSize) : crypto.decrypt(in, out);
+                }
+                if (!temp.renameTo(output)) {
+                    throw new IOException("Could not move output into place: " + output);
+                }
+                temp = null;
+                long elapsed = SystemClock.elapsedRealtimeNanos() - startTime;
+                (encrypt ? FILE_ENCRYPTS : FILE_DECRYPTS).record(elapsed);
+                Log.d(TAG, (encrypt ? "Encrypted " : "Decrypted ") + stats.plaintextBytes + " bytes in " + stats.chunks
+                        + " chunks, " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+                JSObject ret = new JSObject();
+                ret.put("plaintextBytes", stats.plaintextBytes);
+                ret.put("chunks", stats.chunks);
+                ret.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsed));
+                NativeMetrics.resolve(call, ret);
+            } catch (StreamingCrypto.CorruptChunkException e) {
+                Log.e(TAG, "Encrypted file is corrupted at chunk " + e.chunkIndex, e);
+                JSObject data = new JSObject();
+                data.put("chunkIndex", e.chunkIndex);
+                NativeMetrics.reject(call, "Decryption failed: chunk " + e.chunkIndex + " is corrupted", "CORRUPTED_CHUNK", e, data);
+            } catch (DataKeyUnavailableException e) {
+                Log.e(TAG, "Envelope data key unavailable", e);
+                NativeMetrics.reject(call, (encrypt ? "File encryption failed: " : "File decryption failed: ") + e.getMessage(), e.code(), e);
+            } catch (IOException e) {
+                ErrorUtils.handleIOException(call, e, encrypt ? "File encryption failed" : "File decryption failed", TAG);
+            } catch (GeneralSecurityException e) {
+                ErrorUtils.handleGenericException(call, e, encrypt ? "File encryption failed" : "File decryption failed", TAG);
+            } finally {
+                if (temp != null && temp.exists() && !temp.delete()) {
+                    Log.w(TAG, "Could not delete partial output: " + temp);
+                }
+            }
+        });
+    }
+
+    /** Encrypted key-value store: value of {@code key}, or null. */
+    @PluginMethod
+    public void get(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        String key = call.getString("key");
+        if (!isValidKey(key)) {
+            NativeMetrics.reject(call, "Missing or invalid 'key'.");
+            return;
+        }
+        kvExecutor.execute(() -> {
+            NativeMetrics.started(call);
+            try {
+                String value = store().get(key);
+                JSObject ret = new JSObject();
+                ret.put("value", value != null ? value : JSONObject.NULL);
+                NativeMetrics.resolve(call, ret);
+            } catch (IOException e) {
+                ErrorUtils.handleIOException(call, e, "Store read failed", TAG);
+            } catch (GeneralSecurityException e) {
+                ErrorUtils.handleGenericException(call, e, "Store read failed", TAG);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void put(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        String key = call.getString("key");
+        String value = call.getString("value");
+        if (!isValidKey(key) || value == null) {
+            NativeMetrics.reject(call, "Missing or invalid 'key' or 'value'.");
+            return;
+        }
+        submitWrite(call, Collections.singletonList(EncryptedKvStore.Op.put(key, value)));
+    }
+
+    @PluginMethod
+    public void delete(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        String key = call.getString("key");
+        if (!isValidKey(key)) {
+            NativeMetrics.reject(call, "Missing or invalid 'key'.");
+            return;
+        }
+        submitWrite(call, Collections.singletonList(EncryptedKvStore.Op.delete(key)));
+    }
+
+    /** Applies puts and deletes atomically: after a crash either all of them are visible or none. */
+    @PluginMethod
+    public void batch(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        JSArray opsArray = call.getArray("ops");
+        if (opsArray == null) {
+            NativeMetrics.reject(call, "Missing 'ops' array.");
+            return;
+        }
+        List<EncryptedKvStore.Op> ops = new ArrayList<>();
+        try {
+            for (int i = 0; i < opsArray.length(); i++) {
+                JSONObject op = opsArray.getJSONObject(i);
+                String type = op.getString("type");
+                String key = op.getString("key");
+                if (!isValidKey(key)) {
+                    NativeMetrics.reject(call, "Invalid key in ops[" + i + "].");
+                    return;
+                }
+                if ("put".equals(type)) {
+                    ops.add(EncryptedKvStore.Op.put(key, op.getString("value")));
+                } else if ("delete".equals(type)) {
+                    ops.add(EncryptedKvStore.Op.delete(key));
+                } else {
+                    NativeMetrics.reject(call, "Unknown op type in ops[" + i + "]: " + type);
+                    return;
+                }
+            }
+        } catch (JSONException e) {
+            NativeMetrics.reject(call, "Invalid 'ops': " + e.getMessage(), e);
+            return;
+        }
+        submitWrite(call, ops);
+    }
+
+    /** Cold-start replay time, write amplification, fsync batching and compaction counters. */
+    @PluginMethod
+    public void getStoreMetrics(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        kvExecutor.execute(() -> {
+            NativeMetrics.started(call);
+            try {
+                NativeMetrics.resolve(call, storeMetrics(store()));
+            } catch (IOException e) {
+                ErrorUtils.handleIOException(call, e, "Could not open store", TAG);
+            } catch (GeneralSecurityException e) {
+                ErrorUtils.handleGenericException(call, e, "Could not open store", TAG);
+            }
+        });
+    }
+
+    /** Called on {@link #kvExecutor} only. */
+    private JSObject storeMetrics(EncryptedKvStore store) {
+        EncryptedKvStore.Metrics metrics = store.metrics();
+        JSObject ret = new JSObject();
+        ret.put("openMicros", metrics.openMicros());
+        ret.put("recordsReplayed", metrics.recordsReplayed());
+        ret.put("truncatedBytes", metrics.truncatedBytes());
+        ret.put("keys", store.size());
+        ret.put("fileBytes", store.fileBytes());
+        ret.put("logicalBytesWritten", metrics.logicalBytesWritten());
+        ret.put("physicalBytesWritten", metrics.physicalBytesWritten());
+        ret.put("writeAmplification", metrics.writeAmplification());
+        ret.put("writeCalls", kvWriteCalls);
+        ret.put("fsyncs", metrics.fsyncs());
+        ret.put("compactions", metrics.compactions());
+        ret.put("compactionMicros", metrics.compactionMicros());
+        ret.put("gets", metrics.gets());
+        ret.put("avgGetMicros", metrics.gets() == 0 ? 0 : metrics.getMicros() / metrics.gets());
+        return ret;
+    }
+
+    /** Metrics section: store counters without opening the store just to report them. */
+    private JSObject openStoreMetrics() throws Exception {
+        return kvExecutor.submit(() -> kvStore != null ? storeMetrics(kvStore) : null).get(1, TimeUnit.SECONDS);
+    }
+
+    private void submitWrite(PluginCall call, List<EncryptedKvStore.Op> ops) {
+        pendingWrites.add(new PendingWrite(call, ops));
+        kvExecutor.execute(this::drainWrites);
+    }
+
+    /**
+     * Group commit: every write queued by the time this runs goes into one log record with one
+     * fsync. Later drain tasks find the queue empty and return.
+     */
+    private void drainWrites() {
+        List<PendingWrite> group = new ArrayList<>();
+        List<EncryptedKvStore.Op> ops = new ArrayList<>();
+        PendingWrite write;
+        while ((write = pendingWrites.poll()) != null) {
+            NativeMetrics.started(write.call);
+            group.add(write);
+            ops.addAll(write.ops);
+        }
+        if (group.isEmpty()) {
+            return;
+        }
+        kvWriteCalls += group.size();
+        try {
+            EncryptedKvStore store = store();
+            store.apply(ops);
+            for (PendingWrite done : group) {
+                NativeMetrics.resolve(done.call);
+            }
+            if (store.needsCompaction()) {
+                kvExecutor.execute(this::compactStore);
+            }
+        } catch (IOException e) {
+            for (PendingWrite failed : group) {
+                ErrorUtils.handleIOException(failed.call, e, "Store write failed", TAG);
+            }
+        } catch (Exception e) {
+            // GeneralSecurityException ya da toplu commit'ten beklenmeyen bir hata: gruptaki hiçbir çağrı askıda kalmasın
+            for (PendingWrite failed : group) {
+                ErrorUtils.handleGenericException(failed.call, e, "Store write failed", TAG);
+            }
+        }
+    }
+
+    private void compactStore() {
+        try {
+            EncryptedKvStore store = store();
+            if (store.needsCompaction()) {
+                long before = store.fileBytes();
+                store.compact();
+                Log.d(TAG, "Compacted secure store: " + before + " -> " + store.fileBytes() + " bytes");
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            Log.w(TAG, "Secure store compaction failed", e);
+        }
+    }
+
+    /** Called on {@link #kvExecutor} only. */
+    private EncryptedKvStore store() throws IOException, GeneralSecurityException {
+        if (kvStore == null) {
+            EngineWarmup.awaitKeystore();
+            kvStore = EncryptedKvStore.open(AppStorage.privateDir(getContext(), AppStorage.SECURE_KV_DIR), getEnvelope(getContext()));
+            EncryptedKvStore.Metrics metrics = kvStore.metrics();
+            Log.d(TAG, "Secure store opened in " + metrics.openMicros() + " µs: " + kvStore.size() + " keys, "
+                    + metrics.recordsReplayed() + " records" + (metrics.truncatedBytes() > 0
+                    ? ", dropped " + metrics.truncatedBytes() + " bytes of a torn write" : ""));
+        }
+        return kvStore;
+    }
+
+    private static boolean isValidKey(String key) {
+        return key != null && !key.isEmpty() && key.getBytes(StandardCharsets.UTF_8).length <= 0xFFFF;
+    }
+
+    private static final class PendingWrite {
+        final PluginCall call;
+        final List<EncryptedKvStore.Op> ops;
+
+        PendingWrite(PluginCall call, List<EncryptedKvStore.Op> ops) {
+            this.call = call;
+            this.ops = ops;
+        }
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        super.handleOnDestroy();
+        fileExecutor.shutdownNow();
+        stringExecutor.shutdownNow();
+        kvExecutor.execute(() -> {
+            if (kvStore != null) {
+                try {
+                    kvStore.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not close secure store", e);
+                }
+            }
+        });
+        // Bekleyen yazmalar tamamlansın diye shutdownNow değil
+        kvExecutor.shutdown();
+    }
+
+    private void encryptWithEnvelope(PluginCall call, String dataToEncrypt) {
+        long startTime = SystemClock.elapsedRealtimeNanos();
+        try {
+            byte[] sealed = getEnvelope(getContext()).encrypt(dataToEncrypt.getBytes(StandardCharsets.UTF_8));
+            JSObject ret = new JSObject();
+            ret.put("encryptedData", ENVELOPE_PREFIX + Base64.encodeToString(sealed, Base64.NO_WRAP));
+            NativeMetrics.resolve(call, ret);
+            ENVELOPE_ENCRYPTS.record(SystemClock.elapsedRealtimeNanos() - startTime);
+        } catch (DataKeyUnavailableException e) {
+            Log.e(TAG, "Envelope data key unavailable", e);
+            NativeMetrics.reject(call, "Encryption failed: " + e.getMessage(), e.code(), e);
+        } catch (GeneralSecurityException | IOException e) {
+            Log.e(TAG, "Error encrypting string (envelope)", e);
+            NativeMetrics.reject(call, "Encryption failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void decryptWithEnvelope(PluginCall call, String encryptedData) {
+        long startTime = SystemClock.elapsedRealtimeNanos();
+        try {
+            byte[] sealed = Base64.decode(encryptedData.substring(ENVELOPE_PREFIX.length()), Base64.NO_WRAP);
+            byte[] decryptedBytes = getEnvelope(getContext()).decrypt(sealed);
+            JSObject ret = new JSObject();
+            ret.put("decryptedData", new String(decryptedBytes, StandardCharsets.UTF_8));
+            NativeMetrics.resolve(call, ret);
+            ENVELOPE_DECRYPTS.record(SystemClock.elapsedRealtimeNanos() - startTime);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Base64 decoding failed", e);
+            NativeMetrics.reject(call, "Invalid Base64 data: " + e.getMessage(), e);
+        } catch (DataKeyUnavailableException e) {
+            Log.e(TAG, "Envelope data key unavailable", e);
+            NativeMetrics.reject(call, "Decryption failed: " + e.getMessage(), e.code(), e);
+        } catch (GeneralSecurityException | IOException e) {
+            Log.e(TAG, "Error decrypting string (envelope)", e);
+            NativeMetrics.reject(call, "Decryption failed: " + e.getMessage(), e);
+        }
+    }
+
     @PluginMethod
     public void encryptString(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
-             call.reject("Encryption requires Android M (API 23) or higher.");
+             NativeMetrics.reject(call, "Encryption requires Android M (API 23) or higher.");
              return;
         }
         String dataToEncrypt = call.getString("data");
         if (dataToEncrypt == null || dataToEncrypt.isEmpty()) {
-            call.reject("Missing 'data' string to encrypt.");
+            NativeMetrics.reject(call, "Missing 'data' string to encrypt.");
+            return;
+        }
+        String mode = call.getString("mode", MODE_ENVELOPE);
+        if (!MODE_ENVELOPE.equals(mode) && !MODE_KEYSTORE.equals(mode)) {
+            NativeMetrics.reject(call, "Unknown encryption mode '" + mode + "'; use 'envelope' or 'keystore'.", "INVALID_MODE");
             return;
         }
+        // Soğuk açılışta Keystore warm-up'ı beklenebilir; bridge thread'i bloklanmasın
+        stringExecutor.execute(() -> {
+            NativeMetrics.started(call);
+            EngineWarmup.awaitKeystore();
+            encryptStringOnExecutor(call, dataToEncrypt, mode);
+        });
+    }
+
+    private void encryptStringOnExecutor(PluginCall call, String dataToEncrypt, String mode) {
+        if (!MODE_KEYSTORE.equals(mode)) {
+            encryptWithEnvelope(call, dataToEncrypt);
+            return;
+        }
+        long startTime = SystemClock.elapsedRealtimeNanos();
         try {
-            SecretKey secretKey = getOrCreateSecretKey();
-            Cipher cipher = Cipher.getInstance(AES_MODE + "/" + BLOCK_MODE + "/" + PADDING);
+            Cipher cipher = cipher();
 
             // IV'yi biz oluşturmuyoruz, Keystore'a bırakıyoruz.
             // byte[] iv = new byte[GCM_IV_LENGTH];
@@ -112,7 +763,14 @@ public class SecureStoragePlugin extends Plugin {
             // GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
 
             // Cipher'ı IV parametresi olmadan başlatıyoruz.
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, getOrCreateSecretKey());
+            } catch (KeyPermanentlyInvalidatedException e) {
+                // Eski anahtarla şifrelenmiş veri zaten okunamaz; yeni anahtarla bir kez daha dene
+                Log.w(TAG, "Keystore key permanently invalidated, generating a new one", e);
+                discardInvalidatedKey(getContext());
+                cipher.init(Cipher.ENCRYPT_MODE, getOrCreateSecretKey());
+            }
 
             byte[] encryptedBytes = cipher.doFinal(dataToEncrypt.getBytes(StandardCharsets.UTF_8));
 
@@ -121,7 +779,7 @@ public class SecureStoragePlugin extends Plugin {
             if (iv == null) {
                  // Bu durumun olmaması gerekir ama güvenlik için kontrol edelim.
                  Log.e(TAG, "Cipher did not generate an IV after encryption.");
-                 call.reject("Encryption failed: IV was not generated.");
+                 NativeMetrics.reject(call, "Encryption failed: IV was not generated.");
                  return;
             }
             // IV uzunluğunu kontrol edelim (GCM için genellikle 12 byte)
@@ -140,8 +798,10 @@ public class SecureStoragePlugin extends Plugin {
 
             JSObject ret = new JSObject();
             ret.put("encryptedData", encryptedBase64);
-            call.resolve(ret);
-            Log.d(TAG, "String encrypted successfully (Keystore IV).");
+            NativeMetrics.resolve(call, ret);
+            long elapsed = SystemClock.elapsedRealtimeNanos() - startTime;
+            ENCRYPTS.record(elapsed);
+            Log.d(TAG, "String encrypted successfully (Keystore IV) in " + TimeUnit.NANOSECONDS.toMicros(elapsed) + " µs.");
 
         } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
                  InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException |
@@ -150,28 +810,43 @@ public class SecureStoragePlugin extends Plugin {
             // InvalidAlgorithmParameterException artık burada yakalanmamalı (IV hatası için)
             // ama diğer nedenlerle gelebilir.
             Log.e(TAG, "Error encrypting string", e);
-            call.reject("Encryption failed: " + e.getMessage(), e);
+            NativeMetrics.reject(call, "Encryption failed: " + e.getMessage(), e);
         } catch (Exception e) {
             Log.e(TAG, "Unexpected error during encryption", e);
-            call.reject("Unexpected encryption error: " + e.getMessage(), e);
+            NativeMetrics.reject(call, "Unexpected encryption error: " + e.getMessage(), e);
         }
     }
 
     @PluginMethod
     public void decryptString(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
-            call.reject("Decryption requires Android M (API 23) or higher.");
+            NativeMetrics.reject(call, "Decryption requires Android M (API 23) or higher.");
             return;
         }
         String encryptedBase64 = call.getString("encryptedData");
         if (encryptedBase64 == null || encryptedBase64.isEmpty()) {
-            call.reject("Missing 'encryptedData' string to decrypt.");
+            NativeMetrics.reject(call, "Missing 'encryptedData' string to decrypt.");
             return;
         }
+        stringExecutor.execute(() -> {
+            NativeMetrics.started(call);
+            EngineWarmup.awaitKeystore();
+            decryptStringOnExecutor(call, encryptedBase64);
+        });
+    }
+
+    private void decryptStringOnExecutor(PluginCall call, String encryptedBase64) {
+        // Envelope öneki yoksa eski format: doğrudan Keystore anahtarıyla şifrelenmiş
+        if (encryptedBase64.startsWith(ENVELOPE_PREFIX)) {
+            decryptWithEnvelope(call, encryptedBase64);
+            return;
+        }
+        long startTime = SystemClock.elapsedRealtimeNanos();
         try {
             byte[] ivAndEncryptedBytes = Base64.decode(encryptedBase64, Base64.NO_WRAP);
             if (ivAndEncryptedBytes.length <= GCM_IV_LENGTH) {
-                 call.reject("Invalid encrypted data format (too short).");
+                 NativeMetrics.reject(call, "Invalid encrypted data format (too short).");
                  return;
             }
             byte[] iv = new byte[GCM_IV_LENGTH];
@@ -179,29 +854,75 @@ public class SecureStoragePlugin extends Plugin {
             System.arraycopy(ivAndEncryptedBytes, 0, iv, 0, iv.length);
             System.arraycopy(ivAndEncryptedBytes, iv.length, encryptedBytes, 0, encryptedBytes.length);
 
-            SecretKey secretKey = getOrCreateSecretKey();
-            Cipher cipher = Cipher.getInstance(AES_MODE + "/" + BLOCK_MODE + "/" + PADDING);
+            Cipher cipher = cipher();
             GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
             // Decrypt için IV vermek zorunlu ve doğrudur.
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
+            cipher.init(Cipher.DECRYPT_MODE, getOrCreateSecretKey(), parameterSpec);
             byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
             String decryptedString = new String(decryptedBytes, StandardCharsets.UTF_8);
             JSObject ret = new JSObject();
             ret.put("decryptedData", decryptedString);
-            call.resolve(ret);
-            Log.d(TAG, "String decrypted successfully.");
+            NativeMetrics.resolve(call, ret);
+            long elapsed = SystemClock.elapsedRealtimeNanos() - startTime;
+            DECRYPTS.record(elapsed);
+            Log.d(TAG, "String decrypted successfully in " + TimeUnit.NANOSECONDS.toMicros(elapsed) + " µs.");
+        } catch (KeyPermanentlyInvalidatedException e) {
+            Log.e(TAG, "Keystore key permanently invalidated, encrypted data is unrecoverable", e);
+            discardInvalidatedKey(getContext());
+            NativeMetrics.reject(call, "Decryption failed: key permanently invalidated", e);
         } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
                  InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException |
                  KeyStoreException | CertificateException | IOException | UnrecoverableEntryException |
                  NoSuchProviderException e) {
             Log.e(TAG, "Error decrypting string", e);
-            call.reject("Decryption failed: " + e.getMessage(), e);
+            NativeMetrics.reject(call, "Decryption failed: " + e.getMessage(), e);
          } catch (IllegalArgumentException e) {
              Log.e(TAG, "Base64 decoding failed", e);
-             call.reject("Invalid Base64 data: " + e.getMessage(), e);
+             NativeMetrics.reject(call, "Invalid Base64 data: " + e.getMessage(), e);
          } catch (Exception e) {
             Log.e(TAG, "Unexpected error during decryption", e);
-            call.reject("Unexpected decryption error: " + e.getMessage(), e);
+            NativeMetrics.reject(call, "Unexpected decryption error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The stored data key could not be unwrapped. {@code lost} means it never will be (the Keystore
+     * key was invalidated); otherwise the failure may be transient and the next call retries.
+     */
+    static final class DataKeyUnavailableException extends GeneralSecurityException {
+        private static final long serialVersionUID = 1L;
+
+        final boolean lost;
+
+        DataKeyUnavailableException(String message, boolean lost, Throwable cause) {
+            super(message, cause);
+            this.lost = lost;
+        }
+
+        String code() {
+            return lost ? ERROR_DATA_KEY_LOST : ERROR_DATA_KEY_UNAVAILABLE;
+        }
+    }
+
+    /** Count, total and max duration of one crypto operation. */
+    private static final class OpTiming {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        synchronized void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        synchronized JSObject toJSObject() {
+            JSObject timing = new JSObject();
+            timing.put("count", count);
+            timing.put("totalMicros", TimeUnit.NANOSECONDS.toMicros(totalNanos));
+            timing.put("avgMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos / count));
+            timing.put("maxMicros", TimeUnit.NANOSECONDS.toMicros(maxNanos));
+            return timing;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,299 @@
+package com.codeyzer.ekstre;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Declarative statement field extraction. Each bank's rules (field, value type, patterns in
+ * priority order) are compiled once into a single alternation, so one scan over the text finds
+ * every field; the scan ends as soon as each field has matched its first-priority pattern.
+ *
+ * Rule sets are JSON, see assets/statement-rules.json. Patterns run case-insensitively against
+ * {@link StatementText} output, so they are written against the visible text, not the markup.
+ */
+public final class StatementFieldEngine {
+
+    public static final String TYPE_AMOUNT = "amount";
+    public static final String TYPE_DATE = "date";
+    public static final String TYPE_LAST4 = "last4";
+    public static final String TYPE_TEXT = "text";
+
+    // Tek alternation içinde grup numaraları kaydığı için geri referanslar ve isimli gruplar desteklenmez
+    private static final Pattern UNSUPPORTED_SYNTAX = Pattern.compile("\\\\[1-9]|\\\\k<|\\(\\?<[a-zA-Z]");
+
+    private final Map<String, BankRules> banks;
+
+    private StatementFieldEngine(Map<String, BankRules> banks) {
+        this.banks = banks;
+    }
+
+    /**
+     * Parses and compiles a rule set.
+     *
+     * @throws IllegalArgumentException when the JSON is malformed or a rule is invalid
+     */
+    public static StatementFieldEngine fromJson(Reader json) {
+        JsonObject root;
+        try {
+            root = JsonParser.parseReader(json).getAsJsonObject();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid rule set JSON: " + e.getMessage(), e);
+        }
+        Map<String, BankRules> banks = new LinkedHashMap<>();
+        for (JsonElement bankElement : requireArray(root, "banks")) {
+            BankRules bank = BankRules.compile(requireObject(bankElement, "banks[]"));
+            banks.put(bank.id, bank);
+        }
+        return new StatementFieldEngine(banks);
+    }
+
+    public List<String> bankIds() {
+        return Collections.unmodifiableList(new ArrayList<>(banks.keySet()));
+    }
+
+    public boolean hasBank(String bankId) {
+        return banks.containsKey(bankId);
+    }
+
+    /**
+     * Extracts the bank's fields from already normalized text ({@link StatementText}).
+     *
+     * @throws IllegalArgumentException for an unknown bank id
+     */
+    public Result extract(String bankId, String text) {
+        BankRules bank = banks.get(bankId);
+        if (bank == null) {
+            throw new IllegalArgumentException("Unknown bank: " + bankId);
+        }
+        return bank.extract(text);
+    }
+
+    /** Typed field values: Double for amounts, ISO "yyyy-MM-dd" for dates, String otherwise. */
+    public static final class Result {
+        public final String bankId;
+        public final String bankName;
+        public final Map<String, Object> fields = new LinkedHashMap<>();
+        public final List<String> missingFields = new ArrayList<>();
+        /** Characters the scan covered before every field had its best match. */
+        public int scannedChars;
+
+        Result(String bankId, String bankName) {
+            this.bankId = bankId;
+            this.bankName = bankName;
+        }
+    }
+
+    private static final class Rule {
+        final int fieldIndex;
+        final int priority;
+        final int wrapperGroup;
+        final int valueGroup;
+
+        Rule(int fieldIndex, int priority, int wrapperGroup, int valueGroup) {
+            this.fieldIndex = fieldIndex;
+            this.priority = priority;
+            this.wrapperGroup = wrapperGroup;
+            this.valueGroup = valueGroup;
+        }
+    }
+
+    private static final class Field {
+        final String name;
+        final String type;
+        final String amountFormat;
+
+        Field(String name, String type, String amountFormat) {
+            this.name = name;
+            this.type = type;
+            this.amountFormat = amountFormat;
+        }
+
+        Object normalize(String raw) {
+            switch (type) {
+                case TYPE_AMOUNT:
+                    return StatementValues.parseAmount(raw, amountFormat);
+                case TYPE_DATE:
+                    return StatementValues.parseDate(raw);
+                case TYPE_LAST4:
+                    return StatementValues.lastFourDigits(raw);
+                default:
+                    String trimmed = raw != null ? raw.trim() : "";
+                    return trimmed.isEmpty() ? null : trimmed;
+            }
+        }
+    }
+
+    private static final class BankRules {
+        final String id;
+        final String bankName;
+        final List<Field> fields;
+        final List<Rule> rules;
+        final Pattern combined;
+
+        private BankRules(String id, String bankName, List<Field> fields, List<Rule> rules, Pattern combined) {
+            this.id = id;
+            this.bankName = bankName;
+            this.fields = fields;
+            this.rules = rules;
+            this.combined = combined;
+        }
+
+        static BankRules compile(JsonObject bank) {
+            String id = requireString(bank, "id");
+            String bankName = optionalString(bank, "bankName", id);
+            List<Field> fields = new ArrayList<>();
+            List<Rule> rules = new ArrayList<>();
+            StringBuilder combined = new StringBuilder();
+            int groupCount = 0;
+
+            for (JsonElement fieldElement : requireArray(bank, "fields")) {
+                JsonObject fieldObject = requireObject(fieldElement, id + ".fields[]");
+                String type = optionalString(fieldObject, "type", TYPE_TEXT);
+                if (!TYPE_AMOUNT.equals(type) && !TYPE_DATE.equals(type) && !TYPE_LAST4.equals(type) && !TYPE_TEXT.equals(type)) {
+                    throw new IllegalArgumentException(id + ": unknown field type " + type);
+                }
+                String amountFormat = optionalString(fieldObject, "amountFormat", StatementValues.AMOUNT_TR);
+                Field field = new Field(requireString(fieldObject, "field"), type, amountFormat);
+                fields.add(field);
+
+                JsonArray patterns = requireArray(fieldObject, "patterns");
+                for (int priority = 0; priority < patterns.size(); priority++) {
+                    JsonElement patternElement = patterns.get(priority);
+                    String regex;
+                    int group = 1;
+                    if (patternElement.isJsonObject()) {
+                        JsonObject patternObject = patternElement.getAsJsonObject();
+                        regex = requireString(patternObject, "pattern");
+                        if (patternObject.has("group")) {
+                            group = requireInt(patternObject, "group");
+                        }
+                    } else if (isString(patternElement)) {
+                        regex = patternElement.getAsString();
+                    } else {
+                        throw new IllegalArgumentException(id + "." + field.name + ": pattern must be a string or an object");
+                    }
+                    if (UNSUPPORTED_SYNTAX.matcher(regex).find()) {
+                        throw new IllegalArgumentException(id + "." + field.name + ": back references and named groups are not supported: " + regex);
+                    }
+                    int ownGroups = Pattern.compile(regex).matcher("").groupCount();
+                    if (group < 0 || group > ownGroups) {
+                        throw new IllegalArgumentException(id + "." + field.name + ": pattern has no group " + group + ": " + regex);
+                    }
+                    int wrapperGroup = groupCount + 1;
+                    rules.add(new Rule(fields.size() - 1, priority, wrapperGroup, wrapperGroup + group));
+                    groupCount += 1 + ownGroups;
+                    if (combined.length() > 0) {
+                        combined.append('|');
+                    }
+                    combined.append('(').append(regex).append(')');
+                }
+            }
+            if (rules.isEmpty()) {
+                throw new IllegalArgumentException(id + ": no patterns");
+            }
+            Pattern pattern = Pattern.compile(combined.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            return new BankRules(id, bankName, fields, rules, pattern);
+        }
+
+        Result extract(String text) {
+            Result result = new Result(id, bankName);
+            Object[] values = new Object[fields.size()];
+            int[] bestPriority = new int[fields.size()];
+            Arrays.fill(bestPriority, Integer.MAX_VALUE);
+            int unresolved = fields.size();
+
+            Matcher matcher = combined.matcher(text);
+            int from = 0;
+            while (unresolved > 0 && from <= text.length() && matcher.find(from)) {
+                Rule rule = matchedRule(matcher);
+                if (rule.priority < bestPriority[rule.fieldIndex]) {
+                    Object value = fields.get(rule.fieldIndex).normalize(matcher.group(rule.valueGroup));
+                    if (value != null) {
+                        values[rule.fieldIndex] = value;
+                        bestPriority[rule.fieldIndex] = rule.priority;
+                        if (rule.priority == 0) {
+                            unresolved--;
+                        }
+                    }
+                }
+                // Eşleşmenin içinde başlayan başka bir alanın eşleşmesi kaçmasın
+                from = matcher.start() + 1;
+            }
+            result.scannedChars = unresolved > 0 ? text.length() : Math.min(from, text.length());
+
+            for (int i = 0; i < fields.size(); i++) {
+                if (values[i] != null) {
+                    result.fields.put(fields.get(i).name, values[i]);
+                } else {
+                    result.missingFields.add(fields.get(i).name);
+                }
+            }
+            return result;
+        }
+
+        private Rule matchedRule(Matcher matcher) {
+            for (Rule rule : rules) {
+                if (matcher.start(rule.wrapperGroup) >= 0) {
+                    return rule;
+                }
+            }
+            throw new IllegalStateException("Match without a rule");
+        }
+    }
+
+    private static JsonArray requireArray(JsonObject object, String key) {
+        if (!object.has(key) || !object.get(key).isJsonArray()) {
+            throw new IllegalArgumentException("Missing array '" + key + "'");
+        }
+        return object.getAsJsonArray(key);
+    }
+
+    private static JsonObject requireObject(JsonElement element, String what) {
+        if (element == null || !element.isJsonObject()) {
+            throw new IllegalArgumentException("Expected an object for " + what);
+        }
+        return element.getAsJsonObject();
+    }
+
+    private static String requireString(JsonObject object, String key) {
+        if (!object.has(key) || !isString(object.get(key))) {
+            throw new IllegalArgumentException("Missing string '" + key + "'");
+        }
+        return object.get(key).getAsString();
+    }
+
+    private static String optionalString(JsonObject object, String key, String fallback) {
+        if (!object.has(key) || object.get(key).isJsonNull()) {
+            return fallback;
+        }
+        if (!isString(object.get(key))) {
+            throw new IllegalArgumentException("Expected a string for '" + key + "'");
+        }
+        return object.get(key).getAsString();
+    }
+
+    private static int requireInt(JsonObject object, String key) {
+        JsonElement element = object.get(key);
+        if (element == null || !element.isJsonPrimitive() || !element.getAsJsonPrimitive().isNumber()) {
+            throw new IllegalArgumentException("Expected a number for '" + key + "'");
+        }
+        return element.getAsInt();
+    }
+
+    // Sayı ve boolean da kabul edilir (getAsString bunları metne çevirir); dizi, nesne ve null kabul edilmez
+    private static boolean isString(JsonElement element) {
+        return element != null && element.isJsonPrimitive();
+    }
+}
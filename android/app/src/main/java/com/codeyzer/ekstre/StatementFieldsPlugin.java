@@ -0,0 +1,133 @@
+package com.codeyzer.ekstre;
+
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Extracts statement fields (total debt, minimum payment, due date, last four digits) natively
+ * from email HTML, PDF text or OCR text using the declarative bank rules in
+ * assets/statement-rules.json. See {@link StatementFieldEngine}.
+ */
+@CapacitorPlugin(name = StatementFieldsPlugin.NAME)
+public class StatementFieldsPlugin extends Plugin {
+
+    static final String NAME = "StatementFields";
+    private static final String TAG = "StatementFieldsPlugin";
+    private static final String RULES_ASSET = "statement-rules.json";
+    static final String FORMAT_HTML = "html";
+    static final String FORMAT_TEXT = "text";
+
+    // Kurallar bu thread'de bir kez derlenir; çıkarma da bridge thread'ini bloklamaz
+    private final ExecutorService rulesExecutor = Executors.newSingleThreadExecutor();
+    private StatementFieldEngine engine;
+
+    @PluginMethod
+    public void extractFields(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        String bankId = call.getString("bankId");
+        String text = call.getString("text");
+        String format = call.getString("format", FORMAT_TEXT);
+
+        if (bankId == null || bankId.isEmpty() || text == null) {
+            NativeMetrics.resolve(call, new JSObject().put("error", "Missing bankId or text"));
+            return;
+        }
+        if (!FORMAT_HTML.equals(format) && !FORMAT_TEXT.equals(format)) {
+            NativeMetrics.resolve(call, new JSObject().put("error", "Unknown format: " + format));
+            return;
+        }
+
+        rulesExecutor.execute(() -> {
+            NativeMetrics.started(call);
+            try {
+                StatementFieldEngine rules = getEngine();
+                if (!rules.hasBank(bankId)) {
+                    NativeMetrics.resolve(call, new JSObject().put("error", "No rules for bank: " + bankId));
+                    return;
+                }
+                long startTime = System.nanoTime();
+                String normalized = FORMAT_HTML.equals(format) ? StatementText.fromHtml(text) : StatementText.fromPlainText(text);
+                StatementFieldEngine.Result result = rules.extract(bankId, normalized);
+                long elapsedMicros = (System.nanoTime() - startTime) / 1000;
+                Log.d(TAG, "[" + bankId + "] Extracted " + result.fields.size() + " fields from " + text.length()
+                        + " chars (" + format + ") in " + elapsedMicros + " µs, scanned " + result.scannedChars
+                        + "/" + normalized.length() + " chars");
+                NativeMetrics.resolve(call, toJSObject(result, elapsedMicros));
+            } catch (Exception e) {
+                Log.e(TAG, "Field extraction failed: " + e.getMessage(), e);
+                NativeMetrics.resolve(call, new JSObject().put("error", "Field extraction failed: " + e.getMessage()));
+            }
+        });
+    }
+
+    /** Replaces the bundled rules, e.g. with a newer rule set fetched by JS. */
+    @PluginMethod
+    public void loadRules(PluginCall call) {
+        NativeMetrics.begin(NAME, call);
+        JSObject rules = call.getObject("rules");
+        if (rules == null) {
+            NativeMetrics.reject(call, "Missing 'rules' object.");
+            return;
+        }
+        String json = rules.toString();
+        rulesExecutor.execute(() -> {
+            NativeMetrics.started(call);
+            try {
+                engine = StatementFieldEngine.fromJson(new StringReader(json));
+                Log.d(TAG, "Loaded rules for banks: " + engine.bankIds());
+                NativeMetrics.resolve(call, new JSObject().put("banks", new JSArray(engine.bankIds())));
+            } catch (RuntimeException e) {
+                // fromJson geçersiz kurallar için IllegalArgumentException atar; beklenmeyen bir hata da çağrıyı askıda bırakmasın
+                ErrorUtils.handleGenericException(call, e, "Invalid statement rules", TAG);
+            }
+        });
+    }
+
+    /** Called on {@link #rulesExecutor} only. */
+    private StatementFieldEngine getEngine() throws IOException {
+        if (engine == null) {
+            long startTime = System.currentTimeMillis();
+            try (Reader reader = new InputStreamReader(getContext().getAssets().open(RULES_ASSET), StandardCharsets.UTF_8)) {
+                engine = StatementFieldEngine.fromJson(reader);
+            }
+            Log.d(TAG, "Compiled bundled rules for " + engine.bankIds().size() + " banks in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        }
+        return engine;
+    }
+
+    private static JSObject toJSObject(StatementFieldEngine.Result result, long elapsedMicros) {
+        JSObject fields = new JSObject();
+        for (Map.Entry<String, Object> field : result.fields.entrySet()) {
+            fields.put(field.getKey(), field.getValue());
+        }
+        JSObject ret = new JSObject();
+        ret.put("bankId", result.bankId);
+        ret.put("bankName", result.bankName);
+        ret.put("fields", fields);
+        ret.put("missingFields", new JSArray(result.missingFields));
+        ret.put("elapsedMicros", elapsedMicros);
+        return ret;
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        super.handleOnDestroy();
+        rulesExecutor.shutdownNow();
+    }
+}
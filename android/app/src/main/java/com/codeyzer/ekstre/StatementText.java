@@ -0,0 +1,185 @@
+package com.codeyzer.ekstre;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns statement sources (email HTML, PDF or OCR text) into the normalized visible text that
+ * statement rules are written against: tags dropped, entities decoded, runs of spaces collapsed
+ * to one and line breaks kept where rows and blocks end.
+ */
+public final class StatementText {
+
+    private static final Map<String, Character> ENTITIES = new HashMap<>();
+
+    static {
+        ENTITIES.put("nbsp", ' ');
+        ENTITIES.put("amp", '&');
+        ENTITIES.put("lt", '<');
+        ENTITIES.put("gt", '>');
+        ENTITIES.put("quot", '"');
+        ENTITIES.put("apos", '\'');
+        ENTITIES.put("rsquo", '’');
+        ENTITIES.put("lsquo", '‘');
+        ENTITIES.put("ndash", '–');
+    }
+
+    // Entity adı ';' dahil en fazla bu kadar karakter olabilir
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    private StatementText() {
+    }
+
+    /** Visible text of an HTML document, in a single scan. */
+    public static String fromHtml(String html) {
+        Builder out = new Builder(html.length() / 2);
+        int length = html.length();
+        int i = 0;
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                int end = html.indexOf('>', i + 1);
+                if (end < 0) {
+                    break;
+                }
+                String tag = tagName(html, i + 1, end);
+                if (tag.equals("script") || tag.equals("style") || tag.equals("head")) {
+                    int close = indexOfIgnoreCase(html, "</" + tag, end + 1);
+                    end = close < 0 ? length - 1 : Math.max(end, html.indexOf('>', close));
+                    if (end < 0) {
+                        break;
+                    }
+                    out.space();
+                } else if (isBlockTag(tag)) {
+                    out.newline();
+                } else {
+                    out.space();
+                }
+                i = end + 1;
+            } else if (c == '&') {
+                int semicolon = html.indexOf(';', i + 1);
+                Character decoded = semicolon > 0 && semicolon - i <= MAX_ENTITY_LENGTH
+                        ? decodeEntity(html.substring(i + 1, semicolon)) : null;
+                if (decoded != null) {
+                    out.append(decoded);
+                    i = semicolon + 1;
+                } else {
+                    out.append(c);
+                    i++;
+                }
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /** PDF or OCR text: only whitespace is normalized, exactly as {@link #fromHtml} does. */
+    public static String fromPlainText(String text) {
+        Builder out = new Builder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            out.append(text.charAt(i));
+        }
+        return out.toString();
+    }
+
+    private static String tagName(String html, int start, int end) {
+        int i = start;
+        if (i < end && html.charAt(i) == '/') {
+            i++;
+        }
+        int nameStart = i;
+        while (i < end && Character.isLetterOrDigit(html.charAt(i))) {
+            i++;
+        }
+        return html.substring(nameStart, i).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlockTag(String tag) {
+        switch (tag) {
+            case "br":
+            case "p":
+            case "div":
+            case "tr":
+            case "li":
+            case "table":
+            case "h1":
+            case "h2":
+            case "h3":
+            case "h4":
+            case "h5":
+            case "h6":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Character decodeEntity(String name) {
+        if (name.startsWith("#")) {
+            try {
+                int codePoint = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X')
+                        ? Integer.parseInt(name.substring(2), 16)
+                        : Integer.parseInt(name.substring(1));
+                return Character.isBmpCodePoint(codePoint) ? (char) codePoint : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ENTITIES.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    private static int indexOfIgnoreCase(String text, String needle, int from) {
+        for (int i = from; i <= text.length() - needle.length(); i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Collapses whitespace on the fly: a pending line break wins over a pending space. */
+    private static final class Builder {
+        private final StringBuilder text;
+        private boolean pendingSpace;
+        private boolean pendingNewline;
+
+        Builder(int capacity) {
+            text = new StringBuilder(capacity);
+        }
+
+        void append(char c) {
+            if (c == '\n') {
+                newline();
+            } else if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                space();
+            } else {
+                if (text.length() > 0) {
+                    if (pendingNewline) {
+                        text.append('\n');
+                    } else if (pendingSpace) {
+                        text.append(' ');
+                    }
+                }
+                pendingNewline = false;
+                pendingSpace = false;
+                text.append(c);
+            }
+        }
+
+        void space() {
+            pendingSpace = true;
+        }
+
+        void newline() {
+            pendingNewline = true;
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.codeyzer.ekstre;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Locale-aware normalization of the raw strings statement rules capture: Turkish and English
+ * amounts, numeric and Turkish month-name dates, card number digits.
+ * Mirrors the helpers in src/utils/parsing.ts so native and JS parsers agree.
+ */
+public final class StatementValues {
+
+    public static final String AMOUNT_TR = "tr";
+    public static final String AMOUNT_EN = "en";
+    public static final String AMOUNT_AUTO = "auto";
+
+    private static final Locale TURKISH = new Locale("tr", "TR");
+    private static final Map<String, Integer> MONTHS = new HashMap<>();
+    private static final Pattern NUMERIC_DATE = Pattern.compile("(\\d{1,2})[./-](\\d{1,2})[./-](\\d{4})");
+    private static final Pattern MONTH_NAME_DATE = Pattern.compile("(\\d{1,2})\\s+(\\p{L}+)\\s+(\\d{4})");
+
+    static {
+        String[][] months = {
+                {"ocak"}, {"şubat", "subat"}, {"mart"}, {"nisan"}, {"mayıs", "mayis"}, {"haziran"},
+                {"temmuz"}, {"ağustos", "agustos"}, {"eylül", "eylul"}, {"ekim"}, {"kasım", "kasim"}, {"aralık", "aralik"}
+        };
+        for (int i = 0; i < months.length; i++) {
+            for (String name : months[i]) {
+                MONTHS.put(name, i + 1);
+            }
+        }
+    }
+
+    private StatementValues() {
+    }
+
+    /**
+     * Parses an amount such as "+1.234,56", "1,119.55" or "250.00". {@code format} "tr" reads dots
+     * as thousands separators, "en" commas; "auto" takes the last separator as the decimal one,
+     * and a lone dot only when exactly two digits follow it (the QNB rule).
+     * Returns null when the string holds no number.
+     */
+    public static Double parseAmount(String raw, String format) {
+        if (raw == null) {
+            return null;
+        }
+        StringBuilder cleaned = new StringBuilder(raw.length());
+        boolean negative = false;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if ((c >= '0' && c <= '9') || c == '.' || c == ',') {
+                cleaned.append(c);
+            } else if ((c == '-' || c == '−') && cleaned.length() == 0) {
+                negative = true;
+            }
+        }
+        String number = cleaned.toString();
+        if (number.isEmpty()) {
+            return null;
+        }
+
+        char decimalSeparator = decimalSeparator(number, format != null ? format : AMOUNT_TR);
+        StringBuilder plain = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c == decimalSeparator) {
+                plain.append('.');
+            } else if (c != '.' && c != ',') {
+                plain.append(c);
+            }
+        }
+        try {
+            double value = new BigDecimal(plain.toString()).doubleValue();
+            return negative ? -value : value;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static char decimalSeparator(String number, String format) {
+        if (AMOUNT_EN.equals(format)) {
+            return '.';
+        }
+        if (!AMOUNT_AUTO.equals(format)) {
+            return ',';
+        }
+        int lastDot = number.lastIndexOf('.');
+        int lastComma = number.lastIndexOf(',');
+        if (lastDot >= 0 && lastComma >= 0) {
+            return lastDot > lastComma ? '.' : ',';
+        }
+        if (lastComma >= 0) {
+            return ',';
+        }
+        if (lastDot >= 0 && lastDot == number.indexOf('.') && number.length() - lastDot - 1 == 2) {
+            return '.';
+        }
+        // Yalnızca binlik ayırıcı olarak nokta (1.000) ya da hiç ayırıcı yok
+        return ',';
+    }
+
+    /**
+     * Parses "dd.MM.yyyy", "dd/MM/yyyy" or "25 Mayıs 2024" into an ISO "yyyy-MM-dd" string,
+     * or null when it is not a real calendar date.
+     */
+    public static String parseDate(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        Matcher numeric = NUMERIC_DATE.matcher(raw);
+        if (numeric.find()) {
+            return isoDate(Integer.parseInt(numeric.group(3)), Integer.parseInt(numeric.group(2)),
+                    Integer.parseInt(numeric.group(1)));
+        }
+        Matcher named = MONTH_NAME_DATE.matcher(raw);
+        if (named.find()) {
+            Integer month = MONTHS.get(named.group(2).toLowerCase(TURKISH));
+            if (month != null) {
+                return isoDate(Integer.parseInt(named.group(3)), month, Integer.parseInt(named.group(1)));
+            }
+        }
+        return null;
+    }
+
+    /** Last four digits of a (masked) card number, or null when fewer than four digits remain. */
+    public static String lastFourDigits(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.length() >= 4 ? digits.substring(digits.length() - 4) : null;
+    }
+
+    private static String isoDate(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return null;
+        }
+        return String.format(Locale.ROOT, "%04d-%02d-%02d", year, month, day);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
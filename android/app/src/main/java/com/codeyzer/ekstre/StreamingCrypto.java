@@ -0,0 +1,244 @@
+package com.codeyzer.ekstre;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Chunked AES-GCM for payloads too large to hold in memory. Memory use is two chunks, whatever
+ * the stream length.
+ *
+ * Layout: a header ({@code magic | version | chunk size | salt | nonce prefix}) followed by chunks
+ * of {@code ciphertext + tag}. Every stream gets its own key, derived from the master key and the
+ * salt. A chunk's nonce is {@code nonce prefix | chunk index | last flag} and the header is its
+ * associated data, so reordered, dropped or truncated chunks fail authentication. Each chunk
+ * authenticates on its own, so a corrupted chunk is reported by index as soon as it is reached,
+ * and {@link #decryptChunk} can check any single chunk without reading the rest.
+ */
+public final class StreamingCrypto {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    public static final int MIN_CHUNK_SIZE = 1024;
+    public static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final byte[] MAGIC = {'E', 'K', 'S', 'C'};
+    private static final int VERSION = 1;
+    private static final int SALT_LENGTH = 16;
+    private static final int NONCE_PREFIX_LENGTH = 7;
+    private static final int TAG_LENGTH = 16;
+    static final int HEADER_LENGTH = MAGIC.length + 1 + 4 + SALT_LENGTH + NONCE_PREFIX_LENGTH;
+    private static final byte[] KEY_INFO = "ekstre-stream-v1".getBytes(StandardCharsets.US_ASCII);
+
+    private final SecretKey masterKey;
+    private final SecureRandom random = new SecureRandom();
+
+    public StreamingCrypto(SecretKey masterKey) {
+        this.masterKey = masterKey;
+    }
+
+    /** Reported when a chunk fails authentication; earlier chunks were valid. */
+    public static final class CorruptChunkException extends GeneralSecurityException {
+        private static final long serialVersionUID = 1L;
+
+        public final long chunkIndex;
+
+        CorruptChunkException(long chunkIndex, Throwable cause) {
+            super("Chunk " + chunkIndex + " failed authentication", cause);
+            this.chunkIndex = chunkIndex;
+        }
+    }
+
+    public static final class Stats {
+        public final long plaintextBytes;
+        public final long chunks;
+
+        Stats(long plaintextBytes, long chunks) {
+            this.plaintextBytes = plaintextBytes;
+            this.chunks = chunks;
+        }
+    }
+
+    public Stats encrypt(InputStream in, OutputStream out, int chunkSize) throws IOException, GeneralSecurityException {
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between " + MIN_CHUNK_SIZE + " and " + MAX_CHUNK_SIZE);
+        }
+        byte[] header = new byte[HEADER_LENGTH];
+        ByteBuffer.wrap(header).put(MAGIC).put((byte) VERSION).putInt(chunkSize);
+        byte[] saltAndPrefix = new byte[SALT_LENGTH + NONCE_PREFIX_LENGTH];
+        random.nextBytes(saltAndPrefix);
+        System.arraycopy(saltAndPrefix, 0, header, MAGIC.length + 5, saltAndPrefix.length);
+        out.write(header);
+
+        Stream stream = new Stream(header);
+        byte[] current = new byte[chunkSize];
+        byte[] next = new byte[chunkSize];
+        byte[] sealed = new byte[chunkSize + TAG_LENGTH];
+        int currentLength = readFully(in, current);
+        long total = 0;
+        long index = 0;
+        while (true) {
+            // Son parçayı bilmek için bir parça ileri okunur
+            int nextLength = currentLength == chunkSize ? readFully(in, next) : 0;
+            boolean last = nextLength == 0;
+            int sealedLength = stream.seal(index, last, current, currentLength, sealed);
+            out.write(sealed, 0, sealedLength);
+            total += currentLength;
+            index++;
+            if (last) {
+                break;
+            }
+            byte[] swap = current;
+            current = next;
+            next = swap;
+            currentLength = nextLength;
+        }
+        return new Stats(total, index);
+    }
+
+    /**
+     * Decrypts the whole stream into {@code out}. Chunks are written as they verify, so on a
+     * {@link CorruptChunkException} the caller must discard the partial output.
+     */
+    public Stats decrypt(InputStream in, OutputStream out) throws IOException, GeneralSecurityException {
+        byte[] header = new byte[HEADER_LENGTH];
+        if (readFully(in, header) != HEADER_LENGTH) {
+            throw new GeneralSecurityException("Encrypted stream is shorter than its header");
+        }
+        Stream stream = new Stream(header);
+        int segmentLength = stream.chunkSize + TAG_LENGTH;
+        byte[] current = new byte[segmentLength];
+        byte[] next = new byte[segmentLength];
+        byte[] plain = new byte[stream.chunkSize];
+        int currentLength = readFully(in, current);
+        long total = 0;
+        long index = 0;
+        while (true) {
+            int nextLength = currentLength == segmentLength ? readFully(in, next) : 0;
+            boolean last = nextLength == 0;
+            int plainLength = stream.open(index, last, current, currentLength, plain);
+            out.write(plain, 0, plainLength);
+            total += plainLength;
+            index++;
+            if (last) {
+                break;
+            }
+            byte[] swap = current;
+            current = next;
+            next = swap;
+            currentLength = nextLength;
+        }
+        return new Stats(total, index);
+    }
+
+    /** Decrypts one chunk of an encrypted file without touching the others. */
+    public byte[] decryptChunk(FileChannel channel, long index) throws IOException, GeneralSecurityException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        readFully(channel, header, 0);
+        Stream stream = new Stream(header.array());
+        int segmentLength = stream.chunkSize + TAG_LENGTH;
+        long offset = HEADER_LENGTH + index * segmentLength;
+        if (index < 0 || offset >= channel.size()) {
+            throw new IllegalArgumentException("No chunk " + index);
+        }
+        ByteBuffer segment = ByteBuffer.allocate((int) Math.min(segmentLength, channel.size() - offset));
+        readFully(channel, segment, offset);
+        boolean last = offset + segment.capacity() == channel.size();
+        byte[] plain = new byte[stream.chunkSize];
+        int plainLength = stream.open(index, last, segment.array(), segment.capacity(), plain);
+        return Arrays.copyOf(plain, plainLength);
+    }
+
+    /** Per-stream key and nonce state derived from a header. */
+    private final class Stream {
+        final int chunkSize;
+        private final byte[] header;
+        private final SecretKey key;
+        private final byte[] nonce = new byte[12];
+        private final Cipher cipher;
+
+        Stream(byte[] header) throws GeneralSecurityException {
+            ByteBuffer buffer = ByteBuffer.wrap(header);
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            int version = buffer.get();
+            chunkSize = buffer.getInt();
+            if (!Arrays.equals(magic, MAGIC) || version != VERSION || chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+                throw new GeneralSecurityException("Not an encrypted stream of version " + VERSION);
+            }
+            byte[] salt = new byte[SALT_LENGTH];
+            buffer.get(salt);
+            buffer.get(nonce, 0, NONCE_PREFIX_LENGTH);
+            this.header = header;
+            this.key = deriveKey(salt);
+            this.cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        }
+
+        int seal(long index, boolean last, byte[] plain, int length, byte[] sealed) throws GeneralSecurityException {
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce(index, last)));
+            cipher.updateAAD(header);
+            return cipher.doFinal(plain, 0, length, sealed, 0);
+        }
+
+        int open(long index, boolean last, byte[] sealed, int length, byte[] plain) throws GeneralSecurityException {
+            if (length < TAG_LENGTH) {
+                throw new CorruptChunkException(index, null);
+            }
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce(index, last)));
+                cipher.updateAAD(header);
+                return cipher.doFinal(sealed, 0, length, plain, 0);
+            } catch (GeneralSecurityException e) {
+                throw new CorruptChunkException(index, e);
+            }
+        }
+
+        private byte[] nonce(long index, boolean last) {
+            if (index > 0xFFFFFFFFL) {
+                throw new IllegalStateException("Stream has too many chunks");
+            }
+            ByteBuffer.wrap(nonce, NONCE_PREFIX_LENGTH, 5).putInt((int) index).put((byte) (last ? 1 : 0));
+            return nonce.clone();
+        }
+
+        private SecretKey deriveKey(byte[] salt) throws GeneralSecurityException {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(masterKey.getEncoded(), "HmacSHA256"));
+            mac.update(KEY_INFO);
+            return new SecretKeySpec(mac.doFinal(salt), "AES");
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of encrypted file");
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.JSObject;
+import com.google.api.services.gmail.Gmail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class AttachmentPrefetcherTest {
+
+    private static final String ACCOUNT = "kisisel@gmail.com";
+    // FakeGoogleApiServer: messages 0 and 4 carry PDFs, from Garanti BBVA and QNB
+    private static final String GARANTI = "m00000000";
+    private static final String QNB = "m00000004";
+
+    private final ExecutorService lane = Executors.newSingleThreadExecutor();
+    private final CircuitBreaker breaker = new CircuitBreaker("gmail", () -> true);
+    private FakeGoogleApiServer server;
+    private Gmail gmail;
+
+    @Before
+    public void setUp() throws Exception {
+        server = FakeGoogleApiServer.start(config -> {
+            config.messages = 8;
+            config.attachmentEvery = 4;
+            config.attachmentBytes = 8 * 1024;
+            config.latencyMillis = 20;
+        });
+        gmail = server.gmail();
+    }
+
+    @After
+    public void tearDown() {
+        lane.shutdownNow();
+        server.close();
+    }
+
+    private void drainLane() throws Exception {
+        lane.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void configuredSenderAttachmentIsServedFromMemory() throws Exception {
+        AttachmentPrefetcher prefetcher = new AttachmentPrefetcher(lane, breaker);
+        prefetcher.configure(true, Collections.singletonList("EKSTRE@garanti-bbva.com.tr"), AttachmentPrefetcher.DEFAULT_MAX_BYTES);
+
+        prefetcher.offer(ACCOUNT, gmail, GoogleGmailHandler.messageDetails(gmail, GARANTI));
+        prefetcher.offer(ACCOUNT, gmail, GoogleGmailHandler.messageDetails(gmail, QNB)); // not a configured sender
+        drainLane();
+        assertEquals("two details and one prefetch", 3, server.requests.get());
+
+        JSObject attachment = prefetcher.take(ACCOUNT, GARANTI, "att-0");
+        assertNotNull(attachment);
+        assertEquals(8 * 1024, attachment.getInteger("size").intValue());
+        assertNotNull(prefetcher.take("Kisisel@Gmail.com", GARANTI, "att-0"));
+        assertNull(prefetcher.take(ACCOUNT, QNB, "att-4"));
+        assertEquals("hits did not touch the network", 3, server.requests.get());
+
+        JSObject stats = prefetcher.stats();
+        assertEquals(1, stats.getInteger("prefetched").intValue());
+        assertEquals(2, stats.getInteger("hits").intValue());
+        assertEquals(1, stats.getInteger("misses").intValue());
+        assertEquals(stats.getLong("prefetchedBytes"), stats.getLong("usefulBytes"));
+        assertEquals(0L, stats.getLong("wastedBytes"));
+    }
+
+    @Test
+    public void queuedPrefetchIsPromotedToTheCallerThread() throws Exception {
+        // A lane that never gets to the task: take() must run it itself
+        AttachmentPrefetcher prefetcher = new AttachmentPrefetcher(task -> { }, breaker);
+        prefetcher.configure(true, Collections.singletonList("ekstre@garanti-bbva.com.tr"), 0);
+
+        prefetcher.offer(ACCOUNT, gmail, GoogleGmailHandler.messageDetails(gmail, GARANTI));
+        assertNotNull(prefetcher.take(ACCOUNT, GARANTI, "att-0"));
+        assertEquals(2, server.requests.get());
+        assertEquals(1, prefetcher.stats().getInteger("joinedInFlight").intValue());
+    }
+
+    @Test
+    public void unusedAttachmentsDroppedByBudgetOrSignOutCountAsWasted() throws Exception {
+        AttachmentPrefetcher prefetcher = new AttachmentPrefetcher(lane, breaker);
+        // Room for a single base64 body of an 8 KiB attachment
+        prefetcher.configure(true, Arrays.asList("ekstre@garanti-bbva.com.tr", "ekstre@qnb.com.tr"), 12 * 1024);
+
+        prefetcher.offer(ACCOUNT, gmail, GoogleGmailHandler.messageDetails(gmail, GARANTI));
+        drainLane();
+        prefetcher.offer(ACCOUNT, gmail, GoogleGmailHandler.messageDetails(gmail, QNB));
+        drainLane();
+
+        assertNull("evicted for the newer attachment", prefetcher.take(ACCOUNT, GARANTI, "att-0"));
+        assertNotNull(prefetcher.take(ACCOUNT, QNB, "att-4"));
+        JSObject stats = prefetcher.stats();
+        assertEquals(1, stats.getInteger("wasted").intValue());
+        assertTrue(stats.getLong("bytes") <= 12 * 1024);
+
+        prefetcher.clear();
+        stats = prefetcher.stats();
+        assertEquals(0, stats.getInteger("entries").intValue());
+        assertEquals("a used attachment is not waste", 1, stats.getInteger("wasted").intValue());
+    }
+
+    @Test
+    public void memoryPressureEvictionsAreCountedApartFromLru() throws Exception {
+        AttachmentPrefetcher prefetcher = new AttachmentPrefetcher(lane, breaker);
+        prefetcher.configure(true, Collections.singletonList("ekstre@garanti-bbva.com.tr"), AttachmentPrefetcher.DEFAULT_MAX_BYTES);
+        prefetcher.offer(ACCOUNT, gmail, GoogleGmailHandler.messageDetails(gmail, GARANTI));
+        drainLane();
+
+        long size = prefetcher.sizeBytes();
+        assertTrue(size > 0);
+        assertEquals(size, prefetcher.trimTo(0));
+        JSObject stats = prefetcher.stats();
+        assertEquals(size, stats.getLong("pressureEvictedBytes"));
+        assertEquals(0L, stats.getLong("evictedBytes"));
+        assertEquals(0L, prefetcher.lruEvictedBytes());
+        assertNull(prefetcher.take(ACCOUNT, GARANTI, "att-0"));
+    }
+
+    @Test
+    public void nothingIsPrefetchedWhileTheGmailCircuitIsOpen() throws Exception {
+        AttachmentPrefetcher prefetcher = new AttachmentPrefetcher(lane, breaker);
+        prefetcher.configure(true, Collections.singletonList("ekstre@garanti-bbva.com.tr"), AttachmentPrefetcher.DEFAULT_MAX_BYTES);
+        JSObject message = GoogleGmailHandler.messageDetails(gmail, GARANTI);
+        for (int i = 0; i < CircuitBreaker.DEFAULT_FAILURE_THRESHOLD; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.record(new IOException("unreachable"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        prefetcher.offer(ACCOUNT, gmail, message);
+        drainLane();
+        assertNull(prefetcher.take(ACCOUNT, GARANTI, "att-0"));
+        assertEquals("only the message details request", 1, server.requests.get());
+        assertEquals(1, prefetcher.stats().getInteger("circuitSkipped").intValue());
+    }
+
+    @Test
+    public void failedPrefetchCountsTowardsOpeningTheCircuit() throws Exception {
+        AttachmentPrefetcher prefetcher = new AttachmentPrefetcher(lane, breaker);
+        prefetcher.configure(true, Collections.singletonList("ekstre@garanti-bbva.com.tr"), AttachmentPrefetcher.DEFAULT_MAX_BYTES);
+        JSObject message = GoogleGmailHandler.messageDetails(gmail, GARANTI);
+        server.close();
+
+        for (int i = 0; i < CircuitBreaker.DEFAULT_FAILURE_THRESHOLD; i++) {
+            prefetcher.offer(ACCOUNT, gmail, message);
+            drainLane();
+            // The failed entry is dropped, so the next offer downloads again
+            assertNull(prefetcher.take(ACCOUNT, GARANTI, "att-0"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(CircuitBreaker.DEFAULT_FAILURE_THRESHOLD, prefetcher.stats().getInteger("failures").intValue());
+    }
+
+    @Test
+    public void cachedSizeIsCountedInUtf8Bytes() {
+        String text = "{\"data\":\"JVBERi0\",\"not\":\"Dönem borcu 2.001,44 ₺ 💳\"}";
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, AttachmentPrefetcher.utf8Length(text));
+    }
+}
@@ -0,0 +1,158 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.getcapacitor.JSObject;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+public class CalendarWriteQueueTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String ACCOUNT = "kisisel@gmail.com";
+    private static final String OTHER_ACCOUNT = "is@sirket.com.tr";
+
+    private File dir;
+    private EnvelopeCrypto crypto;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = new File(folder.getRoot(), "calendar_queue");
+        crypto = new EnvelopeCrypto(EnvelopeCrypto.newDataKey());
+    }
+
+    private CalendarWriteQueue queue() {
+        return new CalendarWriteQueue(dir, () -> crypto, Runnable::run);
+    }
+
+    private static void enqueueAkbank(CalendarWriteQueue queue) throws Exception {
+        queue.enqueueInsert(ACCOUNT, "Akbank ödeme", "Dönem borcu 2.001,44 TL\n\nakbank-2025-08-01",
+                "2025-08-01T09:00:00+03:00", "2025-08-01T09:30:00+03:00", "Europe/Istanbul");
+    }
+
+    @Test
+    public void persistedWritesAreFlushedInBatches() throws Exception {
+        try (FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> config.messages = 0)) {
+            Calendar calendar = server.calendar();
+            String existing = GoogleCalendarHandler.insertEvent(calendar, "Garanti ödeme", "garanti-2025-08-05",
+                    "2025-08-05T09:00:00+03:00", "2025-08-05T09:30:00+03:00", "Europe/Istanbul").getString("id");
+
+            try (CalendarWriteQueue queue = queue()) {
+                enqueueAkbank(queue);
+                // Same content twice: same client-side event id, so the second insert conflicts
+                enqueueAkbank(queue);
+                queue.enqueueInsert(ACCOUNT, "QNB ödeme", "qnb-2025-08-10",
+                        "2025-08-10T09:00:00+03:00", "2025-08-10T09:30:00+03:00", "Europe/Istanbul");
+                queue.enqueuePatch(ACCOUNT, existing, null, "Ödendi\n\ngaranti-2025-08-05");
+                JSObject queued = queue.enqueuePatch(ACCOUNT, "missing-event", "Yapı Kredi ödeme", null);
+                assertTrue(queued.getBoolean("queued"));
+                assertEquals(5, queued.getInt("pending"));
+            }
+
+            try (CalendarWriteQueue reopened = queue()) {
+                List<JSONObject> pending = reopened.pending("Kisisel@Gmail.com");
+                assertEquals(5, pending.size());
+                assertEquals(CalendarWriteQueue.INSERT, pending.get(0).getString("op"));
+                assertEquals("missing-event", pending.get(4).getString("eventId"));
+
+                JSObject result = GoogleCalendarHandler.flushQueue(calendar, reopened, ACCOUNT);
+                // The repeated insert has the same event id, so it waits for the second batch
+                assertEquals(2, server.batches.get());
+                assertEquals(3, result.getInt("sent"));
+                assertEquals(1, result.getInt("duplicates"));
+                assertEquals(1, result.getInt("failed"));
+                assertEquals(0, result.getInt("remaining"));
+                JSONArray results = result.getJSONArray("results");
+                assertEquals("failed", results.getJSONObject(3).getString("status"));
+                assertEquals("duplicate", results.getJSONObject(4).getString("status"));
+            }
+
+            String akbankId = CalendarWriteQueue.eventIdFor("Akbank ödeme", "Dönem borcu 2.001,44 TL\n\nakbank-2025-08-01",
+                    "2025-08-01T09:00:00+03:00", "2025-08-01T09:30:00+03:00");
+            Event akbank = calendar.events().get("primary", akbankId).execute();
+            assertEquals("Akbank ödeme", akbank.getSummary());
+            Event patched = calendar.events().get("primary", existing).execute();
+            assertEquals("Garanti ödeme", patched.getSummary());
+            assertEquals("Ödendi\n\ngaranti-2025-08-05", patched.getDescription());
+        }
+    }
+
+    @Test
+    public void unreachableServerKeepsEverythingQueued() throws Exception {
+        Calendar calendar;
+        try (FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> config.messages = 0)) {
+            calendar = server.calendar();
+        }
+        try (CalendarWriteQueue queue = queue()) {
+            enqueueAkbank(queue);
+            try {
+                GoogleCalendarHandler.flushQueue(calendar, queue, ACCOUNT);
+                fail("expected the batch request to fail");
+            } catch (IOException e) {
+                assertTrue(GoogleCalendarHandler.neverSent(e));
+                assertTrue(CircuitBreaker.isNetworkFailure(e));
+            }
+            assertEquals(1, queue.size(ACCOUNT));
+        }
+    }
+
+    @Test
+    public void patchOfAQueuedInsertIsSentAfterTheInsert() throws Exception {
+        try (FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> config.messages = 0);
+             CalendarWriteQueue queue = queue()) {
+            String eventId = queue.enqueueInsert(ACCOUNT, "Akbank ödeme", "akbank-2025-08-01",
+                    "2025-08-01T09:00:00+03:00", "2025-08-01T09:30:00+03:00", "Europe/Istanbul").getString("id");
+            queue.enqueuePatch(ACCOUNT, eventId, null, "Ödendi\n\nakbank-2025-08-01");
+            queue.enqueuePatch(ACCOUNT, eventId, "Akbank ödeme (ödendi)", null);
+
+            Calendar calendar = server.calendar();
+            JSObject result = GoogleCalendarHandler.flushQueue(calendar, queue, ACCOUNT);
+            // Batch calls have no guaranteed order: one write per event per batch
+            assertEquals(3, server.batches.get());
+            assertEquals(3, result.getInt("sent"));
+            Event event = calendar.events().get("primary", eventId).execute();
+            assertEquals("Akbank ödeme (ödendi)", event.getSummary());
+            assertEquals("Ödendi\n\nakbank-2025-08-01", event.getDescription());
+        }
+    }
+
+    @Test
+    public void writesAreFlushedOnlyForTheirAccountAndClearedOnSignOut() throws Exception {
+        try (FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> config.messages = 0);
+             CalendarWriteQueue queue = queue()) {
+            enqueueAkbank(queue);
+            JSObject queued = queue.enqueueInsert(OTHER_ACCOUNT, "QNB ödeme", "qnb-2025-08-10",
+                    "2025-08-10T09:00:00+03:00", "2025-08-10T09:30:00+03:00", "Europe/Istanbul");
+            assertEquals("pending counts only the account's own writes", 1, queued.getInt("pending"));
+
+            JSObject result = GoogleCalendarHandler.flushQueue(server.calendar(), queue, OTHER_ACCOUNT);
+            assertEquals(1, result.getInt("sent"));
+            assertEquals(0, result.getInt("remaining"));
+            assertEquals(1, queue.size(ACCOUNT));
+
+            queue.clear();
+            assertEquals(0, queue.size(ACCOUNT));
+            try {
+                queue.enqueuePatch(null, "ekq0", "Akbank ödeme", null);
+                fail("a write without an account must not be queued");
+            } catch (IllegalArgumentException expected) {
+                // beklenen
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final AtomicBoolean online = new AtomicBoolean(true);
+    private final CircuitBreaker breaker = new CircuitBreaker("calendar", 3, 10_000, online::get, now::get);
+
+    private static HttpResponseException status(int code) {
+        return new HttpResponseException.Builder(code, "status " + code, new HttpHeaders()).build();
+    }
+
+    private void fail(Throwable error) {
+        assertTrue(breaker.tryAcquire());
+        breaker.record(error);
+    }
+
+    @Test
+    public void opensAfterConsecutiveNetworkFailuresAndFailsFast() {
+        fail(new SocketTimeoutException("read timed out"));
+        fail(status(503));
+        // A 404 means Google answered; it resets the streak
+        fail(status(404));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        fail(new IOException("connection reset"));
+        fail(status(429));
+        fail(status(500));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.OPEN_CODE, breaker.rejectionCode());
+        assertEquals(10_000, breaker.retryAfterMillis());
+    }
+
+    @Test
+    public void halfOpenLetsOneProbeThroughAndBacksOffWhenItFails() {
+        for (int i = 0; i < 3; i++) {
+            fail(new IOException("unreachable"));
+        }
+        now.addAndGet(10_000);
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertFalse("only one probe while half-open", breaker.tryAcquire());
+
+        breaker.record(new IOException("still unreachable"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(20_000, breaker.retryAfterMillis());
+
+        now.addAndGet(20_000);
+        assertTrue(breaker.tryAcquire());
+        breaker.record(null);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void offlineHintNeverBlocksButTripsOnTheFirstFailure() throws Exception {
+        // Networks that never validate can still reach Google
+        online.set(false);
+        assertTrue(breaker.tryAcquire());
+        breaker.record(null);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        fail(new IOException("unreachable"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.OFFLINE_CODE, breaker.rejectionCode());
+
+        // The half-open probe goes out even though the device still reports no network
+        now.addAndGet(10_000);
+        assertTrue(breaker.tryAcquire());
+        breaker.record(null);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        online.set(true);
+        for (int i = 0; i < 3; i++) {
+            fail(new IOException("unreachable"));
+        }
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.OPEN_CODE, breaker.rejectionCode());
+        breaker.probeNow();
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertEquals(2, breaker.stats().getInt("rejected"));
+        assertEquals(1, breaker.stats().getInt("offlineRejected"));
+    }
+
+    @Test
+    public void listenerHearsOpenWithRetryWindowAndClose() {
+        List<String> changes = new ArrayList<>();
+        breaker.setListener((state, retryAfterMillis) -> changes.add(state + "/" + retryAfterMillis));
+
+        for (int i = 0; i < 3; i++) {
+            fail(status(503));
+        }
+        assertEquals(Collections.singletonList("OPEN/10000"), changes);
+
+        // A failed probe reopens with the window doubled; a successful one closes the circuit once
+        now.addAndGet(10_000);
+        fail(status(429));
+        now.addAndGet(20_000);
+        assertTrue(breaker.tryAcquire());
+        breaker.record(null);
+        breaker.record(null);
+        assertEquals(Arrays.asList("OPEN/10000", "OPEN/20000", "CLOSED/0"), changes);
+    }
+}
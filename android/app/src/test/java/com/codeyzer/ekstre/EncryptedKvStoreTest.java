@@ -0,0 +1,109 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EncryptedKvStoreTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private EnvelopeCrypto crypto;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = folder.newFolder("kv");
+        crypto = new EnvelopeCrypto(EnvelopeCrypto.newDataKey());
+    }
+
+    @Test
+    public void replaysLogOnReopenAndKeepsValuesEncrypted() throws Exception {
+        try (EncryptedKvStore store = EncryptedKvStore.open(dir, crypto)) {
+            store.apply(Collections.singletonList(EncryptedKvStore.Op.put("persist:statements", "{\"items\":[1]}")));
+            store.apply(Arrays.asList(
+                    EncryptedKvStore.Op.put("persist:statements", "{\"items\":[1,2]}"),
+                    EncryptedKvStore.Op.put("persist:settings", "{\"theme\":\"dark\"}"),
+                    EncryptedKvStore.Op.put("persist:tmp", "x")));
+            store.apply(Collections.singletonList(EncryptedKvStore.Op.delete("persist:tmp")));
+            assertEquals(3, store.metrics().fsyncs());
+        }
+
+        byte[] log = Files.readAllBytes(new File(dir, EncryptedKvStore.LOG_FILE).toPath());
+        assertFalse(new String(log, StandardCharsets.ISO_8859_1).contains("dark"));
+
+        try (EncryptedKvStore store = EncryptedKvStore.open(dir, crypto)) {
+            assertEquals("{\"items\":[1,2]}", store.get("persist:statements"));
+            assertEquals("{\"theme\":\"dark\"}", store.get("persist:settings"));
+            assertNull(store.get("persist:tmp"));
+            assertEquals(Arrays.asList("persist:settings", "persist:statements"), store.keys());
+            assertEquals(3, store.metrics().recordsReplayed());
+        }
+    }
+
+    @Test
+    public void tornLastRecordDropsWholeBatch() throws Exception {
+        long firstRecordEnd;
+        try (EncryptedKvStore store = EncryptedKvStore.open(dir, crypto)) {
+            store.apply(Collections.singletonList(EncryptedKvStore.Op.put("a", "1")));
+            firstRecordEnd = store.fileBytes();
+            store.apply(Arrays.asList(EncryptedKvStore.Op.put("a", "2"), EncryptedKvStore.Op.put("b", "2")));
+        }
+        // Çökme: ikinci kaydın yalnızca bir kısmı diske inmiş
+        try (RandomAccessFile log = new RandomAccessFile(new File(dir, EncryptedKvStore.LOG_FILE), "rw")) {
+            log.setLength(firstRecordEnd + 20);
+        }
+
+        try (EncryptedKvStore store = EncryptedKvStore.open(dir, crypto)) {
+            assertEquals("1", store.get("a"));
+            assertNull(store.get("b"));
+            assertEquals(20, store.metrics().truncatedBytes());
+            store.apply(Collections.singletonList(EncryptedKvStore.Op.put("b", "3")));
+        }
+        try (EncryptedKvStore store = EncryptedKvStore.open(dir, crypto)) {
+            assertEquals("3", store.get("b"));
+            assertEquals(0, store.metrics().truncatedBytes());
+        }
+    }
+
+    @Test
+    public void compactionKeepsLiveValuesAndShrinksLog() throws Exception {
+        char[] slice = new char[8 * 1024];
+        Arrays.fill(slice, 's');
+        try (EncryptedKvStore store = EncryptedKvStore.open(dir, crypto)) {
+            for (int i = 0; i < 60; i++) {
+                store.apply(Arrays.asList(
+                        EncryptedKvStore.Op.put("persist:transactions", new String(slice) + i),
+                        EncryptedKvStore.Op.put("persist:counter", Integer.toString(i))));
+            }
+            assertTrue(store.needsCompaction());
+            long before = store.fileBytes();
+            store.compact();
+
+            assertTrue(store.fileBytes() < before / 10);
+            assertFalse(store.needsCompaction());
+            assertEquals("59", store.get("persist:counter"));
+            assertEquals(1, store.metrics().compactions());
+            assertTrue(store.metrics().writeAmplification() > 1);
+        }
+        try (EncryptedKvStore store = EncryptedKvStore.open(dir, crypto)) {
+            assertArrayEquals((new String(slice) + 59).toCharArray(), store.get("persist:transactions").toCharArray());
+            assertEquals(2, store.size());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.SecretKey;
+
+import org.junit.Test;
+
+public class EnvelopeCryptoTest {
+
+    @Test
+    public void roundTripsPayloadsOfStateSizes() throws Exception {
+        EnvelopeCrypto crypto = new EnvelopeCrypto(EnvelopeCrypto.newDataKey());
+        for (int size : new int[]{0, 1, 4 * 1024, 300 * 1024}) {
+            byte[] plaintext = randomBytes(size);
+            byte[] sealed = crypto.encrypt(plaintext);
+            assertEquals(1 + EnvelopeCrypto.IV_LENGTH + size + 16, sealed.length);
+            assertArrayEquals(plaintext, crypto.decrypt(sealed));
+        }
+    }
+
+    @Test
+    public void restoredDataKeyDecryptsAndNoncesDiffer() throws Exception {
+        SecretKey dataKey = EnvelopeCrypto.newDataKey();
+        byte[] plaintext = "{\"statements\":[]}".getBytes(StandardCharsets.UTF_8);
+        byte[] first = new EnvelopeCrypto(dataKey).encrypt(plaintext);
+        byte[] second = new EnvelopeCrypto(dataKey).encrypt(plaintext);
+
+        EnvelopeCrypto restored = new EnvelopeCrypto(EnvelopeCrypto.dataKeyFromBytes(dataKey.getEncoded()));
+        assertArrayEquals(plaintext, restored.decrypt(first));
+        assertArrayEquals(plaintext, restored.decrypt(second));
+        assertFalse(Arrays.equals(first, second));
+    }
+
+    @Test
+    public void rejectsTamperedForeignAndLegacyData() throws Exception {
+        EnvelopeCrypto crypto = new EnvelopeCrypto(EnvelopeCrypto.newDataKey());
+        byte[] sealed = crypto.encrypt(randomBytes(256));
+
+        byte[] tampered = sealed.clone();
+        tampered[tampered.length - 20] ^= 1;
+        assertRejected(crypto, tampered);
+        assertRejected(new EnvelopeCrypto(EnvelopeCrypto.newDataKey()), sealed);
+
+        // Eski format: sürüm baytı yok, doğrudan 12 bayt IV ile başlar
+        byte[] legacy = randomBytes(40);
+        legacy[0] = 0x7F;
+        assertRejected(crypto, legacy);
+    }
+
+    private static void assertRejected(EnvelopeCrypto crypto, byte[] sealed) {
+        try {
+            crypto.decrypt(sealed);
+            fail("Expected decryption to fail");
+        } catch (GeneralSecurityException expected) {
+            // beklenen
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
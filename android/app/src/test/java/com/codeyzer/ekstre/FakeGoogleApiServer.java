@@ -0,0 +1,557 @@
+package com.codeyzer.ekstre;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.gmail.Gmail;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTP stand-in for the Gmail and Calendar REST endpoints the handlers call.
+ *
+ * Serves a synthetic mailbox of statement emails (some with PDF attachments) and an
+ * in-memory primary calendar that also answers batch requests. Every request can be delayed, failed with a 500 or
+ * throttled with a 429, either randomly or through a requests-per-second quota.
+ */
+final class FakeGoogleApiServer implements AutoCloseable {
+
+    static final class Config {
+        int messages = 1000;
+        /** Every n-th message carries a PDF attachment; 0 disables attachments. */
+        int attachmentEvery = 4;
+        int attachmentBytes = 32 * 1024;
+        long latencyMillis;
+        long latencyJitterMillis;
+        double errorRate;
+        double throttleRate;
+        /** Requests allowed per one-second window before 429s; 0 means unlimited. */
+        int quotaPerSecond;
+        /** Gzip responses when the client sends Accept-Encoding: gzip, as Google does. */
+        boolean gzip = true;
+        /** Answer every request with 401, like a revoked grant. */
+        boolean unauthorized;
+        long seed = 42;
+    }
+
+    static {
+        // Without TCP_NODELAY the JDK server's separate header/body writes stall ~40 ms on delayed ACKs.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final Pattern MESSAGES = Pattern.compile("/gmail/v1/users/me/messages");
+    private static final Pattern MESSAGE = Pattern.compile("/gmail/v1/users/me/messages/([^/]+)");
+    private static final Pattern ATTACHMENT = Pattern.compile("/gmail/v1/users/me/messages/([^/]+)/attachments/([^/]+)");
+    private static final Pattern EVENTS = Pattern.compile("/calendar/v3/calendars/([^/]+)/events");
+    private static final Pattern EVENT = Pattern.compile("/calendar/v3/calendars/([^/]+)/events/([^/]+)");
+    private static final Pattern BATCH = Pattern.compile("/batch/calendar/v3");
+    // HttpURLConnection cannot send PATCH; the API client tunnels it through POST like Google allows
+    private static final String METHOD_OVERRIDE = "X-HTTP-Method-Override";
+    private static final String[] BANKS = {"Garanti BBVA", "Akbank", "Yapı Kredi", "İş Bankası", "QNB"};
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final Config config;
+    private final Gson gson = new Gson();
+    private final HttpServer server;
+    private final ExecutorService workers = Executors.newFixedThreadPool(32);
+    private final Random random;
+    private final String attachmentData;
+    private final Map<String, JsonObject> events = new ConcurrentHashMap<>();
+    private final AtomicInteger eventIds = new AtomicInteger();
+
+    final AtomicInteger requests = new AtomicInteger();
+    final AtomicInteger serverErrors = new AtomicInteger();
+    final AtomicInteger throttled = new AtomicInteger();
+    final AtomicInteger gzipped = new AtomicInteger();
+    final AtomicInteger batches = new AtomicInteger();
+
+    private long windowStart;
+    private int windowCount;
+
+    FakeGoogleApiServer(Config config) throws IOException {
+        this.config = config;
+        this.random = new Random(config.seed);
+        byte[] pdf = new byte[config.attachmentBytes];
+        new Random(config.seed).nextBytes(pdf);
+        this.attachmentData = Base64.getUrlEncoder().encodeToString(pdf);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        server.createContext("/", this::handle);
+        server.setExecutor(workers);
+        server.start();
+    }
+
+    /** Starts a server with the default {@link Config} as adjusted by {@code setup}. */
+    static FakeGoogleApiServer start(Consumer<Config> setup) throws IOException {
+        Config config = new Config();
+        setup.accept(config);
+        return new FakeGoogleApiServer(config);
+    }
+
+    /** Gmail client without credentials for {@code endpoint}, as the handler builds it. */
+    static Gmail gmail(GoogleApiEndpoint endpoint) {
+        return GoogleGmailHandler.buildGmailService(endpoint, null, "ekstre-test");
+    }
+
+    static Calendar calendar(GoogleApiEndpoint endpoint) {
+        return GoogleCalendarHandler.buildCalendarService(endpoint, null, "ekstre-test");
+    }
+
+    Gmail gmail() {
+        return gmail(new NetHttpTransport());
+    }
+
+    Gmail gmail(HttpTransport transport) {
+        return gmail(GoogleApiEndpoint.at(transport, rootUrl()));
+    }
+
+    Calendar calendar() {
+        return calendar(new NetHttpTransport());
+    }
+
+    Calendar calendar(HttpTransport transport) {
+        return calendar(GoogleApiEndpoint.at(transport, rootUrl()));
+    }
+
+    String rootUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    int attachmentCount() {
+        return config.attachmentEvery == 0 ? 0 : (config.messages + config.attachmentEvery - 1) / config.attachmentEvery;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            delay();
+            if (config.unauthorized) {
+                sendError(exchange, 401, "Invalid Credentials", "authError", "UNAUTHENTICATED");
+                return;
+            }
+            int injected = injectedStatus();
+            if (injected == 429) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 429, "Rate Limit Exceeded", "rateLimitExceeded", "RESOURCE_EXHAUSTED");
+                return;
+            }
+            if (injected == 500) {
+                serverErrors.incrementAndGet();
+                sendError(exchange, 500, "Backend Error", "backendError", "INTERNAL");
+                return;
+            }
+            route(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } catch (RuntimeException e) {
+            sendError(exchange, 400, String.valueOf(e.getMessage()), "badRequest", "INVALID_ARGUMENT");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        if (BATCH.matcher(path).matches() && "POST".equals(method)) {
+            batches.incrementAndGet();
+            sendBatch(exchange);
+            return;
+        }
+        String override = exchange.getRequestHeaders().getFirst(METHOD_OVERRIDE);
+        if (override != null) {
+            method = override;
+        }
+        Reply reply = dispatch(method, path, query(exchange.getRequestURI().getRawQuery()), () -> readBody(exchange));
+        sendJson(exchange, reply.status, reply.body);
+    }
+
+    private interface Body {
+        String read() throws IOException;
+    }
+
+    private static final class Reply {
+        final int status;
+        final JsonObject body;
+
+        Reply(int status, JsonObject body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private Reply dispatch(String method, String path, Map<String, String> query, Body requestBody) throws IOException {
+        Matcher m;
+        if ((m = ATTACHMENT.matcher(path)).matches() && "GET".equals(method)) {
+            int index = messageIndex(m.group(1));
+            if (index < 0 || !hasAttachment(index) || !m.group(2).equals(attachmentId(index))) {
+                return error(404, "Requested entity was not found.", "notFound", "NOT_FOUND");
+            }
+            JsonObject body = new JsonObject();
+            body.addProperty("size", config.attachmentBytes);
+            body.addProperty("data", attachmentData);
+            return new Reply(200, body);
+        } else if ((m = MESSAGE.matcher(path)).matches() && "GET".equals(method)) {
+            int index = messageIndex(m.group(1));
+            if (index < 0) {
+                return error(404, "Requested entity was not found.", "notFound", "NOT_FOUND");
+            }
+            return new Reply(200, message(index));
+        } else if (MESSAGES.matcher(path).matches() && "GET".equals(method)) {
+            return new Reply(200, listPage(query));
+        } else if ((m = EVENT.matcher(path)).matches()) {
+            JsonObject event = events.get(m.group(2));
+            if (event == null) {
+                return error(404, "Not Found", "notFound", "NOT_FOUND");
+            }
+            if ("PUT".equals(method)) {
+                JsonObject update = gson.fromJson(requestBody.read(), JsonObject.class);
+                update.addProperty("id", m.group(2));
+                update.addProperty("htmlLink", event.get("htmlLink").getAsString());
+                events.put(m.group(2), update);
+                event = update;
+            } else if ("PATCH".equals(method)) {
+                JsonObject patch = gson.fromJson(requestBody.read(), JsonObject.class);
+                for (Map.Entry<String, JsonElement> field : patch.entrySet()) {
+                    event.add(field.getKey(), field.getValue());
+                }
+            }
+            return new Reply(200, event);
+        } else if (EVENTS.matcher(path).matches() && "POST".equals(method)) {
+            JsonObject event = gson.fromJson(requestBody.read(), JsonObject.class);
+            // Like Calendar, a client-chosen id is accepted once; a second insert conflicts
+            String id = event.has("id") ? event.get("id").getAsString() : "evt" + eventIds.incrementAndGet();
+            event.addProperty("id", id);
+            event.addProperty("htmlLink", rootUrl() + "calendar/event?eid=" + id);
+            if (events.putIfAbsent(id, event) != null) {
+                return error(409, "The requested identifier already exists.", "duplicate", "ALREADY_EXISTS");
+            }
+            return new Reply(200, event);
+        } else if (EVENTS.matcher(path).matches() && "GET".equals(method)) {
+            String q = query.get("q");
+            JsonArray items = new JsonArray();
+            for (JsonObject event : events.values()) {
+                String description = event.has("description") ? event.get("description").getAsString() : "";
+                if (q == null || description.contains(q)) {
+                    items.add(event);
+                }
+            }
+            JsonObject body = new JsonObject();
+            body.add("items", items);
+            return new Reply(200, body);
+        }
+        return error(404, "No route for " + method + " " + path, "notFound", "NOT_FOUND");
+    }
+
+    /**
+     * Google batch endpoint: a multipart/mixed body of {@code application/http} parts, answered
+     * with one part per request in the same order.
+     */
+    private void sendBatch(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        Matcher boundaryMatch = Pattern.compile("boundary=\"?([^\";]+)").matcher(contentType);
+        if (!boundaryMatch.find()) {
+            sendError(exchange, 400, "Missing multipart boundary", "badRequest", "INVALID_ARGUMENT");
+            return;
+        }
+        String delimiter = "--" + boundaryMatch.group(1);
+        String responseBoundary = "batch_" + Long.toHexString(System.nanoTime());
+        StringBuilder response = new StringBuilder();
+        int contentId = 0;
+        for (String part : readBody(exchange).split(Pattern.quote(delimiter))) {
+            int embedded = part.indexOf("\r\n\r\n");
+            if (embedded < 0 || part.startsWith("--")) {
+                continue;
+            }
+            // Part headers, blank line, then the embedded request: request line, headers, blank line, body
+            String request = part.substring(embedded + 4);
+            int headersEnd = request.indexOf("\r\n\r\n");
+            String head = headersEnd < 0 ? request : request.substring(0, headersEnd);
+            String body = headersEnd < 0 ? "" : request.substring(headersEnd + 4).replaceAll("\r\n$", "");
+            String[] lines = head.split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            String method = requestLine[0];
+            for (int i = 1; i < lines.length; i++) {
+                if (lines[i].regionMatches(true, 0, METHOD_OVERRIDE + ":", 0, METHOD_OVERRIDE.length() + 1)) {
+                    method = lines[i].substring(METHOD_OVERRIDE.length() + 1).trim();
+                }
+            }
+            URI uri = URI.create(requestLine[1]);
+            Reply reply = dispatch(method, uri.getPath(), query(uri.getRawQuery()), () -> body);
+
+            byte[] json = gson.toJson(reply.body).getBytes(StandardCharsets.UTF_8);
+            response.append("--").append(responseBoundary).append("\r\n")
+                    .append("Content-Type: application/http\r\n")
+                    .append("Content-ID: response-").append(++contentId).append("\r\n\r\n")
+                    .append("HTTP/1.1 ").append(reply.status).append(reply.status < 400 ? " OK" : " Error").append("\r\n")
+                    .append("Content-Type: application/json; charset=UTF-8\r\n")
+                    .append("Content-Length: ").append(json.length).append("\r\n\r\n")
+                    .append(new String(json, StandardCharsets.UTF_8)).append("\r\n");
+        }
+        response.append("--").append(responseBoundary).append("--\r\n");
+        byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "multipart/mixed; boundary=" + responseBoundary);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private JsonObject listPage(Map<String, String> query) {
+        if (query.get("q") == null) {
+            throw new IllegalArgumentException("q is required");
+        }
+        int pageSize = query.containsKey("maxResults")
+                ? Math.min(MAX_PAGE_SIZE, Integer.parseInt(query.get("maxResults")))
+                : DEFAULT_PAGE_SIZE;
+        int offset = query.containsKey("pageToken") ? Integer.parseInt(query.get("pageToken")) : 0;
+        int end = Math.min(config.messages, offset + pageSize);
+        JsonArray messages = new JsonArray();
+        for (int i = offset; i < end; i++) {
+            JsonObject ref = new JsonObject();
+            ref.addProperty("id", messageId(i));
+            ref.addProperty("threadId", messageId(i));
+            messages.add(ref);
+        }
+        JsonObject body = new JsonObject();
+        body.add("messages", messages);
+        if (end < config.messages) {
+            body.addProperty("nextPageToken", Integer.toString(end));
+        }
+        body.addProperty("resultSizeEstimate", config.messages);
+        return body;
+    }
+
+    private JsonObject message(int index) {
+        String bank = BANKS[index % BANKS.length];
+        String html = "<html><body><h2>" + bank + " Kredi Kartı Hesap Özeti</h2>"
+                + "<p>Son Ödeme Tarihi: " + (index % 28 + 1) + ".07.2025</p>"
+                + "<p>Dönem Borcu: " + (1000 + index * 37 % 9000) + "," + (index % 100) + " TL</p>"
+                + "<p>Asgari Ödeme Tutarı: " + (200 + index % 800) + ",00 TL</p></body></html>";
+
+        JsonArray parts = new JsonArray();
+        parts.add(part("0", "text/html", "", body(encode(html), html.length(), null)));
+        if (hasAttachment(index)) {
+            parts.add(part("1", "application/pdf", "ekstre-" + index + ".pdf",
+                    body(null, config.attachmentBytes, attachmentId(index))));
+        }
+
+        JsonArray headers = new JsonArray();
+        headers.add(header("From", "ekstre@" + bank.toLowerCase().replace(' ', '-') + ".com.tr"));
+        headers.add(header("Subject", bank + " Kredi Kartı Ekstreniz"));
+        headers.add(header("Date", "Mon, " + (index % 28 + 1) + " Jul 2025 09:00:00 +0300"));
+
+        JsonObject payload = part("", "multipart/mixed", "", body(null, 0, null));
+        payload.add("headers", headers);
+        payload.add("parts", parts);
+
+        JsonObject message = new JsonObject();
+        message.addProperty("id", messageId(index));
+        message.addProperty("threadId", messageId(index));
+        message.addProperty("snippet", bank + " Kredi Kartı Hesap Özeti");
+        message.addProperty("internalDate", Long.toString(1751350000000L + index * 60_000L));
+        message.addProperty("sizeEstimate", html.length() + (hasAttachment(index) ? config.attachmentBytes : 0));
+        message.add("payload", payload);
+        return message;
+    }
+
+    private boolean hasAttachment(int index) {
+        return config.attachmentEvery > 0 && index % config.attachmentEvery == 0;
+    }
+
+    private static String messageId(int index) {
+        return String.format("m%08x", index);
+    }
+
+    private static String attachmentId(int index) {
+        return "att-" + index;
+    }
+
+    private int messageIndex(String id) {
+        if (!id.startsWith("m")) {
+            return -1;
+        }
+        try {
+            int index = Integer.parseInt(id.substring(1), 16);
+            return index < config.messages ? index : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static JsonObject part(String partId, String mimeType, String filename, JsonObject body) {
+        JsonObject part = new JsonObject();
+        part.addProperty("partId", partId);
+        part.addProperty("mimeType", mimeType);
+        part.addProperty("filename", filename);
+        part.add("body", body);
+        return part;
+    }
+
+    private static JsonObject body(String data, int size, String attachmentId) {
+        JsonObject body = new JsonObject();
+        body.addProperty("size", size);
+        if (data != null) {
+            body.addProperty("data", data);
+        }
+        if (attachmentId != null) {
+            body.addProperty("attachmentId", attachmentId);
+        }
+        return body;
+    }
+
+    private static JsonObject header(String name, String value) {
+        JsonObject header = new JsonObject();
+        header.addProperty("name", name);
+        header.addProperty("value", value);
+        return header;
+    }
+
+    private static String encode(String text) {
+        return Base64.getUrlEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void delay() throws InterruptedException {
+        long millis = config.latencyMillis;
+        if (config.latencyJitterMillis > 0) {
+            synchronized (random) {
+                millis += (long) (random.nextDouble() * config.latencyJitterMillis);
+            }
+        }
+        if (millis > 0) {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        }
+    }
+
+    private synchronized int injectedStatus() {
+        if (config.quotaPerSecond > 0) {
+            long now = System.nanoTime();
+            if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                windowStart = now;
+                windowCount = 0;
+            }
+            if (++windowCount > config.quotaPerSecond) {
+                return 429;
+            }
+        }
+        double roll;
+        synchronized (random) {
+            roll = random.nextDouble();
+        }
+        if (roll < config.throttleRate) {
+            return 429;
+        }
+        if (roll < config.throttleRate + config.errorRate) {
+            return 500;
+        }
+        return 0;
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            } catch (java.io.UnsupportedEncodingException e) {
+                throw new AssertionError(e);
+            }
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message, String reason, String statusName) throws IOException {
+        Reply reply = error(status, message, reason, statusName);
+        sendJson(exchange, reply.status, reply.body);
+    }
+
+    private static Reply error(int status, String message, String reason, String statusName) {
+        JsonObject detail = new JsonObject();
+        detail.addProperty("reason", reason);
+        detail.addProperty("message", message);
+        JsonArray errors = new JsonArray();
+        errors.add(detail);
+        JsonObject error = new JsonObject();
+        error.addProperty("code", status);
+        error.addProperty("message", message);
+        error.add("errors", errors);
+        error.addProperty("status", statusName);
+        JsonObject body = new JsonObject();
+        body.add("error", error);
+        return new Reply(status, body);
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonObject body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (config.gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            gzipped.incrementAndGet();
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
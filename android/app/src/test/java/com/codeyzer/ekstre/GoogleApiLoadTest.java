@@ -0,0 +1,95 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.JSObject;
+import com.google.api.services.calendar.Calendar;
+
+import org.junit.Test;
+
+/**
+ * Offline load tests: the Gmail and Calendar handlers talk to {@link FakeGoogleApiServer}
+ * over loopback through an injected {@link GoogleApiEndpoint}.
+ */
+public class GoogleApiLoadTest {
+
+    private static final String QUERY = "from:(ekstre) subject:(Hesap Özeti)";
+
+    @Test
+    public void fullSyncOfLargeMailbox() throws Exception {
+        try (FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> {
+            config.messages = 2000;
+            config.attachmentEvery = 4;
+            config.attachmentBytes = 32 * 1024;
+            config.latencyMillis = 1;
+            config.latencyJitterMillis = 2;
+        })) {
+            SyncLoadDriver.Report report = SyncLoadDriver.fullSync(server.gmail(), QUERY, 500, 8);
+
+            assertEquals(2000, report.listed);
+            assertEquals(2000, report.synced);
+            assertEquals(0, report.failed);
+            assertEquals(server.attachmentCount(), report.attachments);
+            // 4 list pages + one get per message + one get per attachment
+            assertEquals(4 + 2000 + server.attachmentCount(), server.requests.get());
+            assertEquals(0, report.listRetries);
+            assertTrue(report.failuresByStatus.isEmpty());
+        }
+    }
+
+    @Test
+    public void injectedErrorsAndThrottlingAreReportedByStatus() throws Exception {
+        try (FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> {
+            config.messages = 800;
+            config.attachmentEvery = 0;
+            config.errorRate = 0.03;
+            config.throttleRate = 0.05;
+        })) {
+            SyncLoadDriver.Report report = SyncLoadDriver.fullSync(server.gmail(), QUERY, 100, 4);
+
+            assertEquals(800, report.listed);
+            assertEquals(800, report.synced + report.failed);
+            assertTrue(report.failuresByStatus.containsKey(429));
+            assertTrue(report.failuresByStatus.containsKey(500));
+            assertEquals(server.throttled.get() + server.serverErrors.get(), report.failed + report.listRetries);
+        }
+    }
+
+    @Test
+    public void quotaExhaustionSurfacesAs429() throws Exception {
+        try (FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> {
+            config.messages = 400;
+            config.attachmentEvery = 0;
+            config.quotaPerSecond = 50;
+        })) {
+            SyncLoadDriver.Report report = SyncLoadDriver.fullSync(server.gmail(), QUERY, 500, 8);
+
+            // How many requests exceed the quota depends on timing; every one of them must surface as a 429
+            assertEquals(400, report.synced + report.failed);
+            assertEquals(server.throttled.get(), report.failed + report.listRetries);
+            assertEquals(0, server.serverErrors.get());
+            assertEquals(report.failed, (int) report.failuresByStatus.getOrDefault(429, 0));
+            assertEquals(report.failed == 0 ? 0 : 1, report.failuresByStatus.size());
+        }
+    }
+
+    @Test
+    public void calendarEventRoundTripsThroughStandIn() throws Exception {
+        try (FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> { })) {
+            Calendar calendar = server.calendar();
+            String appId = "ekstre-garanti-2025-07-22";
+
+            JSObject created = GoogleCalendarHandler.insertEvent(calendar, "Garanti ödeme", "AppID: " + appId,
+                    "2025-07-22T09:00:00+03:00", "2025-07-22T09:30:00+03:00", "Europe/Istanbul");
+            JSObject found = GoogleCalendarHandler.findEventByAppId(calendar, appId, GoogleCalendarHandler.extractDate(appId));
+            assertTrue(found.getBoolean("eventFound"));
+            assertEquals(created.getString("id"), found.getString("eventId"));
+
+            JSObject updated = GoogleCalendarHandler.updateEvent(calendar, created.getString("id"), "Garanti ödendi", null);
+            assertEquals("Garanti ödendi", updated.getString("summary"));
+            assertFalse(GoogleCalendarHandler.findEventByAppId(calendar, "ekstre-akbank-2025-07-22", "2025-07-22").getBoolean("eventFound"));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentCallbacks2;
+
+import com.getcapacitor.JSObject;
+
+import org.json.JSONObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryBudgetTest {
+
+    /** A cache of fixed-size entries that also evicts by its own limit. */
+    private static final class FakeCache implements MemoryBudget.Cache {
+        long bytes;
+        long lruEvicted;
+
+        FakeCache(long bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public long sizeBytes() {
+            return bytes;
+        }
+
+        @Override
+        public long trimTo(long targetBytes) {
+            long freed = Math.max(0, bytes - targetBytes);
+            bytes -= freed;
+            return freed;
+        }
+
+        @Override
+        public long lruEvictedBytes() {
+            return lruEvicted;
+        }
+    }
+
+    private final FakeCache low = new FakeCache(1000);
+    private final FakeCache normal = new FakeCache(1000);
+    private final FakeCache high = new FakeCache(1000);
+
+    @Before
+    public void setUp() {
+        MemoryBudget.reset();
+        MemoryBudget.register("prefetch", MemoryBudget.Priority.LOW, 2, low);
+        MemoryBudget.register("clients", MemoryBudget.Priority.NORMAL, 1, normal);
+        MemoryBudget.register("models", MemoryBudget.Priority.HIGH, 1, high);
+    }
+
+    @After
+    public void tearDown() {
+        MemoryBudget.setBudgetBytes(Long.MAX_VALUE);
+        MemoryBudget.reset();
+    }
+
+    @Test
+    public void risingTrimLevelsShrinkCachesInPriorityOrder() {
+        MemoryBudget.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals(500, low.bytes);
+        assertEquals(1000, normal.bytes);
+        assertFalse("moderate pressure leaves new work alone", MemoryBudget.underPressure());
+
+        MemoryBudget.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertEquals(0, low.bytes);
+        assertEquals(500, normal.bytes);
+        assertEquals(1000, high.bytes);
+        assertTrue(MemoryBudget.underPressure());
+
+        MemoryBudget.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+        assertEquals(0, normal.bytes);
+        assertEquals(500, high.bytes);
+
+        MemoryBudget.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(0, high.bytes);
+    }
+
+    @Test
+    public void pressureEvictionsAreReportedApartFromLruEvictions() throws Exception {
+        low.lruEvicted = 300;
+        MemoryBudget.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+        JSObject stats = MemoryBudget.stats();
+        JSONObject prefetch = stats.getJSONObject("caches").getJSONObject("prefetch");
+        assertEquals(1000, prefetch.getLong("pressureEvictedBytes"));
+        assertEquals(300, prefetch.getLong("lruEvictedBytes"));
+        assertEquals(0, prefetch.getLong("budgetEvictedBytes"));
+        assertEquals(500, stats.getJSONObject("caches").getJSONObject("clients").getLong("pressureEvictedBytes"));
+        assertEquals(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND, stats.getInteger("lastTrimLevel").intValue());
+        assertEquals(1500, stats.getLong("usedBytes"));
+    }
+
+    @Test
+    public void globalBudgetTrimsCachesAboveTheirWeightedShare() throws Exception {
+        MemoryBudget.setBudgetBytes(4000);
+        assertEquals("under budget: untouched", 1000, low.bytes);
+
+        low.bytes = 3000;
+        normal.bytes = 1500;
+        MemoryBudget.enforce();
+
+        // Shares: prefetch 2000, clients 1000, models 1000
+        assertEquals(2000, low.bytes);
+        assertEquals(1000, normal.bytes);
+        assertEquals(1000, high.bytes);
+        JSONObject caches = MemoryBudget.stats().getJSONObject("caches");
+        assertEquals(1000, caches.getJSONObject("prefetch").getLong("budgetEvictedBytes"));
+        assertEquals(0, caches.getJSONObject("prefetch").getLong("pressureEvictedBytes"));
+        assertEquals(500, caches.getJSONObject("clients").getLong("budgetEvictedBytes"));
+    }
+}
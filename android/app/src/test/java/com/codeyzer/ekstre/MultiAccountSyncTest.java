@@ -0,0 +1,109 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class MultiAccountSyncTest {
+
+    private static final List<MultiAccountSync.Query> QUERIES = Arrays.asList(
+            new MultiAccountSync.Query("garanti", "from:(garantibbva@garantibbva.com.tr)"),
+            new MultiAccountSync.Query("akbank", "from:(hizmet@bilgi.akbank.com)"));
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(GoogleAuthPlugin.SYNC_WORKERS);
+    private final List<FakeGoogleApiServer> servers = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+        for (FakeGoogleApiServer server : servers) {
+            server.close();
+        }
+    }
+
+    private FakeGoogleApiServer server(long latencyMillis, boolean unauthorized) throws Exception {
+        FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> {
+            config.messages = 5;
+            config.attachmentEvery = 0;
+            config.latencyMillis = latencyMillis;
+            config.unauthorized = unauthorized;
+        });
+        servers.add(server);
+        return server;
+    }
+
+    private static MultiAccountSync.Target target(String account, FakeGoogleApiServer server, String garantiCheckpoint) {
+        return new MultiAccountSync.Target(account, server.gmail(), garantiCheckpoint == null
+                ? Collections.emptyMap() : Collections.singletonMap("garanti", garantiCheckpoint));
+    }
+
+    private List<MultiAccountSync.Target> threeAccounts() throws Exception {
+        return Arrays.asList(
+                target("kisisel@gmail.com", server(15, false), null),
+                target("is@sirket.com.tr", server(15, false), null),
+                target("eski@gmail.com", server(30, false), null));
+    }
+
+    @Test
+    public void accountsAreSearchedConcurrentlyAndTaggedByAccount() throws Exception {
+        List<MultiAccountSync.Target> targets = threeAccounts();
+        MultiAccountSync.Report sequential = MultiAccountSync.run(targets, QUERIES, 5, true, 1, pool, null);
+        MultiAccountSync.Report parallel = MultiAccountSync.run(targets, QUERIES, 5, true, GoogleAuthPlugin.SYNC_WORKERS, pool, null);
+
+        // 3 accounts x (2 lists + 10 details); one request at a time vs. six
+        assertTrue(parallel.elapsedMillis * 2 < sequential.elapsedMillis);
+        assertTrue(parallel.anySuccess);
+        assertNull(parallel.networkFailure);
+
+        JSONArray accounts = parallel.result.getJSONArray("accounts");
+        assertEquals(3, accounts.length());
+        for (int a = 0; a < accounts.length(); a++) {
+            JSONObject account = accounts.getJSONObject(a);
+            assertEquals(targets.get(a).account, account.getString("account"));
+            assertFalse(account.has("error"));
+            JSONArray results = account.getJSONArray("results");
+            assertEquals("garanti", results.getJSONObject(0).getString("key"));
+            assertEquals("akbank", results.getJSONObject(1).getString("key"));
+            JSONArray messages = results.getJSONObject(0).getJSONArray("messages");
+            assertEquals(5, messages.length());
+            assertTrue("details replace the list refs", messages.getJSONObject(4).has("payload"));
+            assertEquals(5, results.getJSONObject(0).getInt("newMessages"));
+        }
+        assertEquals("m00000000", parallel.checkpoints.get("is@sirket.com.tr").get("akbank"));
+    }
+
+    @Test
+    public void checkpointsCountNewMessagesAndRevokedAccountDoesNotStopOthers() throws Exception {
+        List<MultiAccountSync.Target> targets = Arrays.asList(
+                target("kisisel@gmail.com", server(0, false), "m00000002"),
+                target("iptal@gmail.com", server(0, true), null));
+        MultiAccountSync.Report report = MultiAccountSync.run(targets, QUERIES, 5, false, 2, pool, null);
+
+        JSONObject ok = report.result.getJSONArray("accounts").getJSONObject(0);
+        JSONArray results = ok.getJSONArray("results");
+        assertEquals(2, results.getJSONObject(0).getInt("newMessages"));
+        assertEquals(5, results.getJSONObject(1).getInt("newMessages"));
+        assertEquals("m00000000", results.getJSONObject(0).getJSONArray("messages").getJSONObject(0).getString("id"));
+
+        JSONObject revoked = report.result.getJSONArray("accounts").getJSONObject(1);
+        assertEquals("AUTH_ERROR", revoked.getString("code"));
+        assertTrue(report.checkpoints.get("iptal@gmail.com").isEmpty());
+        // An auth failure is an answer from Google, not a network failure
+        assertTrue(report.anySuccess);
+        assertNull(report.networkFailure);
+    }
+}
@@ -0,0 +1,113 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.JSObject;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NativeMetricsTest {
+
+    @Before
+    public void setUp() {
+        NativeMetrics.setEnabled(true);
+        NativeMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        NativeMetrics.setEnabled(true);
+        NativeMetrics.reset();
+    }
+
+    @Test
+    public void countsCallsErrorsAndPayloadPerMethod() throws Exception {
+        Object first = new Object();
+        Object second = new Object();
+        Object third = new Object();
+        NativeMetrics.begin(first, "PdfParser", "parsePdfText", new JSONObject().put("base64Data", "AAAA"));
+        NativeMetrics.finish(first, new JSONObject().put("text", "abc"), null);
+        NativeMetrics.begin(second, "PdfParser", "parsePdfText", null);
+        JSONObject failure = new JSONObject().put("error", "PDF parsing timed out").put("errorCode", "TIMEOUT");
+        NativeMetrics.finish(second, failure, NativeMetrics.resolvedErrorCode(failure));
+        NativeMetrics.begin(third, "SecureStorage", "get", null);
+        NativeMetrics.finish(third, null, "IO_ERROR");
+
+        JSObject snapshot = NativeMetrics.snapshot();
+        JSONObject parse = snapshot.getJSONObject("methods").getJSONObject("PdfParser.parsePdfText");
+        assertEquals(2, parse.getLong("calls"));
+        assertEquals(1, parse.getLong("errors"));
+        assertEquals("{\"base64Data\":\"AAAA\"}".length(), parse.getLong("bytesIn"));
+        assertTrue(parse.getLong("bytesOut") > 0);
+        assertEquals(2, parse.getJSONObject("execution").getLong("count"));
+        JSONObject errors = snapshot.getJSONObject("errorsByCode");
+        assertEquals(1, errors.getLong("TIMEOUT"));
+        assertEquals(1, errors.getLong("IO_ERROR"));
+        assertEquals(0, snapshot.getInt("inFlight"));
+    }
+
+    @Test
+    public void disabledRecordsNothing() {
+        NativeMetrics.setEnabled(false);
+        Object call = new Object();
+        NativeMetrics.begin(call, "Ocr", "recognizeText", null);
+        NativeMetrics.finish(call, null, "IO_ERROR");
+        NativeMetrics.setEnabled(true);
+
+        JSObject snapshot = NativeMetrics.snapshot();
+        assertEquals(0, snapshot.optJSONObject("methods").length());
+        assertEquals(0, snapshot.optJSONObject("errorsByCode").length());
+    }
+
+    @Test
+    public void callsBeyondTheInFlightCapAreCountedAsUntracked() throws Exception {
+        for (int i = 0; i < 258; i++) {
+            NativeMetrics.begin(new Object(), "GoogleAuth", "searchGmailMessages", null);
+        }
+        JSObject snapshot = NativeMetrics.snapshot();
+        assertEquals(256, snapshot.getInteger("inFlight").intValue());
+        assertEquals(2L, snapshot.getLong("untracked"));
+
+        NativeMetrics.reset();
+        assertEquals(0L, NativeMetrics.snapshot().getLong("untracked"));
+    }
+
+    @Test
+    public void resolvedErrorsAreDetectedFromTheResult() throws Exception {
+        assertNull(NativeMetrics.resolvedErrorCode(new JSONObject().put("success", true)));
+        assertNull(NativeMetrics.resolvedErrorCode(new JSONObject().put("error", JSONObject.NULL)));
+        assertEquals(NativeMetrics.RESOLVED_ERROR, NativeMetrics.resolvedErrorCode(new JSONObject().put("error", "bad")));
+    }
+
+    @Test
+    public void sizeEstimateMatchesSerializedLength() throws Exception {
+        JSONObject value = new JSONObject()
+                .put("text", "hello")
+                .put("pages", new JSONArray().put(1).put(2).put(3))
+                .put("nested", new JSONObject().put("ok", true));
+        assertEquals(value.toString().length(), NativeMetrics.jsonSize(value));
+    }
+
+    @Test
+    public void histogramPercentilesFallInPowerOfTwoBuckets() {
+        NativeMetrics.Histogram histogram = new NativeMetrics.Histogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(300_000); // 300 µs
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(40_000_000); // 40 ms
+        }
+        assertEquals(512, histogram.percentileMicros(0.5));
+        assertEquals(40_000, histogram.percentileMicros(0.95));
+        assertEquals(40_000, histogram.maxMicros);
+        assertEquals(0, NativeMetrics.Histogram.bucket(1));
+        assertEquals(1, NativeMetrics.Histogram.bucket(2));
+        assertEquals(NativeMetrics.Histogram.BUCKETS - 1, NativeMetrics.Histogram.bucket(Long.MAX_VALUE));
+    }
+}
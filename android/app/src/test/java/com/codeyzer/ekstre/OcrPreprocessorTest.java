@@ -0,0 +1,119 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class OcrPreprocessorTest {
+
+    private static final int WIDTH = 200;
+
+    private static int rgb(int r, int g, int b) {
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    /** Builds a page with {@code lines} text lines of {@code lineHeight} rows on a uniform background. */
+    private static int[] page(int height, int lineHeight, int lines, int background, int ink) {
+        int[] pixels = new int[WIDTH * height];
+        java.util.Arrays.fill(pixels, background);
+        int pitch = lineHeight * 2;
+        for (int line = 0; line < lines; line++) {
+            int top = 10 + line * pitch;
+            for (int y = top; y < top + lineHeight && y < height; y++) {
+                for (int x = 20; x < 180; x += 3) {
+                    pixels[y * WIDTH + x] = ink;
+                    pixels[y * WIDTH + x + 1] = ink;
+                }
+            }
+        }
+        return pixels;
+    }
+
+    private static int[] lutFor(int[] pixels, OcrPreprocessor.Stats stats) {
+        int[] histogram = new int[256];
+        OcrPreprocessor.sample(pixels, pixels.length, 1, histogram);
+        return OcrPreprocessor.buildLut(histogram, stats);
+    }
+
+    @Test
+    public void lightPageIsNotInvertedOrStretched() {
+        int[] pixels = page(200, 12, 5, rgb(255, 255, 255), rgb(0, 0, 0));
+        OcrPreprocessor.Stats stats = new OcrPreprocessor.Stats();
+
+        int[] lut = lutFor(pixels, stats);
+
+        assertFalse(stats.darkMode);
+        assertFalse(stats.contrastStretched);
+        assertEquals(0, lut[0]);
+        assertEquals(255, lut[255]);
+    }
+
+    @Test
+    public void darkModePageIsInvertedToDarkTextOnLight() {
+        int[] pixels = page(200, 12, 5, rgb(18, 18, 24), rgb(240, 240, 240));
+        OcrPreprocessor.Stats stats = new OcrPreprocessor.Stats();
+
+        int[] lut = lutFor(pixels, stats);
+        OcrPreprocessor.apply(pixels, WIDTH, 200, lut, null, 0);
+
+        assertTrue(stats.darkMode);
+        // Arka plan açık, yazı koyu olmalı
+        assertTrue((pixels[0] & 0xFF) > 200);
+        assertTrue((pixels[10 * WIDTH + 20] & 0xFF) < 60);
+    }
+
+    @Test
+    public void lowContrastGrayTextIsStretched() {
+        int[] pixels = page(200, 12, 5, rgb(200, 200, 200), rgb(150, 150, 150));
+        OcrPreprocessor.Stats stats = new OcrPreprocessor.Stats();
+
+        int[] lut = lutFor(pixels, stats);
+        OcrPreprocessor.apply(pixels, WIDTH, 200, lut, null, 0);
+
+        assertTrue(stats.contrastStretched);
+        assertEquals(255, pixels[0] & 0xFF);
+        assertEquals(0, pixels[10 * WIDTH + 20] & 0xFF);
+    }
+
+    @Test
+    public void applyProducesOpaqueGrayAndCountsInkPerRow() {
+        int[] pixels = {rgb(255, 0, 0), rgb(0, 0, 0), rgb(255, 255, 255), rgb(10, 10, 10)};
+        int[] identity = new int[256];
+        for (int i = 0; i < 256; i++) {
+            identity[i] = i;
+        }
+        int[] rowInk = new int[4];
+
+        OcrPreprocessor.apply(pixels, 2, 2, identity, rowInk, 1);
+
+        int red = pixels[0];
+        assertEquals(0xFF, red >>> 24);
+        assertEquals(red & 0xFF, (red >> 8) & 0xFF);
+        assertEquals(2, rowInk[1]);
+        assertEquals(1, rowInk[2]);
+    }
+
+    @Test
+    public void estimatesTextHeightFromRowProfile() {
+        int height = 400;
+        int[] pixels = page(height, 10, 8, rgb(255, 255, 255), rgb(0, 0, 0));
+        OcrPreprocessor.Stats stats = new OcrPreprocessor.Stats();
+        int[] rowInk = new int[height];
+
+        OcrPreprocessor.apply(pixels, WIDTH, height, lutFor(pixels, stats), rowInk, 0);
+
+        assertEquals(10, OcrPreprocessor.estimateTextHeight(rowInk, WIDTH));
+    }
+
+    @Test
+    public void scalesSmallTextUpAndLeavesNormalTextAlone() {
+        assertEquals(1f, OcrPreprocessor.scaleFor(0, 1080, 2400), 0f);
+        assertEquals(1f, OcrPreprocessor.scaleFor(32, 1080, 2400), 0f);
+        assertEquals(2f, OcrPreprocessor.scaleFor(12, 1080, 2400), 0.001f);
+        assertEquals(0.25f, OcrPreprocessor.scaleFor(128, 1080, 2400), 0.001f);
+        // Piksel sınırı büyütmeyi kısıtlar
+        assertTrue(OcrPreprocessor.scaleFor(12, 3000, 3000) < 2f);
+    }
+}
@@ -0,0 +1,80 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class OcrTilingTest {
+
+    @Test
+    public void detectsOnlyTallImages() {
+        assertTrue(OcrTiling.isTallImage(1080, 10000));
+        assertFalse(OcrTiling.isTallImage(1080, 2400));
+        assertFalse(OcrTiling.isTallImage(4000, 4000));
+        assertFalse(OcrTiling.isTallImage(0, 0));
+    }
+
+    @Test
+    public void plansOverlappingTilesCoveringWholeHeight() {
+        List<OcrTiling.Tile> tiles = OcrTiling.planTiles(10000, 2048, 256);
+
+        assertEquals(6, tiles.size());
+        assertEquals(0, tiles.get(0).top);
+        assertEquals(10000, tiles.get(tiles.size() - 1).bottom);
+        assertTrue(tiles.get(0).first);
+        assertTrue(tiles.get(tiles.size() - 1).last);
+        for (int i = 1; i < tiles.size(); i++) {
+            assertEquals(256, tiles.get(i - 1).bottom - tiles.get(i).top);
+        }
+    }
+
+    @Test
+    public void singleTileWhenImageFits() {
+        List<OcrTiling.Tile> tiles = OcrTiling.planTiles(1500, 2048, 256);
+
+        assertEquals(1, tiles.size());
+        assertEquals(1500, tiles.get(0).bottom);
+    }
+
+    @Test
+    public void mergesDuplicatesFromOverlapIntoFullImageCoordinates() {
+        List<OcrTiling.Tile> tiles = OcrTiling.planTiles(3000, 2048, 256);
+        // İkinci tile 1792'den başlıyor; 1850..1880 arası iki tile'da da görülüyor
+        List<OcrTiling.Block> first = Arrays.asList(
+                new OcrTiling.Block("Son Ödeme Tarihi", 10, 100, 400, 140),
+                new OcrTiling.Block("1.234,56 TL", 10, 1850, 300, 1880));
+        List<OcrTiling.Block> second = Arrays.asList(
+                new OcrTiling.Block("1.234,56 TL", 10, 58, 300, 88),
+                new OcrTiling.Block("Asgari Ödeme", 10, 500, 300, 540));
+
+        List<OcrTiling.Block> merged = OcrTiling.mergeTileBlocks(tiles, Arrays.asList(first, second));
+
+        assertEquals(3, merged.size());
+        assertEquals("Son Ödeme Tarihi", merged.get(0).text);
+        assertEquals(1850, merged.get(1).top);
+        assertEquals("Asgari Ödeme", merged.get(2).text);
+        assertEquals(2292, merged.get(2).top);
+        assertEquals("Son Ödeme Tarihi\n1.234,56 TL\nAsgari Ödeme", OcrTiling.joinText(merged));
+    }
+
+    @Test
+    public void dropsBlockCutByTileEdgeWhenNeighbourHasItWhole() {
+        List<OcrTiling.Tile> tiles = OcrTiling.planTiles(3000, 2048, 256);
+        List<OcrTiling.Block> first = Collections.singletonList(
+                new OcrTiling.Block("Toplam Bor", 10, 2020, 300, 2048));
+        List<OcrTiling.Block> second = Collections.singletonList(
+                new OcrTiling.Block("Toplam Borç 5.000,00", 10, 228, 300, 268));
+
+        List<OcrTiling.Block> merged = OcrTiling.mergeTileBlocks(tiles, Arrays.asList(first, second));
+
+        assertEquals(1, merged.size());
+        assertEquals("Toplam Borç 5.000,00", merged.get(0).text);
+        assertEquals(2020, merged.get(0).top);
+    }
+}
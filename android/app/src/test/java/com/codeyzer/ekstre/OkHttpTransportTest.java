@@ -0,0 +1,147 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.JSObject;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.gmail.Gmail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class OkHttpTransportTest {
+
+    private static final String QUERY = "from:(ekstre)";
+
+    @Test
+    public void gzipResponsesAreDecodedByBothTransports() throws Exception {
+        try (FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> config.messages = 10)) {
+            OkHttpTransport okHttp = OkHttpTransport.create(2, 30);
+            JSObject viaNetHttp = GoogleGmailHandler.messageDetails(server.gmail(), "m00000003");
+            JSObject viaOkHttp = GoogleGmailHandler.messageDetails(server.gmail(okHttp), "m00000003");
+
+            assertEquals(2, server.gzipped.get());
+            assertEquals(1, okHttp.gzipResponses.get());
+            assertEquals(viaNetHttp.toString(), viaOkHttp.toString());
+
+            // Request bodies are gzip-encoded by the API client and streamed through OkHttp
+            Calendar calendar = server.calendar(okHttp);
+            JSObject created = GoogleCalendarHandler.insertEvent(calendar, "Akbank ödeme", "AppID: akbank-2025-08-01",
+                    "2025-08-01T09:00:00+03:00", "2025-08-01T09:30:00+03:00", "Europe/Istanbul");
+            assertEquals("Akbank ödeme", created.getString("summary"));
+            okHttp.shutdown();
+        }
+    }
+
+    @Test
+    public void requestsWithLibraryDefaultTimeoutsReuseTheSharedClient() throws Exception {
+        try (FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> config.messages = 4)) {
+            OkHttpTransport okHttp = OkHttpTransport.create(2, 30);
+            Gmail service = server.gmail(okHttp);
+            for (int i = 0; i < 4; i++) {
+                GoogleGmailHandler.messageDetails(service, "m0000000" + i);
+            }
+            assertEquals(4, okHttp.requests.get());
+            assertEquals("HttpRequest's write timeout 0 keeps the shared client", 0, okHttp.derivedClients.get());
+
+            HttpRequest custom = okHttp.createRequestFactory()
+                    .buildGetRequest(new GenericUrl(server.rootUrl() + "gmail/v1/users/me/messages/m00000000"));
+            custom.setReadTimeout(5_000);
+            custom.execute().disconnect();
+            assertEquals(1, okHttp.derivedClients.get());
+            okHttp.shutdown();
+        }
+    }
+
+    @Test
+    public void fullSyncStaysWithinIdlePoolLimit() throws Exception {
+        try (FakeGoogleApiServer server = FakeGoogleApiServer.start(config -> {
+            config.messages = 400;
+            config.attachmentBytes = 16 * 1024;
+            config.latencyMillis = 1;
+        })) {
+            SyncLoadDriver.Report netHttp = SyncLoadDriver.fullSync(server.gmail(), QUERY, 500, 8);
+            OkHttpTransport okHttp = OkHttpTransport.create(2, 30);
+            SyncLoadDriver.Report pooled = SyncLoadDriver.fullSync(server.gmail(okHttp), QUERY, 500, 8);
+
+            assertEquals(400, netHttp.synced);
+            assertEquals(400, pooled.synced);
+            assertEquals(pooled.attachments, netHttp.attachments);
+            assertTrue(okHttp.connectionPool().idleConnectionCount() <= 2);
+            okHttp.shutdown();
+            assertEquals(0, okHttp.connectionPool().connectionCount());
+        }
+    }
+
+    @Test
+    public void parallelRequestsShareOneHttp2Connection() throws Exception {
+        String messageJson;
+        try (FakeGoogleApiServer fake = FakeGoogleApiServer.start(config -> config.messages = 16)) {
+            messageJson = GoogleGmailHandler.messageDetails(fake.gmail(), "m00000001").toString();
+        }
+
+        MockWebServer server = new MockWebServer();
+        server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/json; charset=UTF-8")
+                        .setBody(messageJson)
+                        .setHeadersDelay(50, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+        // Cleartext HTTP/2 instead of TLS + ALPN; multiplexing behaves the same
+        OkHttpClient client = new OkHttpClient.Builder()
+                .protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+                .connectionPool(new ConnectionPool(5, 30, TimeUnit.SECONDS))
+                .build();
+        OkHttpTransport transport = new OkHttpTransport(client, 5, 30);
+        Gmail service = FakeGoogleApiServer.gmail(GoogleApiEndpoint.at(transport, server.url("/").toString()));
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<JSObject>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> GoogleGmailHandler.messageDetails(service, "m00000001")));
+            }
+            for (Future<JSObject> result : results) {
+                assertEquals("m00000001", result.get().getString("id"));
+            }
+            assertEquals(16, transport.http2Responses.get());
+            assertEquals(1, client.connectionPool().connectionCount());
+            assertEquals(16, server.getRequestCount());
+
+            Calendar calendar = FakeGoogleApiServer.calendar(GoogleApiEndpoint.at(transport, server.url("/").toString()));
+            calendar.events().get("primary", "evt1").execute();
+            RecordedRequest last = null;
+            for (int i = 0; i < 17; i++) {
+                last = server.takeRequest();
+            }
+            assertEquals("/calendar/v3/calendars/primary/events/evt1", last.getPath());
+            assertTrue(last.getHeader("Accept-Encoding").contains("gzip"));
+        } finally {
+            pool.shutdownNow();
+            transport.shutdown();
+            server.shutdown();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelPdfExtractorTest {
+
+    @ClassRule
+    public static final TemporaryFolder folder = new TemporaryFolder();
+
+    private static File statementPdf;
+    private static File sparsePdf;
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void createFixtures() throws IOException {
+        statementPdf = folder.newFile("statement.pdf");
+        PdfFixtures.writeStatement(statementPdf, 11);
+        sparsePdf = folder.newFile("sparse.pdf");
+        PdfFixtures.writeSparse(sparsePdf);
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void parallelOutputMatchesSequentialForEveryChunkSize() throws IOException {
+        String expected = extractSequential(statementPdf, 1, 11);
+        for (int pagesPerChunk : new int[]{0, 1, 2, 3, 5, 11}) {
+            List<int[]> chunks = ParallelPdfExtractor.planChunks(1, 11, 3, pagesPerChunk);
+            assertEquals("pagesPerChunk=" + pagesPerChunk, expected, extractParallel(statementPdf, chunks, new ArrayList<>()));
+        }
+    }
+
+    @Test
+    public void parallelOutputMatchesSequentialWithBlankPagesAndColumns() throws IOException {
+        String expected = extractSequential(sparsePdf, 2, 7);
+        List<Integer> pages = new ArrayList<>();
+        String actual = extractParallel(sparsePdf, ParallelPdfExtractor.planChunks(2, 7, 4, 0), pages);
+
+        assertEquals(expected, actual);
+        // İçeriği olmayan sayfalar sıralı modda da atlanır
+        assertEquals(Arrays.asList(2, 4, 5, 7), pages);
+    }
+
+    @Test
+    public void sinkCanStopExtractionAfterAPage() throws IOException {
+        List<Integer> pages = new ArrayList<>();
+        StringWriter output = new StringWriter();
+        boolean stopped = ParallelPdfExtractor.extract(() -> PDDocument.load(statementPdf),
+                ParallelPdfExtractor.planChunks(1, 11, 3, 2), executor, output,
+                (pageNo, pageText) -> {
+                    pages.add(pageNo);
+                    return !pageText.contains("Sayfa 4/");
+                }, null);
+
+        assertTrue(stopped);
+        assertEquals(Arrays.asList(1, 2, 3, 4), pages);
+        assertEquals(extractSequential(statementPdf, 1, 4), output.toString());
+    }
+
+    @Test
+    public void plansContiguousChunksCoveringTheRange() {
+        List<int[]> chunks = ParallelPdfExtractor.planChunks(3, 20, 3, 0);
+
+        int next = 3;
+        for (int[] chunk : chunks) {
+            assertEquals(next, chunk[0]);
+            assertTrue(chunk[1] - chunk[0] + 1 >= ParallelPdfExtractor.MIN_PAGES_PER_CHUNK);
+            next = chunk[1] + 1;
+        }
+        assertEquals(21, next);
+        assertEquals(6, chunks.size());
+        assertFalse(ParallelPdfExtractor.planChunks(5, 4, 3, 0).iterator().hasNext());
+    }
+
+    private static String extractSequential(File pdf, int startPage, int endPage) throws IOException {
+        try (PDDocument document = PDDocument.load(pdf)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setStartPage(startPage);
+            stripper.setEndPage(endPage);
+            return stripper.getText(document);
+        }
+    }
+
+    private static String extractParallel(File pdf, List<int[]> chunks, List<Integer> pages) throws IOException {
+        StringWriter output = new StringWriter();
+        boolean stopped = ParallelPdfExtractor.extract(() -> PDDocument.load(pdf), chunks, executor, output,
+                (pageNo, pageText) -> pages.add(pageNo), null);
+        assertFalse(stopped);
+        return output.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.codeyzer.ekstre;
+
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.pdmodel.PDPageContentStream;
+import com.tom_roush.pdfbox.pdmodel.font.PDFont;
+import com.tom_roush.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.File;
+import java.io.IOException;
+
+/** Builds the statement-like fixture PDFs the PDF tests run against. */
+final class PdfFixtures {
+
+    private PdfFixtures() {
+    }
+
+    static void writeStatement(File target, int pageCount) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int p = 1; p <= pageCount; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    showLine(contents, PDType1Font.HELVETICA_BOLD, 14, 40, 750, "Hesap Özeti - Kredi Karti Ekstresi");
+                    showLine(contents, PDType1Font.HELVETICA, 10, 40, 730, "Son Ödeme Tarihi: 22.07.2025   Dönem Borcu: 2.001,44 TL");
+                    for (int row = 0; row < 30; row++) {
+                        float y = 700 - row * 20;
+                        int amount = (p * 37 + row * 11) % 5000;
+                        showLine(contents, PDType1Font.HELVETICA, 9, 40, y, (row + 1) + "." + ((p % 12) + 1) + ".2025");
+                        showLine(contents, PDType1Font.HELVETICA, 9, 120, y, "MARKET ALISVERIS " + p + "-" + row);
+                        showLine(contents, PDType1Font.HELVETICA, 9, 480, y, amount + "," + (row * 7 % 100) + " TL");
+                    }
+                    showLine(contents, PDType1Font.HELVETICA_OBLIQUE, 8, 280, 40, "Sayfa " + p + "/" + pageCount);
+                }
+            }
+            document.save(target);
+        }
+    }
+
+    static void writeSparse(File target) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int p = 1; p <= 7; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                if (p == 3 || p == 6) {
+                    continue; // boş sayfa
+                }
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    // Alttan üste ve iki sütun halinde yazılır
+                    for (int row = 9; row >= 0; row--) {
+                        showLine(contents, PDType1Font.TIMES_ROMAN, 11, 50, 600 - row * 30, "Sol sütun " + p + "." + row);
+                        showLine(contents, PDType1Font.COURIER, 11, 320, 600 - row * 30, "Sag sutun " + p + "." + row);
+                    }
+                }
+            }
+            document.save(target);
+        }
+    }
+
+    /**
+     * Transaction table with a right-aligned amount column. Page 2 lists the same columns in a
+     * different order, as some statements do.
+     */
+    static void writeTable(File target, String[][] transactions) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int p = 1; p <= 2; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                float dateX = p == 1 ? 40 : 300;
+                float descriptionX = p == 1 ? 120 : 380;
+                float amountRight = p == 1 ? 420 : 200;
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    showLine(contents, PDType1Font.HELVETICA_BOLD, 14, 40, 760, "Hesap Hareketleri");
+                    showLine(contents, PDType1Font.HELVETICA_BOLD, 10, dateX, 730, "Tarih");
+                    showLine(contents, PDType1Font.HELVETICA_BOLD, 10, descriptionX, 730, "Açiklama");
+                    showRightAligned(contents, PDType1Font.HELVETICA_BOLD, 10, amountRight, 730, "Tutar");
+                    for (int row = 0; row < transactions.length; row++) {
+                        float y = 710 - row * 16;
+                        showLine(contents, PDType1Font.HELVETICA, 9, dateX, y, transactions[row][0]);
+                        showLine(contents, PDType1Font.HELVETICA, 9, descriptionX, y, transactions[row][1]);
+                        showRightAligned(contents, PDType1Font.HELVETICA, 9, amountRight, y, transactions[row][2]);
+                    }
+                }
+            }
+            document.save(target);
+        }
+    }
+
+    static void showRightAligned(PDPageContentStream contents, PDFont font, float size, float right, float y, String text)
+            throws IOException {
+        showLine(contents, font, size, right - font.getStringWidth(text) / 1000 * size, y, text);
+    }
+
+    static void showLine(PDPageContentStream contents, PDFont font, float size, float x, float y, String text)
+            throws IOException {
+        contents.beginText();
+        contents.setFont(font, size);
+        contents.newLineAtOffset(x, y);
+        contents.showText(text);
+        contents.endText();
+    }
+}
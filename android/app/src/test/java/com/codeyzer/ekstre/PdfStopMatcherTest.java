@@ -0,0 +1,50 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class PdfStopMatcherTest {
+
+    private static final String PAGE_1 = "Hesap Özeti\nKart No: 5406 **** **** 1234\nSon Ödeme Tarihi: 22.07.2025\n";
+    private static final String PAGE_2 = "Dönem Borcu: 2.001,44 TL\nAsgari Ödeme Tutarı: 400,29 TL\n";
+
+    @Test
+    public void completesWhenEveryPatternMatchedAcrossPages() {
+        PdfStopMatcher matcher = PdfStopMatcher.compile(Arrays.asList(
+                "Son Ödeme Tarihi:\\s*\\d{2}\\.\\d{2}\\.\\d{4}",
+                "Asgari Ödeme Tutarı"));
+
+        assertFalse(matcher.feed(PAGE_1));
+        assertEquals(1, matcher.matchedPatterns().size());
+        assertTrue(matcher.feed(PAGE_2));
+        assertTrue(matcher.isComplete());
+    }
+
+    @Test
+    public void matchesPatternSplitAcrossPageBreak() {
+        PdfStopMatcher matcher = PdfStopMatcher.compile(Collections.singletonList("Dönem\\s+Borcu"));
+
+        assertFalse(matcher.feed("... Dönem\n"));
+        assertTrue(matcher.feed("Borcu: 2.001,44 TL"));
+    }
+
+    @Test
+    public void emptyPatternListNeverCompletes() {
+        PdfStopMatcher matcher = PdfStopMatcher.compile(null);
+
+        assertTrue(matcher.isEmpty());
+        assertFalse(matcher.feed(PAGE_1));
+        assertFalse(matcher.isComplete());
+    }
+
+    @Test(expected = java.util.regex.PatternSyntaxException.class)
+    public void rejectsInvalidPattern() {
+        PdfStopMatcher.compile(Collections.singletonList("Toplam ("));
+    }
+}
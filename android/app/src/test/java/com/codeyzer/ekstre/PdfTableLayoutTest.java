@@ -0,0 +1,121 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PdfTableLayoutTest {
+
+    @ClassRule
+    public static final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String[][] TRANSACTIONS = {
+            {"01.07.2025", "MIGROS ISTANBUL", "1.234,56 TL"},
+            {"03.07.2025", "SHELL PETROL", "850,00 TL"},
+            {"05.07.2025", "NETFLIX.COM", "-99,99 TL"},
+    };
+
+    @Test
+    public void joinsWordsAndSplitsCellsOnWideGaps() {
+        List<PdfTableLayout.Glyph> glyphs = new ArrayList<>();
+        addWord(glyphs, "Son", 40, 100);
+        addWord(glyphs, "Ödeme", 62, 100);
+        addWord(glyphs, "22.07.2025", 200, 100.6f);
+
+        List<PdfTableLayout.Row> rows = PdfTableLayout.layout(1, glyphs);
+
+        assertEquals(1, rows.size());
+        assertEquals(2, rows.get(0).cells.size());
+        assertEquals("Son Ödeme", rows.get(0).cells.get(0).text);
+        assertEquals("22.07.2025", rows.get(0).cells.get(1).text);
+        assertEquals("Son Ödeme\t22.07.2025", rows.get(0).joinedText());
+    }
+
+    @Test
+    public void ordersLinesTopDownAndDropsOverprintedGlyphs() {
+        List<PdfTableLayout.Glyph> glyphs = new ArrayList<>();
+        addWord(glyphs, "Toplam", 40, 140);
+        addWord(glyphs, "Borç", 40, 120);
+        // Sahte kalın: aynı metin yarım punto kaydırılıp tekrar basılmış
+        addWord(glyphs, "Borç", 40.3f, 120);
+
+        List<PdfTableLayout.Row> rows = PdfTableLayout.layout(2, glyphs);
+
+        assertEquals(2, rows.size());
+        assertEquals("Borç", rows.get(0).cells.get(0).text);
+        assertEquals("Toplam", rows.get(1).cells.get(0).text);
+        assertEquals(2, rows.get(1).page);
+        assertTrue(rows.get(0).bottom <= rows.get(1).top);
+    }
+
+    @Test
+    public void findsColumnsInPdfTableRegardlessOfColumnOrder() throws IOException {
+        File pdf = folder.newFile("table.pdf");
+        PdfFixtures.writeTable(pdf, TRANSACTIONS);
+
+        PdfTableStripper stripper = new PdfTableStripper();
+        try (PDDocument document = PDDocument.load(pdf)) {
+            stripper.writeText(document, new StringWriter());
+        }
+
+        for (int page = 1; page <= 2; page++) {
+            List<PdfTableLayout.Row> rows = rowsOfPage(stripper.getRows(), page);
+            assertEquals(2 + TRANSACTIONS.length, rows.size());
+            assertEquals("Hesap Hareketleri", rows.get(0).joinedText());
+
+            Map<String, Integer> header = new HashMap<>();
+            for (PdfTableLayout.Cell cell : rows.get(1).cells) {
+                header.put(cell.text, cell.column);
+            }
+            assertEquals(3, header.size());
+            for (int i = 0; i < TRANSACTIONS.length; i++) {
+                PdfTableLayout.Row row = rows.get(2 + i);
+                assertEquals(3, row.cells.size());
+                assertEquals(Arrays.asList(TRANSACTIONS[i]), Arrays.asList(
+                        cellText(row, header.get("Tarih")),
+                        cellText(row, header.get("Açiklama")),
+                        cellText(row, header.get("Tutar"))));
+            }
+        }
+    }
+
+    private static List<PdfTableLayout.Row> rowsOfPage(List<PdfTableLayout.Row> rows, int page) {
+        List<PdfTableLayout.Row> result = new ArrayList<>();
+        for (PdfTableLayout.Row row : rows) {
+            if (row.page == page) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private static String cellText(PdfTableLayout.Row row, int column) {
+        for (PdfTableLayout.Cell cell : row.cells) {
+            if (cell.column == column) {
+                return cell.text;
+            }
+        }
+        return null;
+    }
+
+    /** One glyph per character, 5pt wide and 9pt high. */
+    private static void addWord(List<PdfTableLayout.Glyph> glyphs, String word, float left, float baseline) {
+        for (int i = 0; i < word.length(); i++) {
+            glyphs.add(new PdfTableLayout.Glyph(String.valueOf(word.charAt(i)), left + i * 5, baseline, 5, 9));
+        }
+    }
+}
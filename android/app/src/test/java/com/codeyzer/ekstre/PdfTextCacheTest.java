@@ -0,0 +1,103 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PdfTextCacheTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private SecretKey key;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = folder.newFolder("cache");
+        key = newKey();
+    }
+
+    @Test
+    public void sameContentHashesToSameEntryAndIsStoredEncrypted() throws Exception {
+        File first = folder.newFile("a.pdf");
+        File second = folder.newFile("b.pdf");
+        Files.write(first.toPath(), "%PDF-1.4 same".getBytes(StandardCharsets.US_ASCII));
+        Files.write(second.toPath(), "%PDF-1.4 same".getBytes(StandardCharsets.US_ASCII));
+        String entryKey = PdfTextCache.entryKey(PdfTextCache.contentHash(first), "text|1-5");
+        assertEquals(entryKey, PdfTextCache.entryKey(PdfTextCache.contentHash(second), "text|1-5"));
+        assertFalse(entryKey.equals(PdfTextCache.entryKey(PdfTextCache.contentHash(second), "rows|1-5")));
+
+        PdfTextCache cache = new PdfTextCache(dir, 64 * 1024, () -> key);
+        assertNull(cache.get(entryKey));
+        cache.put(entryKey, "{\"text\":\"Hesap Özeti Borcu\"}");
+        assertEquals("{\"text\":\"Hesap Özeti Borcu\"}", cache.get(entryKey));
+
+        byte[] onDisk = Files.readAllBytes(new File(dir, entryKey + ".bin").toPath());
+        assertFalse(new String(onDisk, StandardCharsets.ISO_8859_1).contains("Hesap"));
+        PdfTextCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits);
+        assertEquals(1, stats.misses);
+        assertEquals(0.5, stats.hitRate(), 0.0001);
+    }
+
+    @Test
+    public void reopenedCacheFindsEntriesAndEvictsLeastRecentlyUsed() throws Exception {
+        String value = repeat('x', 400);
+        PdfTextCache cache = new PdfTextCache(dir, 1000, () -> key);
+        cache.put("a", value);
+        Thread.sleep(20);
+        cache.put("b", value);
+        Thread.sleep(20);
+        cache.get("a");
+        cache.put("c", value);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.stats().evictions);
+
+        PdfTextCache reopened = new PdfTextCache(dir, 1000, () -> key);
+        assertEquals(value, reopened.get("a"));
+        assertEquals(value, reopened.get("c"));
+        assertEquals(2, reopened.stats().entries);
+        assertTrue(reopened.stats().sizeBytes <= 1000);
+    }
+
+    @Test
+    public void entryThatNoLongerDecryptsIsDropped() throws Exception {
+        new PdfTextCache(dir, 64 * 1024, () -> key).put("a", "text");
+
+        SecretKey otherKey = newKey();
+        PdfTextCache cache = new PdfTextCache(dir, 64 * 1024, () -> otherKey);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.stats().entries);
+        assertFalse(new File(dir, "a.bin").exists());
+    }
+
+    private static SecretKey newKey() throws GeneralSecurityException {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        return generator.generateKey();
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.JSObject;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ResultStreamsTest {
+
+    /** Records emitted chunks and how the stream settled. */
+    private static final class Recorder implements ResultStreams.Emitter, ResultStreams.Completion {
+        final List<JSObject> chunks = new ArrayList<>();
+        final CountDownLatch settled = new CountDownLatch(1);
+        JSObject summary;
+        String failureCode;
+
+        @Override
+        public synchronized void emit(String eventName, JSObject data) {
+            assertEquals(ResultStreams.CHUNK_EVENT, eventName);
+            chunks.add(data);
+        }
+
+        @Override
+        public void complete(JSObject summary) {
+            this.summary = summary;
+            settled.countDown();
+        }
+
+        @Override
+        public void fail(String message, String code) {
+            this.failureCode = code;
+            settled.countDown();
+        }
+
+        String joined() throws Exception {
+            StringBuilder text = new StringBuilder();
+            for (JSObject chunk : chunks) {
+                text.append(chunk.getString("data"));
+            }
+            return text.toString();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ResultStreams.ackTimeoutMillis = ResultStreams.ACK_TIMEOUT_MS;
+    }
+
+    private static String payload(int length) {
+        StringBuilder text = new StringBuilder("{\"text\":\"");
+        while (text.length() < length - 2) {
+            text.append("Dönem Borcu 2.001,44 TL ");
+        }
+        return text.append("\"}").toString();
+    }
+
+    @Test
+    public void sendsAtMostWindowChunksUntilAcknowledged() throws Exception {
+        String json = payload(20_000);
+        Recorder recorder = new Recorder();
+        assertTrue(ResultStreams.start("s1", json, 4096, 2, recorder, recorder));
+
+        int count = (json.length() + 4095) / 4096;
+        assertEquals(2, recorder.chunks.size());
+        assertEquals(count, recorder.chunks.get(0).getInt("count"));
+
+        ResultStreams.ack("s1", 0);
+        assertEquals(3, recorder.chunks.size());
+        // Cumulative ack opens the window for two more chunks
+        ResultStreams.ack("s1", 2);
+        assertEquals(5, recorder.chunks.size());
+        assertNull(recorder.summary);
+
+        ResultStreams.ack("s1", count - 1);
+        assertEquals(json, recorder.joined());
+        assertTrue(recorder.summary.getBoolean("streamed"));
+        assertEquals(count, recorder.summary.getInt("chunks"));
+        assertEquals(json.length(), recorder.summary.getInt("length"));
+        assertFalse(ResultStreams.ack("s1", 0));
+    }
+
+    @Test
+    public void chunkBoundariesKeepSurrogatePairsTogether() {
+        String emoji = "💳";
+        String text = "abc" + emoji + "def";
+        int[] bounds = ResultStreams.chunkBounds(text, 4);
+        // 'abc' + high surrogate would split the pair, so the first chunk ends before it
+        assertEquals(3, bounds[1]);
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            String chunk = text.substring(bounds[i], bounds[i + 1]);
+            assertFalse(Character.isHighSurrogate(chunk.charAt(chunk.length() - 1)));
+            joined.append(chunk);
+        }
+        assertEquals(text, joined.toString());
+    }
+
+    @Test
+    public void unacknowledgedStreamTimesOut() throws Exception {
+        ResultStreams.ackTimeoutMillis = 50;
+        Recorder recorder = new Recorder();
+        ResultStreams.start("s2", payload(10_000), 4096, 1, recorder, recorder);
+
+        assertTrue(recorder.settled.await(2, TimeUnit.SECONDS));
+        assertEquals(ResultStreams.TIMEOUT_CODE, recorder.failureCode);
+        assertFalse(ResultStreams.ack("s2", 0));
+    }
+
+    @Test
+    public void cancelAndDuplicateIds() throws Exception {
+        Recorder first = new Recorder();
+        assertTrue(ResultStreams.start("s3", payload(10_000), 4096, 1, first, first));
+        Recorder second = new Recorder();
+        assertFalse(ResultStreams.start("s3", payload(10_000), 4096, 1, second, second));
+        assertTrue(second.chunks.isEmpty());
+
+        assertTrue(ResultStreams.cancel("s3"));
+        assertEquals(ResultStreams.CANCELLED_CODE, first.failureCode);
+        assertFalse(ResultStreams.cancel("s3"));
+        assertEquals(0, ResultStreams.activeCount());
+    }
+}
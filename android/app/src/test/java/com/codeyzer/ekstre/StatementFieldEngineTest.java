@@ -0,0 +1,174 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Runs the bundled rules against the same mock emails the JS parser tests use. */
+public class StatementFieldEngineTest {
+
+    // Unit testler app modülü dizininde çalışır
+    private static final Path MOCKS = Paths.get("../../src/services/email-parsing/parsers/__tests__/mocks");
+    private static final Path RULES = Paths.get("src/main/assets/statement-rules.json");
+
+    private static StatementFieldEngine engine;
+
+    @BeforeClass
+    public static void loadRules() throws IOException {
+        try (Reader reader = Files.newBufferedReader(RULES, StandardCharsets.UTF_8)) {
+            engine = StatementFieldEngine.fromJson(reader);
+        }
+    }
+
+    @Test
+    public void akbank() throws IOException {
+        StatementFieldEngine.Result result = extractMock("akbank", "akbank-ekstre-sample.html");
+        assertFields(result, "0000", 2022.95, "2025-05-26");
+        assertEquals(804.79, (Double) result.fields.get("minimumPayment"), 0.001);
+    }
+
+    @Test
+    public void garantiTroyAndMastercard() throws IOException {
+        StatementFieldEngine.Result troy = extractMock("garanti", "garanti-ekstre-troy.html");
+        assertFields(troy, "0000", 616.80, "2025-10-21");
+        assertEquals(247.0, (Double) troy.fields.get("minimumPayment"), 0.001);
+
+        assertFields(extractMock("garanti", "garanti-ekstre-mastercard.html"), "9999", 1234.56, "2025-12-15");
+    }
+
+    @Test
+    public void garantiFullyMaskedCardNumber() {
+        String html = "<html><body><span style=\"color:red;\">5549********3700</span>"
+                + "<strong>Toplam Borç Tutarı:</strong><br>+13.775,45 TL"
+                + "<strong>Son Ödeme Tarihi:</strong><br>05.05.2026</body></html>";
+        assertFields(engine.extract("garanti", StatementText.fromHtml(html)), "3700", 13775.45, "2026-05-05");
+    }
+
+    @Test
+    public void kuveytturk() throws IOException {
+        assertFields(extractMock("kuveytturk", "kuveytturk-ekstre-sample.html"), "0000", 2331.23, "2025-03-06");
+    }
+
+    @Test
+    public void qnbWithEnglishTurkishAndDotDecimalAmounts() throws IOException {
+        String html = readMock("qnb-ekstre-sample.html");
+        assertFields(extractHtml("qnb", html), "7890", 1119.55, "2026-01-26");
+        assertFields(extractHtml("qnb", html.replace("1,119.55 TL", "1.250,50 TL")), "7890", 1250.50, "2026-01-26");
+        assertFields(extractHtml("qnb", html.replace("1,119.55 TL", "123.45 TL")), "7890", 123.45, "2026-01-26");
+    }
+
+    @Test
+    public void vakifbank() throws IOException {
+        StatementFieldEngine.Result result = extractMock("vakifbank", "vakifbank-ekstre-sample.html");
+        assertFields(result, "0000", 1234.56, "2026-08-24");
+        assertEquals(250.0, (Double) result.fields.get("minimumPayment"), 0.001);
+    }
+
+    @Test
+    public void yapikrediHasNoAmount() throws IOException {
+        StatementFieldEngine.Result result = extractMock("yapikredi", "yapikredi-ekstre-sample.html");
+        assertEquals("0000", result.fields.get("last4Digits"));
+        assertEquals("2024-05-25", result.fields.get("dueDate"));
+        assertNull(result.fields.get("totalDebt"));
+        assertTrue(result.missingFields.isEmpty());
+    }
+
+    @Test
+    public void ziraat() throws IOException {
+        StatementFieldEngine.Result result = extractMock("ziraat", "ziraat-ekstre-sample.html");
+        assertFields(result, "0000", 5918.54, "2025-04-14");
+        assertEquals(2367.42, (Double) result.fields.get("minimumPayment"), 0.001);
+    }
+
+    @Test
+    public void isbankPdfText() {
+        String pdfText = "0000********1234\nSon Ödeme Tarihi: 22.07.2025\nHesap Özeti Borcu: 2.001,44 TL\n";
+        StatementFieldEngine.Result result = engine.extract("isbank", StatementText.fromPlainText(pdfText));
+        assertFields(result, "1234", 2001.44, "2025-07-22");
+        assertEquals(Collections.singletonList("minimumPayment"), result.missingFields);
+    }
+
+    @Test
+    public void lowerPriorityPatternIsUsedOnlyAsFallback() {
+        StatementFieldEngine custom = StatementFieldEngine.fromJson(new StringReader("{\"banks\":[{\"id\":\"test\",\"fields\":["
+                + "{\"field\":\"totalDebt\",\"type\":\"amount\",\"patterns\":[\"Dönem Borcu:\\\\s*([\\\\d.,]+)\",\"Borç:\\\\s*([\\\\d.,]+)\"]}]}]}"));
+
+        assertEquals(10.5, (Double) custom.extract("test", "Borç: 99,00\nDönem Borcu: 10,50").fields.get("totalDebt"), 0.001);
+        assertEquals(99.0, (Double) custom.extract("test", "Borç: 99,00").fields.get("totalDebt"), 0.001);
+    }
+
+    @Test
+    public void stopsScanningOnceEveryFieldHasItsBestMatch() {
+        String text = "Son Ödeme Tarihi: 22.07.2025 Hesap Özeti Borcu: 1,00 TL 1111 **** **** 2222 Asgari Ödeme Tutarı: 0,50 TL"
+                + String.join("", Collections.nCopies(1000, " diğer işlemler"));
+        StatementFieldEngine.Result result = engine.extract("isbank", text);
+
+        assertTrue(result.missingFields.isEmpty());
+        assertTrue(result.scannedChars < 200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBackReferences() {
+        StatementFieldEngine.fromJson(new StringReader("{\"banks\":[{\"id\":\"x\",\"fields\":[{\"field\":\"a\",\"patterns\":[\"(a)\\\\1\"]}]}]}"));
+    }
+
+    @Test
+    public void rejectsWronglyTypedElementsAsInvalidRules() {
+        String[] invalid = {
+            "{\"banks\":[1]}",
+            "{\"banks\":[{\"id\":\"x\",\"fields\":[\"a\"]}]}",
+            "{\"banks\":[{\"id\":\"x\",\"bankName\":{},\"fields\":[]}]}",
+            "{\"banks\":[{\"id\":\"x\",\"fields\":[{\"field\":\"a\",\"type\":[],\"patterns\":[\"a\"]}]}]}",
+            "{\"banks\":[{\"id\":\"x\",\"fields\":[{\"field\":\"a\",\"patterns\":[[\"a\"]]}]}]}",
+            "{\"banks\":[{\"id\":\"x\",\"fields\":[{\"field\":\"a\",\"patterns\":[{\"pattern\":\"(a)\",\"group\":\"one\"}]}]}]}",
+        };
+        for (String json : invalid) {
+            try {
+                StatementFieldEngine.fromJson(new StringReader(json));
+                fail("Accepted " + json);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void htmlTextKeepsRowsOnSeparateLines() {
+        String text = StatementText.fromHtml("<head><style>td{}</style></head><table><tr><td>Dönem&nbsp;Borcu</td>"
+                + "<td> : </td><td>1.000,00&#43;</td></tr><tr><td>Son</td></tr></table>");
+        assertEquals("Dönem Borcu : 1.000,00+\nSon", text);
+        assertFalse(engine.hasBank("unknown"));
+    }
+
+    private static void assertFields(StatementFieldEngine.Result result, String last4, double totalDebt, String dueDate) {
+        assertEquals(last4, result.fields.get("last4Digits"));
+        assertEquals(totalDebt, (Double) result.fields.get("totalDebt"), 0.001);
+        assertEquals(dueDate, result.fields.get("dueDate"));
+    }
+
+    private static StatementFieldEngine.Result extractMock(String bankId, String mockFile) throws IOException {
+        return extractHtml(bankId, readMock(mockFile));
+    }
+
+    private static StatementFieldEngine.Result extractHtml(String bankId, String html) {
+        return engine.extract(bankId, StatementText.fromHtml(html));
+    }
+
+    private static String readMock(String mockFile) throws IOException {
+        return new String(Files.readAllBytes(MOCKS.resolve(mockFile)), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class StatementValuesTest {
+
+    @Test
+    public void parsesAmountsPerFormat() {
+        assertEquals(1234.56, StatementValues.parseAmount("+1.234,56", "tr"), 0.001);
+        assertEquals(1234.56, StatementValues.parseAmount("1,234.56", "en"), 0.001);
+        assertEquals(-99.99, StatementValues.parseAmount("-99,99", "tr"), 0.001);
+        assertNull(StatementValues.parseAmount("TL", "tr"));
+    }
+
+    @Test
+    public void autoFormatFollowsTheLastSeparator() {
+        assertEquals(1119.55, StatementValues.parseAmount("1,119.55", "auto"), 0.001);
+        assertEquals(1250.50, StatementValues.parseAmount("1.250,50", "auto"), 0.001);
+        assertEquals(123.45, StatementValues.parseAmount("123.45", "auto"), 0.001);
+        assertEquals(1000.0, StatementValues.parseAmount("1.000", "auto"), 0.001);
+        assertEquals(12.5, StatementValues.parseAmount("12,50", "auto"), 0.001);
+    }
+
+    @Test
+    public void parsesNumericAndTurkishMonthDates() {
+        assertEquals("2025-07-22", StatementValues.parseDate("22.07.2025"));
+        assertEquals("2026-01-26", StatementValues.parseDate("26/01/2026"));
+        assertEquals("2024-05-25", StatementValues.parseDate("25 Mayıs 2024"));
+        assertEquals("2024-08-01", StatementValues.parseDate("1 AĞUSTOS 2024"));
+        assertEquals("2024-02-29", StatementValues.parseDate("29.02.2024"));
+        assertNull(StatementValues.parseDate("29.02.2025"));
+        assertNull(StatementValues.parseDate("12 Foo 2025"));
+    }
+
+    @Test
+    public void takesLastFourDigitsOfMaskedCard() {
+        assertEquals("7890", StatementValues.lastFourDigits("1234 56** **** 7890"));
+        assertNull(StatementValues.lastFourDigits("**12"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.codeyzer.ekstre;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StreamingCryptoTest {
+
+    private static final int CHUNK = StreamingCrypto.MIN_CHUNK_SIZE;
+    private static final int SEGMENT = CHUNK + 16;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final StreamingCrypto crypto;
+
+    public StreamingCryptoTest() throws Exception {
+        crypto = new StreamingCrypto(EnvelopeCrypto.newDataKey());
+    }
+
+    @Test
+    public void roundTripsAcrossChunkBoundaries() throws Exception {
+        for (int size : new int[]{0, 1, CHUNK - 1, CHUNK, CHUNK + 1, 3 * CHUNK, 5 * CHUNK + 17}) {
+            byte[] plaintext = randomBytes(size);
+            byte[] sealed = encrypt(plaintext);
+            int chunks = Math.max(1, (size + CHUNK - 1) / CHUNK);
+            assertEquals(StreamingCrypto.HEADER_LENGTH + size + 16L * chunks, sealed.length);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            StreamingCrypto.Stats stats = crypto.decrypt(new ByteArrayInputStream(sealed), out);
+            assertArrayEquals(plaintext, out.toByteArray());
+            assertEquals(chunks, stats.chunks);
+        }
+    }
+
+    @Test
+    public void reportsCorruptedChunkAfterDecryptingEarlierOnes() throws Exception {
+        byte[] sealed = encrypt(randomBytes(4 * CHUNK));
+        sealed[StreamingCrypto.HEADER_LENGTH + 2 * SEGMENT + 5] ^= 1;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertCorruptAt(2, sealed, out);
+        assertEquals(2 * CHUNK, out.size());
+    }
+
+    @Test
+    public void detectsReorderedAndTruncatedChunks() throws Exception {
+        byte[] sealed = encrypt(randomBytes(3 * CHUNK));
+
+        byte[] swapped = sealed.clone();
+        System.arraycopy(sealed, StreamingCrypto.HEADER_LENGTH, swapped, StreamingCrypto.HEADER_LENGTH + SEGMENT, SEGMENT);
+        System.arraycopy(sealed, StreamingCrypto.HEADER_LENGTH + SEGMENT, swapped, StreamingCrypto.HEADER_LENGTH, SEGMENT);
+        assertCorruptAt(0, swapped, new ByteArrayOutputStream());
+
+        // Son parça bayrağı olmayan parçada biten dosya kesilmiş sayılır
+        byte[] truncated = Arrays.copyOf(sealed, StreamingCrypto.HEADER_LENGTH + 2 * SEGMENT);
+        assertCorruptAt(1, truncated, new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void decryptsSingleChunkOfFile() throws Exception {
+        byte[] plaintext = randomBytes(3 * CHUNK + 100);
+        File file = folder.newFile("state.enc");
+        Files.write(file.toPath(), encrypt(plaintext));
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            assertArrayEquals(Arrays.copyOfRange(plaintext, CHUNK, 2 * CHUNK), crypto.decryptChunk(channel, 1));
+            assertArrayEquals(Arrays.copyOfRange(plaintext, 3 * CHUNK, plaintext.length), crypto.decryptChunk(channel, 3));
+        }
+    }
+
+    private byte[] encrypt(byte[] plaintext) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        crypto.encrypt(new ByteArrayInputStream(plaintext), out, CHUNK);
+        return out.toByteArray();
+    }
+
+    private void assertCorruptAt(long chunkIndex, byte[] sealed, ByteArrayOutputStream out) throws Exception {
+        try {
+            crypto.decrypt(new ByteArrayInputStream(sealed), out);
+            fail("Expected chunk " + chunkIndex + " to fail authentication");
+        } catch (StreamingCrypto.CorruptChunkException e) {
+            assertEquals(chunkIndex, e.chunkIndex);
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
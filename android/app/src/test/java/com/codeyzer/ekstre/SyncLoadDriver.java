@@ -0,0 +1,179 @@
+package com.codeyzer.ekstre;
+
+import com.getcapacitor.JSObject;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.gmail.Gmail;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a full mailbox sync through the Gmail handler's request paths: every list page,
+ * then message details and attachments fetched by a worker pool. Reports throughput,
+ * per-message latency percentiles and the peak heap sampled while the sync runs.
+ */
+final class SyncLoadDriver {
+
+    static final class Report {
+        int listed;
+        int synced;
+        int attachments;
+        int failed;
+        int listRetries;
+        final Map<Integer, Integer> failuresByStatus = new TreeMap<>();
+        long elapsedNanos;
+        long p50Micros;
+        long p99Micros;
+        long baselineHeapBytes;
+        long peakHeapBytes;
+
+        double messagesPerSecond() {
+            return elapsedNanos == 0 ? 0 : synced / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("synced=%d/%d attachments=%d failed=%d listRetries=%d %s %.0f msg/s p50=%.1fms p99=%.1fms heap peak=%dMB (baseline %dMB)",
+                    synced, listed, attachments, failed, listRetries, failuresByStatus, messagesPerSecond(),
+                    p50Micros / 1000.0, p99Micros / 1000.0, peakHeapBytes >> 20, baselineHeapBytes >> 20);
+        }
+    }
+
+    private static final int LIST_ATTEMPTS = 3;
+
+    private SyncLoadDriver() {
+    }
+
+    static Report fullSync(Gmail service, String query, int pageSize, int concurrency) throws Exception {
+        Report report = new Report();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        report.baselineHeapBytes = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(report.baselineHeapBytes);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                long used = memory.getHeapMemoryUsage().getUsed();
+                peak.accumulateAndGet(used, Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "sync-heap-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        List<Future<Long>> pending = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            String pageToken = null;
+            do {
+                JSObject page = listWithRetry(service, query, pageSize, pageToken, report);
+                JSONArray messages = page.optJSONArray("messages");
+                if (messages != null) {
+                    for (int i = 0; i < messages.length(); i++) {
+                        String id = messages.getJSONObject(i).getString("id");
+                        pending.add(pool.submit(() -> syncMessage(service, id)));
+                    }
+                    report.listed += messages.length();
+                }
+                pageToken = page.optString("nextPageToken", null);
+            } while (pageToken != null);
+
+            long[] latencies = new long[pending.size()];
+            int n = 0;
+            for (Future<Long> future : pending) {
+                try {
+                    long packed = future.get();
+                    latencies[n++] = packed >>> 8;
+                    report.attachments += (int) (packed & 0xff);
+                    report.synced++;
+                } catch (java.util.concurrent.ExecutionException e) {
+                    recordFailure(report, e.getCause());
+                }
+            }
+            report.elapsedNanos = System.nanoTime() - start;
+            long[] sorted = Arrays.copyOf(latencies, n);
+            Arrays.sort(sorted);
+            report.p50Micros = percentile(sorted, 0.50);
+            report.p99Micros = percentile(sorted, 0.99);
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+            running.set(false);
+            sampler.join();
+        }
+        report.peakHeapBytes = peak.get();
+        return report;
+    }
+
+    /** Returns the message's latency in µs shifted left by 8, with the attachment count in the low byte. */
+    private static long syncMessage(Gmail service, String id) throws Exception {
+        long start = System.nanoTime();
+        JSObject message = GoogleGmailHandler.messageDetails(service, id);
+        int attachments = 0;
+        JSONObject payload = message.optJSONObject("payload");
+        JSONArray parts = payload == null ? null : payload.optJSONArray("parts");
+        if (parts != null) {
+            for (int i = 0; i < parts.length(); i++) {
+                JSONObject body = parts.getJSONObject(i).optJSONObject("body");
+                String attachmentId = body == null ? null : body.optString("attachmentId", null);
+                if (attachmentId != null) {
+                    JSObject attachment = GoogleGmailHandler.attachment(service, id, attachmentId);
+                    if (attachment.getString("data").isEmpty()) {
+                        throw new IllegalStateException("empty attachment " + attachmentId);
+                    }
+                    attachments++;
+                }
+            }
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+        return (micros << 8) | Math.min(attachments, 0xff);
+    }
+
+    private static JSObject listWithRetry(Gmail service, String query, int pageSize, String pageToken, Report report) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return GoogleGmailHandler.listMessages(service, query, pageSize, pageToken);
+            } catch (HttpResponseException e) {
+                if (attempt == LIST_ATTEMPTS) {
+                    throw e;
+                }
+                report.listRetries++;
+                report.failuresByStatus.merge(e.getStatusCode(), 1, Integer::sum);
+            }
+        }
+    }
+
+    /** A message that could not be synced; status -1 means a non-HTTP failure. */
+    private static void recordFailure(Report report, Throwable error) {
+        int status = error instanceof HttpResponseException ? ((HttpResponseException) error).getStatusCode() : -1;
+        report.failed++;
+        report.failuresByStatus.merge(status, 1, Integer::sum);
+    }
+
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,123 @@
+package com.codeyzer.ekstre;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Inputs shared by the benchmarks: statement-like PDFs, the bank e-mail mocks of the JS parser
+ * tests and Gmail API responses built from them.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /** Same layout as the app's PdfFixtures: a header and 30 transaction rows per page. */
+    static void writeStatement(File target, int pageCount) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int p = 1; p <= pageCount; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    showLine(contents, PDType1Font.HELVETICA_BOLD, 14, 40, 750, "Hesap Özeti - Kredi Karti Ekstresi");
+                    showLine(contents, PDType1Font.HELVETICA, 10, 40, 730, "Son Ödeme Tarihi: 22.07.2025   Dönem Borcu: 2.001,44 TL");
+                    for (int row = 0; row < 30; row++) {
+                        float y = 700 - row * 20;
+                        int amount = (p * 37 + row * 11) % 5000;
+                        showLine(contents, PDType1Font.HELVETICA, 9, 40, y, (row + 1) + "." + ((p % 12) + 1) + ".2025");
+                        showLine(contents, PDType1Font.HELVETICA, 9, 120, y, "MARKET ALISVERIS " + p + "-" + row);
+                        showLine(contents, PDType1Font.HELVETICA, 9, 480, y, amount + "," + (row * 7 % 100) + " TL");
+                    }
+                    showLine(contents, PDType1Font.HELVETICA_OBLIQUE, 8, 280, 40, "Sayfa " + p + "/" + pageCount);
+                }
+            }
+            document.save(target);
+        }
+    }
+
+    private static void showLine(PDPageContentStream contents, PDFont font, float size, float x, float y, String text) throws IOException {
+        contents.beginText();
+        contents.setFont(font, size);
+        contents.newLineAtOffset(x, y);
+        contents.showText(text);
+        contents.endText();
+    }
+
+    /** HTML bodies of the bank e-mail mocks, sorted by file name. */
+    static List<String> mockEmails() throws IOException {
+        String dir = System.getProperty("ekstre.mocksDir");
+        File[] files = dir != null ? new File(dir).listFiles((parent, name) -> name.endsWith(".html")) : null;
+        if (files == null || files.length == 0) {
+            throw new IOException("No mock e-mails found; set -Dekstre.mocksDir (build.gradle does this)");
+        }
+        Arrays.sort(files);
+        List<String> emails = new ArrayList<>();
+        for (File file : files) {
+            emails.add(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        }
+        return emails;
+    }
+
+    /**
+     * A {@code users.messages.get?format=FULL} response for {@code html}: multipart/mixed with a
+     * multipart/alternative (plain + HTML) and a PDF attachment stub, bodies base64url-encoded the
+     * way the Gmail API returns them.
+     */
+    static String gmailMessageJson(String id, String html) {
+        String plain = html.replaceAll("<[^>]+>", " ");
+        return "{\"id\":\"" + id + "\",\"threadId\":\"" + id + "\",\"labelIds\":[\"INBOX\",\"CATEGORY_UPDATES\"],"
+                + "\"snippet\":\"Kredi kartı hesap özetiniz\",\"historyId\":\"1234567\",\"internalDate\":\"1752000000000\","
+                + "\"sizeEstimate\":" + (html.length() * 2) + ",\"payload\":{\"partId\":\"\",\"mimeType\":\"multipart/mixed\","
+                + "\"filename\":\"\",\"headers\":["
+                + header("From", "Banka <ekstre@banka.com.tr>") + ","
+                + header("To", "kullanici@gmail.com") + ","
+                + header("Subject", "Kredi Kartı Hesap Özeti") + ","
+                + header("Date", "Tue, 8 Jul 2025 09:12:44 +0300") + ","
+                + header("Content-Type", "multipart/mixed; boundary=\\\"000000000000a1b2c3\\\"")
+                + "],\"body\":{\"size\":0},\"parts\":["
+                + "{\"partId\":\"0\",\"mimeType\":\"multipart/alternative\",\"filename\":\"\",\"headers\":[],\"body\":{\"size\":0},\"parts\":["
+                + bodyPart("0.0", "text/plain", plain) + ","
+                + bodyPart("0.1", "text/html", html)
+                + "]},"
+                + "{\"partId\":\"1\",\"mimeType\":\"application/pdf\",\"filename\":\"ekstre.pdf\",\"headers\":["
+                + header("Content-Disposition", "attachment; filename=\\\"ekstre.pdf\\\"")
+                + "],\"body\":{\"attachmentId\":\"ANGjdJ" + id + "\",\"size\":184233}}"
+                + "]}}";
+    }
+
+    private static String header(String name, String value) {
+        return "{\"name\":\"" + name + "\",\"value\":\"" + value + "\"}";
+    }
+
+    private static String bodyPart(String partId, String mimeType, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String data = Base64.getUrlEncoder().encodeToString(bytes);
+        return "{\"partId\":\"" + partId + "\",\"mimeType\":\"" + mimeType + "\",\"filename\":\"\",\"headers\":["
+                + header("Content-Type", mimeType + "; charset=\\\"UTF-8\\\"") + ","
+                + header("Content-Transfer-Encoding", "quoted-printable")
+                + "],\"body\":{\"size\":" + bytes.length + ",\"data\":\"" + data + "\"}}";
+    }
+
+    /** JSON shaped like persisted statements, so the payload is not all one byte. */
+    static byte[] syntheticState(int size) {
+        StringBuilder json = new StringBuilder(size + 128).append("{\"transactions\":[");
+        for (int i = 0; json.length() < size; i++) {
+            json.append("{\"id\":").append(i).append(",\"description\":\"MARKET ALISVERIS ").append(i * 7919 % 1000)
+                    .append("\",\"amount\":").append(i * 31 % 5000).append(".45,\"date\":\"2025-05-")
+                    .append(10 + i % 18).append("\"},");
+        }
+        return json.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,73 @@
+package com.codeyzer.ekstre;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * AES-GCM at persisted-state sizes: the envelope path SecureStoragePlugin uses by default, the
+ * streaming file format, and a per-call Cipher lookup and init as the baseline.
+ *
+ * The Keystore is not available off-device, so the baseline is only the setup the Keystore path
+ * pays before its IPC. The on-device comparison comes from SecureStorage.getCryptoMetrics.
+ */
+@State(Scope.Thread)
+public class EnvelopeCryptoBenchmark {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Param({"4096", "65536", "524288", "4194304"})
+    public int size;
+
+    private SecretKey dataKey;
+    private EnvelopeCrypto envelope;
+    private StreamingCrypto streaming;
+    private byte[] state;
+    private byte[] sealed;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        dataKey = EnvelopeCrypto.newDataKey();
+        envelope = new EnvelopeCrypto(dataKey);
+        streaming = new StreamingCrypto(dataKey);
+        state = BenchmarkFixtures.syntheticState(size);
+        sealed = envelope.encrypt(state);
+    }
+
+    @Benchmark
+    public byte[] envelopeEncrypt() throws GeneralSecurityException {
+        return envelope.encrypt(state);
+    }
+
+    @Benchmark
+    public byte[] envelopeDecrypt() throws GeneralSecurityException {
+        return envelope.decrypt(sealed);
+    }
+
+    @Benchmark
+    public byte[] perCallEncrypt() throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        byte[] iv = new byte[EnvelopeCrypto.IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        cipher.init(Cipher.ENCRYPT_MODE, dataKey, new GCMParameterSpec(EnvelopeCrypto.GCM_TAG_LENGTH, iv));
+        return cipher.doFinal(state);
+    }
+
+    @Benchmark
+    public long streamingEncrypt() throws IOException, GeneralSecurityException {
+        return streaming.encrypt(new ByteArrayInputStream(state), OutputStream.nullOutputStream(),
+                StreamingCrypto.DEFAULT_CHUNK_SIZE).chunks;
+    }
+}
@@ -0,0 +1,93 @@
+package com.codeyzer.ekstre;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePart;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Gmail path of a statement e-mail, one operation per mock bank e-mail:
+ * <ul>
+ *     <li>{@link #parseResponse}: response JSON to the API model, as the HTTP client does</li>
+ *     <li>{@link #toJSObject}: model back to JSON and into a JSONObject, as GoogleGmailHandler does
+ *     before resolving (JSObject is a JSONObject)</li>
+ *     <li>{@link #decodeHtmlBody}: finding the text/html part and decoding its base64url body</li>
+ *     <li>{@link #htmlToText}: the same plus {@link StatementText#fromHtml}, the input of the field rules</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+public class GmailMessageBenchmark {
+
+    private static final GsonFactory JSON = GsonFactory.getDefaultInstance();
+
+    private List<String> responses;
+    private List<Message> messages;
+
+    @Setup
+    public void setUp() throws IOException {
+        responses = new ArrayList<>();
+        messages = new ArrayList<>();
+        List<String> emails = BenchmarkFixtures.mockEmails();
+        for (int i = 0; i < emails.size(); i++) {
+            String response = BenchmarkFixtures.gmailMessageJson("1980f3c2a" + i, emails.get(i));
+            responses.add(response);
+            messages.add(JSON.fromString(response, Message.class));
+        }
+    }
+
+    @Benchmark
+    public void parseResponse(Blackhole blackhole) throws IOException {
+        for (String response : responses) {
+            blackhole.consume(JSON.fromString(response, Message.class));
+        }
+    }
+
+    @Benchmark
+    public void toJSObject(Blackhole blackhole) throws IOException, JSONException {
+        for (Message message : messages) {
+            blackhole.consume(new JSONObject(JSON.toString(message)));
+        }
+    }
+
+    @Benchmark
+    public void decodeHtmlBody(Blackhole blackhole) {
+        for (Message message : messages) {
+            blackhole.consume(htmlBody(message.getPayload()));
+        }
+    }
+
+    @Benchmark
+    public void htmlToText(Blackhole blackhole) {
+        for (Message message : messages) {
+            blackhole.consume(StatementText.fromHtml(htmlBody(message.getPayload())));
+        }
+    }
+
+    /** Depth-first search for the first text/html part, decoded as UTF-8. */
+    static String htmlBody(MessagePart part) {
+        if ("text/html".equals(part.getMimeType()) && part.getBody() != null && part.getBody().getData() != null) {
+            return new String(part.getBody().decodeData(), StandardCharsets.UTF_8);
+        }
+        if (part.getParts() != null) {
+            for (MessagePart child : part.getParts()) {
+                String html = htmlBody(child);
+                if (html != null) {
+                    return html;
+                }
+            }
+        }
+        return null;
+    }
+}
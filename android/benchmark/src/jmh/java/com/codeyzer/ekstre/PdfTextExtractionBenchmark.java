@@ -0,0 +1,54 @@
+package com.codeyzer.ekstre;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/** Load plus full text extraction of a statement PDF, as PdfParserPlugin does in sequential text mode. */
+@State(Scope.Benchmark)
+public class PdfTextExtractionBenchmark {
+
+    // PdfParserPlugin.DEFAULT_MAX_MAIN_MEMORY_BYTES
+    private static final long MAX_MAIN_MEMORY_BYTES = 8L * 1024 * 1024;
+
+    @Param({"1", "8", "32"})
+    public int pages;
+
+    private File pdf;
+    private File scratchDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        scratchDir = Files.createTempDirectory("pdf-bench").toFile();
+        pdf = new File(scratchDir, "statement-" + pages + ".pdf");
+        BenchmarkFixtures.writeStatement(pdf, pages);
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = scratchDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        scratchDir.delete();
+    }
+
+    @Benchmark
+    public String extractText() throws IOException {
+        try (PDDocument document = PDDocument.load(pdf, MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES).setTempDir(scratchDir))) {
+            return new PDFTextStripper().getText(document);
+        }
+    }
+}
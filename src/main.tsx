@@ -4,6 +4,7 @@ import { Provider } from 'react-redux';
 import { PersistGate } from 'redux-persist/integration/react';
 import { Capacitor } from '@capacitor/core';
 import { initializeStore, getStore, getPersistor } from './store';
+import { restoreGoogleSession } from './utils/googleApiClient';
 import { SecureStorage } from './plugins/secure-storage';
 import App from './App';
 import { Preferences } from '@capacitor/preferences';
@@ -24,6 +25,13 @@ const FatalErrorScreen = ({ message }: { message: string }) => (
 // Preferences'ta şifreli Redux anahtarını saklamak için anahtar
 const ENCRYPTED_REDUX_KEY_PREF = 'redux_secret_key_encrypted_v1';
 
+// Envelope veri anahtarı açılamadıysa son denemede (veriler bırakılırken) yenilenir
+let envelopeKeyFailed = false;
+
+function isDataKeyError(error: any): boolean {
+  return error?.code === 'DATA_KEY_UNAVAILABLE' || error?.code === 'DATA_KEY_LOST';
+}
+
 // Güvenli rastgele string anahtar oluşturma fonksiyonu
 function generateRandomKey(length = 32): string {
   const array = new Uint8Array(length);
@@ -98,7 +106,12 @@ async function getReduxEncryptionKey(): Promise<string> {
         const { decryptedData } = await SecureStorage.decryptString({ encryptedData: encryptedKey });
         console.log('[Key Init] Decryption successful.');
         return decryptedData;
-      } catch (decryptError) {
+      } catch (decryptError: any) {
+        if (isDataKeyError(decryptError)) {
+          // Şifreli anahtar silinmez: geçici bir hataysa sonraki deneme çözebilir
+          envelopeKeyFailed = true;
+          throw decryptError;
+        }
         console.error('[Key Init] CRITICAL: Failed to decrypt existing key. Data might be lost!', decryptError);
         await Preferences.remove({ key: ENCRYPTED_REDUX_KEY_PREF });
         // Yeni anahtar oluşturma adımına devam et
@@ -108,7 +121,12 @@ async function getReduxEncryptionKey(): Promise<string> {
     console.log('[Key Init] No valid encrypted key found or decryption failed. Generating new key...');
     const newKey = generateRandomKey();
     console.log('[Key Init] New key generated. Encrypting and storing...');
-    const { encryptedData } = await SecureStorage.encryptString({ data: newKey });
+    const { encryptedData } = await SecureStorage.encryptString({ data: newKey }).catch((error) => {
+      if (isDataKeyError(error)) {
+        envelopeKeyFailed = true;
+      }
+      throw error;
+    });
     await Preferences.set({ key: ENCRYPTED_REDUX_KEY_PREF, value: encryptedData });
     console.log('[Key Init] New encrypted key stored in Preferences.');
     return newKey;
@@ -137,6 +155,12 @@ const startApp = async (retryCount = 0): Promise<void> => {
       console.log('[Main] Final retry: Clearing all persisted data...');
       await storage.removeItem('persist:root');
       await Preferences.remove({ key: ENCRYPTED_REDUX_KEY_PREF });
+      if (envelopeKeyFailed) {
+        // Veriler zaten bırakıldı; açılamayan envelope veri anahtarı yalnızca burada yenilenir
+        await SecureStorage.resetDataKey().catch((error) => {
+          console.warn('[Main] Could not reset the envelope data key:', error);
+        });
+      }
     }
 
     // Yeni anahtar yönetim fonksiyonunu çağır
@@ -152,7 +176,8 @@ const startApp = async (retryCount = 0): Promise<void> => {
     root.render(
       <React.StrictMode>
         <Provider store={store}>
-          <PersistGate loading={<div>Uygulama yükleniyor...</div>} persistor={persistor}>
+          {/* Oturum geri yüklemesi beklenmez; ilk ekran ağdan bağımsız açılır */}
+          <PersistGate loading={<div>Uygulama yükleniyor...</div>} persistor={persistor} onBeforeLift={() => { void restoreGoogleSession(); }}>
             <App />
           </PersistGate>
         </Provider>
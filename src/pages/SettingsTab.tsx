@@ -6,6 +6,8 @@ import { Share } from '@capacitor/share';
 import { Clipboard } from '@capacitor/clipboard';
 import { Filesystem, Directory, Encoding } from '@capacitor/filesystem';
 import { cloudDownloadOutline, cloudUploadOutline, documentOutline } from 'ionicons/icons';
+import { GoogleAuth } from '@plugins/google-auth';
+import type { GoogleAccountInfo } from '@plugins/google-auth';
 
 // Redux importları
 import { useSelector, useDispatch } from 'react-redux';
@@ -39,6 +41,57 @@ const SettingsTab: React.FC = () => {
   const [importText, setImportText] = useState('');
   const fileInputRef = useRef<HTMLInputElement>(null);
 
+  // Ekstre aramasına eklenmiş diğer Gmail hesapları (yalnızca native)
+  const [googleAccounts, setGoogleAccounts] = useState<GoogleAccountInfo[]>([]);
+  const isNative = Capacitor.isNativePlatform();
+
+  useEffect(() => {
+    if (!userInfo || !isNative) {
+      setGoogleAccounts([]);
+      return;
+    }
+    GoogleAuth.listGoogleAccounts()
+      .then(result => setGoogleAccounts(result.accounts))
+      .catch(error => console.error('SettingsTab: listGoogleAccounts hatası:', error));
+  }, [userInfo, isNative]);
+
+  const handleAddGoogleAccount = async () => {
+    try {
+      const result = await GoogleAuth.addGoogleAccount();
+      setGoogleAccounts(result.accounts);
+      dispatch(addToast({ message: `${result.account.email} eklendi.`, duration: 2000, color: 'success' }));
+    } catch (error: any) {
+      console.error('SettingsTab: addGoogleAccount hatası:', error);
+      dispatch(addToast({
+        message: `Hesap eklenemedi: ${error?.message || 'Bilinmeyen bir hata oluştu.'}`,
+        duration: 3000,
+        color: 'danger'
+      }));
+    }
+  };
+
+  const handleRemoveGoogleAccount = (email: string) => {
+    presentAlert({
+      header: 'Hesabı Kaldır',
+      message: `${email} ekstre aramasından kaldırılsın mı?`,
+      buttons: [
+        { text: 'İptal', role: 'cancel' },
+        {
+          text: 'Kaldır',
+          role: 'destructive',
+          handler: () => {
+            GoogleAuth.removeGoogleAccount({ account: email })
+              .then(result => setGoogleAccounts(result.accounts))
+              .catch((error: any) => {
+                console.error('SettingsTab: removeGoogleAccount hatası:', error);
+                dispatch(addToast({ message: `Hesap kaldırılamadı: ${error?.message || error}`, duration: 3000, color: 'danger' }));
+              });
+          },
+        },
+      ],
+    });
+  };
+
   // Export fonksiyonu - dosya olarak kaydedip paylaş
   const handleExport = async () => {
     try {
@@ -242,6 +295,24 @@ const SettingsTab: React.FC = () => {
             </div>
         )}
 
+        {/* Ek Gmail hesapları: ekstreler tüm hesaplarda paralel aranır */}
+        {userInfo && isNative && (
+            <div style={{ marginBottom: '15px', marginTop: '20px' }}>
+                <p style={{ marginBottom: '10px', fontWeight: 'bold' }}>Ek Gmail Hesapları</p>
+                {googleAccounts.filter(account => !account.primary).map(account => (
+                  <IonItem key={account.email}>
+                    <IonLabel>{account.email}</IonLabel>
+                    <IonButton slot="end" fill="clear" color="danger" onClick={() => handleRemoveGoogleAccount(account.email)}>
+                      Kaldır
+                    </IonButton>
+                  </IonItem>
+                ))}
+                <IonButton expand="block" fill="outline" onClick={handleAddGoogleAccount}>
+                    Gmail Hesabı Ekle
+                </IonButton>
+            </div>
+        )}
+
         {/* Giriş yapılmamışsa bilgi mesajı */}
         {!userInfo && (
              <div style={{ marginBottom: '15px' }}> 
@@ -1,4 +1,8 @@
 // google-auth/definitions.ts
+import type { PluginListenerHandle } from '@capacitor/core';
+
+import type { AckResultChunkOptions, ResultChunkEvent, ResultStreamOptions } from '../result-stream';
+
 export interface GoogleUser {
   id: string;
   name: string | null;
@@ -17,6 +21,36 @@ export interface GoogleUser {
    * The server auth code. Useful for requesting offline access tokens.
    */
   // serverAuthCode?: string; // Gerekirse etkinleştirilebilir
+  /**
+   * True when the profile came from the session stored on the device without going to the network
+   * (the trySilentSignIn instant path); up-to-date details follow in a 'sessionRefreshed' event.
+   * A profile from the Firebase cache has an empty idToken.
+   */
+  cached?: boolean;
+}
+
+export interface TrySilentSignInOptions {
+  /**
+   * Resolves without waiting for the network when a valid session is stored on the device; the
+   * session is refreshed in the background. Default: true. Pass false when a refreshed session is
+   * required (e.g. after an authorization error).
+   */
+  instant?: boolean;
+}
+
+export interface SessionRefreshedEvent {
+  user: GoogleUser;
+  /**
+   * true: the refresh failed with a network error and the cached session is still in use
+   */
+  stale: boolean;
+  code?: 'NETWORK_ERROR';
+}
+
+export interface SessionExpiredEvent {
+  provider: 'google' | 'firebase';
+  code: 'SIGN_IN_REQUIRED' | 'SIGN_IN_API_ERROR' | 'FIREBASE_AUTH_ERROR';
+  message: string;
 }
 
 export interface GoogleAuthPlugin {
@@ -30,8 +64,10 @@ export interface GoogleAuthPlugin {
    * Resolves with user data if successful.
    * Rejects if silent sign-in fails (e.g., user needs to sign in manually).
    * Common rejection codes: 'SIGN_IN_REQUIRED'
+   * With instant (default), a cached session resolves immediately and the outcome of the
+   * background refresh arrives as 'sessionRefreshed' or 'sessionExpired'.
    */
-  trySilentSignIn(): Promise<GoogleUser>;
+  trySilentSignIn(options?: TrySilentSignInOptions): Promise<GoogleUser>;
 
   /**
    * Sign the user out.
@@ -56,6 +92,23 @@ export interface GoogleAuthPlugin {
    */
   updateCalendarEvent(options: CalendarUpdateOptions): Promise<CalendarUpdateResponse>;
 
+  /**
+   * Selects the HTTP layer for Gmail/Calendar requests. 'okHttp' uses HTTP/2 multiplexing and a
+   * connection pool; see the NativeMetrics 'googleHttp' section to compare them.
+   */
+  configureHttpTransport(options: HttpTransportOptions): Promise<HttpTransportStats>;
+
+  /**
+   * Sends the signed-in account's queued Calendar writes in batch requests. This also happens
+   * automatically when the network returns, when the session is refreshed, when the Calendar
+   * circuit's open window ends or the circuit closes, and with backoff while writes answered with
+   * 5xx/429 remain; the result is additionally delivered through 'calendarQueueFlushed'.
+   * After repeated network failures Gmail/Calendar calls are rejected immediately with
+   * 'CIRCUIT_OPEN', or 'OFFLINE' when the device also reports no network;
+   * createCalendarEvent/updateCalendarEvent queue the write instead.
+   */
+  flushCalendarQueue(): Promise<CalendarQueueFlushResult>;
+
   // --- GMAIL METODLARI ---
   /**
    * Searches messages matching the query.
@@ -78,6 +131,61 @@ export interface GoogleAuthPlugin {
    */
   getGmailAttachment(options: GmailAttachmentOptions): Promise<GmailAttachmentResponse>;
 
+  /**
+   * PDF attachments of messages from the given senders are downloaded in the background as soon as
+   * native code fetches the message details; the following getGmailAttachment is served from memory.
+   * Effectiveness (hits / wasted bytes) is in the NativeMetrics 'gmailPrefetch' section.
+   */
+  configureAttachmentPrefetch(options: AttachmentPrefetchOptions): Promise<AttachmentPrefetchStats>;
+
+  /**
+   * Runs the queries in every added Google account (the primary one included) at once and groups
+   * the results by account. The total time is close to that of the slowest account. An
+   * authorization error in one account does not stop the others; it is returned as error/code in
+   * that account's result.
+   */
+  searchGmailMessagesAllAccounts(options: GmailAllAccountsSearchOptions): Promise<GmailAllAccountsSearchResponse>;
+
+  // --- ÇOKLU HESAP ---
+
+  /**
+   * Adds another Google account for Gmail searches without changing the primary session (opens the account picker).
+   */
+  addGoogleAccount(): Promise<AddGoogleAccountResponse>;
+
+  listGoogleAccounts(): Promise<GoogleAccountsResponse>;
+
+  /**
+   * Removes an added account and its sync checkpoints. The primary account can only leave through
+   * signOut ('PRIMARY_ACCOUNT').
+   */
+  removeGoogleAccount(options: RemoveGoogleAccountOptions): Promise<RemoveGoogleAccountResponse>;
+
+  /**
+   * Acknowledges chunks of a streamed result (see callStreamed in ../result-stream).
+   */
+  ackResultChunk(options: AckResultChunkOptions): Promise<{ active: boolean }>;
+
+  addListener(
+    eventName: 'resultChunk',
+    listenerFunc: (event: ResultChunkEvent) => void,
+  ): Promise<PluginListenerHandle>;
+
+  addListener(
+    eventName: 'sessionRefreshed',
+    listenerFunc: (event: SessionRefreshedEvent) => void,
+  ): Promise<PluginListenerHandle>;
+
+  addListener(
+    eventName: 'sessionExpired',
+    listenerFunc: (event: SessionExpiredEvent) => void,
+  ): Promise<PluginListenerHandle>;
+
+  addListener(
+    eventName: 'calendarQueueFlushed',
+    listenerFunc: (event: CalendarQueueFlushResult) => void,
+  ): Promise<PluginListenerHandle>;
+
   /**
    * Attempt to sign in silently without user interaction.
    * Returns the user if already signed in, otherwise null.
@@ -104,6 +212,11 @@ export interface CalendarEventResponse {
   htmlLink?: string;
   summary?: string;
   // Native plugin'den dönebilecek diğer alanlar...
+  /** Queued while offline; id is the event id the flush will use. */
+  queued?: boolean;
+  queueId?: string;
+  /** Writes queued for the signed-in account. */
+  pending?: number;
 }
 
 export interface CalendarSearchResponse {
@@ -122,16 +235,110 @@ export interface CalendarUpdateResponse {
   id: string;
   summary?: string;
   updated: boolean;
+  queued?: boolean;
+  queueId?: string;
+  pending?: number;
+}
+
+export interface CalendarQueueFlushEntry {
+  queueId: string;
+  op: 'insert' | 'patch';
+  id: string;
+  /**
+   * duplicate: the event already existed; retry: still queued, and later writes to the same event
+   * wait with it without being listed; failed: permanent error, removed from the queue.
+   */
+  status: 'sent' | 'duplicate' | 'retry' | 'failed';
+  error?: string;
+}
+
+export interface CalendarQueueFlushResult {
+  sent: number;
+  duplicates: number;
+  failed: number;
+  remaining: number;
+  results: CalendarQueueFlushEntry[];
+}
+
+// --- HTTP TAŞIMA KATMANI ---
+
+export interface HttpTransportOptions {
+  /**
+   * Default 'netHttp' (HttpURLConnection)
+   */
+  transport?: 'netHttp' | 'okHttp';
+  /**
+   * okHttp only: maximum idle connections kept in the pool (default 5)
+   */
+  maxIdleConnections?: number;
+  /**
+   * okHttp only: seconds an idle connection is kept before it is closed (default 300)
+   */
+  keepAliveSeconds?: number;
+}
+
+export interface HttpTransportStats {
+  transport: 'netHttp' | 'okHttp';
+  maxIdleConnections?: number;
+  keepAliveSeconds?: number;
+  connections?: number;
+  idleConnections?: number;
+  requests?: number;
+  http2Responses?: number;
+  gzipResponses?: number;
+  /**
+   * Clients built because a request asked for other timeouts than the shared client's; normally 0
+   */
+  derivedClients?: number;
 }
 
 // --- GMAIL ARAYÜZLERİ ---
 
+export interface AttachmentPrefetchOptions {
+  /** Default true; false also drops the attachments held in memory */
+  enabled?: boolean;
+  /** Email addresses in the From header */
+  senders: string[];
+  /** Total attachment size kept in memory (base64 characters); default 16 MB */
+  maxBytes?: number;
+}
+
+export interface AttachmentPrefetchStats {
+  enabled: boolean;
+  senders: number;
+  entries: number;
+  bytes: number;
+  maxBytes: number;
+  prefetched: number;
+  prefetchedBytes: number;
+  failures: number;
+  /** Messages not prefetched because the Gmail circuit was open or probing */
+  circuitSkipped: number;
+  hits: number;
+  /** Requests that arrived before the download finished and joined it */
+  joinedInFlight: number;
+  misses: number;
+  usefulBytes: number;
+  /** Attachments dropped from memory without ever being requested */
+  wasted: number;
+  wastedBytes: number;
+  /** Dropped by maxBytes and the age limit (LRU) */
+  evicted: number;
+  evictedBytes: number;
+  /** Dropped by MemoryBudget under memory pressure */
+  pressureEvicted: number;
+  pressureEvictedBytes: number;
+  hitRate: number;
+}
+
 // searchGmailMessages için Opsiyonlar
 export interface GmailSearchOptions {
   accessToken: string;
+  /** Email of one of the added accounts; the primary account when omitted */
+  account?: string;
   query: string;
-  // maxResults?: number; // Opsiyonel, native tarafta implemente edilirse eklenebilir
-  // pageToken?: string; // Opsiyonel
+  maxResults?: number; // Sayfa boyutu; verilmezse Gmail varsayılanı (100)
+  pageToken?: string; // Önceki yanıtın nextPageToken değeri
 }
 
 // searchGmailMessages için Yanıt (Gmail API ListMessagesResponse yapısına benzer)
@@ -144,7 +351,12 @@ export interface GmailSearchResponse {
 // getGmailMessageDetails için Opsiyonlar
 export interface GmailDetailsOptions {
   accessToken: string;
+  account?: string;
   messageId: string;
+  /**
+   * When set, a large response arrives in pieces through 'resultChunk' events
+   */
+  stream?: ResultStreamOptions;
 }
 
 // getGmailMessageDetails için Yanıt (Gmail API Message yapısına benzer)
@@ -182,6 +394,84 @@ export type GmailAttachmentResponse = GmailMessagePartBody;
 // getGmailAttachment için Opsiyonlar
 export interface GmailAttachmentOptions {
   accessToken: string;
+  account?: string;
   messageId: string;
   attachmentId: string;
-} 
\ No newline at end of file
+  /**
+   * When set, a large response arrives in pieces through 'resultChunk' events
+   */
+  stream?: ResultStreamOptions;
+}
+
+// --- ÇOKLU HESAP ARAYÜZLERİ ---
+
+export interface GoogleAccountInfo {
+  email: string;
+  id?: string;
+  name?: string;
+  imageUrl?: string;
+  /** The account the Firebase session belongs to */
+  primary: boolean;
+  addedAt?: number;
+}
+
+export interface GoogleAccountsResponse {
+  accounts: GoogleAccountInfo[];
+}
+
+export interface AddGoogleAccountResponse extends GoogleAccountsResponse {
+  account: GoogleAccountInfo;
+}
+
+export interface RemoveGoogleAccountOptions {
+  account: string;
+}
+
+export interface RemoveGoogleAccountResponse extends GoogleAccountsResponse {
+  removed: boolean;
+}
+
+export interface GmailAccountQuery {
+  /** Identifies the results and the per-account checkpoint (e.g. the bank name) */
+  key: string;
+  query: string;
+}
+
+export interface GmailAllAccountsSearchOptions {
+  queries: GmailAccountQuery[];
+  /** Maximum messages per account and query (default 10) */
+  maxResults?: number;
+  /** When true, messages are full GmailMessage objects (no separate getGmailMessageDetails needed) */
+  includeDetails?: boolean;
+  /** Concurrent requests; capped by the native budget (6) */
+  maxParallel?: number;
+  stream?: ResultStreamOptions;
+}
+
+export interface GmailAccountQueryResult {
+  key: string;
+  /** Full messages with includeDetails; a message whose details could not be fetched carries error/code */
+  messages: (GmailMessage & { error?: string; code?: string })[];
+  resultSizeEstimate?: number;
+  /** Messages received since the previous sync (at the head of the list) */
+  newMessages?: number;
+  newestMessageId?: string;
+  error?: string;
+  code?: string;
+}
+
+export interface GmailAccountSearchResult {
+  account: string;
+  results: GmailAccountQueryResult[];
+  elapsedMs: number;
+  detailFailures?: number;
+  /** The account's remaining queries were skipped (e.g. access was revoked) */
+  error?: string;
+  code?: string;
+}
+
+export interface GmailAllAccountsSearchResponse {
+  accounts: GmailAccountSearchResult[];
+  elapsedMs: number;
+  maxParallel: number;
+}
@@ -1,6 +1,6 @@
 import { WebPlugin } from '@capacitor/core';
 
-import type { GoogleAuthPlugin, GoogleUser } from './definitions';
+import type { GoogleAuthPlugin, GoogleUser, TrySilentSignInOptions } from './definitions';
 
 export class GoogleAuthWeb extends WebPlugin implements GoogleAuthPlugin {
   private user: GoogleUser | null = null; // Mock kullanıcıyı saklamak için
@@ -32,8 +32,8 @@ export class GoogleAuthWeb extends WebPlugin implements GoogleAuthPlugin {
     return mockUser;
   }
 
-  async trySilentSignIn(): Promise<GoogleUser> {
-    console.log('GoogleAuthWeb.trySilentSignIn() called');
+  async trySilentSignIn(options?: TrySilentSignInOptions): Promise<GoogleUser> {
+    console.log('GoogleAuthWeb.trySilentSignIn() called', options);
     // Eğer daha önce mock sign-in yapıldıysa, o kullanıcıyı döndür.
     if (this.user) {
         console.log('Silent sign-in successful (found mock user)');
@@ -83,6 +83,16 @@ export class GoogleAuthWeb extends WebPlugin implements GoogleAuthPlugin {
     });
   }
 
+  async flushCalendarQueue(): Promise<import("./definitions").CalendarQueueFlushResult> {
+    console.warn('GoogleAuthWeb.flushCalendarQueue() called on web. No-op.');
+    return Promise.resolve({ sent: 0, duplicates: 0, failed: 0, remaining: 0, results: [] });
+  }
+
+  async configureHttpTransport(options: import("./definitions").HttpTransportOptions): Promise<import("./definitions").HttpTransportStats> {
+    console.warn('GoogleAuthWeb.configureHttpTransport() called on web. No-op.', options);
+    return Promise.resolve({ transport: options.transport ?? 'netHttp' });
+  }
+
   // --- Web Platformu için Gmail Metodları (Mock Implementasyon) ---
 
   async searchGmailMessages(options: import("./definitions").GmailSearchOptions): Promise<import("./definitions").GmailSearchResponse> {
@@ -108,4 +118,37 @@ export class GoogleAuthWeb extends WebPlugin implements GoogleAuthPlugin {
     return Promise.resolve({ size: 0, data: '' });
   }
 
+  async configureAttachmentPrefetch(options: import("./definitions").AttachmentPrefetchOptions): Promise<import("./definitions").AttachmentPrefetchStats> {
+    console.warn('GoogleAuthWeb.configureAttachmentPrefetch() called on web. No-op.', options);
+    return Promise.resolve({
+      enabled: false, senders: 0, entries: 0, bytes: 0, maxBytes: 0, prefetched: 0, prefetchedBytes: 0, failures: 0,
+      hits: 0, joinedInFlight: 0, misses: 0, usefulBytes: 0, wasted: 0, wastedBytes: 0,
+      evicted: 0, evictedBytes: 0, pressureEvicted: 0, pressureEvictedBytes: 0, hitRate: 0
+    });
+  }
+
+  async searchGmailMessagesAllAccounts(options: import("./definitions").GmailAllAccountsSearchOptions): Promise<import("./definitions").GmailAllAccountsSearchResponse> {
+    console.warn('GoogleAuthWeb.searchGmailMessagesAllAccounts() called on web. Mock response returned.', options);
+    return Promise.resolve({ accounts: [], elapsedMs: 0, maxParallel: 0 });
+  }
+
+  async addGoogleAccount(): Promise<import("./definitions").AddGoogleAccountResponse> {
+    throw this.unimplemented('addGoogleAccount is not available on web.');
+  }
+
+  async listGoogleAccounts(): Promise<import("./definitions").GoogleAccountsResponse> {
+    return Promise.resolve({ accounts: [] });
+  }
+
+  async removeGoogleAccount(options: import("./definitions").RemoveGoogleAccountOptions): Promise<import("./definitions").RemoveGoogleAccountResponse> {
+    console.warn('GoogleAuthWeb.removeGoogleAccount() called on web. No-op.', options);
+    return Promise.resolve({ removed: false, accounts: [] });
+  }
+
+  async ackResultChunk(options: import("../result-stream").AckResultChunkOptions): Promise<{ active: boolean }> {
+    // Web mock'u sonuçları parçalamaz
+    console.log('GoogleAuthWeb.ackResultChunk() called on web. No-op.', options);
+    return Promise.resolve({ active: false });
+  }
+
 } 
\ No newline at end of file
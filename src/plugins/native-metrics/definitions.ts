@@ -0,0 +1,69 @@
+export interface LatencyHistogram {
+  count: number;
+  avgMicros: number;
+  /**
+   * Yüzdelikler 2'nin kuvveti bucket'ların üst sınırıdır (en fazla 2 kat sapma)
+   */
+  p50Micros: number;
+  p95Micros: number;
+  p99Micros: number;
+  maxMicros: number;
+  /**
+   * Bucket üst sınırı (µs, son bucket 'inf') -> çağrı sayısı; yalnızca dolu bucket'lar
+   */
+  buckets: Record<string, number>;
+}
+
+export interface MethodMetrics {
+  calls: number;
+  /**
+   * Reject edilen ve `error` alanıyla resolve edilen çağrılar
+   */
+  errors: number;
+  /**
+   * Argüman ve sonuçların yaklaşık JSON uzunluğu (karakter)
+   */
+  bytesIn: number;
+  bytesOut: number;
+  /**
+   * Arka plan executor kuyruğunda bekleme; senkron metotlarda 0
+   */
+  queueWait: LatencyHistogram;
+  execution: LatencyHistogram;
+}
+
+export interface NativeMetricsSnapshot {
+  enabled: boolean;
+  /**
+   * Sayaçların başladığı (ya da son sıfırlandığı) an, epoch ms
+   */
+  sinceMillis: number;
+  inFlight: number;
+  /**
+   * Aynı anda 256 çağrı açıkken başlayıp hiç ölçülmeyen çağrılar (sıfırlamadan bu yana)
+   */
+  untracked: number;
+  /**
+   * 'Plugin.method' -> ölçümler, ör. 'PdfParser.parsePdfText'
+   */
+  methods: Record<string, MethodMetrics>;
+  /**
+   * Hata kodu (ErrorUtils kodları, PDF errorCode, 'UNSPECIFIED', 'RESOLVED_ERROR') -> adet
+   */
+  errorsByCode: Record<string, number>;
+  /**
+   * Alt sistemlerin kendi sayaçları: 'crypto', 'pdfCache', 'secureStore', 'googleHttp', 'googleSession', 'googleApiHealth', 'googleAccounts', 'gmailPrefetch', 'memoryBudget', 'resultStreams'
+   */
+  sections: Record<string, Record<string, unknown>>;
+}
+
+export interface NativeMetricsPlugin {
+  getNativeMetrics(): Promise<NativeMetricsSnapshot>;
+
+  resetNativeMetrics(): Promise<void>;
+
+  /**
+   * logIntervalMs: logcat özetinin aralığı, 0 kapatır (varsayılan 60 sn)
+   */
+  configureNativeMetrics(options: { enabled?: boolean; logIntervalMs?: number }): Promise<{ enabled: boolean }>;
+}
@@ -0,0 +1,10 @@
+import { registerPlugin } from '@capacitor/core';
+
+import type { NativeMetricsPlugin } from './definitions';
+
+const NativeMetrics = registerPlugin<NativeMetricsPlugin>('NativeMetrics', {
+  web: () => import('./web').then(m => new m.NativeMetricsWeb()),
+});
+
+export * from './definitions';
+export { NativeMetrics };
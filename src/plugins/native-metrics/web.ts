@@ -0,0 +1,31 @@
+import { WebPlugin } from '@capacitor/core';
+
+import type { NativeMetricsPlugin, NativeMetricsSnapshot } from './definitions';
+
+export class NativeMetricsWeb extends WebPlugin implements NativeMetricsPlugin {
+  private enabled = true;
+  private sinceMillis = Date.now();
+
+  // Web'de native katman yok; boş bir görüntü döner
+  async getNativeMetrics(): Promise<NativeMetricsSnapshot> {
+    return {
+      enabled: this.enabled,
+      sinceMillis: this.sinceMillis,
+      inFlight: 0,
+      methods: {},
+      errorsByCode: {},
+      sections: {},
+    };
+  }
+
+  async resetNativeMetrics(): Promise<void> {
+    this.sinceMillis = Date.now();
+  }
+
+  async configureNativeMetrics(options: { enabled?: boolean; logIntervalMs?: number }): Promise<{ enabled: boolean }> {
+    if (options.enabled !== undefined) {
+      this.enabled = options.enabled;
+    }
+    return { enabled: this.enabled };
+  }
+}
@@ -1,3 +1,7 @@
+import type { PluginListenerHandle } from '@capacitor/core';
+
+import type { AckResultChunkOptions, ResultChunkEvent, ResultStreamOptions } from '../result-stream';
+
 export interface OcrPlugin {
   /**
    * Görüntüden OCR ile metin çıkarır
@@ -5,6 +9,13 @@ export interface OcrPlugin {
    * @returns Çıkarılan metin
    */
   recognizeText(options: RecognizeTextOptions): Promise<RecognizeTextResult>;
+
+  ackResultChunk(options: AckResultChunkOptions): Promise<{ active: boolean }>;
+
+  addListener(
+    eventName: 'resultChunk',
+    listenerFunc: (event: ResultChunkEvent) => void,
+  ): Promise<PluginListenerHandle>;
 }
 
 export interface RecognizeTextOptions {
@@ -20,6 +31,24 @@ export interface RecognizeTextOptions {
    * - 'path': Dosya yolu (file://)
    */
   sourceType?: 'base64' | 'path';
+
+  /**
+   * Uzun (scroll capture) görüntülerde örtüşen şeritler halinde tanıma yapılsın mı
+   * Varsayılan: true (sadece Android, yüksekliği çok büyük görüntülerde devreye girer)
+   */
+  tiling?: boolean;
+
+  /**
+   * Tanıma öncesi native ön işleme (gri tonlama, koyu tema tersleme,
+   * kontrast normalizasyonu ve yazı yüksekliğine göre ölçekleme)
+   * Varsayılan: false
+   */
+  preprocess?: boolean;
+
+  /**
+   * Verilirse büyük sonuç (çok sayıda blok) 'resultChunk' event'leriyle parça parça gelir
+   */
+  stream?: ResultStreamOptions;
 }
 
 export interface RecognizeTextResult {
@@ -46,6 +75,29 @@ export interface RecognizeTextResult {
     confidence?: number;
     language?: string;
     blocks?: TextBlock[];
+    blockCount?: number;
+    /**
+     * Görüntü şeritlere bölünerek tanındıysa true; koordinatlar yine tam görüntüye göredir
+     */
+    tiled?: boolean;
+    tileCount?: number;
+    preprocessing?: PreprocessingInfo;
+  };
+}
+
+export interface PreprocessingInfo {
+  darkMode: boolean;
+  contrastStretched: boolean;
+  /**
+   * Tahmini satır yüksekliği (px, 0 = belirlenemedi)
+   */
+  textHeight: number;
+  scale: number;
+  timings: {
+    analyzeMs: number;
+    transformMs: number;
+    scaleMs: number;
+    totalMs: number;
   };
 }
 
@@ -16,4 +16,10 @@ export class OcrWeb extends WebPlugin implements OcrPlugin {
       }
     };
   }
+
+  async ackResultChunk(options: { streamId: string; index: number; cancel?: boolean }): Promise<{ active: boolean }> {
+    // Web mock'u sonuçları parçalamaz
+    console.log('ackResultChunk called on web', options);
+    return { active: false };
+  }
 }
@@ -1,14 +1,182 @@
+import type { PluginListenerHandle } from '@capacitor/core';
+
+import type { AckResultChunkOptions, ResultChunkEvent, ResultStreamOptions } from '../result-stream';
+
 export interface ParsePdfResult {
-  text?: string; // Başarılı olursa metin içeriği
+  text?: string; // Başarılı olursa metin içeriği ('text' modunda)
+  /**
+   * 'rows' modunda satır/hücre yapısı (text yerine döner)
+   */
+  rows?: PdfTableRow[];
   error?: string; // Hata olursa hata mesajı
+  errorCode?: 'CANCELLED' | 'TIMEOUT'; // İptal veya zaman aşımında
+  jobId?: string;
+  pageCount?: number;
+  /**
+   * Gerçekten okunan sayfalar (1 tabanlı)
+   */
+  pagesRead?: number[];
+  /**
+   * Tüm stopPatterns eşleştiği için kalan sayfalar atlandıysa true
+   */
+  stoppedEarly?: boolean;
+  matchedPatterns?: string[];
+  /**
+   * Paralel modda kullanılan sayfa parçası sayısı; sıralı modda 0
+   */
+  parallelChunks?: number;
+  /**
+   * Çözülmüş PDF byte'larının SHA-256'sı (hex); ek kimliğinden bağımsız olarak aynı belgeyi tanır
+   */
+  contentHash?: string;
+  /**
+   * Sonuç şifreli içerik cache'inden geldiyse true (memory ve parallelChunks bu durumda dönmez)
+   */
+  cacheHit?: boolean;
+  memory?: PdfParseMemoryInfo;
+}
+
+export interface PdfCacheStats {
+  hits: number;
+  misses: number;
+  /**
+   * hits / (hits + misses); uygulama açıldığından ya da clearPdfCache'ten beri
+   */
+  hitRate: number;
+  evictions: number;
+  entries: number;
+  sizeBytes: number;
+  maxBytes: number;
+}
+
+/**
+ * Koordinatlar PDF noktası (1/72 inç); y aşağı doğru artar.
+ */
+export interface PdfTableCell {
+  text: string;
+  /**
+   * Sayfadaki sütun bandının sırası (soldan 0); hiçbir banda düşmüyorsa -1
+   */
+  column: number;
+  left: number;
+  top: number;
+  right: number;
+  bottom: number;
+}
+
+export interface PdfTableRow {
+  page: number;
+  top: number;
+  bottom: number;
+  cells: PdfTableCell[];
+}
+
+export interface PdfParseMemoryInfo {
+  baselineHeapBytes: number;
+  /**
+   * Parse sırasında (sayfa sonlarında örneklenen) en yüksek kullanılan Java heap'i
+   */
+  peakHeapBytes: number;
+  peakDeltaBytes: number;
+  maxMainMemoryBytes: number;
+}
+
+export interface ParsePdfOptions {
+  /**
+   * Base64 PDF verisi. filePath verilmezse zorunlu.
+   */
+  base64Data?: string;
+  /**
+   * Uygulama dizinlerindeki (Data/Cache/External) bir PDF dosyası. Büyük PDF'lerde
+   * base64 yerine tercih edilmeli; veri bridge'den geçmez.
+   */
+  filePath?: string;
+  /**
+   * PDFBox'ın heap'te tutacağı en fazla byte; fazlası cache dizinindeki scratch dosyasına taşar.
+   * Varsayılan: 8 MB
+   */
+  maxMainMemoryBytes?: number;
+  /**
+   * 'text' (varsayılan): düz metin. 'rows': glyph konumlarından satır ve sütunlara ayrılmış
+   * hücreler; stopPatterns satırların sekmeyle birleştirilmiş haline uygulanır. Her zaman sıralı çalışır.
+   */
+  mode?: 'text' | 'rows';
+  /**
+   * Okunacak ilk ve son sayfa (1 tabanlı, dahil). Varsayılan: tüm belge
+   */
+  startPage?: number;
+  endPage?: number;
+  /**
+   * Regex listesi; hepsi eşleştiği anda çıkarma durur (ör. toplam borç, son ödeme tarihi)
+   */
+  stopPatterns?: string[];
+  /**
+   * Sayfaları parçalara bölüp birden fazla çekirdekte çıkarır; metin sıralı modla birebir aynıdır.
+   * Verilmezse stopPatterns yoksa ve yeterli sayfa varsa otomatik açılır.
+   */
+  parallel?: boolean;
+  /**
+   * Paralel modda parça başına sayfa sayısı. Varsayılan: sayfa sayısı ve çekirdek sayısına göre
+   */
+  pagesPerChunk?: number;
+  /**
+   * İşi iptal edebilmek ve ilerleme event'lerini eşleştirmek için kimlik.
+   * Verilmezse native tarafta üretilir.
+   */
+  jobId?: string;
+  /**
+   * Bu süre aşılırsa iş iptal edilir ve errorCode 'TIMEOUT' döner. Varsayılan: 60000, 0 = sınırsız
+   */
+  timeoutMs?: number;
+  /**
+   * Aynı içerik ve aynı seçeneklerle (mode, sayfa aralığı, stopPatterns) daha önce parse edilmiş
+   * PDF'in sonucunu şifreli disk cache'inden döndürür. Varsayılan: true
+   */
+  cache?: boolean;
+  /**
+   * Verilirse büyük sonuç (uzun metin, 'rows') 'resultChunk' event'leriyle parça parça gelir
+   */
+  stream?: ResultStreamOptions;
+}
+
+export interface PdfParseProgressEvent {
+  jobId: string;
+  page: number;
+  pageCount: number;
 }
 
 export interface PdfParserPlugin {
   /**
    * Parses the text content from a Base64 encoded PDF.
    * Requires Apache PDFBox dependency in the native Android project.
+   * Runs on a native worker pool; emits 'pdfParseProgress' after every page.
    * @param options Object containing the Base64 encoded PDF data.
    * @returns A promise resolving with an object containing either 'text' or 'error'.
    */
-  parsePdfText(options: { base64Data: string }): Promise<ParsePdfResult>;
-} 
\ No newline at end of file
+  parsePdfText(options: ParsePdfOptions): Promise<ParsePdfResult>;
+
+  /**
+   * Cancels a running or queued parsePdfText job. The pending parsePdfText promise
+   * resolves with errorCode 'CANCELLED'.
+   */
+  cancelPdfParse(options: { jobId: string }): Promise<{ cancelled: boolean }>;
+
+  /**
+   * Content-addressed PDF result cache hit rate and size.
+   */
+  getPdfCacheStats(): Promise<PdfCacheStats>;
+
+  clearPdfCache(): Promise<void>;
+
+  ackResultChunk(options: AckResultChunkOptions): Promise<{ active: boolean }>;
+
+  addListener(
+    eventName: 'pdfParseProgress',
+    listenerFunc: (event: PdfParseProgressEvent) => void,
+  ): Promise<PluginListenerHandle>;
+
+  addListener(
+    eventName: 'resultChunk',
+    listenerFunc: (event: ResultChunkEvent) => void,
+  ): Promise<PluginListenerHandle>;
+}
@@ -1,14 +1,14 @@
 import { WebPlugin } from '@capacitor/core';
 
-import type { PdfParserPlugin, ParsePdfResult } from './definitions';
+import type { PdfCacheStats, PdfParserPlugin, ParsePdfResult, ParsePdfOptions } from './definitions';
 
 export class PdfParserWeb extends WebPlugin implements PdfParserPlugin {
-  async parsePdfText(options: { base64Data: string }): Promise<ParsePdfResult> {
+  async parsePdfText(options: ParsePdfOptions): Promise<ParsePdfResult> {
     console.log('PdfParserWeb.parsePdfText called with options:', options);
 
     // Web ortamında gerçek PDF ayrıştırma işlemi genellikle yapılmaz.
     // Basit bir mock yanıtı veya hata döndürebiliriz.
-    if (!options.base64Data) {
+    if (!options.base64Data && !options.filePath) {
         console.error('PdfParserWeb: Missing base64Data');
          return Promise.resolve({ error: 'Missing base64Data in web mock' });
     }
@@ -26,4 +26,25 @@ Hesap Özeti Borcu: 2001,44 TL
     // Hata senaryosunu simüle etmek için:
     // return Promise.resolve({ error: 'PDF parsing failed in web mock' });
   }
-} 
\ No newline at end of file
+
+  async cancelPdfParse(options: { jobId: string }): Promise<{ cancelled: boolean }> {
+    console.log('PdfParserWeb.cancelPdfParse called with options:', options);
+    // Web mock'u senkron çalıştığı için iptal edilecek iş yok
+    return { cancelled: false };
+  }
+
+  async getPdfCacheStats(): Promise<PdfCacheStats> {
+    // Web mock'u cache tutmaz
+    return { hits: 0, misses: 0, hitRate: 0, evictions: 0, entries: 0, sizeBytes: 0, maxBytes: 0 };
+  }
+
+  async clearPdfCache(): Promise<void> {
+    return;
+  }
+
+  async ackResultChunk(options: { streamId: string; index: number; cancel?: boolean }): Promise<{ active: boolean }> {
+    // Web mock'u sonuçları parçalamaz
+    console.log('ackResultChunk called on web', options);
+    return { active: false };
+  }
+}
@@ -0,0 +1,113 @@
+import type { PluginListenerHandle } from '@capacitor/core';
+
+/**
+ * Büyük native sonuçların parça parça aktarımı için ortak tipler ve yardımcı.
+ * Native taraf sonucun JSON metnini sıralı 'resultChunk' event'leri olarak gönderir;
+ * her parça ackResultChunk ile onaylanmadan pencereden fazlası gönderilmez.
+ */
+export interface ResultStreamOptions {
+  /**
+   * Akış kimliği; 'resultChunk' event'lerini bu çağrıya eşlemek için JS tarafında üretilir
+   */
+  id: string;
+  /**
+   * Parça başına karakter sayısı. Varsayılan: 262144 (en az 4096, en fazla 4 MB)
+   */
+  chunkSize?: number;
+  /**
+   * Onaylanmadan gönderilebilecek en fazla parça. Varsayılan: 4
+   */
+  window?: number;
+}
+
+export interface ResultChunkEvent {
+  streamId: string;
+  index: number;
+  count: number;
+  /**
+   * Sonuç JSON metninin bu parçaya düşen dilimi
+   */
+  data: string;
+}
+
+export interface AckResultChunkOptions {
+  streamId: string;
+  /**
+   * Kümülatif: bu indekse kadar (dahil) tüm parçalar onaylanır
+   */
+  index: number;
+  /**
+   * true ise akış iptal edilir ve bekleyen çağrı STREAM_CANCELLED ile reddedilir
+   */
+  cancel?: boolean;
+}
+
+/**
+ * Akış tamamlandığında native çağrının döndüğü özet; asıl sonuç parçaların birleşimidir.
+ */
+export interface StreamedResultSummary {
+  streamed: true;
+  streamId: string;
+  chunks: number;
+  length: number;
+}
+
+export interface ResultStreamingPlugin {
+  ackResultChunk(options: AckResultChunkOptions): Promise<{ active: boolean }>;
+
+  addListener(
+    eventName: 'resultChunk',
+    listenerFunc: (event: ResultChunkEvent) => void,
+  ): Promise<PluginListenerHandle>;
+}
+
+export interface CallStreamedOptions {
+  chunkSize?: number;
+  window?: number;
+  /**
+   * Her parça geldiğinde çağrılır (ör. ilerleme göstermek için)
+   */
+  onChunk?: (event: ResultChunkEvent) => void;
+}
+
+let streamCounter = 0;
+
+function isStreamedSummary(value: unknown): value is StreamedResultSummary {
+  return typeof value === 'object' && value !== null && (value as StreamedResultSummary).streamed === true;
+}
+
+/**
+ * Bir plugin metodunu 'stream' seçeneğiyle çağırır, gelen parçaları onaylar ve birleştirir.
+ * Sonuç tek parçaya sığıyorsa (veya web mock'u akış desteklemiyorsa) native yanıt olduğu gibi döner.
+ */
+export async function callStreamed<T>(
+  plugin: ResultStreamingPlugin,
+  invoke: (stream: ResultStreamOptions) => Promise<T | StreamedResultSummary>,
+  options: CallStreamedOptions = {},
+): Promise<T> {
+  const id = `rs-${Date.now().toString(36)}-${(streamCounter++).toString(36)}`;
+  const parts: string[] = [];
+  const handle = await plugin.addListener('resultChunk', event => {
+    if (event.streamId !== id) {
+      return;
+    }
+    parts[event.index] = event.data;
+    options.onChunk?.(event);
+    plugin.ackResultChunk({ streamId: id, index: event.index }).catch(error => {
+      console.warn(`ResultStream ${id}: ack ${event.index} failed`, error);
+    });
+  });
+  try {
+    const result = await invoke({ id, chunkSize: options.chunkSize, window: options.window });
+    if (!isStreamedSummary(result)) {
+      return result;
+    }
+    const json = parts.join('');
+    if (json.length !== result.length) {
+      throw new Error(`ResultStream ${id}: expected ${result.length} chars, received ${json.length}`);
+    }
+    return JSON.parse(json) as T;
+  } finally {
+    await handle.remove();
+  }
+}
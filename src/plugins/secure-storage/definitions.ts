@@ -1,21 +1,171 @@
+export interface CryptoOpTiming {
+  count: number;
+  totalMicros: number;
+  avgMicros: number;
+  maxMicros: number;
+}
+
+export interface CryptoMetrics {
+  /**
+   * Keystore'dan anahtar yükleme (normalde süreç başına bir kez)
+   */
+  keyLoad: CryptoOpTiming;
+  /**
+   * Önbellekteki anahtar handle'ının kullanıldığı çağrı sayısı
+   */
+  keyCacheHits: number;
+  encrypt: CryptoOpTiming;
+  decrypt: CryptoOpTiming;
+  /**
+   * Sarılmış veri anahtarının Keystore ile açılması (süreç başına bir kez)
+   */
+  dataKeyLoad: CryptoOpTiming;
+  envelopeEncrypt: CryptoOpTiming;
+  envelopeDecrypt: CryptoOpTiming;
+  fileEncrypt: CryptoOpTiming;
+  fileDecrypt: CryptoOpTiming;
+}
+
+export interface FileCryptoOptions {
+  /**
+   * Uygulama dizinlerindeki (Data/Cache/External) kaynak dosya. Eklentilerin kendi depoları
+   * (secure-kv, calendar_queue, google_accounts, pdf-scratch, pdf-text-cache) reddedilir
+   */
+  inputPath: string;
+  /**
+   * Hedef dosya; önce geçici dosyaya yazılır, başarılı olursa yerine taşınır. Kaynakla aynı
+   * kısıtlar geçerlidir
+   */
+  outputPath: string;
+  /**
+   * Yalnızca encryptFile: parça başına düz metin byte'ı. Varsayılan: 65536 (1 KB - 4 MB)
+   */
+  chunkSize?: number;
+}
+
+export interface FileCryptoResult {
+  plaintextBytes: number;
+  chunks: number;
+  elapsedMs: number;
+}
+
+/**
+ * 'envelope' (varsayılan): veri, Keystore anahtarıyla sarılmış bir veri anahtarıyla yazılımda
+ * AES-GCM ile şifrelenir; çıktı 'v2:' önekiyle başlar. 'keystore': eski format, doğrudan Keystore'da.
+ *
+ * Varsayılan mevcut kurulumlar için de 'envelope' oldu: önceden yazılmış eski format veriler önekten
+ * tanınıp çözülmeye devam eder, yalnızca yeni şifrelemeler 'v2:' formatında yazılır. Eski formatta
+ * yazmaya devam etmesi gereken çağıranlar mode: 'keystore' vermelidir.
+ */
+export type EncryptionMode = 'envelope' | 'keystore';
+
+/**
+ * Envelope veri anahtarı açılamadığında dönen hata kodları.
+ * 'DATA_KEY_UNAVAILABLE': geçici olabilir, anahtar değiştirilmedi; sonraki çağrı yeniden dener.
+ * 'DATA_KEY_LOST': Keystore anahtarı geçersizleşti; eski envelope verisi bir daha çözülemez, yeni
+ * anahtar yalnızca `resetDataKey` ile oluşturulur.
+ */
+export type DataKeyErrorCode = 'DATA_KEY_UNAVAILABLE' | 'DATA_KEY_LOST';
+
+export type StoreOp =
+  | { type: 'put'; key: string; value: string }
+  | { type: 'delete'; key: string };
+
+export interface StoreMetrics {
+  /**
+   * Soğuk açılışta log'un okunup indeksin kurulması
+   */
+  openMicros: number;
+  recordsReplayed: number;
+  /**
+   * Açılışta atılan yarım yazılmış son kaydın boyutu
+   */
+  truncatedBytes: number;
+  keys: number;
+  fileBytes: number;
+  /**
+   * Çağıranların yazdığı düz metin anahtar + değer byte'ları
+   */
+  logicalBytesWritten: number;
+  /**
+   * Log'a eklenen ve sıkıştırmada yeniden yazılan byte'lar
+   */
+  physicalBytesWritten: number;
+  writeAmplification: number;
+  /**
+   * put/delete/batch çağrı sayısı; fsyncs ile farkı toplu commit'in kazancı
+   */
+  writeCalls: number;
+  fsyncs: number;
+  compactions: number;
+  compactionMicros: number;
+  gets: number;
+  avgGetMicros: number;
+}
+
 export interface SecureStoragePlugin {
   /**
    * Encrypts a string using the underlying secure key storage.
    *
    * @param options Options containing the string data to encrypt.
    * @param options.data The string to encrypt.
-   * @returns {Promise<{ encryptedData: string }> } A promise that resolves with the Base64 encoded encrypted data (IV prefixed).
-   * @rejects {string} An error message if encryption fails.
+   * @param options.mode 'envelope' (default, also for installs that wrote legacy data before) or 'keystore' for the legacy format.
+   * @returns {Promise<{ encryptedData: string }> } A promise that resolves with the Base64 encoded encrypted data (IV prefixed, 'v2:' prefixed in envelope mode).
+   * @rejects {string} An error message if encryption fails; code is a `DataKeyErrorCode` when the envelope data key cannot be unwrapped,
+   * or 'INVALID_MODE' when `mode` is neither 'envelope' nor 'keystore'.
    */
-  encryptString(options: { data: string }): Promise<{ encryptedData: string }>;
+  encryptString(options: { data: string; mode?: EncryptionMode }): Promise<{ encryptedData: string }>;
 
   /**
    * Decrypts a Base64 encoded string that was previously encrypted using `encryptString`.
+   * Both envelope and legacy Keystore formats are accepted.
    *
    * @param options Options containing the encrypted Base64 string.
    * @param options.encryptedData The Base64 encoded string (IV prefixed) to decrypt.
    * @returns {Promise<{ decryptedData: string }> } A promise that resolves with the original decrypted string.
-   * @rejects {string} An error message if decryption fails (e.g., wrong key, corrupted data, invalid format).
+   * @rejects {string} An error message if decryption fails (e.g., wrong key, corrupted data, invalid format); code is a `DataKeyErrorCode` when the envelope data key cannot be unwrapped.
    */
   decryptString(options: { encryptedData: string }): Promise<{ decryptedData: string }>;
-} 
\ No newline at end of file
+
+  /**
+   * Replaces the envelope data key with a new one. Everything written in envelope mode (strings,
+   * files, the key-value store) becomes permanently unreadable, so call it only after giving that
+   * data up. The key is never replaced automatically.
+   */
+  resetDataKey(): Promise<void>;
+
+  /**
+   * Call counts and durations of key loads, encryptions and decryptions since app start.
+   */
+  getCryptoMetrics(): Promise<CryptoMetrics>;
+
+  /**
+   * Encrypts a file chunk by chunk (AES-GCM, per-chunk nonces, authenticated order) with constant memory.
+   */
+  encryptFile(options: FileCryptoOptions): Promise<FileCryptoResult>;
+
+  /**
+   * Decrypts a file written by `encryptFile`.
+   * @rejects code 'CORRUPTED_CHUNK' with `data.chunkIndex` when a chunk fails authentication.
+   */
+  decryptFile(options: Omit<FileCryptoOptions, 'chunkSize'>): Promise<FileCryptoResult>;
+
+  /**
+   * Encrypted native key-value store (append-only log). Values are encrypted per key.
+   */
+  get(options: { key: string }): Promise<{ value: string | null }>;
+
+  /**
+   * Resolves once the value is fsync'd; concurrent writes share one fsync.
+   */
+  put(options: { key: string; value: string }): Promise<void>;
+
+  delete(options: { key: string }): Promise<void>;
+
+  /**
+   * Applies all ops atomically: after a crash either all of them are visible or none.
+   */
+  batch(options: { ops: StoreOp[] }): Promise<void>;
+
+  getStoreMetrics(): Promise<StoreMetrics>;
+}
@@ -1,11 +1,20 @@
 import { WebPlugin } from '@capacitor/core';
-import type { SecureStoragePlugin } from './definitions';
+import type {
+  CryptoMetrics,
+  EncryptionMode,
+  FileCryptoOptions,
+  FileCryptoResult,
+  SecureStoragePlugin,
+  StoreMetrics,
+  StoreOp,
+} from './definitions';
 
 export class SecureStorageWeb extends WebPlugin implements SecureStoragePlugin {
 
   private readonly MOCK_PREFIX = 'webmock:';
+  private readonly STORE_PREFIX = 'securestore:';
 
-  async encryptString(options: { data: string }): Promise<{ encryptedData: string }> {
+  async encryptString(options: { data: string; mode?: EncryptionMode }): Promise<{ encryptedData: string }> {
     console.warn(
       'SecureStorage.encryptString web implementation is NOT secure! Using simple Base64 encoding.'
     );
@@ -36,4 +45,73 @@ export class SecureStorageWeb extends WebPlugin implements SecureStoragePlugin {
       throw new Error('Web mock decryption failed. Data might be corrupted or not Base64.');
     }
   }
-} 
\ No newline at end of file
+
+  async resetDataKey(): Promise<void> {
+    // Web mock'unda anahtar yok
+  }
+
+  async getCryptoMetrics(): Promise<CryptoMetrics> {
+    const empty = { count: 0, totalMicros: 0, avgMicros: 0, maxMicros: 0 };
+    return {
+      keyLoad: empty,
+      keyCacheHits: 0,
+      encrypt: empty,
+      decrypt: empty,
+      dataKeyLoad: empty,
+      envelopeEncrypt: empty,
+      envelopeDecrypt: empty,
+      fileEncrypt: empty,
+      fileDecrypt: empty,
+    };
+  }
+
+  async encryptFile(_options: FileCryptoOptions): Promise<FileCryptoResult> {
+    throw this.unimplemented('encryptFile is not available on web.');
+  }
+
+  async decryptFile(_options: Omit<FileCryptoOptions, 'chunkSize'>): Promise<FileCryptoResult> {
+    throw this.unimplemented('decryptFile is not available on web.');
+  }
+
+  // Web'de şifreleme yok; store localStorage üzerinde taklit edilir
+  async get(options: { key: string }): Promise<{ value: string | null }> {
+    return { value: localStorage.getItem(this.STORE_PREFIX + options.key) };
+  }
+
+  async put(options: { key: string; value: string }): Promise<void> {
+    localStorage.setItem(this.STORE_PREFIX + options.key, options.value);
+  }
+
+  async delete(options: { key: string }): Promise<void> {
+    localStorage.removeItem(this.STORE_PREFIX + options.key);
+  }
+
+  async batch(options: { ops: StoreOp[] }): Promise<void> {
+    for (const op of options.ops) {
+      if (op.type === 'put') {
+        await this.put(op);
+      } else {
+        await this.delete(op);
+      }
+    }
+  }
+
+  async getStoreMetrics(): Promise<StoreMetrics> {
+    return {
+      openMicros: 0,
+      recordsReplayed: 0,
+      truncatedBytes: 0,
+      keys: 0,
+      fileBytes: 0,
+      logicalBytesWritten: 0,
+      physicalBytesWritten: 0,
+      writeAmplification: 0,
+      writeCalls: 0,
+      fsyncs: 0,
+      compactions: 0,
+      compactionMicros: 0,
+      gets: 0,
+      avgGetMicros: 0,
+    };
+  }
+}
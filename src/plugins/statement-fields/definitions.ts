@@ -0,0 +1,60 @@
+export type StatementFieldValue = number | string;
+
+export interface ExtractFieldsOptions {
+  /**
+   * statement-rules.json içindeki banka kimliği (ör. 'akbank', 'qnb')
+   */
+  bankId: string;
+  /**
+   * E-posta HTML'i veya PDF/OCR metni
+   */
+  text: string;
+  /**
+   * 'html' ise önce görünür metne çevrilir; varsayılan 'text'
+   */
+  format?: 'html' | 'text';
+}
+
+export interface ExtractFieldsResult {
+  bankId?: string;
+  bankName?: string;
+  /**
+   * Tutarlar number, tarihler ISO 'yyyy-MM-dd', diğerleri string
+   */
+  fields?: Record<string, StatementFieldValue>;
+  missingFields?: string[];
+  elapsedMicros?: number;
+  error?: string; // Hata olursa hata mesajı
+}
+
+export interface StatementFieldPattern {
+  pattern: string;
+  /**
+   * Değeri taşıyan yakalama grubu; varsayılan 1
+   */
+  group?: number;
+}
+
+export interface StatementFieldRule {
+  field: string;
+  type?: 'amount' | 'date' | 'last4' | 'text';
+  amountFormat?: 'tr' | 'en' | 'auto';
+  /**
+   * Öncelik sırasıyla; ilk desen eşleşince sonrakiler yalnızca yedek olarak kullanılır
+   */
+  patterns: (string | StatementFieldPattern)[];
+}
+
+export interface StatementRuleSet {
+  version?: number;
+  banks: {
+    id: string;
+    bankName?: string;
+    fields: StatementFieldRule[];
+  }[];
+}
+
+export interface StatementFieldsPlugin {
+  extractFields(options: ExtractFieldsOptions): Promise<ExtractFieldsResult>;
+  loadRules(options: { rules: StatementRuleSet }): Promise<{ banks: string[] }>;
+}
@@ -0,0 +1,10 @@
+import { registerPlugin } from '@capacitor/core';
+
+import type { StatementFieldsPlugin } from './definitions';
+
+const StatementFields = registerPlugin<StatementFieldsPlugin>('StatementFields', {
+  web: () => import('./web').then(m => new m.StatementFieldsWeb()),
+});
+
+export * from './definitions';
+export { StatementFields };
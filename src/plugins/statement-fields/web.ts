@@ -0,0 +1,15 @@
+import { WebPlugin } from '@capacitor/core';
+
+import type { ExtractFieldsOptions, ExtractFieldsResult, StatementFieldsPlugin, StatementRuleSet } from './definitions';
+
+export class StatementFieldsWeb extends WebPlugin implements StatementFieldsPlugin {
+  async extractFields(options: ExtractFieldsOptions): Promise<ExtractFieldsResult> {
+    console.log('StatementFieldsWeb.extractFields called for bank:', options.bankId);
+    // Web'de yerel kural motoru yok; çağıran taraf mevcut TS parser'larına düşmeli
+    return { error: 'Native statement field extraction is not available on web' };
+  }
+
+  async loadRules(options: { rules: StatementRuleSet }): Promise<{ banks: string[] }> {
+    return { banks: options.rules.banks.map(bank => bank.id) };
+  }
+}
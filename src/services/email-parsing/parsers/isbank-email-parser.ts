@@ -123,7 +123,7 @@ class IsbankEmailParser implements BankEmailParser {
         const attachmentId = pdfPart.body.attachmentId;
 
         try {
-            const attachmentResponse = await gmailService.getAttachment(emailId, attachmentId);
+            const attachmentResponse = await gmailService.getAttachment(emailId, attachmentId, emailDetails.account);
 
             let base64PdfDataUrl: string | null = null;
             if (attachmentResponse?.size !== undefined && attachmentResponse?.data && typeof attachmentResponse.data === 'string') {
@@ -23,8 +23,11 @@ import type {
     GmailDetailsOptions,
     GmailMessage,
     GmailAttachmentOptions,
-    GmailAttachmentResponse
+    GmailAttachmentResponse,
+    GmailAccountQuery,
+    GmailAllAccountsSearchResponse
 } from '../plugins/google-auth/definitions';
+import { callStreamed } from '../plugins/result-stream';
 import { callNativeGoogleApi } from '../utils/googleApiClient';
 
 /**
@@ -36,7 +39,7 @@ export class GmailService {
     /**
      * Belirtilen sorguyla eşleşen e-postaları arar (Native Plugin aracılığıyla).
      * @param query - Gmail arama sorgusu.
-     * @param maxResults - Döndürülecek maksimum sonuç sayısı (Native tarafta henüz implemente edilmedi, opsiyonel).
+     * @param maxResults - Döndürülecek maksimum sonuç sayısı (tek sayfa).
      * @returns E-posta listesi (ID ve threadId içerir) veya API yanıtı.
      */
     async searchEmails(query: string, maxResults: number = 100): Promise<GmailSearchResponse> {
@@ -47,7 +50,7 @@ export class GmailService {
 
         const options: Omit<GmailSearchOptions, 'accessToken'> = {
             query,
-            // maxResults, // Native tarafta desteklenince eklenebilir
+            maxResults,
         };
 
         console.log(`GmailService: Preparing to call native searchGmailMessages with query: ${query}`);
@@ -58,21 +61,55 @@ export class GmailService {
     /**
      * Belirli bir e-postanın detaylarını alır (Native Plugin aracılığıyla).
      * @param messageId - Alınacak e-postanın ID'si.
+     * @param account - Mesajın ait olduğu eklenmiş hesap; verilmezse birincil hesap.
      * @returns E-posta detayları (Gmail API Message formatında).
      */
-    async getEmailDetails(messageId: string): Promise<GmailMessage> {
+    async getEmailDetails(messageId: string, account?: string): Promise<GmailMessage> {
         if (!GoogleAuth) {
             console.error('GmailService: GoogleAuth plugin is not available.');
             throw new Error('GoogleAuth plugin not available');
         }
 
-        const options: Omit<GmailDetailsOptions, 'accessToken'> = { messageId };
+        const options: Omit<GmailDetailsOptions, 'accessToken'> = { messageId, account };
 
         console.log(`GmailService: Preparing to call native getGmailMessageDetails for ID: ${messageId}`);
 
         return callNativeGoogleApi(() => GoogleAuth.getGmailMessageDetails(options as GmailDetailsOptions));
     }
 
+    /**
+     * Sorguları eklenmiş bütün Google hesaplarında paralel çalıştırır; mesaj detayları da aynı
+     * native istekte gelir. Büyük yanıt bridge'den onaylı parçalar halinde alınır.
+     * @param queries - Hesap başına checkpoint için anahtarlı sorgular.
+     * @param maxResults - Hesap ve sorgu başına en fazla mesaj.
+     */
+    async searchAllAccounts(queries: GmailAccountQuery[], maxResults: number = 10): Promise<GmailAllAccountsSearchResponse> {
+        if (!GoogleAuth) {
+            console.error('GmailService: GoogleAuth plugin is not available.');
+            throw new Error('GoogleAuth plugin not available');
+        }
+
+        console.log(`GmailService: Preparing to call native searchGmailMessagesAllAccounts with ${queries.length} queries`);
+
+        return callNativeGoogleApi(() => callStreamed<GmailAllAccountsSearchResponse>(GoogleAuth, stream =>
+            GoogleAuth.searchGmailMessagesAllAccounts({ queries, maxResults, includeDetails: true, stream })));
+    }
+
+    /**
+     * Bu göndericilerin PDF ekleri mesaj detayıyla birlikte native tarafta önceden indirilir;
+     * getAttachment sonra bellekten döner. Hata ekstre akışını durdurmaz.
+     */
+    async configureAttachmentPrefetch(senders: string[]): Promise<void> {
+        if (!GoogleAuth) {
+            return;
+        }
+        try {
+            await GoogleAuth.configureAttachmentPrefetch({ enabled: senders.length > 0, senders });
+        } catch (error) {
+            console.warn('GmailService: configureAttachmentPrefetch failed', error);
+        }
+    }
+
     /**
     * E-posta gövdesini (body) base64'ten çözer ve metin olarak döndürür.
     * Mime tipine göre doğru bölümü bulmaya çalışır.
@@ -179,18 +216,21 @@ export class GmailService {
      * Belirli bir e-postadaki bir eki alır (Native Plugin aracılığıyla).
      * @param messageId - Ekin bulunduğu e-postanın ID'si.
      * @param attachmentId - Alınacak ekin ID'si.
+     * @param account - E-postanın ait olduğu eklenmiş hesap; verilmezse birincil hesap.
      * @returns Ek detayları (Gmail API MessagePartBody formatında, 'data' base64url kodludur).
      */
-    async getAttachment(messageId: string, attachmentId: string): Promise<GmailAttachmentResponse> {
+    async getAttachment(messageId: string, attachmentId: string, account?: string): Promise<GmailAttachmentResponse> {
         if (!GoogleAuth) {
             console.error('GmailService: GoogleAuth plugin is not available.');
             throw new Error('GoogleAuth plugin not available');
         }
 
-        const options: Omit<GmailAttachmentOptions, 'accessToken'> = { messageId, attachmentId };
+        const options: Omit<GmailAttachmentOptions, 'accessToken'> = { messageId, attachmentId, account };
 
         console.log(`GmailService: Preparing to call native getGmailAttachment for msg ${messageId}, att ${attachmentId}`);
-        return callNativeGoogleApi(() => GoogleAuth.getGmailAttachment(options as GmailAttachmentOptions));
+        // Büyük PDF ekleri bridge'den tek parça yerine onaylı parçalar halinde gelir
+        return callNativeGoogleApi(() => callStreamed<GmailAttachmentResponse>(GoogleAuth, stream =>
+            GoogleAuth.getGmailAttachment({ ...options, stream } as GmailAttachmentOptions)));
     }
 }
 
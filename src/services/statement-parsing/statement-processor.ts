@@ -1,7 +1,7 @@
 // Plugin Definitions Tiplerini Doğrudan Import Et
 import type {
-    GmailSearchResponse, // EKLENDİ
-    // Diğer gerekebilecek tipler (şimdilik sadece bu)
+    GmailAccountQuery,
+    GmailMessage,
 } from '../../plugins/google-auth/definitions';
 
 // Tipleri import edelim
@@ -62,6 +62,8 @@ export const availableBankProcessors: BankProcessor[] = [
     bankName: BANK_NAMES.IS_BANKASI,
     emailParser: isbankEmailParser,
     gmailQuery: 'from:(bilgilendirme@ileti.isbank.com.tr) subject:("Maximum Kredi Kartı Hesap Özeti")',
+    // Ekstre PDF ekinde geliyor
+    attachmentSenders: ['bilgilendirme@ileti.isbank.com.tr'],
   },
   {
     bankName: BANK_NAMES.AKBANK,
@@ -111,96 +113,56 @@ export class StatementProcessor {
         // Gmail için tarih filtresi (YYYY/MM/DD formatında)
         const gmailDateFilter = `${twoMonthsAgo.getFullYear()}/${String(twoMonthsAgo.getMonth() + 1).padStart(2, '0')}/${String(twoMonthsAgo.getDate()).padStart(2, '0')}`;
 
+        // Banka adı sorgu anahtarı olur; native taraf hesap başına checkpoint'i bu anahtarla tutar
+        const processorsByKey = new Map<string, BankProcessor>();
+        const queries: GmailAccountQuery[] = [];
+        const attachmentSenders: string[] = [];
         for (const processor of availableBankProcessors) {
             if (processor.emailParser && processor.gmailQuery) {
-                // Gmail query'sine tarih filtresi ekle
-                const queryWithDate = `${processor.gmailQuery} after:${gmailDateFilter}`;
-
-                // accessToken eklendi ve maxResults düzeltildi
-                // Dönüş tipi açıkça belirtilMİYOR, TS çıkarsın
-                // gmailService yerine localGmailService kullanıldı
-                const emailSearchResult = await localGmailService.searchEmails(queryWithDate, 10);
-                // emailSearchResult.messages üzerinde iterate et
-                // messages alanı opsiyonel olduğu için kontrol ekleyelim
-                for (const emailInfo of emailSearchResult?.messages || []) {
-                    // Linter Hatası Düzeltmesi: emailInfo.id null/undefined olabilir, kontrol et
-                    const messageId = emailInfo?.id;
-                    if (!messageId) {
+                processorsByKey.set(processor.bankName, processor);
+                queries.push({ key: processor.bankName, query: `${processor.gmailQuery} after:${gmailDateFilter}` });
+                attachmentSenders.push(...(processor.attachmentSenders || []));
+            }
+        }
+
+        // PDF ekleri arama sırasında indirilmeye başlar; parser'ın getAttachment çağrısı bekleme yapmaz
+        await localGmailService.configureAttachmentPrefetch(attachmentSenders);
+
+        // Tüm hesaplar ve bankalar tek native çağrıda, mesaj detaylarıyla birlikte paralel aranır
+        const searchResult = await localGmailService.searchAllAccounts(queries, 10);
+        for (const accountResult of searchResult.accounts) {
+            if (accountResult.error) {
+                // Bu hesabın yetkisi gitmiş olabilir; diğer hesapların sonuçları yine işlenir
+                console.warn(`[Processor] Gmail account ${accountResult.account} skipped (${accountResult.code}): ${accountResult.error}`);
+            }
+            for (const queryResult of accountResult.results) {
+                const processor = processorsByKey.get(queryResult.key);
+                if (!processor) {
+                    continue;
+                }
+                if (queryResult.error) {
+                    console.error(`[Processor] !!! ERROR searching ${processor.bankName} in ${accountResult.account}:`, queryResult.error);
+                    continue;
+                }
+                for (const message of queryResult.messages) {
+                    if (!message?.id) {
                         console.warn(`SmsProcessor: Found emailInfo without an ID for ${processor.bankName}, skipping.`);
                         continue;
                     }
-
-                    // --- YENİ LOG VE TRY...CATCH --- //
-                    let emailDetailsResponse: any = null;
-                    try {
-                        // getEmailDetails Promise döndürdüğü için await kullan
-                        // accessToken eklendi
-                        // gmailService yerine localGmailService kullanıldı
-                        emailDetailsResponse = await localGmailService.getEmailDetails(messageId);
-                        // Detay alındıktan sonra payload var mı kontrol et (optional chaining ile)
-                        if (!emailDetailsResponse?.payload) {
-                            console.warn(`SmsProcessor: Received empty or payload-less response for ID: ${messageId}`);
-                             continue; // Boş yanıt gelirse sonraki e-postayı dene
-                        }
-                    } catch (detailError) {
-                        console.error(`[Processor] !!! ERROR calling gmailService.getEmailDetails for ID: ${messageId}`, detailError);
-                        continue; // Detay alınamazsa bu e-postayı atla, sonraki ID'ye geç
+                    if (!message.payload) {
+                        // Detay alınamadıysa native taraf { id, error, code } döndürür
+                        console.error(`[Processor] !!! ERROR fetching details for ID: ${message.id}`, message.error);
+                        continue;
                     }
-                    // --- YENİ LOG VE TRY...CATCH SONU --- //
-
-                    // emailDetailsResponse ve payload kontrolü (try..catch sonrası)
-                    if (emailDetailsResponse?.payload) {
-                        // decodeEmailBody artık { plainBody, htmlBody } döndürüyor
-                        // gmailService yerine localGmailService kullanıldı
-                        const decodedBody = localGmailService.decodeEmailBody(emailDetailsResponse); // Message objesini kullan
-                        
-                        // decodedBody null kontrolü eklendi
-                        if (decodedBody) {
-                            const headers = emailDetailsResponse.payload?.headers || []; // Optional chaining
-                            const senderHeader = headers.find((h: any) => h.name === 'From');
-                            const subjectHeader = headers.find((h: any) => h.name === 'Subject');
-                            const dateHeader = headers.find((h: any) => h.name === 'Date');
-
-                            const sender = senderHeader?.value || 'Unknown'; // Optional chaining
-                            const subject = subjectHeader?.value || 'No Subject'; // Optional chaining
-                            let emailDate = new Date();
-                            try { if (dateHeader?.value) { emailDate = new Date(dateHeader.value); } } catch {}
-
-                            const emailData: EmailDetails = {
-                                id: messageId, // messageId (string) ata
-                                sender: sender,
-                                subject: subject,
-                                date: emailDate,
-                                plainBody: decodedBody.plainBody, // Null değilse eriş
-                                htmlBody: decodedBody.htmlBody,   // Null değilse eriş
-                                originalResponse: emailDetailsResponse // <- Ekin alınması için bu önemli
-                            };
-
-                            // PDF kontrolü IsbankEmailParser.parse içine taşındı.
-                            // decodedBody null kontrolü burada da geçerli
-                            const canParseResult = await processor.emailParser.canParse(sender, subject, decodedBody as DecodedEmailBody, emailData);
-                            if (canParseResult) {
-                                // console.log(`Attempting to parse newest email (${messageId}) for ${processor.bankName}...`); // Log kaldırıldı
-                                // accessToken eklendi
-                                const statement = await processor.emailParser.parse(emailData /*, accessToken */); // accessToken kaldırıldı
-                                if (statement) {
-                                    // console.log(`Successfully parsed EMAIL statement for ${statement.bankName}`); // Log kaldırıldı
-                                    // source'u kontrol et, parser kendi içinde belirlemeli (örn. 'email-pdf')
-                                    parsedStatements.push({ ...statement, source: statement.source || 'email' });
-                                } else {
-                                     console.warn(`Email Parser for ${processor.bankName} identified email but failed to parse content (ID: ${messageId}).`); // Uyarı kalsın
-                                }
-                                 // break; // Eski yorum kalsın
-                            }
-                        } else {
-                             console.warn(`SmsProcessor: Could not decode body for email ID: ${messageId}`);
-                        }
+                    const statement = await this.parseEmail(processor, message, accountResult.account);
+                    if (statement) {
+                        parsedStatements.push(statement);
                     }
                 }
             }
         }
     } catch (error) {
-        // fetchWithAuth'dan gelen hatalar burada yakalanabilir
+        // Native aramadan gelen hatalar burada yakalanabilir
         console.error('[Processor] !!! ERROR fetching or parsing EMAIL statement messages:', error);
     }
 
@@ -242,6 +204,49 @@ export class StatementProcessor {
     return finalStatements;
   }
 
+  // Detayları alınmış tek bir e-postayı bankanın parser'ı ile ayrıştırır
+  private async parseEmail(processor: BankProcessor, message: GmailMessage, account: string): Promise<ParsedStatement | null> {
+    const messageId = message.id as string;
+    const decodedBody = localGmailService.decodeEmailBody(message);
+    if (!decodedBody || !processor.emailParser) {
+        console.warn(`SmsProcessor: Could not decode body for email ID: ${messageId}`);
+        return null;
+    }
+
+    const headers = message.payload?.headers || [];
+    const senderHeader = headers.find((h: any) => h.name === 'From');
+    const subjectHeader = headers.find((h: any) => h.name === 'Subject');
+    const dateHeader = headers.find((h: any) => h.name === 'Date');
+
+    const sender = senderHeader?.value || 'Unknown';
+    const subject = subjectHeader?.value || 'No Subject';
+    let emailDate = new Date();
+    try { if (dateHeader?.value) { emailDate = new Date(dateHeader.value); } } catch {}
+
+    const emailData: EmailDetails = {
+        id: messageId,
+        sender: sender,
+        subject: subject,
+        date: emailDate,
+        plainBody: decodedBody.plainBody,
+        htmlBody: decodedBody.htmlBody,
+        originalResponse: message, // <- Ekin alınması için bu önemli
+        account: account // <- Ek, mesajın geldiği hesaptan indirilir
+    };
+
+    const canParseResult = await processor.emailParser.canParse(sender, subject, decodedBody as DecodedEmailBody, emailData);
+    if (!canParseResult) {
+        return null;
+    }
+    const statement = await processor.emailParser.parse(emailData);
+    if (!statement) {
+        console.warn(`Email Parser for ${processor.bankName} identified email but failed to parse content (ID: ${messageId}).`);
+        return null;
+    }
+    // source'u kontrol et, parser kendi içinde belirlemeli (örn. 'email-pdf')
+    return { ...statement, source: statement.source || 'email' };
+  }
+
 }
 
 // Servisin tek bir örneğini oluşturup dışa aktarabiliriz
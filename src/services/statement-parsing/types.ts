@@ -23,6 +23,7 @@ export interface EmailDetails {
   plainBody: string | null;
   htmlBody: string | null;
   originalResponse?: any; // Ekin alınması için tüm yanıtı saklayalım
+  account?: string; // Mesajın geldiği Google hesabı (yoksa birincil hesap)
 }
 
 // E-posta içeriği (düz metin ve HTML)
@@ -86,5 +87,6 @@ export interface BankProcessor {
   emailParser?: BankEmailParser; // Email parser (opsiyonel)
   screenshotParser?: BankScreenshotParser; // Screenshot parser (opsiyonel)
   gmailQuery?: string; // Bu bankanın e-postalarını bulmak için Gmail sorgusu
+  attachmentSenders?: string[]; // PDF eki parser'ın ihtiyacıysa: bu göndericilerin ekleri önceden indirilir
   // Diğer banka özel ayarları buraya eklenebilir
 } 
\ No newline at end of file
@@ -35,7 +35,8 @@ export async function callNativeGoogleApi<T>(
         `callNativeGoogleApi: Native API call failed with code: ${error.code}. Attempting silent sign-in.`
       );
       try {
-        const silentSignInResult = await GoogleAuth.trySilentSignIn();
+        // Önbellekteki oturum zaten reddedildi; taze oturumu bekle
+        const silentSignInResult = await GoogleAuth.trySilentSignIn({ instant: false });
         if (silentSignInResult && silentSignInResult.idToken) {
           getStore().dispatch(setAuthCredentials(silentSignInResult));
           console.log(
@@ -62,3 +63,38 @@ export async function callNativeGoogleApi<T>(
     throw error;
   }
 }
+
+let sessionListenersRegistered = false;
+
+/**
+ * Açılışta native oturumu ağı beklemeden geri yükler (trySilentSignIn instant yolu) ve arka plan
+ * yenilemesinin sonucunu store'a yansıtır. Persist edilmiş kullanıcı yoksa giriş denemez.
+ */
+export async function restoreGoogleSession(): Promise<void> {
+  if (!sessionListenersRegistered) {
+    sessionListenersRegistered = true;
+    await GoogleAuth.addListener('sessionRefreshed', event => {
+      if (event.stale) {
+        console.warn('restoreGoogleSession: Session refresh failed with a network error; keeping cached session.');
+        return;
+      }
+      getStore().dispatch(setAuthCredentials(event.user));
+    });
+    await GoogleAuth.addListener('sessionExpired', event => {
+      console.warn(`restoreGoogleSession: ${event.provider} session expired (${event.code}). Logging out.`);
+      getStore().dispatch(clearAuth());
+    });
+  }
+  if (!getStore().getState().auth.user) {
+    return;
+  }
+  try {
+    const user = await GoogleAuth.trySilentSignIn();
+    // Firebase önbelleğinden gelen profilde idToken yok; persist edilen token yenileme gelene kadar kalır
+    if (user.idToken) {
+      getStore().dispatch(setAuthCredentials(user));
+    }
+  } catch (e) {
+    console.warn('restoreGoogleSession: Silent sign-in failed; API calls will retry on demand.', e);
+  }
+}